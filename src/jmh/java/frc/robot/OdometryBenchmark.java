@@ -0,0 +1,53 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * One odometry sample: read every module and the gyro, update the pose estimator and add it to the
+ * pose history. The thread is never started, the benchmark calls the update itself.
+ */
+public class OdometryBenchmark {
+
+  @State(Scope.Thread)
+  public static class OdometryState {
+    OdometryThread odometry;
+
+    @Setup
+    public void setup() {
+      StubHardware.startHAL();
+
+      SwerveModule[] modules = new SwerveModule[4];
+      int[][] ids = {DriveConstants.FRONT_LEFT, DriveConstants.FRONT_RIGHT, DriveConstants.BACK_LEFT, DriveConstants.BACK_RIGHT};
+      for (int i = 0; i < modules.length; i++) {
+        modules[i] = new SwerveModule(new StubHardware.ModuleIO(), ids[i][0], ids[i][1], 0, DriveConstants.FL_PID_VALUES);
+      }
+
+      odometry = new OdometryThread(
+        DriveConstants.KINEMATICS,
+        new StubHardware.Gyro(),
+        DriveConstants.ODOMETRY_FREQUENCY,
+        DriveConstants.POSE_HISTORY_SECONDS,
+        modules);
+    }
+
+    @TearDown
+    public void tearDown() {
+      odometry.stop();
+    }
+  }
+
+  @Benchmark
+  public void update(OdometryState state) {
+    state.odometry.update();
+  }
+}
@@ -0,0 +1,97 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.subsystems.SwerveDrive;
+
+/**
+ * SwerveDrive.drive() (discretize, setpoint generator, desaturate, then every module) and a single
+ * SwerveModule.setDesiredState() with its optimize and steering PID. Time is per call, one of
+ * each runs every 20 ms loop.
+ */
+public class SwerveDriveBenchmark {
+
+  // A few different commands so optimize() sees wheels that do and don't need flipping
+  private static final int COMMAND_COUNT = 8;
+
+  @State(Scope.Thread)
+  public static class DriveState {
+    SwerveDrive swerve;
+    ChassisSpeeds[] speeds;
+    int next;
+
+    @Setup
+    public void setup() {
+      StubHardware.startHAL();
+      // Keeps the drivetrain's own odometry notifier from firing in the background
+      SimHooks.pauseTiming();
+
+      swerve = new SwerveDrive(
+        new StubHardware.Gyro(),
+        new StubHardware.ModuleIO(),
+        new StubHardware.ModuleIO(),
+        new StubHardware.ModuleIO(),
+        new StubHardware.ModuleIO());
+      swerve.updateInputs();
+      // Off by default, but it's the heavier path and the one worth timing
+      swerve.setSetpointGeneratorEnabled(true);
+
+      speeds = new ChassisSpeeds[COMMAND_COUNT];
+      for (int i = 0; i < COMMAND_COUNT; i++) {
+        double angle = 2 * Math.PI * i / COMMAND_COUNT;
+        speeds[i] = new ChassisSpeeds(3 * Math.cos(angle), 3 * Math.sin(angle), i % 2 == 0 ? 1.5 : -1.5);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ModuleState {
+    SwerveModule module;
+    SwerveModuleState[] states;
+    int next;
+
+    @Setup
+    public void setup() {
+      StubHardware.startHAL();
+
+      module = new SwerveModule(
+        new StubHardware.ModuleIO(),
+        DriveConstants.FRONT_LEFT[0],
+        DriveConstants.FRONT_LEFT[1],
+        DriveConstants.FRONT_LEFT_OFFSET,
+        DriveConstants.FL_PID_VALUES);
+      module.updateInputs();
+
+      states = new SwerveModuleState[COMMAND_COUNT];
+      for (int i = 0; i < COMMAND_COUNT; i++) {
+        states[i] = new SwerveModuleState(2.5, Rotation2d.fromDegrees(i * 360.0 / COMMAND_COUNT));
+      }
+    }
+  }
+
+  @Benchmark
+  public void drive(DriveState state) {
+    state.next = (state.next + 1) % COMMAND_COUNT;
+    state.swerve.drive(state.speeds[state.next], DriveConstants.MAX_DRIVE_SPEED);
+  }
+
+  @Benchmark
+  public void setDesiredState(ModuleState state) {
+    state.next = (state.next + 1) % COMMAND_COUNT;
+    // Fresh snapshot like periodic() takes every loop, otherwise the module reuses its last Rotation2d
+    state.module.updateInputs();
+    state.module.setDesiredState(state.states[state.next]);
+  }
+}
@@ -0,0 +1,61 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Drive;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj.simulation.XboxControllerSim;
+import frc.robot.StubHardware;
+import frc.robot.subsystems.SwerveDrive;
+
+/**
+ * A full DriveWithJoystick.execute() with the sticks pushed over: reading the controller, the
+ * joystick math, logging and sending the module states to the drivetrain.
+ */
+public class DriveWithJoystickBenchmark {
+
+  @State(Scope.Thread)
+  public static class JoystickState {
+    DriveWithJoystick command;
+
+    @Setup
+    public void setup() {
+      StubHardware.startHAL();
+      // Keeps the drivetrain's own odometry notifier from firing in the background
+      SimHooks.pauseTiming();
+
+      SwerveDrive swerve = new SwerveDrive(
+        new StubHardware.Gyro(),
+        new StubHardware.ModuleIO(),
+        new StubHardware.ModuleIO(),
+        new StubHardware.ModuleIO(),
+        new StubHardware.ModuleIO());
+      swerve.updateInputs();
+
+      XboxController joy = new XboxController(0);
+      XboxControllerSim joySim = new XboxControllerSim(joy);
+      joySim.setLeftY(0.6);
+      joySim.setLeftX(-0.4);
+      joySim.setRightX(0.5);
+      DriverStationSim.notifyNewData();
+      DriverStation.refreshData();
+
+      command = new DriveWithJoystick(swerve, joy, false, false);
+      command.initialize();
+    }
+  }
+
+  @Benchmark
+  public void execute(JoystickState state) {
+    state.command.execute();
+  }
+}
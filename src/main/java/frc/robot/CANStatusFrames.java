@@ -0,0 +1,117 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
+import com.revrobotics.CANSparkMax;
+
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * One place that decides how often every SPARK MAX sends its periodic status frames, based on
+ * what the code actually reads from it. Each motor gets a profile in its subsystem's constructor
+ * and the bus load those profiles should produce gets added up here.
+ *
+ * <p>Status 0: applied output and faults (followers listen to the leader's)<br>
+ * Status 1: velocity, temperature, bus voltage and output current<br>
+ * Status 2: position<br>
+ * Status 3 - 6: analog sensor, alternate encoder and duty cycle encoder, none of which we wire to a SPARK MAX
+ */
+public final class CANStatusFrames {
+
+  /** Longest period a SPARK MAX accepts, effectively turns the frame off. */
+  private static final int DISABLED = 65535;
+
+  /** Bits in one extended CAN frame with 8 data bytes, including worst case bit stuffing. */
+  private static final double BITS_PER_FRAME = 160;
+  private static final double BUS_BITS_PER_SECOND = 1_000_000;
+
+  /** Every motor also gets a setpoint frame from the roboRIO each 20ms loop. */
+  private static final int CONTROL_PERIOD_MS = 20;
+
+  public enum Profile {
+    /** Swerve drive motors, velocity and position feed odometry at high rate. */
+    DRIVE(10, 10, 10),
+    /** Swerve rotate motors, position closes the steering loop and feeds odometry. */
+    STEER(10, 20, 10),
+    /** Flywheel leader, only velocity matters. */
+    VELOCITY_LEADER(10, 20, 500),
+    /** Elevator leader, position for climb limits, current occasionally. */
+    POSITION_LEADER(10, 100, 20),
+    /** Intake, current and velocity for jam detection. */
+    CURRENT_SENSING(10, 20, 500),
+    /** Motors read through a sensor on the roboRIO, only current for the dashboard. */
+    OPEN_LOOP(10, 100, 500),
+    /** Followers, nothing is read from them at all. */
+    FOLLOWER(100, 500, 500);
+
+    public final int status0;
+    public final int status1;
+    public final int status2;
+
+    Profile(int status0, int status1, int status2) {
+      this.status0 = status0;
+      this.status1 = status1;
+      this.status2 = status2;
+    }
+
+    /**
+     * @return Bits per second this profile puts on the bus.
+     */
+    public double bitsPerSecond() {
+      double framesPerSecond = 1000.0 / status0 + 1000.0 / status1 + 1000.0 / status2 + 1000.0 / CONTROL_PERIOD_MS;
+      return framesPerSecond * BITS_PER_FRAME;
+    }
+  }
+
+  private static double expectedBitsPerSecond;
+  private static int deviceCount;
+
+  /**
+   * Apply a profile's status frame periods to a motor and count it toward the expected bus load.
+   * @param motor The SPARK MAX to configure
+   * @param profile What the code reads from this motor
+   */
+  public static void configure(CANSparkMax motor, Profile profile) {
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus0, profile.status0);
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus1, profile.status1);
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus2, profile.status2);
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus3, DISABLED);
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus4, DISABLED);
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus5, DISABLED);
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus6, DISABLED);
+
+    expectedBitsPerSecond += profile.bitsPerSecond();
+    deviceCount++;
+  }
+
+  /**
+   * @return Expected CAN bus utilization from every configured motor, from 0 to 1.
+   */
+  public static double getExpectedBusLoad() {
+    return expectedBitsPerSecond / BUS_BITS_PER_SECOND;
+  }
+
+  /**
+   * @return How many motors have been configured.
+   */
+  public static int getDeviceCount() {
+    return deviceCount;
+  }
+
+  /**
+   * Puts the expected and measured bus utilization side by side on the dashboard.
+   */
+  public static void report() {
+    SmartDashboard.putNumber("CAN/Expected Load %", getExpectedBusLoad() * 100);
+    SmartDashboard.putNumber("CAN/Measured Load %", RobotController.getCANStatus().percentBusUtilization * 100);
+    SmartDashboard.putNumber("CAN/Configured Devices", deviceCount);
+  }
+
+  private CANStatusFrames() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+}
@@ -25,8 +25,11 @@ import edu.wpi.first.units.Unit;
  */
 public final class Constants {
 
+  // How often every SPARK MAX runs its onboard PID, in seconds. Used to scale the I and D gains tuned per second.
+  public static final double ONBOARD_PID_PERIOD = 0.001;
+
 public static class IntakeConstants {
-  public static final int INTAKE_SENSOR = 1;
+  public static final int INTAKE_SENSOR = 5; // Beam break DIO
   
   public static final int INTAKE_MOTOR = 10;
 
@@ -39,17 +42,68 @@ public static class IntakeConstants {
   public static final double INTAKE_SPEED = 0.6;
   public static final double INTAKE_SHOOT_SPEED = 1;
   public static final double FEED_SHOOTER_SPEED = 1; 
+  public static final double INTAKE_PULL_SPEED = -0.7;
+  // Roller output once a note breaks the beam, 0 stops it dead
+  public static final double NOTE_HOLD_SPEED = 0;
   public static final double WRIST_SPEED = 0.7;
 
 public static final double LOW_WRIST_POS = 0.9;
   public static final double HIGH_WRIST_POS = 0.30;
   public static final double AMP_POS = 0.531; // In memoriam of 0.342 :(
 
+  // Wrist motion profile, angles are radians up from level and the through bore reading goes up as the wrist lowers
+  public static final double WRIST_HORIZONTAL_POS = 0.9; // Through bore reading with the intake level
+  public static final double WRIST_GEARING = 60; // Motor rotations per wrist rotation
+  public static final double WRIST_MAX_VELOCITY = 6; // Radians/second
+  public static final double WRIST_MAX_ACCELERATION = 20; // Radians/second^2
+  // Arm feedforward, volts, volts, volts per radian/second and volts per radian/second^2
+  public static final double WRIST_KS = 0.1;
+  public static final double WRIST_KG = 0.35;
+  public static final double WRIST_KV = 1.2;
+  public static final double WRIST_KA = 0.02;
+  // Feedback on the profile's setpoint, volts per radian of error
+  public static final double WRIST_P = 8;
+  public static final double WRIST_D = 0.2;
+  // Moves are done once the wrist is this close to the goal, through bore rotations
+  public static final double WRIST_GOAL_TOLERANCE = 0.01;
+  // Run the profile on the SPARK MAX with smart motion instead of on the roboRIO. Can be flipped from the dashboard.
+  public static final boolean WRIST_SMART_MOTION = false;
+  // Smart motion loop on the SPARK MAX, output fraction per radian of error
+  public static final double WRIST_SMART_MOTION_P = 0.4;
+
   public static final double MAX_DISTANCE = 83;
+
+  // Elevator, in motor rotations with positive going down and zero all the way down on the magnetic switch
+  public static final double ELEVATOR_BOTTOM = 0;
+  public static final double ELEVATOR_TOP = -MAX_DISTANCE;
+  // Smart velocity and smart motion limits on the SPARK MAX
+  public static final double ELEVATOR_MAX_VELOCITY = 5000; // Motor RPM
+  public static final double ELEVATOR_MAX_ACCELERATION = 20000; // Motor RPM/second
+  // Feedforward, volts and volts per motor RPM
+  public static final double ELEVATOR_KS = 0.15;
+  public static final double ELEVATOR_KV = 0.0021;
+  // Extra volts to hold the robot's weight once it's hanging off the chain
+  public static final double ELEVATOR_CLIMB_KG = 2.5;
+  // SPARK MAX loops, output fraction per motor RPM and per motor rotation of error
+  public static final double ELEVATOR_VELOCITY_P = 0.0001;
+  public static final double ELEVATOR_POSITION_P = 0.1;
   
   public static final double DESIRED_SPEED = 5100;
   
   public static final double DEFAULT_CURRENT = 30;
+
+  // Intake jam detection, over a rolling window of loops
+  public static final int JAM_WINDOW = 10; // Loops, 0.2 seconds
+  // Currents are fractions of the roller's current limit, which the power budget can drop as low as
+  // PowerConstants.INTAKE_MIN_CURRENT. A stalled motor sits at its limit, whatever that is right now.
+  public static final double JAM_CURRENT = 0.5; // Average current while stalled, 30 A at the full 60 A limit
+  public static final double JAM_VELOCITY = 400; // Motor RPM, the encoder isn't scaled to the roller, never got above while stalled
+  public static final double PICKUP_CURRENT = 0.25; // Average current while dragging a note in, 15 A at the full limit
+  // Reverse and retry when the rollers stall, up to a few times before giving up
+  public static final boolean JAM_RECOVERY = true;
+  public static final double JAM_REVERSE_SPEED = 0.4;
+  public static final double JAM_REVERSE_TIME = 0.25; // Seconds
+  public static final int JAM_MAX_RETRIES = 3;
 }
 
   public static class DriveConstants {
@@ -66,6 +120,13 @@ public static final double LOW_WRIST_POS = 0.9;
     public static final double MAX_ACCELERATION = Units.feetToMeters(5);
     public static final double MAX_RPS = 5820;
 
+    // How many times per second the odometry thread samples the modules and gyro (100 - 250 Hz)
+    public static final double ODOMETRY_FREQUENCY = 200;
+    // How long after startup the gyro is zeroed, the NavX is still calibrating before that
+    public static final double GYRO_ZERO_DELAY = 1; // Seconds
+    // How far back the pose history reaches for latency compensation
+    public static final double POSE_HISTORY_SECONDS = 1.5;
+
     public static final double WHEEL_DIAMETER = Units.inchesToMeters(4);
     public static final double WHEEL_CIRCUMFERENCE = 2 * Math.PI;
 
@@ -75,18 +136,62 @@ public static final double LOW_WRIST_POS = 0.9;
     public static final double ROTATE_POSITION_CONVERSION = ROTATE_GEAR_RATIO * Math.PI * 2;
     public static final double ROTATE_VELOCITY_CONVERSION = ROTATE_POSITION_CONVERSION / 60;
 
-    public static final SwerveDriveKinematics KINEMATICS = new SwerveDriveKinematics(
+    // Front left, front right, back left, back right
+    public static final Translation2d[] MODULE_LOCATIONS = {
       new Translation2d(TRACK_WIDTH / 2, TRACK_WIDTH / 2),
       new Translation2d(TRACK_WIDTH / 2, -TRACK_WIDTH / 2),
       new Translation2d(-TRACK_WIDTH / 2, TRACK_WIDTH / 2),
       new Translation2d(-TRACK_WIDTH / 2, -TRACK_WIDTH / 2)
-    );
+    };
+
+    public static final SwerveDriveKinematics KINEMATICS = new SwerveDriveKinematics(MODULE_LOCATIONS);
+
+    // Limit how fast the wheels' speed and angle change so every module can follow its setpoint. Can be flipped from the dashboard.
+    // Off until the two limits below have been measured on the robot, too low and the drive feels sluggish. The joystick
+    // falls back to slew limiting its sticks while it's off.
+    public static final boolean SETPOINT_GENERATOR = false;
+    // Most a wheel's speed may change. Worked out, not measured: a bit under what the carpet grips,
+    // SimConstants.WHEEL_COF * g is about 10.8 m/s^2
+    public static final double MAX_MODULE_ACCELERATION = 8; // M/S^2
+    // Most a moving wheel may turn. Worked out, not measured: a NEO through the 12.75:1 steer gearing is
+    // about 2700 deg/s free, this leaves room for the load and the steer PID settling
+    public static final double MAX_STEER_VELOCITY = Math.toRadians(720); // Rad/S
+    // Wheels slower than this may turn as fast as they like, they hardly scrub
+    public static final double STEER_LIMIT_MIN_SPEED = 0.1; // M/S
 
     public static final double[] FL_PID_VALUES = {0.12, 0.01, 0.009};
     public static final double[] FR_PID_VALUES = {0.14, 0.001, 0.005};
     public static final double[] BL_PID_VALUES = {0.16, 0.001, 0.005};
     public static final double[] BR_PID_VALUES = {0.12, 0.001, 0.005};
 
+    // Steer with the SPARK MAX's own position loop instead of a PIDController on the roboRIO. Can be flipped from the dashboard.
+    // Off until the onboard gains have been checked on the robot, the PID values above were tuned for the roboRIO loop.
+    public static final boolean ONBOARD_STEERING = false;
+
+    // Hold wheel speed with the SPARK MAX velocity loop and a feedforward instead of open loop percent. Can be flipped from the dashboard.
+    // Off until DriveCharacterization has been run on the robot, the feedforward below is only an estimate.
+    public static final boolean CLOSED_LOOP_DRIVE = false;
+    // Drive feedforward, volts, volts per meter/second and volts per meter/second^2. Estimated from the NEO's free speed and the
+    // robot's weight, not measured yet. Rerun DriveCharacterization after anything mechanical changes and copy its results here.
+    public static final double DRIVE_KS = 0.15;
+    public static final double DRIVE_KV = 2.6;
+    public static final double DRIVE_KA = 0.35;
+    public static final double[] DRIVE_VELOCITY_PID_VALUES = {0.05, 0, 0};
+
+    // Drive characterization, a slow ramp forward then a quick step back
+    public static final double CHARACTERIZATION_RAMP_RATE = 1; // Volts/second
+    public static final double CHARACTERIZATION_RAMP_VOLTS = 6;
+    public static final double CHARACTERIZATION_STEP_VOLTS = 5;
+    public static final double CHARACTERIZATION_STEP_SECONDS = 1.5;
+    public static final double CHARACTERIZATION_REST_SECONDS = 1.5;
+    // Samples slower than this are left out of the fit, static friction makes them meaningless
+    public static final double CHARACTERIZATION_MIN_SPEED = 0.05;
+
+    // A setpoint jump bigger than this starts timing how long the wheel takes to get there
+    public static final double STEER_SETTLE_STEP = Math.toRadians(10);
+    // Settled once the wheel is this close
+    public static final double STEER_SETTLE_TOLERANCE = Math.toRadians(2);
+
     // Drive Motor IDs
     public static final int FRONT_LEFT_DRIVE_ID = 1;
     public static final int FRONT_RIGHT_DRIVE_ID = 2;
@@ -139,19 +244,158 @@ public static final double LOW_WRIST_POS = 0.9;
     public static final int kDriverControllerPort = 0;
   }
 
+  public static class AutoConstants {
+    // Auto files in the deploy folder, compiled for both alliances at startup
+    public static final String AUTO_DIRECTORY = "autos";
+    public static final String AUTO_FILE_EXTENSION = ".txt";
+    // Picked when nothing else is
+    public static final String DEFAULT_AUTO = "Do nothing";
+    // Backstop on a shot that doesn't give a timeout, seconds
+    public static final double SHOOT_TIMEOUT = 2;
+  }
+
+  public static class LoggingConstants {
+    public static final boolean ENABLED = true;
+    // A USB stick is preferred when plugged in, the roboRIO's own flash is small
+    public static final String USB_DIRECTORY = "/U/logs";
+    public static final String ROBORIO_DIRECTORY = "/home/lvuser/logs";
+    public static final String SIMULATION_DIRECTORY = "logs";
+    // Kept apart so a replay never rotates away the log it's reading
+    public static final String REPLAY_DIRECTORY = "logs/replay";
+    // Set this environment variable to a log file or folder to replay it in simulation
+    public static final String REPLAY_ENV = "REPLAY_LOG";
+    public static final int QUEUE_CAPACITY = 8192;
+    public static final long MAX_FILE_BYTES = 16L * 1024 * 1024;
+    public static final int MAX_FILES = 8;
+  }
+
+  public static class ProfilerConstants {
+    // Whether the profiler starts on. Off so competition loops don't pay for it, it can be turned on
+    // from the dashboard when there's something to measure. While off every profiler call is a no-op.
+    public static final boolean ENABLED = false;
+    public static final long PUBLISH_PERIOD_NANOS = 1_000_000_000L;
+  }
+
+  public static class SimConstants {
+    public static final double LOOP_PERIOD = 0.02;
+    public static final double NOMINAL_VOLTAGE = 12;
+
+    // Moments of inertia in kg*m^2 as seen at the mechanism, rough CAD numbers
+    // Wheel plus the NEO rotor seen through the drive reduction
+    public static final double WHEEL_MOI = 0.005;
+    public static final double STEER_MOI = 0.004;
+    public static final double INTAKE_MOI = 0.0005;
+    public static final double FLYWHEEL_MOI = 0.004;
+    public static final double ELEVATOR_MOI = 0.01;
+    public static final double WRIST_MOI = 0.05;
+    public static final double WRIST_LENGTH = 0.4; // Meters from the pivot to the end of the intake
+
+    // Drivetrain physics
+    public static final double ROBOT_MASS = 56; // kg with bumpers and battery
+    public static final double ROBOT_MOI = 5.5; // kg*m^2 about the center
+    public static final double WHEEL_COF = 1.1; // Colson on carpet
+    // Slip speed at which the tire gives about three quarters of its grip, softer means more slide
+    public static final double WHEEL_SLIP_SPEED = 0.08;
+    public static final double DRIVE_CURRENT_LIMIT = 60;
+    public static final double STEER_CURRENT_LIMIT = 60;
+    // Physics steps per robot loop, the tire model is stiff
+    public static final int DRIVETRAIN_SUBSTEPS = 40;
+
+    // Gear ratios we don't need on the real robot, motor rotations per mechanism rotation
+    public static final double ELEVATOR_GEARING = 20;
+
+    // How long the rollers have to pull in or push out before the simulated note moves
+    public static final double NOTE_INTAKE_SECONDS = 0.5;
+    public static final double NOTE_EJECT_SECONDS = 0.2;
+  }
+
   public static class OuttakeConstants {
 
     public static final int MOTOR_ONE_ID = 12;
     public static final int MOTOR_TWO_ID = 11;
 
+    // Flywheel velocity loop on the SPARK MAX, output fraction per RPM of error
     public static final double P_VALUE = 0.0001;
     public static final double I_VALUE = 0;
     public static final double D_VALUE = 0;
-    public static final double FF_VALUE = 0.5;
+
+    // Flywheel feedforward, volts, volts per RPM and volts per RPM/second. A NEO is about 12 V at 5676 RPM free.
+    public static final double FLYWHEEL_KS = 0.2;
+    public static final double FLYWHEEL_KV = 0.00205;
+    public static final double FLYWHEEL_KA = 0.0004;
+    // Voltage the spin up prediction assumes the loop has while it's saturated
+    public static final double SPIN_UP_VOLTS = 12;
+
+    // Low pass on the measured speed for the ready check, seconds
+    public static final double VELOCITY_FILTER_SECONDS = 0.04;
+    // Ready once the filtered speed has stayed this close to the target for this long
+    public static final double READY_TOLERANCE = 150; // RPM
+    public static final double READY_TIME = 0.1; // Seconds
+    // A shot is done once the note has been clear of the intake sensor this long
+    public static final double SHOT_CLEAR_TIME = 0.15; // Seconds
+
+    // Distance to speaker -> flywheel speed and wrist position, in the deploy folder
+    public static final String SHOT_MAP_FILE = "shotmap.csv";
+    // How often to look for a new shot map file, seconds
+    public static final double SHOT_MAP_CHECK_INTERVAL = 1;
+    // Middle of the blue speaker opening on the field, meters. Red is mirrored across the field length.
+    public static final Translation2d BLUE_SPEAKER = new Translation2d(0, 5.548);
+    // Wrist has to be this close to the shot map's position before feeding, rotations
+    public static final double WRIST_SHOT_TOLERANCE = 0.01;
+
+    // Shooting while moving
+    public static final double NOTE_EXIT_SPEED = 12; // Meters/second the note leaves the shooter at
+    public static final double RELEASE_DELAY = 0.08; // Seconds from starting to feed until the note leaves
+    public static final double SHOOTER_HEADING_OFFSET = Math.PI; // The shooter is on the back of the robot
+    public static final double AIM_TOLERANCE_WIDTH = 0.2; // Meters either side of the speaker's middle that still scores
+    // Heading loop while aiming, radians/second per radian of error
+    public static final double AIM_P = 5;
+    public static final double AIM_D = 0.1;
     
     public static final int CURRENT_LIMIT = 60;
   }
 
+  public static class PowerConstants {
+    // Share the battery by priority instead of fixed limits. Can be flipped from the dashboard.
+    // Off until the loop time cost of the limit changes and the battery model have been checked on the robot.
+    public static final boolean ENABLED = false;
+
+    // Battery plus main breaker and wiring, a healthy battery is around 15 milliohms on its own. A typical figure, not measured.
+    public static final double BATTERY_RESISTANCE = 0.02; // Ohms
+    // Keep the battery above this, the roboRIO browns out at 6.8 V
+    public static final double MIN_VOLTAGE = 8;
+    // roboRIO, radio, Limelights and anything else not on a current limit
+    public static final double BASE_LOAD = 10; // Amps
+    public static final double OPEN_CIRCUIT_FILTER_SECONDS = 0.5;
+    // Room left on top of what a group is drawing, so it can still speed up
+    public static final double DEMAND_HEADROOM = 1.2;
+    // Every limit change is a CAN frame per motor, so not too often and not for small changes
+    public static final double UPDATE_INTERVAL = 0.25; // Seconds
+    public static final int LIMIT_STEP = 5; // Amps
+
+    // Lower gets current first
+    public static final int STEER_PRIORITY = 0;
+    public static final int DRIVE_PRIORITY = 1;
+    public static final int ELEVATOR_PRIORITY = 2;
+    public static final int OUTTAKE_PRIORITY = 3;
+    public static final int WRIST_PRIORITY = 4;
+    public static final int INTAKE_PRIORITY = 5;
+
+    // Per motor smart current limits, the lowest each group may be squeezed to and its normal limit
+    public static final int STEER_MIN_CURRENT = 25;
+    public static final int STEER_MAX_CURRENT = 60;
+    public static final int DRIVE_MIN_CURRENT = 40;
+    public static final int DRIVE_MAX_CURRENT = 60;
+    public static final int ELEVATOR_MIN_CURRENT = 20;
+    public static final int ELEVATOR_MAX_CURRENT = 30;
+    public static final int OUTTAKE_MIN_CURRENT = 30;
+    public static final int OUTTAKE_MAX_CURRENT = OuttakeConstants.CURRENT_LIMIT;
+    public static final int WRIST_MIN_CURRENT = 15;
+    public static final int WRIST_MAX_CURRENT = 30;
+    public static final int INTAKE_MIN_CURRENT = 20;
+    public static final int INTAKE_MAX_CURRENT = 60;
+  }
+
   public static class LimelightConstants{
 
     //Amp Side Limelight height constants
@@ -185,6 +429,25 @@ public static final double LOW_WRIST_POS = 0.9;
     //Limelight name constants
     public static final String AMP_SIDE_LIMELIGHT_NAME = "limelight-amp";
     public static final String SHOOTER_SIDE_LIMELIGHT_NAME = "limelight-shooter";
+
+    //Vision measurement rejection constants
+    public static final int MIN_TAG_COUNT = 1;
+    public static final double MAX_SINGLE_TAG_AMBIGUITY = 0.2;
+    public static final double MAX_SINGLE_TAG_DISTANCE = Units.feetToMeters(12);
+    public static final double MAX_MULTI_TAG_DISTANCE = Units.feetToMeters(20);
+    public static final double FIELD_LENGTH = Units.inchesToMeters(651.25);
+    public static final double FIELD_WIDTH = Units.inchesToMeters(323.25);
+
+    //Vision measurement trust, scaled by distance squared over tag count
+    public static final double XY_STD_DEV_PER_METER_SQUARED = 0.1;
+    public static final double THETA_STD_DEV_PER_METER_SQUARED = 0.2;
+    public static final double SINGLE_TAG_THETA_STD_DEV = 9999; // Don't trust single tag headings, the gyro is better
+
+    //Odometry trust for the pose estimator (x meters, y meters, theta radians)
+    public static final double[] STATE_STD_DEVS = {0.05, 0.05, 0.01};
+
+    //How many frames each camera keeps between loops (90 fps cameras give about 2 per loop)
+    public static final int FRAMES_PER_LOOP = 4;
   }
 
 }
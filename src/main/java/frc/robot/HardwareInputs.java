@@ -0,0 +1,56 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Keeps count of how many sensor reads went to the hardware and how many were served from the
+ * per-cycle input snapshots instead. Every subsystem refreshes its Inputs once in periodic(),
+ * which the scheduler runs before any command executes, so everything after that is cached.
+ */
+public final class HardwareInputs {
+
+  private static int hardwareReads;
+  private static int cachedReads;
+
+  private static int lastHardwareReads;
+  private static int lastCachedReads;
+
+  /**
+   * Called by a subsystem after refreshing its snapshot.
+   * @param reads How many JNI/CAN reads the refresh took
+   */
+  public static void countRefresh(int reads) {
+    hardwareReads += reads;
+  }
+
+  /**
+   * Called every time a getter is answered from a snapshot instead of the hardware.
+   */
+  public static void countCachedRead() {
+    cachedReads++;
+  }
+
+  /**
+   * Publish this cycle's counts and start over. Call once at the end of robotPeriodic().
+   */
+  public static void endCycle() {
+    if (hardwareReads != lastHardwareReads || cachedReads != lastCachedReads) {
+      SmartDashboard.putNumber("Inputs/Hardware Reads", hardwareReads);
+      SmartDashboard.putNumber("Inputs/Cached Reads", cachedReads);
+      // Every cached read used to be its own JNI call
+      SmartDashboard.putNumber("Inputs/JNI Calls Saved", cachedReads - hardwareReads);
+      lastHardwareReads = hardwareReads;
+      lastCachedReads = cachedReads;
+    }
+    hardwareReads = 0;
+    cachedReads = 0;
+  }
+
+  private HardwareInputs() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+}
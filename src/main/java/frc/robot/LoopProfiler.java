@@ -0,0 +1,231 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.ProfilerConstants;
+
+/**
+ * Low overhead timing of every subsystem periodic() and command execute() in the loop.
+ * Times go into preallocated log-scale histograms and a p50/p95/max summary in milliseconds
+ * is published under the Profiler table once a second. It starts on or off from
+ * {@link ProfilerConstants#ENABLED} and can be flipped from the dashboard, taking effect at the next
+ * loop. While it's off every call returns right away.
+ *
+ * <p>Subsystems time themselves with a {@link Section}. Commands are timed from the scheduler's
+ * execute callback as the time since the previous mark, so the first command each loop also
+ * includes the trigger polling that comes before it.
+ */
+public final class LoopProfiler {
+
+  // Four buckets per power of two of microseconds, up to about one second
+  private static final int SUB_BUCKET_BITS = 2;
+  private static final int BUCKET_COUNT = 21 << SUB_BUCKET_BITS;
+
+  private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("Profiler");
+  private static final List<Section> sections = new ArrayList<>();
+  private static final Map<String, Section> commandSections = new HashMap<>();
+
+  private static final Section loop = new Section("Loop");
+
+  private static long mark;
+  private static long lastPublish;
+
+  // Only changed at the top of a loop, so no section is ever stopped without having been started
+  private static boolean enabled = ProfilerConstants.ENABLED;
+  private static volatile boolean requestedEnabled = ProfilerConstants.ENABLED;
+
+  /**
+   * One timed piece of the loop with its own histogram.
+   */
+  public static final class Section {
+    private final int[] buckets = new int[BUCKET_COUNT];
+    private final double[] summary = new double[3];
+    private final String name;
+    // Made the first time there's something to publish, so nothing shows up while the profiler is off
+    private DoubleArrayPublisher publisher;
+    private long maxNanos;
+    private int samples;
+    private long startTime;
+
+    private Section(String name) {
+      this.name = name;
+      sections.add(this);
+    }
+
+    /**
+     * Start timing.
+     */
+    public void start() {
+      if (!enabled) {
+        return;
+      }
+      startTime = System.nanoTime();
+    }
+
+    /**
+     * Stop timing and record how long it took since {@link #start()}.
+     */
+    public void stop() {
+      if (!enabled) {
+        return;
+      }
+      long now = System.nanoTime();
+      record(now - startTime);
+      mark = now;
+    }
+
+    private void record(long nanos) {
+      buckets[bucketFor(nanos)]++;
+      maxNanos = Math.max(maxNanos, nanos);
+      samples++;
+    }
+
+    private void publish() {
+      if (samples == 0) {
+        return;
+      }
+      summary[0] = percentile(0.50);
+      summary[1] = percentile(0.95);
+      summary[2] = maxNanos / 1e6;
+      if (publisher == null) {
+        publisher = table.getDoubleArrayTopic(name).publish();
+      }
+      publisher.set(summary);
+
+      Arrays.fill(buckets, 0);
+      maxNanos = 0;
+      samples = 0;
+    }
+
+    /**
+     * @return Upper edge in milliseconds of the bucket holding the given fraction of samples.
+     */
+    private double percentile(double fraction) {
+      int target = (int) Math.ceil(samples * fraction);
+      int seen = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += buckets[i];
+        if (seen >= target) {
+          return Math.min(bucketUpperMicros(i) / 1000.0, maxNanos / 1e6);
+        }
+      }
+      return maxNanos / 1e6;
+    }
+  }
+
+  /**
+   * Create a section for a subsystem or any other piece of code to time itself with.
+   * Call once, from a constructor, and keep the section in a field.
+   * @param name Key to publish the summary under
+   */
+  public static Section section(String name) {
+    return new Section(name);
+  }
+
+  /**
+   * Hook the scheduler's command callbacks. Call once after the commands are created.
+   */
+  public static void install() {
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    // Initialization time shouldn't count against the next command's execute
+    scheduler.onCommandInitialize(command -> {
+      if (enabled) {
+        mark = System.nanoTime();
+      }
+    });
+    scheduler.onCommandExecute(LoopProfiler::commandExecuted);
+  }
+
+  /**
+   * Turn the profiler on or off from the next loop on.
+   */
+  public static void setEnabled(boolean enabled) {
+    requestedEnabled = enabled;
+  }
+
+  /**
+   * @return Whether the profiler is on, or will be from the next loop.
+   */
+  public static boolean isEnabled() {
+    return requestedEnabled;
+  }
+
+  /**
+   * Call right before running the scheduler.
+   */
+  public static void beginLoop() {
+    enabled = requestedEnabled;
+    if (!enabled) {
+      return;
+    }
+    loop.start();
+    mark = loop.startTime;
+  }
+
+  /**
+   * Call right after running the scheduler. Publishes the summaries once a second.
+   */
+  public static void endLoop() {
+    if (!enabled) {
+      return;
+    }
+    loop.stop();
+
+    if (loop.startTime - lastPublish >= ProfilerConstants.PUBLISH_PERIOD_NANOS) {
+      for (int i = 0; i < sections.size(); i++) {
+        sections.get(i).publish();
+      }
+      lastPublish = loop.startTime;
+    }
+  }
+
+  private static void commandExecuted(Command command) {
+    if (!enabled) {
+      return;
+    }
+    long now = System.nanoTime();
+    Section section = commandSections.get(command.getName());
+    if (section == null) {
+      section = new Section(command.getName());
+      commandSections.put(command.getName(), section);
+    }
+    section.record(now - mark);
+    mark = now;
+  }
+
+  private static int bucketFor(long nanos) {
+    long micros = nanos / 1000;
+    if (micros < (1 << SUB_BUCKET_BITS)) {
+      return (int) micros;
+    }
+    int msb = 63 - Long.numberOfLeadingZeros(micros);
+    int sub = (int) (micros >> (msb - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+    return Math.min(((msb - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + sub, BUCKET_COUNT - 1);
+  }
+
+  private static long bucketUpperMicros(int bucket) {
+    if (bucket < (1 << SUB_BUCKET_BITS)) {
+      return bucket + 1;
+    }
+    int msb = (bucket >> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+    int sub = bucket & ((1 << SUB_BUCKET_BITS) - 1);
+    return ((long) ((1 << SUB_BUCKET_BITS) + sub + 1)) << (msb - SUB_BUCKET_BITS);
+  }
+
+  private LoopProfiler() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+}
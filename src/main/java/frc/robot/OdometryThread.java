@@ -0,0 +1,281 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.LimelightConstants;
+import frc.robot.subsystems.GyroIO;
+import frc.robot.subsystems.VisionIO;
+
+/**
+ * Samples the swerve modules and the gyro on its own thread so odometry keeps integrating
+ * at a fixed rate even when the 50 Hz scheduler loop overruns. Vision measurements are fused
+ * into the same pose estimator with latency compensation.
+ */
+public class OdometryThread implements AutoCloseable {
+
+  private final SwerveModule[] modules;
+  private final GyroIO gyro;
+
+  private final SwerveDrivePoseEstimator odometry;
+  private final Matrix<N3, N1> visionStdDevs;
+  private final PoseHistory history;
+  private final Notifier notifier;
+  private final double period;
+
+  // Only touched from inside the lock
+  private final SwerveModulePosition[] positions;
+  private final double[] lastRotatePositions;
+  private final Rotation2d[] lastRotations;
+  private double lastHeading;
+  private Rotation2d lastHeadingRotation;
+
+  private volatile Pose2d latestPose;
+  private volatile double latestTimestamp;
+  private volatile long sampleCount;
+  private volatile long missedSamples;
+
+  /**
+   * @param kinematics Kinematics of the drivetrain
+   * @param gyro The gyro to read the heading from
+   * @param frequency How many times per second to sample, in hertz
+   * @param historySeconds How many seconds of samples to keep for {@link #getPoseAt(double)}
+   * @param modules The modules in the same order as the kinematics
+   */
+  public OdometryThread(SwerveDriveKinematics kinematics, GyroIO gyro, double frequency, double historySeconds, SwerveModule... modules) {
+    this.modules = modules;
+    this.gyro = gyro;
+    this.period = 1.0 / frequency;
+
+    history = new PoseHistory((int) Math.ceil(historySeconds * frequency), modules.length);
+
+    positions = new SwerveModulePosition[modules.length];
+    lastRotatePositions = new double[modules.length];
+    lastRotations = new Rotation2d[modules.length];
+    for (int i = 0; i < modules.length; i++) {
+      positions[i] = new SwerveModulePosition();
+      lastRotatePositions[i] = Double.NaN;
+      lastRotations[i] = new Rotation2d();
+    }
+    lastHeading = Double.NaN;
+    lastHeadingRotation = new Rotation2d();
+
+    visionStdDevs = VecBuilder.fill(1, 1, LimelightConstants.SINGLE_TAG_THETA_STD_DEV);
+
+    synchronized (this) {
+      sampleModules();
+      odometry = createEstimator(kinematics, sampleHeading(), positions, visionStdDevs);
+    }
+    latestPose = odometry.getEstimatedPosition();
+    latestTimestamp = Timer.getFPGATimestamp();
+    history.add(latestTimestamp, latestPose, positions);
+
+    notifier = new Notifier(this::update);
+    notifier.setName("Odometry");
+  }
+
+  /**
+   * The estimator configuration shared by the robot and log replay.
+   * @param kinematics Kinematics of the drivetrain
+   * @param heading Current gyro heading
+   * @param positions Current module positions
+   * @param visionStdDevs Default vision standard deviations
+   */
+  public static SwerveDrivePoseEstimator createEstimator(SwerveDriveKinematics kinematics, Rotation2d heading, SwerveModulePosition[] positions, Matrix<N3, N1> visionStdDevs) {
+    return new SwerveDrivePoseEstimator(
+      kinematics,
+      heading,
+      positions,
+      new Pose2d(),
+      VecBuilder.fill(
+        LimelightConstants.STATE_STD_DEVS[0],
+        LimelightConstants.STATE_STD_DEVS[1],
+        LimelightConstants.STATE_STD_DEVS[2]),
+      visionStdDevs);
+  }
+
+  /**
+   * Start sampling at the configured rate.
+   */
+  public void start() {
+    latestTimestamp = Timer.getFPGATimestamp();
+    notifier.startPeriodic(period);
+  }
+
+  /**
+   * Stop sampling. The last pose is kept.
+   */
+  public void stop() {
+    notifier.stop();
+  }
+
+  /**
+   * Stop sampling for good and free the notifier.
+   */
+  @Override
+  public void close() {
+    notifier.close();
+  }
+
+  /**
+   * Reads every module and the gyro, timestamps the sample, and integrates it into the odometry.
+   * Package private for the benchmarks, everything else lets the notifier call it.
+   */
+  void update() {
+    double timestamp = Timer.getFPGATimestamp();
+
+    // Published inside the lock too, or a sample taken before a reset could land after it
+    synchronized (this) {
+      sampleModules();
+      Pose2d pose = odometry.updateWithTime(timestamp, sampleHeading(), positions);
+      history.add(timestamp, pose, positions);
+
+      // Anything later than one and a half periods means at least one sample was skipped
+      double elapsed = timestamp - latestTimestamp;
+      if (elapsed > period * 1.5) {
+        missedSamples += Math.max(1, Math.round(elapsed / period) - 1);
+      }
+
+      latestPose = pose;
+      latestTimestamp = timestamp;
+      sampleCount++;
+    }
+  }
+
+  /**
+   * Reset the odometry to a pose using a fresh sample of the modules and gyro.
+   * @param pose The pose the robot is currently at.
+   */
+  public void resetPosition(Pose2d pose) {
+    double timestamp = Timer.getFPGATimestamp();
+    synchronized (this) {
+      sampleModules();
+      odometry.resetPosition(sampleHeading(), positions, pose);
+
+      // History from before the reset is in a different frame, so drop it
+      history.clear();
+      history.add(timestamp, pose, positions);
+      latestPose = pose;
+    }
+  }
+
+  /**
+   * Fuses a batch of accepted vision frames while holding the lock only once.
+   * The estimator rewinds to each frame's timestamp, so latency is compensated for.
+   * @param frames Frames with their standard deviations filled in
+   * @param count How many of the frames to use
+   */
+  public void addVisionMeasurements(VisionIO.Frame[] frames, int count) {
+    if (count == 0) {
+      return;
+    }
+
+    synchronized (this) {
+      for (int i = 0; i < count; i++) {
+        VisionIO.Frame frame = frames[i];
+        visionStdDevs.set(0, 0, frame.xyStdDev);
+        visionStdDevs.set(1, 0, frame.xyStdDev);
+        visionStdDevs.set(2, 0, frame.thetaStdDev);
+        odometry.addVisionMeasurement(
+          new Pose2d(frame.x, frame.y, new Rotation2d(frame.heading)),
+          frame.timestamp,
+          visionStdDevs);
+      }
+      latestPose = odometry.getEstimatedPosition();
+    }
+  }
+
+  /**
+   * Refreshes the module positions in place. Call only while holding the lock.
+   */
+  private void sampleModules() {
+    for (int i = 0; i < modules.length; i++) {
+      positions[i].distanceMeters = modules[i].sampleDrivePosition();
+
+      double rotatePosition = modules[i].sampleRotatePosition();
+      if (rotatePosition != lastRotatePositions[i]) {
+        lastRotatePositions[i] = rotatePosition;
+        lastRotations[i] = new Rotation2d(rotatePosition);
+      }
+      positions[i].angle = lastRotations[i];
+    }
+  }
+
+  /**
+   * Call only while holding the lock.
+   * @return The gyro heading, wrapped to -180 to 180 degrees and counter-clockwise positive like
+   * the rest of the field geometry. The gyro itself reads clockwise positive.
+   */
+  private Rotation2d sampleHeading() {
+    double heading = Math.IEEEremainder(gyro.sampleAngle(), 360);
+    if (heading != lastHeading) {
+      lastHeading = heading;
+      lastHeadingRotation = Rotation2d.fromDegrees(-heading);
+    }
+    return lastHeadingRotation;
+  }
+
+  /**
+   * Never blocks, the pose is swapped in atomically after each sample, reset or vision batch.
+   * @return The most recently integrated pose.
+   */
+  public Pose2d getPose() {
+    return latestPose;
+  }
+
+  /**
+   * @param timestamp FPGA timestamp in seconds
+   * @return The pose interpolated from the history, clamped to the oldest and newest samples.
+   */
+  public Pose2d getPoseAt(double timestamp) {
+    Pose2d pose = history.getPoseAt(timestamp);
+    return pose == null ? latestPose : pose;
+  }
+
+  /**
+   * @return The timestamped sample history backing this thread.
+   */
+  public PoseHistory getHistory() {
+    return history;
+  }
+
+  /**
+   * @return FPGA timestamp in seconds of the most recent sample.
+   */
+  public double getLatestTimestamp() {
+    return latestTimestamp;
+  }
+
+  /**
+   * @return Total number of samples integrated since the robot started.
+   */
+  public long getSampleCount() {
+    return sampleCount;
+  }
+
+  /**
+   * @return Number of samples that were skipped or came in late.
+   */
+  public long getMissedSamples() {
+    return missedSamples;
+  }
+
+  /**
+   * @return Sampling rate in hertz.
+   */
+  public double getFrequency() {
+    return 1.0 / period;
+  }
+}
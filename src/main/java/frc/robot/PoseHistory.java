@@ -0,0 +1,227 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+
+/**
+ * Fixed-size ring buffer of timestamped odometry samples stored in primitive arrays.
+ * Adding a sample never allocates, and looking one up by timestamp is a binary search
+ * with linear interpolation between the two closest samples.
+ */
+public class PoseHistory {
+
+  private final int capacity;
+  private final int moduleCount;
+
+  private final double[] timestamps;
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] headings;
+  private final double[] moduleDistances;
+  private final double[] moduleAngles;
+
+  // Index of the oldest sample and how many samples are stored
+  private int start;
+  private int size;
+
+  /**
+   * @param capacity Maximum number of samples kept before the oldest gets overwritten
+   * @param moduleCount Number of swerve modules stored with each sample
+   */
+  public PoseHistory(int capacity, int moduleCount) {
+    this.capacity = capacity;
+    this.moduleCount = moduleCount;
+
+    timestamps = new double[capacity];
+    xs = new double[capacity];
+    ys = new double[capacity];
+    headings = new double[capacity];
+    moduleDistances = new double[capacity * moduleCount];
+    moduleAngles = new double[capacity * moduleCount];
+  }
+
+  /**
+   * Record a sample. Samples older than the newest one are dropped so the buffer stays sorted.
+   * @param timestamp FPGA timestamp in seconds
+   * @param pose Robot pose at that time
+   * @param positions Module positions at that time
+   */
+  public synchronized void add(double timestamp, Pose2d pose, SwerveModulePosition[] positions) {
+    if (size > 0 && timestamp <= timestamps[physicalIndex(size - 1)]) {
+      return;
+    }
+
+    int index;
+    if (size < capacity) {
+      index = physicalIndex(size);
+      size++;
+    } else {
+      index = start;
+      start = (start + 1) % capacity;
+    }
+
+    timestamps[index] = timestamp;
+    xs[index] = pose.getX();
+    ys[index] = pose.getY();
+    headings[index] = pose.getRotation().getRadians();
+
+    int moduleIndex = index * moduleCount;
+    for (int i = 0; i < moduleCount; i++) {
+      moduleDistances[moduleIndex + i] = positions[i].distanceMeters;
+      moduleAngles[moduleIndex + i] = positions[i].angle.getRadians();
+    }
+  }
+
+  /**
+   * Forget every sample, used when the odometry gets reset.
+   */
+  public synchronized void clear() {
+    start = 0;
+    size = 0;
+  }
+
+  /**
+   * @return Number of samples currently stored.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * @return Timestamp of the newest sample, or NaN when empty.
+   */
+  public synchronized double getLatestTimestamp() {
+    return size == 0 ? Double.NaN : timestamps[physicalIndex(size - 1)];
+  }
+
+  /**
+   * @return Timestamp of the oldest sample, or NaN when empty.
+   */
+  public synchronized double getOldestTimestamp() {
+    return size == 0 ? Double.NaN : timestamps[start];
+  }
+
+  /**
+   * @return The newest pose, or null when empty.
+   */
+  public synchronized Pose2d getLatestPose() {
+    if (size == 0) {
+      return null;
+    }
+    int index = physicalIndex(size - 1);
+    return new Pose2d(xs[index], ys[index], new Rotation2d(headings[index]));
+  }
+
+  /**
+   * Timestamps outside the stored range are clamped to the oldest or newest sample.
+   * @param timestamp FPGA timestamp in seconds
+   * @return The interpolated pose at that time, or null when empty.
+   */
+  public synchronized Pose2d getPoseAt(double timestamp) {
+    if (size == 0) {
+      return null;
+    }
+    int upper = findUpper(timestamp);
+    int lower = Math.max(upper - 1, 0);
+    double t = fraction(lower, upper, timestamp);
+
+    int a = physicalIndex(lower);
+    int b = physicalIndex(upper);
+    return new Pose2d(
+      MathUtil.interpolate(xs[a], xs[b], t),
+      MathUtil.interpolate(ys[a], ys[b], t),
+      new Rotation2d(interpolateAngle(headings[a], headings[b], t)));
+  }
+
+  /**
+   * Allocation-free version of {@link #getPoseAt(double)} for use inside the loop.
+   * @param timestamp FPGA timestamp in seconds
+   * @param out Array of at least three that gets x, y and heading in radians
+   * @return False when there are no samples to look up.
+   */
+  public synchronized boolean getPoseAt(double timestamp, double[] out) {
+    if (size == 0) {
+      return false;
+    }
+    int upper = findUpper(timestamp);
+    int lower = Math.max(upper - 1, 0);
+    double t = fraction(lower, upper, timestamp);
+
+    int a = physicalIndex(lower);
+    int b = physicalIndex(upper);
+    out[0] = MathUtil.interpolate(xs[a], xs[b], t);
+    out[1] = MathUtil.interpolate(ys[a], ys[b], t);
+    out[2] = interpolateAngle(headings[a], headings[b], t);
+    return true;
+  }
+
+  /**
+   * Fills preallocated module positions with the interpolated positions at a timestamp.
+   * @param timestamp FPGA timestamp in seconds
+   * @param out Module positions to overwrite
+   * @return False when there are no samples to look up.
+   */
+  public synchronized boolean getModulePositionsAt(double timestamp, SwerveModulePosition[] out) {
+    if (size == 0) {
+      return false;
+    }
+    int upper = findUpper(timestamp);
+    int lower = Math.max(upper - 1, 0);
+    double t = fraction(lower, upper, timestamp);
+
+    int a = physicalIndex(lower) * moduleCount;
+    int b = physicalIndex(upper) * moduleCount;
+    for (int i = 0; i < moduleCount; i++) {
+      out[i].distanceMeters = MathUtil.interpolate(moduleDistances[a + i], moduleDistances[b + i], t);
+      out[i].angle = new Rotation2d(interpolateAngle(moduleAngles[a + i], moduleAngles[b + i], t));
+    }
+    return true;
+  }
+
+  /**
+   * Binary search over the logical (oldest first) indices.
+   * @return Logical index of the first sample at or after the timestamp, clamped to the newest sample.
+   */
+  private int findUpper(double timestamp) {
+    int low = 0;
+    int high = size - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (timestamps[physicalIndex(mid)] < timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return How far between the two logical samples the timestamp falls, from 0 to 1.
+   */
+  private double fraction(int lower, int upper, double timestamp) {
+    double t0 = timestamps[physicalIndex(lower)];
+    double t1 = timestamps[physicalIndex(upper)];
+    if (t1 <= t0) {
+      return 1;
+    }
+    return MathUtil.clamp((timestamp - t0) / (t1 - t0), 0, 1);
+  }
+
+  private int physicalIndex(int logicalIndex) {
+    return (start + logicalIndex) % capacity;
+  }
+
+  /**
+   * Interpolates along the shortest way around the circle.
+   */
+  private static double interpolateAngle(double a, double b, double t) {
+    return MathUtil.angleModulus(a + MathUtil.angleModulus(b - a) * t);
+  }
+}
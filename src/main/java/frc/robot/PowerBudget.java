@@ -0,0 +1,227 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntConsumer;
+
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.logging.BinaryLog;
+
+/**
+ * Shares the battery between the motor groups so the voltage doesn't sag into a brownout when
+ * the robot drives, shoots and intakes at once.
+ *
+ * <p>The battery is modeled as an open circuit voltage behind a fixed resistance. Every loop the
+ * open circuit voltage is estimated from the measured voltage and the motors' current, which
+ * gives how much current the robot can pull before the voltage drops to
+ * {@link PowerConstants#MIN_VOLTAGE}. Groups are then walked in priority order. Each gets the
+ * smart current limit that's left in the budget, between its minimum and its normal limit, and
+ * uses up as much of the budget as it's actually drawing. A healthy battery leaves every group
+ * at its normal limit, a sagging one squeezes the low priority groups first.
+ *
+ * <p>New limits go out at most once per {@link PowerConstants#UPDATE_INTERVAL}, and only when they
+ * moved by {@link PowerConstants#LIMIT_STEP} or more, since every one costs a CAN frame per motor.
+ * Sending them has its own profiler section, so the loop time they cost shows up on the dashboard.
+ *
+ * <p>The model is rough. The currents are what the SPARK MAXes report, which is motor side current;
+ * below full duty cycle the battery supplies less than that, so the budget errs toward squeezing too
+ * early. {@link PowerConstants#BATTERY_RESISTANCE} is a typical figure, not one measured on our
+ * batteries.
+ */
+public class PowerBudget implements Sendable {
+
+  /**
+   * Motors that share a priority and a current limit, e.g. the four drive motors.
+   */
+  private static final class Group {
+    final String name;
+    final int priority;
+    final int motorCount;
+    final int minAmps;
+    final int maxAmps;
+    final DoubleSupplier current;
+    final IntConsumer setLimit;
+    final int limitChannel;
+    final int currentChannel;
+    int limit;
+    double draw;
+
+    Group(String name, int priority, int motorCount, int minAmps, int maxAmps, DoubleSupplier current, IntConsumer setLimit) {
+      this.name = name;
+      this.priority = priority;
+      this.motorCount = motorCount;
+      this.minAmps = minAmps;
+      this.maxAmps = maxAmps;
+      this.current = current;
+      this.setLimit = setLimit;
+      limitChannel = BinaryLog.channel("Power/" + name + "/Limit");
+      currentChannel = BinaryLog.channel("Power/" + name + "/Current");
+      limit = maxAmps;
+    }
+  }
+
+  // Highest priority first, kept as an array so the loop doesn't touch an iterator
+  private final List<Group> groupList = new ArrayList<>();
+  private Group[] groups = new Group[0];
+
+  // Single pole low pass on the open circuit voltage, per loop
+  private final double filterGain;
+  private final int voltageChannel = BinaryLog.channel("Power/BatteryVoltage");
+  private final int totalCurrentChannel = BinaryLog.channel("Power/TotalCurrent");
+  private final int budgetChannel = BinaryLog.channel("Power/Budget");
+  private final LoopProfiler.Section updateSection = LoopProfiler.section("PowerBudget.update()");
+  private final LoopProfiler.Section limitSection = LoopProfiler.section("PowerBudget.applyLimit()");
+
+  private double voltage;
+  private double totalCurrent;
+  private double openCircuitVoltage = Double.NaN;
+  private double budget;
+  private double lastUpdate = Double.NEGATIVE_INFINITY;
+  private int limitUpdates;
+  private boolean enabled;
+
+  public PowerBudget() {
+    filterGain = TimedRobot.kDefaultPeriod / (PowerConstants.OPEN_CIRCUIT_FILTER_SECONDS + TimedRobot.kDefaultPeriod);
+    enabled = PowerConstants.ENABLED;
+  }
+
+  /**
+   * Add a group of motors to share the battery with. Every motor in the group gets the same limit,
+   * which starts out at the normal one.
+   * @param name Name for the log and dashboard
+   * @param priority Lower gets current first
+   * @param motorCount How many motors are in the group
+   * @param minAmps Lowest per motor limit the group may be squeezed to
+   * @param maxAmps Normal per motor limit
+   * @param current Total current the group is drawing, from the subsystem's snapshot
+   * @param setLimit Sends a new per motor smart current limit to every motor in the group
+   */
+  public void register(String name, int priority, int motorCount, int minAmps, int maxAmps, DoubleSupplier current, IntConsumer setLimit) {
+    Group group = new Group(name, priority, motorCount, minAmps, maxAmps, current, setLimit);
+    int index = 0;
+    while (index < groupList.size() && groupList.get(index).priority <= priority) {
+      index++;
+    }
+    groupList.add(index, group);
+    groups = groupList.toArray(new Group[0]);
+  }
+
+  /**
+   * Read the battery and the motors and hand out new limits if it's time. Call once per loop after
+   * the subsystems have refreshed their inputs.
+   */
+  public void update() {
+    updateSection.start();
+    voltage = RobotController.getBatteryVoltage();
+    HardwareInputs.countRefresh(1);
+
+    totalCurrent = 0;
+    for (Group group : groups) {
+      group.draw = group.current.getAsDouble();
+      totalCurrent += group.draw;
+      BinaryLog.log(group.currentChannel, group.draw);
+    }
+    double sample = voltage + totalCurrent * PowerConstants.BATTERY_RESISTANCE;
+    openCircuitVoltage = Double.isNaN(openCircuitVoltage) ? sample : openCircuitVoltage + filterGain * (sample - openCircuitVoltage);
+    budget = (openCircuitVoltage - PowerConstants.MIN_VOLTAGE) / PowerConstants.BATTERY_RESISTANCE - PowerConstants.BASE_LOAD;
+
+    BinaryLog.log(voltageChannel, voltage);
+    BinaryLog.log(totalCurrentChannel, totalCurrent);
+    BinaryLog.log(budgetChannel, budget);
+
+    double now = Timer.getFPGATimestamp();
+    if (now - lastUpdate < PowerConstants.UPDATE_INTERVAL) {
+      updateSection.stop();
+      return;
+    }
+    lastUpdate = now;
+
+    double remaining = budget;
+    for (Group group : groups) {
+      int limit = group.maxAmps;
+      if (enabled) {
+        limit = (int) Math.max(group.minAmps, Math.min(group.maxAmps, Math.floor(remaining / group.motorCount)));
+        // A group only uses up what it's pulling, not the whole limit it was given
+        remaining -= Math.min(group.draw * PowerConstants.DEMAND_HEADROOM, limit * group.motorCount);
+      }
+      applyLimit(group, limit);
+    }
+    updateSection.stop();
+  }
+
+  /**
+   * Send a group its new limit if it's worth the CAN traffic. Reaching either end of the group's range is always sent.
+   */
+  private void applyLimit(Group group, int limit) {
+    if (limit == group.limit) {
+      return;
+    }
+    if (Math.abs(limit - group.limit) < PowerConstants.LIMIT_STEP && limit != group.maxAmps && limit != group.minAmps) {
+      return;
+    }
+    group.limit = limit;
+    // Blocks until every motor in the group has taken the new limit
+    limitSection.start();
+    group.setLimit.accept(limit);
+    limitSection.stop();
+    limitUpdates++;
+    BinaryLog.log(group.limitChannel, limit);
+  }
+
+  /**
+   * @return Total current of every registered group in amps, as of the last {@link #update()}.
+   */
+  public double getTotalCurrent() {
+    return totalCurrent;
+  }
+
+  /**
+   * @return Estimated battery voltage with no load, in volts.
+   */
+  public double getOpenCircuitVoltage() {
+    return openCircuitVoltage;
+  }
+
+  /**
+   * @return Current the robot can pull before the battery sags to the minimum voltage, in amps.
+   */
+  public double getBudget() {
+    return budget;
+  }
+
+  /**
+   * Turn the budget on or off. When off every group goes back to its normal limit.
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+    lastUpdate = Double.NEGATIVE_INFINITY;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void initSendable(SendableBuilder sendableBuilder) {
+    sendableBuilder.setSmartDashboardType("Power budget");
+    sendableBuilder.addBooleanProperty("Enabled", () -> isEnabled(), enabled -> setEnabled(enabled));
+    sendableBuilder.addDoubleProperty("Battery Voltage", () -> voltage, null);
+    sendableBuilder.addDoubleProperty("Open Circuit Voltage", () -> getOpenCircuitVoltage(), null);
+    sendableBuilder.addDoubleProperty("Total Current", () -> getTotalCurrent(), null);
+    sendableBuilder.addDoubleProperty("Budget", () -> getBudget(), null);
+    sendableBuilder.addDoubleProperty("Limit Updates", () -> limitUpdates, null);
+    for (Group group : groupList) {
+      sendableBuilder.addDoubleProperty(group.name + " Limit", () -> group.limit, null);
+    }
+  }
+}
@@ -9,6 +9,12 @@ import com.revrobotics.SparkMaxPIDController;
 import com.revrobotics.SparkPIDController;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -16,6 +22,9 @@ import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.button.JoystickButton;
 
+import frc.robot.Constants.LoggingConstants;
+import frc.robot.logging.BinaryLog;
+import frc.robot.logging.BinaryLogReader;
 import frc.robot.subsystems.Intake;
 
 /**
@@ -28,6 +37,8 @@ public class Robot extends TimedRobot {
   private Command m_autonomousCommand;
 
   private RobotContainer m_robotContainer;
+  private BinaryLogReader replayLog;
+  private int loopCount;
  
 //took away final - in robot containter it used final
 
@@ -37,9 +48,21 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotInit() {
+    String replayPath = isSimulation() ? System.getenv(LoggingConstants.REPLAY_ENV) : null;
+    if (replayPath != null) {
+      File replayFile = new File(replayPath);
+      replayLog = new BinaryLogReader(replayFile.isDirectory() ? BinaryLogReader.filesIn(replayFile) : List.of(replayFile));
+    }
+
+    if (LoggingConstants.ENABLED) {
+      startLogging();
+    }
+
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
-    m_robotContainer = new RobotContainer();
+    m_robotContainer = new RobotContainer(replayLog);
+    LoopProfiler.install();
+    SmartDashboard.putData("Profiler", builder -> builder.addBooleanProperty("Enabled", LoopProfiler::isEnabled, LoopProfiler::setEnabled));
  
   }
 
@@ -56,7 +79,65 @@ public class Robot extends TimedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    BinaryLog.setTimestamp(RobotController.getFPGATime());
+    if (replayLog != null) {
+      advanceReplay();
+    }
+    LoopProfiler.beginLoop();
     CommandScheduler.getInstance().run();
+    m_robotContainer.updatePowerBudget();
+    m_robotContainer.reloadShotMapIfChanged();
+    LoopProfiler.endLoop();
+    HardwareInputs.endCycle();
+
+    // Once a second is plenty for the CAN utilization numbers
+    if (++loopCount % 50 == 0) {
+      CANStatusFrames.report();
+    }
+  }
+
+  /**
+   * Step the replayed log forward one loop so the subsystems read the next set of inputs.
+   * Once the log runs out the last values are held.
+   */
+  private void advanceReplay() {
+    try {
+      if (!replayLog.nextCycle()) {
+        DriverStation.reportWarning("Replay finished", false);
+        replayLog.close();
+        replayLog = null;
+      }
+    } catch (IOException e) {
+      DriverStation.reportError("Replay failed: " + e.getMessage(), false);
+      replayLog = null;
+    }
+  }
+
+  /**
+   * Start the binary log and record every command starting, finishing and getting interrupted.
+   */
+  private void startLogging() {
+    File usb = new File(LoggingConstants.USB_DIRECTORY);
+    File directory;
+    if (replayLog != null) {
+      directory = new File(LoggingConstants.REPLAY_DIRECTORY);
+    } else if (isSimulation()) {
+      directory = new File(LoggingConstants.SIMULATION_DIRECTORY);
+    } else if (usb.getParentFile().exists()) {
+      directory = usb;
+    } else {
+      directory = new File(LoggingConstants.ROBORIO_DIRECTORY);
+    }
+
+    BinaryLog.start(directory, LoggingConstants.QUEUE_CAPACITY, LoggingConstants.MAX_FILE_BYTES, LoggingConstants.MAX_FILES);
+
+    int initialized = BinaryLog.channel("Commands/Initialize");
+    int finished = BinaryLog.channel("Commands/Finish");
+    int interrupted = BinaryLog.channel("Commands/Interrupt");
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    scheduler.onCommandInitialize(command -> BinaryLog.event(initialized, command.getName()));
+    scheduler.onCommandFinish(command -> BinaryLog.event(finished, command.getName()));
+    scheduler.onCommandInterrupt(command -> BinaryLog.event(interrupted, command.getName()));
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -116,5 +197,7 @@ public class Robot extends TimedRobot {
 
   /** This function is called periodically whilst in simulation. */
   @Override
-  public void simulationPeriodic() {}
+  public void simulationPeriodic() {
+    m_robotContainer.simulationPeriodic();
+  }
 }
@@ -4,42 +4,72 @@
 
 package frc.robot;
 
-import frc.robot.Constants.IntakeConstants;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Constants.DriveConstants;
 import frc.robot.Constants.LimelightConstants;
 import frc.robot.Constants.OperatorConstants;
+import frc.robot.Constants.OuttakeConstants;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.Constants.SimConstants;
 import frc.robot.commands.Climb;
-import frc.robot.commands.Load;
 import frc.robot.commands.MoveWristPercent;
-import frc.robot.commands.MoveWristToPosition;
 import frc.robot.commands.RumbleWhenNote;
-import frc.robot.commands.ToggleClimbMode;
-import frc.robot.commands.Autos.Autos;
+import frc.robot.commands.Autos.AutoLibrary;
 import frc.robot.commands.Autos.TimedDrive;
+import frc.robot.commands.Drive.DriveCharacterization;
 import frc.robot.commands.Drive.DriveWithJoystick;
+import frc.robot.commands.Outtake.ShootAtSpeaker;
+import frc.robot.commands.Outtake.ShootOnTheMove;
+import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.Joystick;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 
 import static frc.robot.Constants.DriveConstants.MAX_DRIVE_SPEED;
 import static frc.robot.Constants.IntakeConstants.*;
 
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
-import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.RunCommand;
-import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import edu.wpi.first.wpilibj2.command.button.JoystickButton;
 import edu.wpi.first.wpilibj2.command.button.POVButton;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.logging.BinaryLogReader;
+import frc.robot.sim.SwerveDriveSim;
 import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.ElevatorIOReplay;
+import frc.robot.subsystems.ElevatorIOSim;
+import frc.robot.subsystems.ElevatorIOSparkMax;
+import frc.robot.subsystems.GyroIONavX;
+import frc.robot.subsystems.GyroIOReplay;
+import frc.robot.subsystems.GyroIOSim;
 import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.IntakeIOReplay;
+import frc.robot.subsystems.IntakeIOSim;
+import frc.robot.subsystems.IntakeIOSparkMax;
 import frc.robot.subsystems.Outtake;
+import frc.robot.subsystems.OuttakeIOReplay;
+import frc.robot.subsystems.OuttakeIOSim;
+import frc.robot.subsystems.OuttakeIOSparkMax;
 import frc.robot.subsystems.SwerveDrive;
+import frc.robot.subsystems.Vision;
+import frc.robot.subsystems.VisionIO;
+import frc.robot.subsystems.VisionIOLimelight;
+import frc.robot.subsystems.VisionIOReplay;
 import frc.robot.subsystems.Wrist;
+import frc.robot.subsystems.WristIOReplay;
+import frc.robot.subsystems.WristIOSim;
+import frc.robot.subsystems.WristIOSparkMax;
+
+import java.io.File;
 
 
 
@@ -53,25 +83,26 @@ public class RobotContainer {
   // The robot's subsystems and commands are defined here...
 
   private SwerveDrive swerve;
+  private Vision vision;
   private XboxController driver;
   private XboxController operator;
 
   private DriveWithJoystick driveWithJoystick;
 
-  private MoveWristToPosition moveWristDown;
-  private MoveWristToPosition moveWristUp;
-  private MoveWristToPosition moveWristAmp;
-
-  private ParallelCommandGroup wristDownIntake;
-  private ParallelCommandGroup wristAmpIntake;
-  private ParallelCommandGroup wristUpIntake;
-
-  private ToggleClimbMode toggleClimbMode;
+  private Superstructure superstructure;
+  private Command intakeNote;
+  private Command stow;
+  private Command amp;
+  private Command toggleClimbMode;
 
   private Climb climb;
 
-  private Load load;
+  private Command load;
+  private ShootAtSpeaker shootAtSpeaker;
   private Outtake outtake;
+  private ShotMap shotMap;
+  private ShotSolver shotSolver;
+  private ShootOnTheMove shootOnTheMove;
   private JoystickButton toggleFieldOrientedBtn;
   private JoystickButton toggleSlowModeBtn;
 
@@ -81,6 +112,7 @@ public class RobotContainer {
   private JoystickButton rotateToAmpBtn;
   private JoystickButton rotateToSpeakerBtn;
   private JoystickButton resetEncoderBtn;
+  private JoystickButton shootOnTheMoveBtn;
   private Command resetEncoder;
 
   private JoystickButton climbButton;
@@ -93,20 +125,68 @@ public class RobotContainer {
   private Intake intake;
   private Wrist wrist;
   private JoystickButton loadButton;
+  private JoystickButton shootAtSpeakerBtn;
   private Elevator elevator;
 
   private MoveWristPercent moveWristPercent;
-  private SendableChooser<Command> autoChooser;
+  private AutoLibrary autoLibrary;
+  private SendableChooser<String> autoChooser;
+
+  private PowerBudget powerBudget;
 
-  /** The container for the robot. Contains subsystems, OI devices, and commands. */
-  public RobotContainer() {
+  // Only in simulation
+  private SwerveDriveSim drivetrainSim;
+  private Field2d simField;
+
+  /**
+   * The container for the robot. Contains subsystems, OI devices, and commands.
+   * @param replayLog In simulation, a log to play the subsystems' inputs back from. Null to simulate them instead.
+   */
+  public RobotContainer(BinaryLogReader replayLog) {
 
     // Subsystems
-    intake = new Intake();
-    outtake = new Outtake();
-    elevator = new Elevator();
-    wrist = new Wrist();
-    swerve = new SwerveDrive();
+    if (RobotBase.isReal()) {
+      intake = new Intake(new IntakeIOSparkMax());
+      outtake = new Outtake(new OuttakeIOSparkMax());
+      elevator = new Elevator(new ElevatorIOSparkMax());
+      wrist = new Wrist(new WristIOSparkMax());
+      swerve = new SwerveDrive(
+        new GyroIONavX(),
+        new SwerveModuleIOSparkMax(DriveConstants.FRONT_LEFT[0], DriveConstants.FRONT_LEFT[1], DriveConstants.FL_ENCODER_PORT, false, false),
+        new SwerveModuleIOSparkMax(DriveConstants.FRONT_RIGHT[0], DriveConstants.FRONT_RIGHT[1], DriveConstants.FR_ENCODER_PORT, false, true),
+        new SwerveModuleIOSparkMax(DriveConstants.BACK_LEFT[0], DriveConstants.BACK_LEFT[1], DriveConstants.BL_ENCODER_PORT, false, false),
+        new SwerveModuleIOSparkMax(DriveConstants.BACK_RIGHT[0], DriveConstants.BACK_RIGHT[1], DriveConstants.BR_ENCODER_PORT, false, true));
+    } else if (replayLog != null) {
+      intake = new Intake(new IntakeIOReplay(replayLog));
+      outtake = new Outtake(new OuttakeIOReplay(replayLog));
+      elevator = new Elevator(new ElevatorIOReplay(replayLog));
+      wrist = new Wrist(new WristIOReplay(replayLog));
+      swerve = new SwerveDrive(
+        new GyroIOReplay(replayLog),
+        new SwerveModuleIOReplay(replayLog, DriveConstants.FRONT_LEFT[0]),
+        new SwerveModuleIOReplay(replayLog, DriveConstants.FRONT_RIGHT[0]),
+        new SwerveModuleIOReplay(replayLog, DriveConstants.BACK_LEFT[0]),
+        new SwerveModuleIOReplay(replayLog, DriveConstants.BACK_RIGHT[0]));
+    } else {
+      drivetrainSim = SwerveDriveSim.fromConstants();
+      simField = new Field2d();
+
+      intake = new Intake(new IntakeIOSim());
+      outtake = new Outtake(new OuttakeIOSim());
+      elevator = new Elevator(new ElevatorIOSim());
+      wrist = new Wrist(new WristIOSim());
+      swerve = new SwerveDrive(
+        new GyroIOSim(drivetrainSim),
+        new SwerveModuleIOSim(drivetrainSim, 0, DriveConstants.FRONT_LEFT_OFFSET),
+        new SwerveModuleIOSim(drivetrainSim, 1, DriveConstants.FRONT_RIGHT_OFFSET),
+        new SwerveModuleIOSim(drivetrainSim, 2, DriveConstants.BACK_LEFT_OFFSET),
+        new SwerveModuleIOSim(drivetrainSim, 3, DriveConstants.BACK_RIGHT_OFFSET));
+      SmartDashboard.putData("Sim Field", simField);
+    }
+    vision = new Vision(swerve, createCamera(LimelightConstants.SHOOTER_SIDE_LIMELIGHT_NAME), createCamera(LimelightConstants.AMP_SIDE_LIMELIGHT_NAME));
+    powerBudget = createPowerBudget();
+    shotMap = new ShotMap(new File(Filesystem.getDeployDirectory(), OuttakeConstants.SHOT_MAP_FILE));
+    shotSolver = new ShotSolver(shotMap);
 
     // Xbox Controllers
     driver = new XboxController(0);
@@ -122,11 +202,11 @@ public class RobotContainer {
     loadButton = new JoystickButton(operator, XboxController.Button.kLeftBumper.value);
     intakeBtn = new JoystickButton(operator, XboxController.Button.kRightBumper.value);
     outtakeNoteBtn = new JoystickButton(operator, XboxController.Button.kX.value);
+    shootAtSpeakerBtn = new JoystickButton(operator, XboxController.Button.kY.value);
     softOuttakeBtn = new JoystickButton(operator, XboxController.Axis.kLeftTrigger.value);
 
     // Climb Buttons
     climbButton = new JoystickButton(operator, XboxController.Button.kStart.value);
-    toggleClimbMode = new ToggleClimbMode(wrist, intake, elevator);
 
     // Rotate-lock Buttons
     rotateToAmpBtn = new JoystickButton(driver, XboxController.Button.kLeftBumper.value);
@@ -144,20 +224,24 @@ public class RobotContainer {
 
     // Reset Buttons
     resetEncoderBtn = new JoystickButton(driver, XboxController.Button.kY.value);
+    shootOnTheMoveBtn = new JoystickButton(driver, XboxController.Button.kB.value);
     resetEncoder = new RunCommand(() -> {swerve.zeroModules();}, swerve);
 
-    load = new Load(outtake, intake);
+    shootAtSpeaker = new ShootAtSpeaker(swerve, outtake, intake, wrist, shotMap);
+    // Left stick drives field relative at slow mode speed while the robot aims itself
+    shootOnTheMove = ShootOnTheMove.withStick(swerve, outtake, intake, wrist, shotSolver, driver);
     climb = new Climb(elevator, operator);
 
     // Operator Assistance Commands
-    moveWristDown = new MoveWristToPosition(wrist, intake, IntakeConstants.LOW_WRIST_POS);
-    moveWristUp = new MoveWristToPosition(wrist, intake, IntakeConstants.HIGH_WRIST_POS);
-    moveWristAmp = new MoveWristToPosition(wrist, intake, IntakeConstants.AMP_POS);
+    // Every intake, handoff, shot and climb move goes through the superstructure so they can overlap
+    superstructure = new Superstructure(intake, wrist, outtake, elevator);
+    load = superstructure.request(Superstructure.State.SHOOT);
+    intakeNote = superstructure.request(Superstructure.State.INTAKE);
+    stow = superstructure.request(Superstructure.State.STOW);
+    amp = superstructure.request(Superstructure.State.AMP);
+    toggleClimbMode = superstructure.toggleClimb();
 
     // Operator Commands
-    wristDownIntake = new ParallelCommandGroup(moveWristDown, new SequentialCommandGroup(intake.spinIntake().until(() -> !intake.getIntakeSensor()), intake.spinIntake().withTimeout(0.2)));
-    wristAmpIntake = new ParallelCommandGroup(moveWristAmp, new SequentialCommandGroup(intake.spinIntake().until(() -> !intake.getIntakeSensor()), intake.spinIntake().withTimeout(0.2)));
-    wristUpIntake = new ParallelCommandGroup(moveWristUp, new SequentialCommandGroup(intake.spinIntake().until(() -> !intake.getIntakeSensor()), intake.spinIntake().withTimeout(0.2)));
 
     moveWristPercent = new MoveWristPercent(operator, wrist);
     
@@ -167,30 +251,83 @@ public class RobotContainer {
     elevator.setDefaultCommand(climb);
 
     // Autonomous Sendable Chooser
+    // Every auto is built for both alliances now, picking one in autonomousInit is just a lookup
+    autoLibrary = new AutoLibrary(new File(Filesystem.getDeployDirectory(), AutoConstants.AUTO_DIRECTORY), swerve, outtake, intake, wrist, shotSolver);
     autoChooser = new SendableChooser<>();
-    
-    autoChooser.addOption("Middle Two Piece Speaker", Autos.MiddleTwoShoot(swerve, outtake, intake, wrist));
-    autoChooser.addOption("Middle Speaker", Autos.MiddleShoot(swerve, outtake, intake));
-
-    autoChooser.addOption("Right Side Two Piece", Autos.RightTwoPieceAuto(swerve, outtake, intake, wrist));
-    autoChooser.addOption("Right Side Speaker Piece", Autos.RightAuto(swerve, outtake, intake, wrist));
-    
-    autoChooser.addOption("Left Side Speaker Piece", Autos.LeftAuto(swerve, outtake, intake, wrist));
-    autoChooser.addOption("Left Side Two Piece", Autos.LeftTwoAuto(swerve, outtake, intake, wrist));
-
-    autoChooser.addOption("Do nothing", Autos.DoNothing());
-    autoChooser.addOption("Leave No Shoot", Autos.Leave(swerve));
-    autoChooser.setDefaultOption("Default", Autos.DoNothing());
+    autoLibrary.addOptions(autoChooser);
+    autoChooser.setDefaultOption("Default", AutoConstants.DEFAULT_AUTO);
    
    SmartDashboard.putData(swerve);
    SmartDashboard.putData(outtake);
    SmartDashboard.putData(intake);
    SmartDashboard.putData(wrist);
    SmartDashboard.putData(elevator);
+   SmartDashboard.putData(vision);
    SmartDashboard.putData(autoChooser);
+   SmartDashboard.putData("Power Budget", powerBudget);
+   SmartDashboard.putData("Shot Map", shotMap);
+   SmartDashboard.putData("Superstructure", superstructure);
+   SmartDashboard.putData("Drive Characterization", new DriveCharacterization(swerve));
    configureBindings();
   } 
 
+  /**
+   * On the robot read the real Limelight, in simulation play back the recorded feed from the deploy folder.
+   */
+  private VisionIO createCamera(String name) {
+    if (RobotBase.isReal()) {
+      return new VisionIOLimelight(name, LimelightConstants.FRAMES_PER_LOOP);
+    }
+    return new VisionIOReplay(name, new File(Filesystem.getDeployDirectory(), "vision/" + name + ".csv"), true);
+  }
+
+  /**
+   * Every motor group on the robot, in the order they get current when the battery sags.
+   */
+  private PowerBudget createPowerBudget() {
+    PowerBudget budget = new PowerBudget();
+    budget.register("Steer", PowerConstants.STEER_PRIORITY, 4, PowerConstants.STEER_MIN_CURRENT, PowerConstants.STEER_MAX_CURRENT,
+      swerve::getRotateCurrent, swerve::setRotateCurrentLimit);
+    budget.register("Drive", PowerConstants.DRIVE_PRIORITY, 4, PowerConstants.DRIVE_MIN_CURRENT, PowerConstants.DRIVE_MAX_CURRENT,
+      swerve::getDriveCurrent, swerve::setDriveCurrentLimit);
+    budget.register("Elevator", PowerConstants.ELEVATOR_PRIORITY, 2, PowerConstants.ELEVATOR_MIN_CURRENT, PowerConstants.ELEVATOR_MAX_CURRENT,
+      () -> elevator.getCurrent() * 2, elevator::setCurrentLimit);
+    budget.register("Outtake", PowerConstants.OUTTAKE_PRIORITY, 2, PowerConstants.OUTTAKE_MIN_CURRENT, PowerConstants.OUTTAKE_MAX_CURRENT,
+      () -> outtake.getCurrent() * 2, outtake::setCurrentLimit);
+    budget.register("Wrist", PowerConstants.WRIST_PRIORITY, 1, PowerConstants.WRIST_MIN_CURRENT, PowerConstants.WRIST_MAX_CURRENT,
+      wrist::getCurrent, wrist::setCurrentLimit);
+    budget.register("Intake", PowerConstants.INTAKE_PRIORITY, 1, PowerConstants.INTAKE_MIN_CURRENT, PowerConstants.INTAKE_MAX_CURRENT,
+      intake::getCurrent, intake::setCurrentLimit);
+    return budget;
+  }
+
+  /**
+   * Share the battery between the motors. Call once per loop after the scheduler has run.
+   */
+  public void updatePowerBudget() {
+    powerBudget.update();
+  }
+
+  /**
+   * Pick up a retuned shot map file. Call once per loop, it only looks at the file now and then.
+   */
+  public void reloadShotMapIfChanged() {
+    shotMap.reloadIfChanged();
+  }
+
+  /**
+   * Step the drivetrain physics forward one loop, after the commands have set the motor outputs.
+   */
+  public void simulationPeriodic() {
+    if (drivetrainSim == null) {
+      return;
+    }
+    drivetrainSim.update(SimConstants.LOOP_PERIOD);
+    simField.setRobotPose(drivetrainSim.getPose());
+    // Sag the simulated battery under last loop's load so the power budget has something to do
+    RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(powerBudget.getTotalCurrent()));
+  }
+
   public void setBrakeMode() {
     swerve.setBrakeMode();
   }
@@ -214,19 +351,21 @@ public class RobotContainer {
     outtakeNoteBtn.whileTrue(intake.outtake()); // X
     softOuttakeBtn.whileTrue(intake.softOuttake());
     loadButton.whileTrue(load); // B
+    shootAtSpeakerBtn.whileTrue(shootAtSpeaker); // Y
     intakeBtn.whileTrue(intake.spinIntake()); // Right bumper
-    wristDownBtn.onTrue(wristDownIntake); // Down on D-Pad
-    wristUpBtn.onTrue(wristUpIntake); // Up on D-Pad
-    wristLeftBtn.onTrue(wristAmpIntake); // Right on D-Pad
-    wristRightBtn.onTrue(wristAmpIntake); // Left on D-Pad
+    wristDownBtn.onTrue(intakeNote); // Down on D-Pad, stows itself once the note's in
+    wristUpBtn.onTrue(stow); // Up on D-Pad
+    wristLeftBtn.onTrue(amp); // Right on D-Pad
+    wristRightBtn.onTrue(amp); // Left on D-Pad
 
     // Driver Buttons
     rotateToAmpBtn.whileTrue(new DriveWithJoystick(swerve, driver, false, true));
     rotateToSpeakerBtn.whileTrue(new DriveWithJoystick(swerve, driver, true, false));
-    climbButton.whileTrue(toggleClimbMode);
+    climbButton.onTrue(toggleClimbMode);
     toggleFieldOrientedBtn.whileTrue(swerve.toggleFieldOriented());
     toggleSlowModeBtn.whileTrue(swerve.toggleSlowMode());
     resetEncoderBtn.whileTrue(resetEncoder);
+    shootOnTheMoveBtn.whileTrue(shootOnTheMove); // B
   }
 
   /**
@@ -235,7 +374,7 @@ public class RobotContainer {
    * @return the command to run in autonomous
    */
   public Command getAutonomousCommand() {
-    // An example command will be run in autonomous
-    return autoChooser.getSelected();
+    // The alliance is known by now, unlike when the autos were built
+    return autoLibrary.get(autoChooser.getSelected(), swerve.shouldFlip());
   }
 }
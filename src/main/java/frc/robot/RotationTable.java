@@ -0,0 +1,49 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * Every Rotation2d the loop hands out, built once at startup. Rotation2d is immutable, so caching
+ * the last one still allocates every time the angle moves; looking it up here never does.
+ *
+ * <p>Angles are rounded to the nearest step, which is finer than the steering's NEO hall sensor
+ * through the gearing or the MA3, so nothing reading them can tell.
+ */
+public final class RotationTable {
+
+  // 0.088 degrees a step
+  private static final int STEPS = 4096;
+  private static final Rotation2d[] TABLE = new Rotation2d[STEPS];
+
+  static {
+    for (int i = 0; i < STEPS; i++) {
+      // -180 to 180 degrees, like a freshly built Rotation2d would mostly be
+      int step = i < STEPS / 2 ? i : i - STEPS;
+      TABLE[i] = new Rotation2d(2 * Math.PI * step / STEPS);
+    }
+  }
+
+  private RotationTable() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * @param radians Any angle, counter-clockwise positive
+   * @return The shared rotation closest to it.
+   */
+  public static Rotation2d fromRadians(double radians) {
+    return TABLE[Math.floorMod(Math.round(radians * STEPS / (2 * Math.PI)), STEPS)];
+  }
+
+  /**
+   * @param degrees Any angle, counter-clockwise positive
+   * @return The shared rotation closest to it.
+   */
+  public static Rotation2d fromDegrees(double degrees) {
+    return TABLE[Math.floorMod(Math.round(degrees * STEPS / 360), STEPS)];
+  }
+}
@@ -0,0 +1,213 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.OuttakeConstants;
+
+/**
+ * Flywheel speed and wrist position to shoot from any distance to the speaker, linearly
+ * interpolated between tuned points. Points are read from a CSV file in the deploy folder, each
+ * line is {@code distance_meters,flywheel_rpm,wrist_position}, lines starting with # are skipped.
+ *
+ * <p>The file is watched and read again when it changes, so points can be tuned by copying a new
+ * file onto the robot without redeploying code. A file that doesn't parse or isn't sorted by
+ * distance is reported and the old points are kept.
+ */
+public class ShotMap implements Sendable {
+
+  /**
+   * One loaded set of points, swapped in whole so a lookup never sees half of a reload.
+   */
+  private static final class Table {
+    final double[] distances;
+    final double[] speeds;
+    final double[] wristPositions;
+
+    Table(double[] distances, double[] speeds, double[] wristPositions) {
+      this.distances = distances;
+      this.speeds = speeds;
+      this.wristPositions = wristPositions;
+    }
+  }
+
+  private final File file;
+  private Table table = new Table(new double[0], new double[0], new double[0]);
+
+  private long lastModified = Long.MIN_VALUE;
+  private double lastCheck = Double.NEGATIVE_INFINITY;
+  private int loadCount;
+
+  /**
+   * @param file CSV file of shot points, read right away
+   */
+  public ShotMap(File file) {
+    this.file = file;
+    reload();
+  }
+
+  /**
+   * Read the file again.
+   * @return True if the new points were loaded, false if the old ones were kept.
+   */
+  public boolean reload() {
+    lastModified = file.lastModified();
+
+    List<double[]> rows = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] fields = line.split(",");
+        if (fields.length < 3) {
+          throw new IOException("expected 3 values on \"" + line + "\"");
+        }
+        double[] row = new double[3];
+        for (int i = 0; i < 3; i++) {
+          row[i] = Double.parseDouble(fields[i].trim());
+        }
+        rows.add(row);
+      }
+    } catch (IOException | NumberFormatException e) {
+      DriverStation.reportWarning("Could not load shot map " + file + ": " + e.getMessage(), false);
+      return false;
+    }
+
+    int count = rows.size();
+    double[] distances = new double[count];
+    double[] speeds = new double[count];
+    double[] wristPositions = new double[count];
+    for (int i = 0; i < count; i++) {
+      double[] row = rows.get(i);
+      distances[i] = row[0];
+      speeds[i] = row[1];
+      wristPositions[i] = row[2];
+      // Binary search needs strictly increasing distances
+      if (i > 0 && !(distances[i] > distances[i - 1])) {
+        DriverStation.reportWarning("Shot map " + file + " isn't sorted by distance at " + distances[i] + " m, keeping the old points", false);
+        return false;
+      }
+    }
+    if (count == 0) {
+      DriverStation.reportWarning("Shot map " + file + " has no points, keeping the old ones", false);
+      return false;
+    }
+
+    table = new Table(distances, speeds, wristPositions);
+    loadCount++;
+    return true;
+  }
+
+  /**
+   * Reload the file if it's changed since it was last read. Only looks at the file once every
+   * {@link OuttakeConstants#SHOT_MAP_CHECK_INTERVAL}, so it's fine to call every loop.
+   */
+  public void reloadIfChanged() {
+    double now = Timer.getFPGATimestamp();
+    if (now - lastCheck < OuttakeConstants.SHOT_MAP_CHECK_INTERVAL) {
+      return;
+    }
+    lastCheck = now;
+    if (file.lastModified() != lastModified) {
+      reload();
+    }
+  }
+
+  /**
+   * @param distance Distance from the speaker in meters
+   * @return Flywheel speed to shoot at in RPM, the closest point's outside the map.
+   */
+  public double getFlywheelSpeed(double distance) {
+    return interpolate(table, table.speeds, distance);
+  }
+
+  /**
+   * @param distance Distance from the speaker in meters
+   * @return Through bore position to hold the wrist at in rotations, the closest point's outside the map.
+   */
+  public double getWristPosition(double distance) {
+    return interpolate(table, table.wristPositions, distance);
+  }
+
+  /**
+   * @return Whether the distance in meters is between the closest and farthest tuned points.
+   */
+  public boolean isInRange(double distance) {
+    Table current = table;
+    int count = current.distances.length;
+    return count > 0 && distance >= current.distances[0] && distance <= current.distances[count - 1];
+  }
+
+  /**
+   * @return Closest tuned distance in meters, NaN before anything has loaded.
+   */
+  public double getMinDistance() {
+    Table current = table;
+    return current.distances.length == 0 ? Double.NaN : current.distances[0];
+  }
+
+  /**
+   * @return Farthest tuned distance in meters, NaN before anything has loaded.
+   */
+  public double getMaxDistance() {
+    Table current = table;
+    return current.distances.length == 0 ? Double.NaN : current.distances[current.distances.length - 1];
+  }
+
+  /**
+   * Linear interpolation between the two points around the distance, found by binary search.
+   */
+  private static double interpolate(Table table, double[] values, double distance) {
+    double[] distances = table.distances;
+    int count = distances.length;
+    if (count == 0 || Double.isNaN(distance)) {
+      return Double.NaN;
+    }
+    if (distance <= distances[0]) {
+      return values[0];
+    }
+    if (distance >= distances[count - 1]) {
+      return values[count - 1];
+    }
+
+    int index = Arrays.binarySearch(distances, distance);
+    if (index >= 0) {
+      return values[index];
+    }
+    // Not an exact hit, binarySearch gives back -(insertion point) - 1
+    int upper = -index - 1;
+    int lower = upper - 1;
+    double t = (distance - distances[lower]) / (distances[upper] - distances[lower]);
+    return values[lower] + t * (values[upper] - values[lower]);
+  }
+
+  @Override
+  public void initSendable(SendableBuilder sendableBuilder) {
+    sendableBuilder.setSmartDashboardType("Shot map");
+    sendableBuilder.addDoubleProperty("Points", () -> table.distances.length, null);
+    sendableBuilder.addDoubleProperty("Loads", () -> loadCount, null);
+    sendableBuilder.addDoubleProperty("Min Distance", () -> getMinDistance(), null);
+    sendableBuilder.addDoubleProperty("Max Distance", () -> getMaxDistance(), null);
+    sendableBuilder.addBooleanProperty("Reload", () -> false, reload -> {
+      if (reload) {
+        reload();
+      }
+    });
+  }
+}
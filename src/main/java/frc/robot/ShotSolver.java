@@ -0,0 +1,146 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import edu.wpi.first.math.MathUtil;
+import frc.robot.Constants.OuttakeConstants;
+
+/**
+ * Works out where to point and how hard to shoot so a note fired while driving still lands in the
+ * speaker. A note keeps the robot's velocity after it leaves, so instead of the speaker the shooter
+ * aims at a virtual target moved back along the robot's velocity by however long the note is in the
+ * air. That flight time depends on the distance to the virtual target, so the two are solved
+ * together by iterating a few times. The shot also starts from where the robot will be once the
+ * note actually leaves, {@link OuttakeConstants#RELEASE_DELAY} after feeding starts.
+ *
+ * <p>Everything is primitive fields, so solving every loop doesn't allocate.
+ */
+public class ShotSolver {
+
+  // Flight time only moves a little between iterations, 4 converges well below a centimeter
+  private static final int ITERATIONS = 4;
+
+  private final ShotMap shotMap;
+
+  private double releaseX;
+  private double releaseY;
+  private double distance = Double.NaN;
+  private double timeOfFlight;
+  private double aimHeading;
+  private double aimTolerance;
+  private double flywheelSpeed = Double.NaN;
+  private double wristPosition = Double.NaN;
+
+  /**
+   * @param shotMap Flywheel speed and wrist position for a distance
+   */
+  public ShotSolver(ShotMap shotMap) {
+    this.shotMap = shotMap;
+  }
+
+  /**
+   * Solve the shot for where the robot is and how it's moving. Results are read with the getters.
+   * @param x Robot x on the field in meters
+   * @param y Robot y on the field in meters
+   * @param vx Robot velocity along the field's x axis in meters/second
+   * @param vy Robot velocity along the field's y axis in meters/second
+   * @param targetX Speaker x on the field in meters
+   * @param targetY Speaker y on the field in meters
+   */
+  public void solve(double x, double y, double vx, double vy, double targetX, double targetY) {
+    releaseX = x + vx * OuttakeConstants.RELEASE_DELAY;
+    releaseY = y + vy * OuttakeConstants.RELEASE_DELAY;
+
+    double virtualX = targetX;
+    double virtualY = targetY;
+    double flightTime = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      virtualX = targetX - vx * flightTime;
+      virtualY = targetY - vy * flightTime;
+      flightTime = Math.hypot(virtualX - releaseX, virtualY - releaseY) / OuttakeConstants.NOTE_EXIT_SPEED;
+    }
+    virtualX = targetX - vx * flightTime;
+    virtualY = targetY - vy * flightTime;
+
+    distance = Math.hypot(virtualX - releaseX, virtualY - releaseY);
+    timeOfFlight = flightTime;
+    aimHeading = MathUtil.angleModulus(Math.atan2(virtualY - releaseY, virtualX - releaseX) + OuttakeConstants.SHOOTER_HEADING_OFFSET);
+    // The farther away, the less the heading can be off and still land in the opening
+    aimTolerance = Math.atan2(OuttakeConstants.AIM_TOLERANCE_WIDTH, Math.max(distance, OuttakeConstants.AIM_TOLERANCE_WIDTH));
+    flywheelSpeed = shotMap.getFlywheelSpeed(distance);
+    wristPosition = shotMap.getWristPosition(distance);
+  }
+
+  /**
+   * @return Field relative heading the robot should face for the shot, in radians.
+   */
+  public double getAimHeading() {
+    return aimHeading;
+  }
+
+  /**
+   * @param heading Robot heading on the field in radians
+   * @return Whether the robot is pointed close enough to the aim heading to shoot.
+   */
+  public boolean isAimed(double heading) {
+    return Math.abs(MathUtil.angleModulus(heading - aimHeading)) <= aimTolerance;
+  }
+
+  /**
+   * @return Distance from the release point to the virtual target in meters, what the shot map is looked up with.
+   */
+  public double getDistance() {
+    return distance;
+  }
+
+  /**
+   * @return Whether the shot is inside the shot map's tuned range.
+   */
+  public boolean isInRange() {
+    return shotMap.isInRange(distance);
+  }
+
+  /**
+   * @return How long the note will be in the air, in seconds.
+   */
+  public double getTimeOfFlight() {
+    return timeOfFlight;
+  }
+
+  /**
+   * @return Seconds from now until the note lands if it's fed right away.
+   */
+  public double getTimeToImpact() {
+    return OuttakeConstants.RELEASE_DELAY + timeOfFlight;
+  }
+
+  /**
+   * @return Flywheel speed for the shot in RPM.
+   */
+  public double getFlywheelSpeed() {
+    return flywheelSpeed;
+  }
+
+  /**
+   * @return Wrist position for the shot in through bore rotations.
+   */
+  public double getWristPosition() {
+    return wristPosition;
+  }
+
+  /**
+   * @return Where the robot will be on the field's x axis when the note leaves, in meters.
+   */
+  public double getReleaseX() {
+    return releaseX;
+  }
+
+  /**
+   * @return Where the robot will be on the field's y axis when the note leaves, in meters.
+   */
+  public double getReleaseY() {
+    return releaseY;
+  }
+}
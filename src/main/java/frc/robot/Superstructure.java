@@ -0,0 +1,317 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static frc.robot.Constants.IntakeConstants.*;
+
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.FunctionalCommand;
+import frc.robot.Constants.OuttakeConstants;
+import frc.robot.logging.BinaryLog;
+import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.Outtake;
+import frc.robot.subsystems.Wrist;
+
+/**
+ * Runs the intake, wrist, flywheel and climb mode together as one state machine, so getting a note
+ * from the floor into the speaker is one request instead of a chain of commands each waiting on the
+ * last.
+ *
+ * <p>A request sets a goal state and the machine walks toward it one guarded transition at a time.
+ * Every guard is a sensor: the beam break for a note coming in or leaving, the wrist's profile for
+ * being in position, the flywheel's ready check and the elevator's bottom switch. Moves that don't
+ * get in each other's way overlap, e.g. the flywheel spins up while the wrist is still carrying the
+ * note up, and feeding starts once the wrist is close enough instead of waiting for it to settle.
+ * Several transitions can happen in one loop when their guards already hold.
+ */
+public class Superstructure implements Sendable {
+
+  public enum State {
+    /** Wrist up, note held if there is one, flywheel off. */
+    STOW,
+    /** Wrist on the floor and the rollers pulling until a note breaks the beam. */
+    INTAKE,
+    /** Note in, wrist carrying it up to the shooter. */
+    HANDOFF,
+    /** Wrist up with a note and the flywheel at speed. */
+    SPIN_UP,
+    /** Feeding the note into the flywheel until it's gone. */
+    SHOOT,
+    /** Wrist at the amp position, scored with the intake's outtake. */
+    AMP,
+    /** Wrist up out of the way and the elevator on the operator's stick. */
+    CLIMB
+  }
+
+  // Enough for the longest chain, HANDOFF -> SPIN_UP -> SHOOT, to go through in one loop
+  private static final int MAX_TRANSITIONS_PER_LOOP = 4;
+
+  private final Intake intake;
+  private final Wrist wrist;
+  private final Outtake outtake;
+  private final Elevator elevator;
+
+  private final int stateChannel = BinaryLog.channel("Superstructure/State");
+  private final int goalChannel = BinaryLog.channel("Superstructure/Goal");
+  private final int transitionChannel = BinaryLog.channel("Superstructure/Transition");
+
+  private final Timer clearTimer = new Timer();
+  private State state = State.STOW;
+  private State goal = State.STOW;
+
+  public Superstructure(Intake intake, Wrist wrist, Outtake outtake, Elevator elevator) {
+    this.intake = intake;
+    this.wrist = wrist;
+    this.outtake = outtake;
+    this.elevator = elevator;
+  }
+
+  /**
+   * Head for a state. Requires the intake, wrist and flywheel while it runs, the elevator stays on
+   * its own default command. Ends once the goal is reached and settled, SPIN_UP is held until the
+   * command is cancelled, and an intake or a shot ends back in STOW, with or without the note.
+   */
+  public Command request(State goal) {
+    return new FunctionalCommand(() -> setGoal(goal), this::update, interrupted -> end(), () -> isSettled(goal), intake, wrist, outtake)
+      .withName("Superstructure " + goal.name());
+  }
+
+  /**
+   * Go to the climb state, or back to stow if already climbing. Getting out waits for the elevator
+   * to be all the way down.
+   */
+  public Command toggleClimb() {
+    return Commands.either(request(State.STOW), request(State.CLIMB), () -> state == State.CLIMB)
+      .withName("Superstructure toggle climb");
+  }
+
+  private void setGoal(State goal) {
+    this.goal = goal;
+    if (goal == State.INTAKE) {
+      intake.startPull();
+    }
+    BinaryLog.log(goalChannel, goal.ordinal());
+  }
+
+  /**
+   * Move toward the goal as far as the sensors allow and drive every mechanism for the state it ends up in.
+   */
+  private void update() {
+    for (int i = 0; i < MAX_TRANSITIONS_PER_LOOP; i++) {
+      State next = next();
+      if (next == state) {
+        break;
+      }
+      enter(next);
+    }
+    apply();
+    BinaryLog.log(stateChannel, state.ordinal());
+  }
+
+  /**
+   * The next state on the shortest safe path to the goal, or the current one if a guard isn't met yet.
+   */
+  private State next() {
+    boolean hasNote = intake.hasNote();
+    switch (state) {
+      case INTAKE:
+        if (hasNote) {
+          return State.HANDOFF;
+        }
+        return goal == State.INTAKE ? State.INTAKE : State.STOW;
+      case HANDOFF:
+        if (!hasNote) {
+          // Lost it on the way up
+          return State.STOW;
+        }
+        if (goal == State.AMP || goal == State.CLIMB || goal == State.INTAKE) {
+          return goal == State.INTAKE ? State.STOW : goal;
+        }
+        if (!isStowed()) {
+          return State.HANDOFF;
+        }
+        return goal == State.SPIN_UP || goal == State.SHOOT ? State.SPIN_UP : State.STOW;
+      case SPIN_UP:
+        if (!hasNote || (goal != State.SPIN_UP && goal != State.SHOOT)) {
+          return State.STOW;
+        }
+        if (goal == State.SHOOT && outtake.isReady() && isStowed()) {
+          return State.SHOOT;
+        }
+        return State.SPIN_UP;
+      case SHOOT:
+        // Once a shot starts it finishes, the note can't be safely pulled back out of the flywheel
+        return clearTimer.hasElapsed(OuttakeConstants.SHOT_CLEAR_TIME) ? State.STOW : State.SHOOT;
+      case CLIMB:
+        // Only leave once the elevator is back down on its switch
+        return goal != State.CLIMB && !elevator.getLimitSwitch() ? State.STOW : State.CLIMB;
+      case AMP:
+      case STOW:
+      default:
+        if (goal == state) {
+          return state;
+        }
+        if (goal == State.SPIN_UP || goal == State.SHOOT) {
+          if (!hasNote) {
+            return State.STOW;
+          }
+          // The flywheel spins up while the wrist stows, that's handled by HANDOFF
+          return isStowed() ? State.SPIN_UP : State.HANDOFF;
+        }
+        if (goal == State.INTAKE && hasNote) {
+          // Already holding one
+          return State.STOW;
+        }
+        if (goal == State.HANDOFF) {
+          return hasNote ? State.HANDOFF : State.STOW;
+        }
+        return goal;
+    }
+  }
+
+  private void enter(State next) {
+    BinaryLog.event(transitionChannel, state.name() + " -> " + next.name());
+    if (next == State.SHOOT) {
+      clearTimer.stop();
+      clearTimer.reset();
+    }
+    // Climb mode is what lets the operator's stick drive the elevator
+    elevator.setClimbMode(next == State.CLIMB);
+    state = next;
+  }
+
+  /**
+   * Drive the wrist, rollers and flywheel for the current state.
+   */
+  private void apply() {
+    switch (state) {
+      case INTAKE:
+        // Rollers start pulling while the wrist is still on its way down
+        wrist.rotateWristToPosition(LOW_WRIST_POS);
+        intake.pull();
+        outtake.stop();
+        break;
+      case HANDOFF:
+        wrist.rotateWristToPosition(HIGH_WRIST_POS);
+        holdNote();
+        spinUpIf(goal == State.SPIN_UP || goal == State.SHOOT);
+        break;
+      case SPIN_UP:
+        wrist.rotateWristToPosition(HIGH_WRIST_POS);
+        holdNote();
+        outtake.shootVelocity(DESIRED_SPEED);
+        break;
+      case SHOOT:
+        wrist.rotateWristToPosition(HIGH_WRIST_POS);
+        outtake.shootVelocity(DESIRED_SPEED);
+        intake.feedShooter();
+        // Sensor reads true when there's no note, the shot is done once it's stayed clear for a bit
+        if (intake.getIntakeSensor()) {
+          clearTimer.start();
+        } else {
+          clearTimer.stop();
+          clearTimer.reset();
+        }
+        break;
+      case AMP:
+        wrist.rotateWristToPosition(AMP_POS);
+        holdNote();
+        outtake.stop();
+        break;
+      case CLIMB:
+        wrist.rotateWristToPosition(HIGH_WRIST_POS);
+        intake.stop();
+        outtake.stop();
+        break;
+      case STOW:
+      default:
+        wrist.rotateWristToPosition(HIGH_WRIST_POS);
+        holdNote();
+        spinUpIf(goal == State.SPIN_UP || goal == State.SHOOT);
+        break;
+    }
+  }
+
+  private void holdNote() {
+    if (intake.hasNote()) {
+      intake.holdNote();
+    } else {
+      intake.stop();
+    }
+  }
+
+  private void spinUpIf(boolean spinUp) {
+    if (spinUp) {
+      outtake.shootVelocity(DESIRED_SPEED);
+    } else {
+      outtake.stop();
+    }
+  }
+
+  /**
+   * Close enough to the stow position to feed the shooter, which is a little before the profile's done.
+   */
+  private boolean isStowed() {
+    return Math.abs(wrist.getPosition() - HIGH_WRIST_POS) <= OuttakeConstants.WRIST_SHOT_TOLERANCE;
+  }
+
+  private boolean isSettled(State goal) {
+    if (goal == State.SHOOT) {
+      // A finished shot lands back in stow
+      return state == State.STOW && this.goal == State.SHOOT && !intake.hasNote();
+    }
+    if (goal == State.INTAKE) {
+      // A caught note gets carried up and held in stow
+      return state == State.STOW && this.goal == State.INTAKE && intake.hasNote() && wrist.atGoal();
+    }
+    if (state != goal) {
+      return false;
+    }
+    switch (goal) {
+      case SPIN_UP:
+        // Held until the command's cancelled
+        return false;
+      default:
+        return wrist.atGoal();
+    }
+  }
+
+  /**
+   * Leave the mechanisms safe when a request is cancelled. The wrist keeps holding wherever it got to.
+   */
+  private void end() {
+    outtake.stop();
+    holdNote();
+    if (state == State.SPIN_UP || state == State.SHOOT) {
+      enter(State.STOW);
+    }
+  }
+
+  /**
+   * @return The state the superstructure is in.
+   */
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * @return The state the superstructure is headed for.
+   */
+  public State getGoal() {
+    return goal;
+  }
+
+  @Override
+  public void initSendable(SendableBuilder sendableBuilder) {
+    sendableBuilder.setSmartDashboardType("Superstructure");
+    sendableBuilder.addStringProperty("State", () -> state.name(), null);
+    sendableBuilder.addStringProperty("Goal", () -> goal.name(), null);
+  }
+}
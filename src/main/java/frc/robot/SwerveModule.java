@@ -4,110 +4,208 @@
 
 package frc.robot;
 
-
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.CANSparkBase.IdleMode;
-import com.revrobotics.CANSparkLowLevel.MotorType;
-
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.wpilibj.AnalogInput;
-import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.logging.BinaryLog;
 
 public class SwerveModule extends SubsystemBase {
 
-  private CANSparkMax driveMotor;
-  private CANSparkMax rotateMotor;
+  /**
+   * Every sensor value the module uses, read once at the start of each cycle.
+   */
+  public static class Inputs {
+    public double drivePosition;
+    public double driveVelocity;
+    public double rotatePosition;
+    public double rotateVelocity;
+    public double driveCurrent;
+    public double rotateCurrent;
+  }
+
+  /**
+   * Where the steering position loop runs.
+   */
+  public enum SteerMode {
+    /** A PIDController on the roboRIO, updated once per 20 ms loop. */
+    RIO,
+    /** The SPARK MAX's own PID at 1 kHz, the roboRIO only sends the angle. */
+    ONBOARD
+  }
 
-  private RelativeEncoder driveEncoder;
-  private RelativeEncoder rotateEncoder;
+  private final SwerveModuleIO io;
 
   private PIDController rotateController;
+  private SteerMode steerMode;
+
+  private SimpleMotorFeedforward driveFeedforward;
+  private boolean driveClosedLoop;
+  // Last speed asked for, to work out the acceleration for the feedforward
+  private double lastDriveSetpoint = Double.NaN;
 
-  private AnalogInput absoluteEncoder;
   private boolean absEncoderReverse;
 
   private double encoderOffset;
 
+  private final Inputs inputs = new Inputs();
+  // Set when the inputs are read and cleared by periodic(), so a drivetrain that already refreshed them this cycle isn't read twice
+  private boolean refreshed;
+  private final String rotateEncoderKey;
+  private final LoopProfiler.Section periodicSection;
+
+  private final int drivePositionChannel;
+  private final int driveVelocityChannel;
+  private final int rotatePositionChannel;
+  private final int rotateVelocityChannel;
+  private final int driveCurrentChannel;
+  private final int rotateCurrentChannel;
+  private final int rioSettleChannel;
+  private final int onboardSettleChannel;
+
+  // Settle time measurement, timed against the once per loop snapshot so it's only good to 20 ms
+  private double settleTarget = Double.NaN;
+  private double settleStart = Double.NaN;
+  private final double[] settleTotal = new double[SteerMode.values().length];
+  private final int[] settleCount = new int[SteerMode.values().length];
+
   /**
+   * @param io The module's motors and encoders
    * @param driveID Drive Motor ID for the module
    * @param rotateID Rotate Motor ID for the module
-   * @param magEncoderPort Absolute Encoder Port
-   * @param invertRotate True only if the rotation is backwards
-   * @param invertDrive True only if the driving is backwards
    * @param encoderOffset Amount that the rotation is off by when bevel gears are on the outside and the wheel is facing forward. Obtained through getOffsets().
    * @param PID_values PID values for the module.
    */
-  public SwerveModule(int driveID, int rotateID, int magEncoderPort, boolean invertRotate, boolean invertDrive, double encoderOffset, double[] PID_values) {
+  public SwerveModule(SwerveModuleIO io, int driveID, int rotateID, double encoderOffset, double[] PID_values) {
     
-    driveMotor = new CANSparkMax(driveID, MotorType.kBrushless);
-    rotateMotor = new CANSparkMax(rotateID, MotorType.kBrushless);
-
-    driveMotor.setSmartCurrentLimit(60);
-    rotateMotor.setSmartCurrentLimit(60);
-
+    this.io = io;
     this.encoderOffset = encoderOffset;
 
-    driveMotor.setIdleMode(IdleMode.kBrake);
-    driveMotor.setInverted(invertDrive);
-
-    rotateMotor.setIdleMode(IdleMode.kBrake);
-    rotateMotor.setInverted(invertRotate);
-
-    driveEncoder = driveMotor.getEncoder();
-    driveEncoder.setPositionConversionFactor(DriveConstants.DRIVE_POSITION_CONVERSION); // Converts raw encoder values to meters
-    driveEncoder.setVelocityConversionFactor(DriveConstants.DRIVE_VELOCITY_CONVERSION); // Converts raw encoder values to meters/second
-
-    rotateEncoder = rotateMotor.getEncoder();
-    rotateEncoder.setPositionConversionFactor(DriveConstants.ROTATE_POSITION_CONVERSION); // Converts raw encoder values to radians
-    rotateEncoder.setVelocityConversionFactor(DriveConstants.ROTATE_VELOCITY_CONVERSION); // Concerts raw encoder values to radians/second
-
-    absoluteEncoder = new AnalogInput(magEncoderPort);
-
     rotateController = new PIDController(PID_values[0], PID_values[1], PID_values[2]);
     rotateController.enableContinuousInput(-Math.PI, Math.PI); // Limits the inputed controller angle between -180 and 180 (-PI and PI)
+    io.configureRotatePID(PID_values[0], PID_values[1], PID_values[2]);
+    steerMode = DriveConstants.ONBOARD_STEERING ? SteerMode.ONBOARD : SteerMode.RIO;
+
+    driveFeedforward = new SimpleMotorFeedforward(DriveConstants.DRIVE_KS, DriveConstants.DRIVE_KV, DriveConstants.DRIVE_KA);
+    io.configureDrivePID(
+      DriveConstants.DRIVE_VELOCITY_PID_VALUES[0],
+      DriveConstants.DRIVE_VELOCITY_PID_VALUES[1],
+      DriveConstants.DRIVE_VELOCITY_PID_VALUES[2]);
+    driveClosedLoop = DriveConstants.CLOSED_LOOP_DRIVE;
+
+    rotateEncoderKey = "Rotate encoder " + rotateID;
+    periodicSection = LoopProfiler.section("SwerveModule " + rotateID + ".periodic()");
+
+    String logPrefix = "Drive/Module " + driveID + "/";
+    drivePositionChannel = BinaryLog.channel(logPrefix + "DrivePosition");
+    driveVelocityChannel = BinaryLog.channel(logPrefix + "DriveVelocity");
+    rotatePositionChannel = BinaryLog.channel(logPrefix + "RotatePosition");
+    rotateVelocityChannel = BinaryLog.channel(logPrefix + "RotateVelocity");
+    driveCurrentChannel = BinaryLog.channel(logPrefix + "DriveCurrent");
+    rotateCurrentChannel = BinaryLog.channel(logPrefix + "RotateCurrent");
+    rioSettleChannel = BinaryLog.channel(logPrefix + "SteerSettle/RIO");
+    onboardSettleChannel = BinaryLog.channel(logPrefix + "SteerSettle/Onboard");
 
     resetEncoder();
   }
 
+  /**
+   * Read every sensor once for this cycle.
+   */
+  public void updateInputs() {
+    io.updateInputs(inputs);
+    refreshed = true;
+
+    BinaryLog.log(drivePositionChannel, inputs.drivePosition);
+    BinaryLog.log(driveVelocityChannel, inputs.driveVelocity);
+    BinaryLog.log(rotatePositionChannel, inputs.rotatePosition);
+    BinaryLog.log(rotateVelocityChannel, inputs.rotateVelocity);
+    BinaryLog.log(driveCurrentChannel, inputs.driveCurrent);
+    BinaryLog.log(rotateCurrentChannel, inputs.rotateCurrent);
+  }
+
+  /**
+   * @return This cycle's sensor snapshot.
+   */
+  public Inputs getInputs() {
+    return inputs;
+  }
+
   /**
    * @return Drive encoder position in meters.
    */
   public double getDrivePosition() {
-    return driveEncoder.getPosition();
+    HardwareInputs.countCachedRead();
+    return inputs.drivePosition;
   }
 
   /**
    * @return Rotate encoder position in meters.
    */
   public double getRotatePosition() {
-    return rotateEncoder.getPosition();
+    HardwareInputs.countCachedRead();
+    return inputs.rotatePosition;
   }
 
   /**
    * @return Drive encoder velocity in meters/second
    */
   public double getDriveVelocity() {
-    return driveEncoder.getVelocity();
+    HardwareInputs.countCachedRead();
+    return inputs.driveVelocity;
   }
   /**
    * @return Rotate encoder velocity in radians/second.
    */
   public double getRotateVelocity() {
-    return rotateEncoder.getVelocity();
+    HardwareInputs.countCachedRead();
+    return inputs.rotateVelocity;
+  }
+
+  /**
+   * @return Drive motor current in amps.
+   */
+  public double getDriveCurrent() {
+    HardwareInputs.countCachedRead();
+    return inputs.driveCurrent;
+  }
+
+  /**
+   * @return Rotate motor current in amps.
+   */
+  public double getRotateCurrent() {
+    HardwareInputs.countCachedRead();
+    return inputs.rotateCurrent;
+  }
+
+  /**
+   * Reads straight from the encoder, for the odometry thread which samples faster than the snapshot refreshes.
+   * @return Drive encoder position in meters.
+   */
+  public double sampleDrivePosition() {
+    return io.sampleDrivePosition();
+  }
+
+  /**
+   * Reads straight from the encoder, for the odometry thread which samples faster than the snapshot refreshes.
+   * @return Rotate encoder position in radians.
+   */
+  public double sampleRotatePosition() {
+    return io.sampleRotatePosition();
   }
 
   /**
    * @return Absolute encoder angle in radians with offset removed.
    */
   public double getAbsoluteEncoderRad() {
-    double angle = absoluteEncoder.getVoltage() / RobotController.getVoltage5V();
-    angle *= 2 * Math.PI;
+    double angle = io.getAbsoluteAngle();
     angle -= encoderOffset;
     angle %= 2 * Math.PI;
 
@@ -118,8 +216,7 @@ public class SwerveModule extends SubsystemBase {
    * @return The rotation offset (ONLY when the bevel gear is outward and the wheel is forward-facing).
   */
   public double getOffsets() {
-    double angle = absoluteEncoder.getVoltage() / RobotController.getVoltage5V();
-    angle *= 2 * Math.PI;
+    double angle = io.getAbsoluteAngle();
 
     return angle * (absEncoderReverse ? -1.0 : 1.0); 
   }
@@ -128,16 +225,20 @@ public class SwerveModule extends SubsystemBase {
    * Zeros the drive and rotate encoder positions.
    */
   public void resetEncoder() {
-    driveEncoder.setPosition(0);
-    rotateEncoder.setPosition(getAbsoluteEncoderRad());
+    double absolutePosition = getAbsoluteEncoderRad();
+    io.setEncoders(0, absolutePosition);
+
+    // Keep the snapshot in line with the new positions until the next refresh
+    inputs.drivePosition = 0;
+    inputs.rotatePosition = absolutePosition;
   }
 
   /**
    * Stop drive and rotate motion
    */
   public void stop() {
-    driveMotor.set(0);
-    rotateMotor.set(0);
+    io.setDriveOutput(0);
+    io.setRotateOutput(0);
   }
 
   /**
@@ -145,42 +246,188 @@ public class SwerveModule extends SubsystemBase {
    * @return an object representing the drive velocity and rotate motor position.
    */
   public SwerveModuleState getState() {
-    return new SwerveModuleState(getDriveVelocity(), new Rotation2d(getRotatePosition()));
+    return new SwerveModuleState(getDriveVelocity(), getRotation());
+  }
+
+  /**
+   * Refreshes a preallocated SwerveModulePosition in place with the current drive distance and rotate angle.
+   * @param position the buffer to overwrite.
+   */
+  public void updatePosition(SwerveModulePosition position) {
+    position.distanceMeters = getDrivePosition();
+    position.angle = getRotation();
+  }
+
+  /**
+   * Refreshes a preallocated SwerveModuleState in place with the current drive velocity and rotate angle.
+   * @param state the buffer to overwrite.
+   */
+  public void updateState(SwerveModuleState state) {
+    state.speedMetersPerSecond = getDriveVelocity();
+    state.angle = getRotation();
+  }
+
+  /**
+   * Looked up rather than built, so refreshing the odometry buffers never allocates.
+   * @return the rotate motor position as a Rotation2d.
+   */
+  private Rotation2d getRotation() {
+    return RotationTable.fromRadians(getRotatePosition());
   }
 
   /**
    * Sets the calculated speed of the drive and rotate motors.
-   * @param state is optimized for minimizing movement 
+   * @param state is optimized for minimizing movement, the caller's state is left as it is
    */
   public void setDesiredState(SwerveModuleState state) {
     if (Math.abs(state.speedMetersPerSecond) < 0.001) {
       stop();
+      settleStart = Double.NaN;
+      lastDriveSetpoint = Double.NaN;
       return;
     }
-    state = SwerveModuleState.optimize(state, getState().angle);
-    driveMotor.set(state.speedMetersPerSecond / DriveConstants.MAX_DRIVE_SPEED);
-    rotateMotor.set(rotateController.calculate(getRotatePosition(), state.angle.getRadians()));
+
+    // Same as SwerveModuleState.optimize() but on doubles, so it doesn't allocate
+    double current = getRotatePosition();
+    double target = state.angle.getRadians();
+    double speed = state.speedMetersPerSecond;
+    if (Math.abs(MathUtil.angleModulus(target - current)) > Math.PI / 2) {
+      target = MathUtil.angleModulus(target + Math.PI);
+      speed = -speed;
+    }
+
+    if (driveClosedLoop) {
+      double acceleration = Double.isNaN(lastDriveSetpoint) ? 0 : (speed - lastDriveSetpoint) / TimedRobot.kDefaultPeriod;
+      lastDriveSetpoint = speed;
+      io.setDriveVelocity(speed, driveFeedforward.calculate(speed, acceleration));
+    } else {
+      io.setDriveOutput(speed / DriveConstants.MAX_DRIVE_SPEED);
+    }
+
+    steerTo(current, target);
+    measureSettle(current, target);
+  }
+
+  /**
+   * Point the wheel forward and put a fixed voltage on the drive motor, for characterization.
+   * @param volts Drive motor voltage
+   */
+  public void runCharacterization(double volts) {
+    steerTo(getRotatePosition(), 0);
+    io.setDriveVoltage(volts);
+  }
+
+  private void steerTo(double current, double target) {
+    if (steerMode == SteerMode.ONBOARD) {
+      io.setRotatePosition(target);
+    } else {
+      io.setRotateOutput(rotateController.calculate(current, target));
+    }
+  }
+
+  /**
+   * Switch between the velocity loop and open loop percent for driving.
+   */
+  public void setDriveClosedLoop(boolean closedLoop) {
+    driveClosedLoop = closedLoop;
+    lastDriveSetpoint = Double.NaN;
+  }
+
+  public boolean isDriveClosedLoop() {
+    return driveClosedLoop;
+  }
+
+  /**
+   * Replace the drive feedforward, e.g. with freshly characterized gains.
+   */
+  public void setDriveFeedforward(double kS, double kV, double kA) {
+    driveFeedforward = new SimpleMotorFeedforward(kS, kV, kA);
+  }
+
+  /**
+   * Time how long the wheel takes to reach a new angle after a big setpoint jump.
+   * @param current Angle the wheel is at in radians
+   * @param target Angle the wheel was told to go to in radians
+   */
+  private void measureSettle(double current, double target) {
+    double error = Math.abs(MathUtil.angleModulus(target - current));
+    double now = Timer.getFPGATimestamp();
+
+    if (Double.isNaN(settleTarget) || Math.abs(MathUtil.angleModulus(target - settleTarget)) > DriveConstants.STEER_SETTLE_STEP) {
+      settleTarget = target;
+      settleStart = error > DriveConstants.STEER_SETTLE_STEP ? now : Double.NaN;
+    }
+
+    if (!Double.isNaN(settleStart) && error < DriveConstants.STEER_SETTLE_TOLERANCE) {
+      double seconds = now - settleStart;
+      settleStart = Double.NaN;
+      settleTotal[steerMode.ordinal()] += seconds;
+      settleCount[steerMode.ordinal()]++;
+      BinaryLog.log(steerMode == SteerMode.ONBOARD ? onboardSettleChannel : rioSettleChannel, seconds);
+    }
+  }
+
+  /**
+   * Pick where the steering loop runs. Takes effect on the next {@link #setDesiredState}.
+   */
+  public void setSteerMode(SteerMode mode) {
+    if (mode != steerMode) {
+      steerMode = mode;
+      rotateController.reset();
+      settleStart = Double.NaN;
+    }
+  }
+
+  public SteerMode getSteerMode() {
+    return steerMode;
+  }
+
+  /**
+   * @return Average time in seconds the wheel took to reach a new angle in that mode, 0 if it hasn't been measured yet.
+   */
+  public double getAverageSettleTime(SteerMode mode) {
+    int count = settleCount[mode.ordinal()];
+    return count == 0 ? 0 : settleTotal[mode.ordinal()] / count;
+  }
+
+  /**
+   * @param amps Drive motor smart current limit
+   */
+  public void setDriveCurrentLimit(int amps) {
+    io.setDriveCurrentLimit(amps);
+  }
+
+  /**
+   * @param amps Rotate motor smart current limit
+   */
+  public void setRotateCurrentLimit(int amps) {
+    io.setRotateCurrentLimit(amps);
   }
 
   /**
    * Set the drive and rotate motors' idle mode to coast
    */
   public void setCoastMode() {
-    driveMotor.setIdleMode(IdleMode.kCoast);
-    rotateMotor.setIdleMode(IdleMode.kCoast);
+    io.setBrakeMode(false);
   }
 
   /**
    * Set the drive and rotate motors' idle mode to brake.
    */
   public void setBrakeMode() {
-    driveMotor.setIdleMode(IdleMode.kBrake);
-    rotateMotor.setIdleMode(IdleMode.kBrake);
+    io.setBrakeMode(true);
   }
 
   @Override
   public void periodic() {
-    // This method will be called once per scheduler run
-    SmartDashboard.putNumber("Rotate encoder" + rotateEncoder, rotateEncoder.getPosition());
+    // This method will be called once per scheduler run, before any command reads the module. The
+    // drivetrain's periodic runs first and normally has already read the inputs for this cycle.
+    periodicSection.start();
+    if (!refreshed) {
+      updateInputs();
+    }
+    refreshed = false;
+    SmartDashboard.putNumber(rotateEncoderKey, inputs.rotatePosition);
+    periodicSection.stop();
   }
 }
@@ -0,0 +1,95 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+/**
+ * The motors and encoders behind one {@link SwerveModule}. The real robot talks to two SPARK MAXes
+ * and an analog absolute encoder, simulation runs a motor model and replay plays back a log.
+ */
+public interface SwerveModuleIO {
+
+  /**
+   * Fill in this cycle's sensor values.
+   */
+  public void updateInputs(SwerveModule.Inputs inputs);
+
+  /**
+   * Read the drive position outside of the once per cycle refresh, for the odometry thread.
+   * @return Drive position in meters.
+   */
+  public double sampleDrivePosition();
+
+  /**
+   * Read the rotate position outside of the once per cycle refresh, for the odometry thread.
+   * @return Rotate position in radians.
+   */
+  public double sampleRotatePosition();
+
+  /**
+   * @return Absolute encoder angle in radians from 0 to 2 PI, offset not removed.
+   */
+  public double getAbsoluteAngle();
+
+  /**
+   * Overwrite the relative encoder positions.
+   * @param drivePosition Drive position in meters
+   * @param rotatePosition Rotate position in radians
+   */
+  public void setEncoders(double drivePosition, double rotatePosition);
+
+  /**
+   * @param percent Drive motor duty cycle from -1 to 1
+   */
+  public void setDriveOutput(double percent);
+
+  /**
+   * @param volts Drive motor voltage, not compensated for the battery
+   */
+  public void setDriveVoltage(double volts);
+
+  /**
+   * Set the gains for {@link #setDriveVelocity}, in output fraction per meter/second of error.
+   */
+  public void configureDrivePID(double p, double i, double d);
+
+  /**
+   * Hold a wheel speed with a velocity loop on the motor controller.
+   * @param metersPerSecond Drive velocity setpoint in meters/second
+   * @param feedforwardVolts Voltage added on top of the loop's output
+   */
+  public void setDriveVelocity(double metersPerSecond, double feedforwardVolts);
+
+  /**
+   * @param percent Rotate motor duty cycle from -1 to 1
+   */
+  public void setRotateOutput(double percent);
+
+  /**
+   * Set the gains for {@link #setRotatePosition}, in the same units as a roboRIO PIDController
+   * running every 20 ms so one set of values works for both steering modes.
+   */
+  public void configureRotatePID(double p, double i, double d);
+
+  /**
+   * Turn the wheel to an angle with a position loop on the motor controller, wrapped at +/- PI.
+   * @param radians Rotate position setpoint in radians
+   */
+  public void setRotatePosition(double radians);
+
+  /**
+   * @param amps Drive motor smart current limit
+   */
+  public void setDriveCurrentLimit(int amps);
+
+  /**
+   * @param amps Rotate motor smart current limit
+   */
+  public void setRotateCurrentLimit(int amps);
+
+  /**
+   * @param brake True for brake mode, false for coast
+   */
+  public void setBrakeMode(boolean brake);
+}
@@ -0,0 +1,102 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import frc.robot.logging.BinaryLogReader;
+
+/**
+ * Plays a swerve module's logged inputs back from a binary log. Outputs are ignored, the log
+ * already has what the module did.
+ */
+public class SwerveModuleIOReplay implements SwerveModuleIO {
+
+  private final BinaryLogReader log;
+  private final String drivePositionKey;
+  private final String driveVelocityKey;
+  private final String rotatePositionKey;
+  private final String rotateVelocityKey;
+  private final String driveCurrentKey;
+  private final String rotateCurrentKey;
+
+  // The reader isn't thread safe, so the odometry thread gets the last values read here
+  private volatile double drivePosition;
+  private volatile double rotatePosition;
+
+  /**
+   * @param log Reader advanced once per loop by the robot
+   * @param driveID Drive Motor ID the module was logged under
+   */
+  public SwerveModuleIOReplay(BinaryLogReader log, int driveID) {
+    this.log = log;
+    String prefix = "Drive/Module " + driveID + "/";
+    drivePositionKey = prefix + "DrivePosition";
+    driveVelocityKey = prefix + "DriveVelocity";
+    rotatePositionKey = prefix + "RotatePosition";
+    rotateVelocityKey = prefix + "RotateVelocity";
+    driveCurrentKey = prefix + "DriveCurrent";
+    rotateCurrentKey = prefix + "RotateCurrent";
+  }
+
+  @Override
+  public void updateInputs(SwerveModule.Inputs inputs) {
+    inputs.drivePosition = log.get(drivePositionKey, inputs.drivePosition);
+    inputs.driveVelocity = log.get(driveVelocityKey, inputs.driveVelocity);
+    inputs.rotatePosition = log.get(rotatePositionKey, inputs.rotatePosition);
+    inputs.rotateVelocity = log.get(rotateVelocityKey, inputs.rotateVelocity);
+    inputs.driveCurrent = log.get(driveCurrentKey, inputs.driveCurrent);
+    inputs.rotateCurrent = log.get(rotateCurrentKey, inputs.rotateCurrent);
+
+    drivePosition = inputs.drivePosition;
+    rotatePosition = inputs.rotatePosition;
+  }
+
+  @Override
+  public double sampleDrivePosition() {
+    return drivePosition;
+  }
+
+  @Override
+  public double sampleRotatePosition() {
+    return rotatePosition;
+  }
+
+  @Override
+  public double getAbsoluteAngle() {
+    return 0;
+  }
+
+  @Override
+  public void setEncoders(double drivePosition, double rotatePosition) {}
+
+  @Override
+  public void setDriveOutput(double percent) {}
+
+  @Override
+  public void setDriveVoltage(double volts) {}
+
+  @Override
+  public void configureDrivePID(double p, double i, double d) {}
+
+  @Override
+  public void setDriveVelocity(double metersPerSecond, double feedforwardVolts) {}
+
+  @Override
+  public void setRotateOutput(double percent) {}
+
+  @Override
+  public void configureRotatePID(double p, double i, double d) {}
+
+  @Override
+  public void setRotatePosition(double radians) {}
+
+  @Override
+  public void setDriveCurrentLimit(int amps) {}
+
+  @Override
+  public void setRotateCurrentLimit(int amps) {}
+
+  @Override
+  public void setBrakeMode(boolean brake) {}
+}
@@ -0,0 +1,124 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import edu.wpi.first.math.MathUtil;
+import frc.robot.Constants.SimConstants;
+import frc.robot.sim.SwerveDriveSim;
+
+/**
+ * One module of a {@link SwerveDriveSim}. The physics are stepped from Robot.simulationPeriodic(),
+ * this only reads the wheel like the encoders would and hands the motor outputs over.
+ */
+public class SwerveModuleIOSim implements SwerveModuleIO {
+
+  private final SwerveDriveSim drivetrain;
+  private final int index;
+  private final double encoderOffset;
+
+  // Encoder zeroes relative to the simulated wheel
+  private double driveZero;
+  private double rotateZero;
+
+  // Read from the odometry thread
+  private volatile double drivePosition;
+  private volatile double rotatePosition;
+
+  /**
+   * @param drivetrain The simulated drivetrain
+   * @param index Which of its modules this is
+   * @param encoderOffset The module's absolute encoder offset, so resetting the encoders lines up like on the robot
+   */
+  public SwerveModuleIOSim(SwerveDriveSim drivetrain, int index, double encoderOffset) {
+    this.drivetrain = drivetrain;
+    this.index = index;
+    this.encoderOffset = encoderOffset;
+  }
+
+  @Override
+  public void updateInputs(SwerveModule.Inputs inputs) {
+    drivePosition = drivetrain.getWheelDistance(index) - driveZero;
+    rotatePosition = drivetrain.getSteerAngle(index) - rotateZero;
+
+    inputs.drivePosition = drivePosition;
+    inputs.driveVelocity = drivetrain.getWheelSpeed(index);
+    inputs.rotatePosition = rotatePosition;
+    inputs.rotateVelocity = drivetrain.getSteerSpeed(index);
+    inputs.driveCurrent = drivetrain.getDriveCurrent(index);
+    inputs.rotateCurrent = drivetrain.getSteerCurrent(index);
+  }
+
+  @Override
+  public double sampleDrivePosition() {
+    return drivePosition;
+  }
+
+  @Override
+  public double sampleRotatePosition() {
+    return rotatePosition;
+  }
+
+  @Override
+  public double getAbsoluteAngle() {
+    return MathUtil.inputModulus(drivetrain.getSteerAngle(index) + encoderOffset, 0, 2 * Math.PI);
+  }
+
+  @Override
+  public void setEncoders(double drivePosition, double rotatePosition) {
+    driveZero = drivetrain.getWheelDistance(index) - drivePosition;
+    rotateZero = drivetrain.getSteerAngle(index) - rotatePosition;
+    this.drivePosition = drivePosition;
+    this.rotatePosition = rotatePosition;
+  }
+
+  @Override
+  public void setDriveOutput(double percent) {
+    drivetrain.setDriveVoltage(index, MathUtil.clamp(percent, -1, 1) * SimConstants.NOMINAL_VOLTAGE);
+  }
+
+  @Override
+  public void setDriveVoltage(double volts) {
+    drivetrain.setDriveVoltage(index, MathUtil.clamp(volts, -SimConstants.NOMINAL_VOLTAGE, SimConstants.NOMINAL_VOLTAGE));
+  }
+
+  @Override
+  public void configureDrivePID(double p, double i, double d) {
+    drivetrain.setDrivePID(index, p, i, d);
+  }
+
+  @Override
+  public void setDriveVelocity(double metersPerSecond, double feedforwardVolts) {
+    drivetrain.setDriveVelocity(index, metersPerSecond, feedforwardVolts);
+  }
+
+  @Override
+  public void setRotateOutput(double percent) {
+    drivetrain.setSteerVoltage(index, MathUtil.clamp(percent, -1, 1) * SimConstants.NOMINAL_VOLTAGE);
+  }
+
+  @Override
+  public void configureRotatePID(double p, double i, double d) {
+    drivetrain.setSteerPID(index, p, i, d);
+  }
+
+  @Override
+  public void setRotatePosition(double radians) {
+    // Setpoint is in encoder terms, the sim steers in wheel terms
+    drivetrain.setSteerPosition(index, radians + rotateZero);
+  }
+
+  @Override
+  public void setDriveCurrentLimit(int amps) {
+    drivetrain.setDriveCurrentLimit(index, amps);
+  }
+
+  @Override
+  public void setRotateCurrentLimit(int amps) {
+    drivetrain.setSteerCurrentLimit(index, amps);
+  }
+
+  @Override
+  public void setBrakeMode(boolean brake) {}
+}
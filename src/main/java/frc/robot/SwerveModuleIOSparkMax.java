@@ -0,0 +1,179 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.SparkPIDController.ArbFFUnits;
+import com.revrobotics.CANSparkBase.ControlType;
+import com.revrobotics.CANSparkBase.IdleMode;
+import com.revrobotics.CANSparkLowLevel.MotorType;
+
+import edu.wpi.first.wpilibj.AnalogInput;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.PowerConstants;
+
+/**
+ * A swerve module on the real robot, two NEOs on SPARK MAXes and a MA3 absolute encoder.
+ */
+public class SwerveModuleIOSparkMax implements SwerveModuleIO {
+
+  private final CANSparkMax driveMotor;
+  private final CANSparkMax rotateMotor;
+
+  private final RelativeEncoder driveEncoder;
+  private final RelativeEncoder rotateEncoder;
+  private final SparkPIDController rotateController;
+  private final SparkPIDController driveController;
+
+  // Last setpoint sent, so an unchanged angle doesn't cost a CAN frame every loop
+  private double lastRotateSetpoint = Double.NaN;
+
+  private final AnalogInput absoluteEncoder;
+
+  /**
+   * @param driveID Drive Motor ID for the module
+   * @param rotateID Rotate Motor ID for the module
+   * @param magEncoderPort Absolute Encoder Port
+   * @param invertRotate True only if the rotation is backwards
+   * @param invertDrive True only if the driving is backwards
+   */
+  public SwerveModuleIOSparkMax(int driveID, int rotateID, int magEncoderPort, boolean invertRotate, boolean invertDrive) {
+    driveMotor = new CANSparkMax(driveID, MotorType.kBrushless);
+    rotateMotor = new CANSparkMax(rotateID, MotorType.kBrushless);
+
+    driveMotor.setSmartCurrentLimit(PowerConstants.DRIVE_MAX_CURRENT);
+    rotateMotor.setSmartCurrentLimit(PowerConstants.STEER_MAX_CURRENT);
+
+    driveMotor.setIdleMode(IdleMode.kBrake);
+    driveMotor.setInverted(invertDrive);
+
+    rotateMotor.setIdleMode(IdleMode.kBrake);
+    rotateMotor.setInverted(invertRotate);
+
+    CANStatusFrames.configure(driveMotor, CANStatusFrames.Profile.DRIVE);
+    CANStatusFrames.configure(rotateMotor, CANStatusFrames.Profile.STEER);
+
+    driveEncoder = driveMotor.getEncoder();
+    driveEncoder.setPositionConversionFactor(DriveConstants.DRIVE_POSITION_CONVERSION); // Converts raw encoder values to meters
+    driveEncoder.setVelocityConversionFactor(DriveConstants.DRIVE_VELOCITY_CONVERSION); // Converts raw encoder values to meters/second
+    // Shorter velocity filter than the default, the speed loop can't react faster than it measures
+    driveEncoder.setMeasurementPeriod(16);
+    driveEncoder.setAverageDepth(2);
+
+    rotateEncoder = rotateMotor.getEncoder();
+    rotateEncoder.setPositionConversionFactor(DriveConstants.ROTATE_POSITION_CONVERSION); // Converts raw encoder values to radians
+    rotateEncoder.setVelocityConversionFactor(DriveConstants.ROTATE_VELOCITY_CONVERSION); // Concerts raw encoder values to radians/second
+
+    // Onboard speed loop, the feedforward does most of the work and the PID cleans up the rest
+    driveController = driveMotor.getPIDController();
+    driveController.setFeedbackDevice(driveEncoder);
+    driveController.setOutputRange(-1, 1);
+
+    // Onboard steering loop, runs every millisecond on the SPARK MAX and takes the short way around
+    rotateController = rotateMotor.getPIDController();
+    rotateController.setFeedbackDevice(rotateEncoder);
+    rotateController.setPositionPIDWrappingEnabled(true);
+    rotateController.setPositionPIDWrappingMinInput(-Math.PI);
+    rotateController.setPositionPIDWrappingMaxInput(Math.PI);
+    rotateController.setOutputRange(-1, 1);
+
+    absoluteEncoder = new AnalogInput(magEncoderPort);
+  }
+
+  @Override
+  public void updateInputs(SwerveModule.Inputs inputs) {
+    inputs.drivePosition = driveEncoder.getPosition();
+    inputs.driveVelocity = driveEncoder.getVelocity();
+    inputs.rotatePosition = rotateEncoder.getPosition();
+    inputs.rotateVelocity = rotateEncoder.getVelocity();
+    inputs.driveCurrent = driveMotor.getOutputCurrent();
+    inputs.rotateCurrent = rotateMotor.getOutputCurrent();
+    HardwareInputs.countRefresh(6);
+  }
+
+  @Override
+  public double sampleDrivePosition() {
+    return driveEncoder.getPosition();
+  }
+
+  @Override
+  public double sampleRotatePosition() {
+    return rotateEncoder.getPosition();
+  }
+
+  @Override
+  public double getAbsoluteAngle() {
+    return absoluteEncoder.getVoltage() / RobotController.getVoltage5V() * 2 * Math.PI;
+  }
+
+  @Override
+  public void setEncoders(double drivePosition, double rotatePosition) {
+    driveEncoder.setPosition(drivePosition);
+    rotateEncoder.setPosition(rotatePosition);
+  }
+
+  @Override
+  public void setDriveOutput(double percent) {
+    driveMotor.set(percent);
+  }
+
+  @Override
+  public void setDriveVoltage(double volts) {
+    driveMotor.setVoltage(volts);
+  }
+
+  @Override
+  public void configureDrivePID(double p, double i, double d) {
+    driveController.setP(p);
+    driveController.setI(i * Constants.ONBOARD_PID_PERIOD);
+    driveController.setD(d / Constants.ONBOARD_PID_PERIOD);
+  }
+
+  @Override
+  public void setDriveVelocity(double metersPerSecond, double feedforwardVolts) {
+    driveController.setReference(metersPerSecond, ControlType.kVelocity, 0, feedforwardVolts, ArbFFUnits.kVoltage);
+  }
+
+  @Override
+  public void setRotateOutput(double percent) {
+    lastRotateSetpoint = Double.NaN;
+    rotateMotor.set(percent);
+  }
+
+  @Override
+  public void configureRotatePID(double p, double i, double d) {
+    // The SPARK MAX doesn't scale by its 1 ms period, a RIO PIDController scales by its 20 ms one
+    rotateController.setP(p);
+    rotateController.setI(i * Constants.ONBOARD_PID_PERIOD);
+    rotateController.setD(d / Constants.ONBOARD_PID_PERIOD);
+  }
+
+  @Override
+  public void setRotatePosition(double radians) {
+    if (radians != lastRotateSetpoint) {
+      lastRotateSetpoint = radians;
+      rotateController.setReference(radians, ControlType.kPosition);
+    }
+  }
+
+  @Override
+  public void setDriveCurrentLimit(int amps) {
+    driveMotor.setSmartCurrentLimit(amps);
+  }
+
+  @Override
+  public void setRotateCurrentLimit(int amps) {
+    rotateMotor.setSmartCurrentLimit(amps);
+  }
+
+  @Override
+  public void setBrakeMode(boolean brake) {
+    driveMotor.setIdleMode(brake ? IdleMode.kBrake : IdleMode.kCoast);
+    rotateMotor.setIdleMode(brake ? IdleMode.kBrake : IdleMode.kCoast);
+  }
+}
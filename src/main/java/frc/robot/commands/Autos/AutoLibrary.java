@@ -0,0 +1,308 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Autos;
+
+import static frc.robot.Constants.DriveConstants.MAX_DRIVE_SPEED;
+import static frc.robot.Constants.IntakeConstants.AMP_POS;
+import static frc.robot.Constants.IntakeConstants.DESIRED_SPEED;
+import static frc.robot.Constants.IntakeConstants.HIGH_WRIST_POS;
+import static frc.robot.Constants.IntakeConstants.LOW_WRIST_POS;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
+import frc.robot.ShotSolver;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Constants.LimelightConstants;
+import frc.robot.commands.Load;
+import frc.robot.commands.MoveWristToPosition;
+import frc.robot.commands.RotateToAngle;
+import frc.robot.commands.Outtake.ShootOnTheMove;
+import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.Outtake;
+import frc.robot.subsystems.SwerveDrive;
+import frc.robot.subsystems.Wrist;
+
+/**
+ * Every auto, read from the files in the deploy folder's autos directory and built into commands
+ * for both alliances once at startup. Picking one at autonomousInit is then just a lookup, and it
+ * gets the alliance the robot actually has instead of whatever it was at boot.
+ *
+ * <p>The auto's name is its file name without the extension. Each line is one step, run one after
+ * the other, and lines starting with # are skipped. A line starting with {@code red} or
+ * {@code blue} is only part of that alliance's auto. The steps are:
+ * <ul>
+ *   <li>{@code drive <seconds> <vx> <vy>} robot relative meters/second, holding the heading it started at</li>
+ *   <li>{@code rotate <degrees> [timeout]} turn to a gyro heading</li>
+ *   <li>{@code wrist down|up|amp} move the wrist, down keeps the rollers pulling</li>
+ *   <li>{@code shoot [timeout]} spin up and feed the note, done once it's gone</li>
+ *   <li>{@code spinup <step>} start the flywheel and run a step, it keeps spinning until a shot or the auto ends</li>
+ *   <li>{@code parallel} ... {@code end} run the steps in between together</li>
+ *   <li>{@code wait <seconds>}</li>
+ *   <li>{@code pose <x> <y> <degrees>} reset odometry, in blue field coordinates</li>
+ *   <li>{@code shootmoving <vx> <vy> <timeout>} shoot while driving, blue field relative meters/second</li>
+ * </ul>
+ * Robot relative steps are taken as written for both alliances, field relative ones are mirrored
+ * across the field for red.
+ *
+ * <p>A file that doesn't compile is reported and left out, the rest still load.
+ */
+public class AutoLibrary {
+
+  /**
+   * One line of an auto file, split into words.
+   */
+  private static final class Line {
+    final int number;
+    final String[] words;
+
+    Line(int number, String[] words) {
+      this.number = number;
+      this.words = words;
+    }
+  }
+
+  /**
+   * Where the compiler is in one alliance's lines. There's one per compile, so a file that fails halfway
+   * can't leave anything behind for the next.
+   */
+  private static final class Parse {
+    final List<Line> lines;
+    final boolean red;
+    int cursor;
+
+    Parse(List<Line> lines, boolean red) {
+      this.lines = lines;
+      this.red = red;
+    }
+  }
+
+  private final SwerveDrive swerve;
+  private final Outtake outtake;
+  private final Intake intake;
+  private final Wrist wrist;
+  private final ShotSolver solver;
+
+  // Blue then red for every auto, in file name order
+  private final Map<String, Command[]> autos = new LinkedHashMap<>();
+
+  /**
+   * Read and compile every auto file in the directory.
+   * @param directory Folder of auto files
+   */
+  public AutoLibrary(File directory, SwerveDrive swerve, Outtake outtake, Intake intake, Wrist wrist, ShotSolver solver) {
+    this.swerve = swerve;
+    this.outtake = outtake;
+    this.intake = intake;
+    this.wrist = wrist;
+    this.solver = solver;
+
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(AutoConstants.AUTO_FILE_EXTENSION));
+    if (files == null) {
+      DriverStation.reportWarning("No autos directory at " + directory, false);
+      return;
+    }
+    Arrays.sort(files);
+    for (File file : files) {
+      String name = file.getName();
+      name = name.substring(0, name.length() - AutoConstants.AUTO_FILE_EXTENSION.length());
+      try {
+        List<Line> all = read(file);
+        autos.put(name, new Command[] {compile(all, false, name), compile(all, true, name)});
+      } catch (IOException | RuntimeException e) {
+        // Steps that don't fit together, like two that need the same subsystem at once, throw while composing
+        DriverStation.reportWarning("Could not load auto " + file + ": " + e.getMessage(), false);
+      }
+    }
+  }
+
+  /**
+   * @param name Auto's name
+   * @param red Whether the robot's on the red alliance
+   * @return The auto built for that alliance, or a command that does nothing if there's no such auto.
+   */
+  public Command get(String name, boolean red) {
+    Command[] compiled = name == null ? null : autos.get(name);
+    if (compiled == null) {
+      return Commands.none();
+    }
+    return compiled[red ? 1 : 0];
+  }
+
+  /**
+   * @return Names of every auto that compiled.
+   */
+  public Set<String> getNames() {
+    return autos.keySet();
+  }
+
+  /**
+   * Offer every auto on a chooser.
+   */
+  public void addOptions(SendableChooser<String> chooser) {
+    for (String name : autos.keySet()) {
+      chooser.addOption(name, name);
+    }
+  }
+
+  private static List<Line> read(File file) throws IOException {
+    List<Line> all = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String text;
+      int number = 0;
+      while ((text = reader.readLine()) != null) {
+        number++;
+        text = text.trim();
+        if (text.isEmpty() || text.startsWith("#")) {
+          continue;
+        }
+        all.add(new Line(number, text.split("\\s+")));
+      }
+    }
+    return all;
+  }
+
+  /**
+   * Build one alliance's command out of the file's lines.
+   */
+  private Command compile(List<Line> all, boolean red, String name) throws IOException {
+    List<Line> lines = new ArrayList<>();
+    for (Line line : all) {
+      String first = line.words[0].toLowerCase();
+      if (first.equals("red") || first.equals("blue")) {
+        if (first.equals("red") == red) {
+          lines.add(new Line(line.number, Arrays.copyOfRange(line.words, 1, line.words.length)));
+        }
+      } else {
+        lines.add(line);
+      }
+    }
+
+    Parse parse = new Parse(lines, red);
+    List<Command> steps = new ArrayList<>();
+    while (parse.cursor < lines.size()) {
+      Line line = lines.get(parse.cursor++);
+      steps.add(step(parse, line, 0));
+    }
+    // A spinup with no shot after it would leave the flywheel running into teleop
+    return Commands.sequence(steps.toArray(new Command[0]))
+      .finallyDo(interrupted -> outtake.stop())
+      .withName(name + (red ? " (red)" : " (blue)"));
+  }
+
+  /**
+   * Build the step that starts at a word of a line. Blocks read the lines after it.
+   */
+  private Command step(Parse parse, Line line, int start) throws IOException {
+    if (start >= line.words.length) {
+      throw error(line, "missing step");
+    }
+    String[] words = line.words;
+    switch (words[start].toLowerCase()) {
+      case "drive": {
+        double seconds = number(line, start + 1);
+        if (words.length > start + 4) {
+          // TimedDrive holds its heading, so a turn here would silently do nothing
+          throw error(line, "drive can't turn, use rotate");
+        }
+        ChassisSpeeds speeds = new ChassisSpeeds(number(line, start + 2), number(line, start + 3), 0);
+        return new TimedDrive(swerve, seconds, speeds, MAX_DRIVE_SPEED);
+      }
+      case "rotate": {
+        Command rotate = new RotateToAngle(number(line, start + 1), swerve);
+        return words.length > start + 2 ? rotate.withTimeout(number(line, start + 2)) : rotate;
+      }
+      case "wrist": {
+        if (words.length <= start + 1) {
+          throw error(line, "wrist needs down, up or amp");
+        }
+        switch (words[start + 1].toLowerCase()) {
+          case "down":
+            return new MoveWristToPosition(wrist, intake, LOW_WRIST_POS);
+          case "up":
+            return new MoveWristToPosition(wrist, intake, HIGH_WRIST_POS);
+          case "amp":
+            return new MoveWristToPosition(wrist, intake, AMP_POS);
+          default:
+            throw error(line, "wrist needs down, up or amp, not " + words[start + 1]);
+        }
+      }
+      case "shoot": {
+        // The timeout's only a backstop, Load finishes on its own once the note is gone
+        double timeout = words.length > start + 1 ? number(line, start + 1) : AutoConstants.SHOOT_TIMEOUT;
+        return new Load(outtake, intake).withTimeout(timeout);
+      }
+      case "spinup":
+        // Only sets the target, so the flywheel's still at speed and ready when the shot after this starts
+        return Commands.deadline(step(parse, line, start + 1), outtake.runOnce(() -> outtake.shootVelocity(DESIRED_SPEED)));
+      case "parallel": {
+        List<Command> together = new ArrayList<>();
+        while (true) {
+          if (parse.cursor >= parse.lines.size()) {
+            throw error(line, "parallel without end");
+          }
+          Line next = parse.lines.get(parse.cursor++);
+          if (next.words.length > 0 && next.words[0].equalsIgnoreCase("end")) {
+            break;
+          }
+          together.add(step(parse, next, 0));
+        }
+        return new ParallelCommandGroup(together.toArray(new Command[0]));
+      }
+      case "wait":
+        return Commands.waitSeconds(number(line, start + 1));
+      case "pose": {
+        double x = number(line, start + 1);
+        double degrees = number(line, start + 3);
+        if (parse.red) {
+          x = LimelightConstants.FIELD_LENGTH - x;
+          degrees = 180 - degrees;
+        }
+        Pose2d pose = new Pose2d(x, number(line, start + 2), Rotation2d.fromDegrees(degrees));
+        return Commands.runOnce(() -> swerve.resetOdometry(pose));
+      }
+      case "shootmoving": {
+        double vx = parse.red ? -number(line, start + 1) : number(line, start + 1);
+        double vy = number(line, start + 2);
+        return new ShootOnTheMove(swerve, outtake, intake, wrist, solver, () -> vx, () -> vy).withTimeout(number(line, start + 3));
+      }
+      case "end":
+        throw error(line, "end without parallel");
+      default:
+        throw error(line, "unknown step " + words[start]);
+    }
+  }
+
+  private static double number(Line line, int index) throws IOException {
+    if (index >= line.words.length) {
+      throw error(line, "missing a number after " + line.words[index - 1]);
+    }
+    try {
+      return Double.parseDouble(line.words[index]);
+    } catch (NumberFormatException e) {
+      throw error(line, line.words[index] + " isn't a number");
+    }
+  }
+
+  private static IOException error(Line line, String message) {
+    return new IOException("line " + line.number + ", " + message);
+  }
+}
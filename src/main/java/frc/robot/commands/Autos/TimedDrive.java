@@ -19,6 +19,9 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 public class TimedDrive extends Command {
   /** Creates a new DriveFoward. */
 
+  // Turn speed per degree off the starting gyro angle, DrivetrainSweep runs the same hold
+  public static final double HEADING_P = 0.1;
+
   private final Timer m_timer = new Timer();
   private SwerveDrive swerve;
   private PIDController rotateController;
@@ -35,7 +38,7 @@ public class TimedDrive extends Command {
       this.maxDriveSpeed = maxDriveSpeed;
       this.chassisSpeeds = chassisSpeed;
 
-      rotateController = new PIDController(0.1,0,0);
+      rotateController = new PIDController(HEADING_P,0,0);
       rotateController.setTolerance(1);
 
       addRequirements(swerve);
@@ -52,7 +55,7 @@ public class TimedDrive extends Command {
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    double speed = rotateController.calculate(swerve.getGyro().getAngle(), startAngle);
+    double speed = rotateController.calculate(swerve.getGyroAngle(), startAngle);
 
     swerve.drive(new ChassisSpeeds(chassisSpeeds.vxMetersPerSecond, chassisSpeeds.vyMetersPerSecond, speed), MAX_DRIVE_SPEED);
   }
@@ -5,7 +5,6 @@
 package frc.robot.commands;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -23,25 +22,16 @@ public class Climb extends Command {
 
   private MoveWristToPosition moveUp;
 
-  private final double maxInput = 0.50;
-
-  private DigitalInput magneticLimit;
-
-  private double initialPosition;
-
   public Climb(Elevator elevator, XboxController joyStick) {
     this.joyStick = joyStick;
     this.elevator = elevator;
-    magneticLimit = new DigitalInput(7);
 
     addRequirements(elevator);
   }
 
   // Called when the command is initially scheduled.
   @Override
-  public void initialize() {
-    initialPosition = elevator.getElevatorEncoder();
-  }
+  public void initialize() {}
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
@@ -49,29 +39,25 @@ public class Climb extends Command {
     double rightJoy = joyStick.getRightY();
     double speed = MathUtil.applyDeadband(rightJoy, 0.15);
 
+    // The top and bottom are soft limits on the SPARK MAX now, so they hold even if this loop stalls
     if (elevator.getClimbMode()){
-      double curr = elevator.getElevatorEncoder();
-
-
-      if(curr > initialPosition - IntakeConstants.MAX_DISTANCE && speed < 0){ // Go up if the current pos is less than max height and joy is up
-        elevator.raiseElevatorwithSpeed(speed * maxInput);
+      if(speed < 0){ // Go up while the joy is up
+        elevator.driveElevator(speed);
         // System.out.println("Going up");
       }
-      else if(curr < initialPosition && speed > 0 && magneticLimit.get()) { // Go down if current pos is greater than initial position (minimum height) and joy is down
-        elevator.raiseElevatorwithSpeed(speed * maxInput);
+      else if(speed > 0 && elevator.getLimitSwitch()) { // Go down while the joy is down and it's not on the bottom switch
+        elevator.driveElevator(speed);
         // System.out.println("Going down");
       }
       else {
-        elevator.holdPosition();
+        elevator.holdPosition(); // Only sent once, until the elevator moves again
       }
     }
 
     SmartDashboard.putNumber("Climb Position", elevator.getElevatorEncoder());
     
-    // SmartDashboard.putNumber("Init pos", initialPosition);
     // SmartDashboard.putNumber("Position", elevator.getElevatorEncoder());
-    // SmartDashboard.putNumber("Top pos", initialPosition + IntakeConstants.MAX_DISTANCE);
-    // SmartDashboard.putBoolean("Magnetic Encoder", magneticLimit.get());
+    // SmartDashboard.putBoolean("Magnetic Encoder", elevator.getLimitSwitch());
   }
 
   // Called once the command ends or is interrupted.
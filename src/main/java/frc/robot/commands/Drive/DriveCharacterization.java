@@ -0,0 +1,187 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Drive;
+
+import java.util.Arrays;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.subsystems.SwerveDrive;
+
+import static frc.robot.Constants.DriveConstants.*;
+
+/**
+ * Works out the drive feedforward by driving the robot. All wheels point forward and the drive
+ * motors get a slow voltage ramp, which shows kS and kV, then after a rest a sudden step backwards,
+ * which shows kA. volts = kS * sign(v) + kV * v + kA * a is fit to every sample with least squares.
+ *
+ * <p>Needs about three meters of clear carpet in front of the robot. The fitted gains are put on the
+ * dashboard under Characterization and used until the robot restarts, copy them into DriveConstants
+ * to keep them.
+ */
+public class DriveCharacterization extends Command {
+
+  private final SwerveDrive swerve;
+  private final Timer timer;
+
+  private final double rampEnd;
+  private final double restEnd;
+  private final double stepEnd;
+
+  // Running sums for the least squares fit, so nothing is stored per sample
+  private final double[][] xtx;
+  private final double[] xty;
+  private double sumVolts;
+  private double sumVoltsSquared;
+  private int samples;
+
+  private double lastVelocity;
+  private double lastVolts;
+  private double lastTime;
+
+  /** Creates a new DriveCharacterization. */
+  public DriveCharacterization(SwerveDrive swerve) {
+    this.swerve = swerve;
+    timer = new Timer();
+
+    rampEnd = CHARACTERIZATION_RAMP_VOLTS / CHARACTERIZATION_RAMP_RATE;
+    restEnd = rampEnd + CHARACTERIZATION_REST_SECONDS;
+    stepEnd = restEnd + CHARACTERIZATION_STEP_SECONDS;
+
+    xtx = new double[3][3];
+    xty = new double[3];
+
+    addRequirements(swerve);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    for (double[] row : xtx) {
+      Arrays.fill(row, 0);
+    }
+    Arrays.fill(xty, 0);
+    sumVolts = 0;
+    sumVoltsSquared = 0;
+    samples = 0;
+
+    lastVelocity = Double.NaN;
+    lastVolts = 0;
+    lastTime = 0;
+    timer.restart();
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    double time = timer.get();
+    double velocity = swerve.getAverageDriveVelocity();
+
+    // The voltage sent last loop is what moved the wheels between the two readings
+    double dt = time - lastTime;
+    if (!Double.isNaN(lastVelocity) && lastVolts != 0 && dt > 0) {
+      double averageVelocity = (velocity + lastVelocity) / 2;
+      if (Math.abs(averageVelocity) > CHARACTERIZATION_MIN_SPEED) {
+        addSample(lastVolts, averageVelocity, (velocity - lastVelocity) / dt);
+      }
+    }
+
+    double volts;
+    if (time < rampEnd) {
+      volts = time * CHARACTERIZATION_RAMP_RATE;
+    } else if (time < restEnd) {
+      volts = 0;
+    } else {
+      volts = -CHARACTERIZATION_STEP_VOLTS;
+    }
+    swerve.runCharacterization(volts);
+
+    lastVelocity = velocity;
+    lastVolts = volts;
+    lastTime = time;
+  }
+
+  private void addSample(double volts, double velocity, double acceleration) {
+    double[] x = {Math.signum(velocity), velocity, acceleration};
+    for (int row = 0; row < 3; row++) {
+      for (int column = 0; column < 3; column++) {
+        xtx[row][column] += x[row] * x[column];
+      }
+      xty[row] += x[row] * volts;
+    }
+    sumVolts += volts;
+    sumVoltsSquared += volts * volts;
+    samples++;
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    swerve.stopModules();
+    SmartDashboard.putNumber("Characterization/Samples", samples);
+
+    double[] gains = solve(xtx, xty);
+    if (interrupted || samples < 10 || gains == null) {
+      DriverStation.reportWarning("Drive characterization didn't finish, nothing changed (" + samples + " samples)", false);
+      return;
+    }
+
+    // How much of the voltage the fit explains, from the same running sums
+    double fitted = 0;
+    for (int row = 0; row < 3; row++) {
+      fitted += 2 * gains[row] * xty[row];
+      for (int column = 0; column < 3; column++) {
+        fitted -= gains[row] * xtx[row][column] * gains[column];
+      }
+    }
+    double residual = sumVoltsSquared - fitted;
+    double total = sumVoltsSquared - sumVolts * sumVolts / samples;
+    double rSquared = total > 0 ? 1 - residual / total : 0;
+
+    SmartDashboard.putNumber("Characterization/kS", gains[0]);
+    SmartDashboard.putNumber("Characterization/kV", gains[1]);
+    SmartDashboard.putNumber("Characterization/kA", gains[2]);
+    SmartDashboard.putNumber("Characterization/R2", rSquared);
+    DriverStation.reportWarning(String.format("Drive characterization: kS %.4f kV %.4f kA %.4f, R^2 %.3f over %d samples",
+      gains[0], gains[1], gains[2], rSquared, samples), false);
+
+    swerve.setDriveFeedforward(gains[0], gains[1], gains[2]);
+  }
+
+  /**
+   * Solve a 3x3 system with Cramer's rule.
+   * @return The solution, or null when the samples didn't pin it down.
+   */
+  private static double[] solve(double[][] a, double[] b) {
+    double determinant = determinant(a);
+    if (Math.abs(determinant) < 1e-9) {
+      return null;
+    }
+    double[] solution = new double[3];
+    for (int column = 0; column < 3; column++) {
+      double[][] replaced = new double[3][];
+      for (int row = 0; row < 3; row++) {
+        replaced[row] = a[row].clone();
+        replaced[row][column] = b[row];
+      }
+      solution[column] = determinant(replaced) / determinant;
+    }
+    return solution;
+  }
+
+  private static double determinant(double[][] m) {
+    return m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1])
+      - m[0][1] * (m[1][0] * m[2][2] - m[1][2] * m[2][0])
+      + m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return timer.hasElapsed(stepEnd);
+  }
+}
@@ -0,0 +1,119 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Drive;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * The joystick to chassis speeds math behind {@link DriveWithJoystick}, kept free of any
+ * hardware so it can be re-run against logged inputs off the robot.
+ */
+public class JoystickDriveController {
+
+  private final boolean zeroMode;
+  private final boolean ninetyMode;
+
+  private final PIDController rotateController;
+  private final SlewRateLimiter xLimiter;
+  private final SlewRateLimiter yLimiter;
+  private final SlewRateLimiter rotateLimiter;
+
+  private boolean cameFromZero;
+  private boolean cameFromNinety;
+  private double lastHeading;
+  private double maxDriveSpeed;
+
+  /**
+   * @param zeroMode Hold the robot facing zero degrees
+   * @param ninetyMode Hold the robot facing the amp
+   */
+  public JoystickDriveController(boolean zeroMode, boolean ninetyMode) {
+    this.zeroMode = zeroMode;
+    this.ninetyMode = ninetyMode;
+
+    rotateController = new PIDController(0.1, 0, 0);
+    rotateController.setTolerance(1);
+
+    xLimiter = new SlewRateLimiter(3);
+    yLimiter = new SlewRateLimiter(3);
+    rotateLimiter = new SlewRateLimiter(3);
+
+    rotateController.reset();
+  }
+
+  /**
+   * @param leftY Driver left stick Y
+   * @param leftX Driver left stick X
+   * @param rotateAxis Driver right stick X (raw axis 4)
+   * @param slowMode Whether slow mode is on
+   * @param fieldOriented Whether field oriented mode is on
+   * @param redAlliance Whether the robot is on the red alliance
+   * @param heading Robot heading in degrees from -180 to 180
+   * @param gyroAngle Continuous gyro angle in degrees, clockwise positive
+   * @param setpointGenerator Whether SwerveDrive's setpoint generator is on, the sticks are slew limited when it isn't
+   * @return The robot relative speeds to drive at.
+   */
+  public ChassisSpeeds calculate(double leftY, double leftX, double rotateAxis, boolean slowMode, boolean fieldOriented, boolean redAlliance, double heading, double gyroAngle, boolean setpointGenerator) {
+    maxDriveSpeed = slowMode ? DriveConstants.SLOWER_DRIVE_SPEED : DriveConstants.MAX_DRIVE_SPEED;
+
+    double xSpeed = MathUtil.applyDeadband(leftY, 0.15);
+    double ySpeed = MathUtil.applyDeadband(leftX, 0.15);
+    double rotateSpeed = MathUtil.applyDeadband(rotateAxis, 0.15);
+
+    if (setpointGenerator) {
+      // The generator limits what the wheels can actually do, the limiters just follow so turning it off doesn't jump
+      xLimiter.reset(xSpeed);
+      yLimiter.reset(ySpeed);
+      rotateLimiter.reset(rotateSpeed);
+    } else {
+      xSpeed = xLimiter.calculate(xSpeed);
+      ySpeed = yLimiter.calculate(ySpeed);
+      rotateSpeed = rotateLimiter.calculate(rotateSpeed);
+    }
+    xSpeed *= maxDriveSpeed;
+    ySpeed *= maxDriveSpeed;
+    rotateSpeed *= DriveConstants.MAX_ROTATE_SPEED;
+
+    if(cameFromNinety){
+      lastHeading = redAlliance ? 90 : -90;
+      cameFromNinety = false;
+    }else if(cameFromZero){
+      lastHeading = 0;
+      cameFromZero = false;
+    }
+    else if((Math.abs(rotateSpeed) > 0.15)){
+      lastHeading = gyroAngle;
+    }
+
+    if(zeroMode) {
+      rotateSpeed = rotateController.calculate(heading, 0);
+      lastHeading = 0;
+      cameFromZero = true;
+    }
+    else if(ninetyMode) {
+      double rotation = redAlliance ? 90 : -90;
+      rotateSpeed = rotateController.calculate(heading, rotation);
+      lastHeading = rotation;
+      cameFromNinety = true;
+    }
+
+    if(fieldOriented) {
+      return ChassisSpeeds.fromFieldRelativeSpeeds(xSpeed, ySpeed, rotateSpeed, Rotation2d.fromDegrees(-gyroAngle));
+    }
+    return new ChassisSpeeds(xSpeed, ySpeed, rotateSpeed);
+  }
+
+  /**
+   * @return The max drive speed picked by the last {@link #calculate} call.
+   */
+  public double getMaxDriveSpeed() {
+    return maxDriveSpeed;
+  }
+}
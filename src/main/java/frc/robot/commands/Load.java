@@ -6,8 +6,10 @@ package frc.robot.commands;
 
 import static frc.robot.Constants.IntakeConstants.DESIRED_SPEED;
 
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.OuttakeConstants;
 import frc.robot.subsystems.Intake;
 import frc.robot.subsystems.Outtake;
 
@@ -16,6 +18,10 @@ public class Load extends Command {
   public Intake intake; 
   public Outtake outtake;
 
+  // Once feeding starts it keeps going even if the shot pulls the flywheel out of tolerance
+  private boolean feeding;
+  private final Timer clearTimer = new Timer();
+
   public Load(Outtake outtake, Intake intake) {
     // Use addRequirements() here to declare subsystem dependencies.
     this.intake = intake;
@@ -25,15 +31,30 @@ public class Load extends Command {
 
   // Called when the command is initially scheduled.
   @Override
-  public void initialize() {}
+  public void initialize() {
+    feeding = false;
+    clearTimer.stop();
+    clearTimer.reset();
+  }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    outtake.shootPercent(1);
+    outtake.shootVelocity(DESIRED_SPEED);
      
-    if(outtake.isUpToSpeed(DESIRED_SPEED)){
+    if(!feeding && outtake.isReady()){
+      feeding = true;
+    }
+    if(feeding){
       intake.feedShooter();
+
+      // Sensor reads true when there's no note, the shot is done once it's stayed clear for a bit
+      if(intake.getIntakeSensor()){
+        clearTimer.start();
+      } else {
+        clearTimer.stop();
+        clearTimer.reset();
+      }
     }
   }
 
@@ -47,6 +68,6 @@ public class Load extends Command {
   // Returns true when the command should end.
   @Override
   public boolean isFinished() {
-    return false;
+    return feeding && clearTimer.hasElapsed(OuttakeConstants.SHOT_CLEAR_TIME);
   }
 }
@@ -35,10 +35,15 @@ private Wrist wrist;
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    double currPosition = wrist.getthroughBore().getAbsolutePosition();
+    double currPosition = wrist.getPosition();
     double speed = MathUtil.applyDeadband(joy.getLeftY(), 0.15);
 
-        wrist.rotateWrist(speed);
+    if (speed != 0) {
+      wrist.rotateWrist(speed);
+    } else if (!wrist.isProfiled()) {
+      // Stick let go, hold the wrist against gravity where it stopped
+      wrist.holdPosition();
+    }
     if(currPosition > IntakeConstants.HIGH_WRIST_POS && currPosition < IntakeConstants.LOW_WRIST_POS){
      
     }
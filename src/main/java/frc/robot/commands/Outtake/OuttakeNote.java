@@ -14,25 +14,36 @@ public class OuttakeNote extends Command {
   private Intake intake;
   private double targetSpeed;
 
-  /** Creates a new OuttakeNote. */
-  public OuttakeNote(Outtake outtake, Intake intake) {
+  private boolean feeding;
+
+  /**
+   * Creates a new OuttakeNote.
+   * @param targetSpeed Flywheel speed to shoot at in RPM
+   */
+  public OuttakeNote(Outtake outtake, Intake intake, double targetSpeed) {
 
     this.outtake = outtake;
     this.intake = intake;
+    this.targetSpeed = targetSpeed;
 
     // Use addRequirements() here to declare subsystem dependencies.
-    addRequirements(outtake);
+    addRequirements(outtake, intake);
   }
 
   // Called when the command is initially scheduled.
   @Override
-  public void initialize() {}
+  public void initialize() {
+    feeding = false;
+  }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
     outtake.shootVelocity(targetSpeed);
-    if(outtake.isUpToSpeed(targetSpeed)){
+    if(outtake.isReady()){
+      feeding = true;
+    }
+    if(feeding){
       intake.feedShooter();
     }
 
@@ -41,6 +52,8 @@ public class OuttakeNote extends Command {
   // Called once the command ends or is interrupted.
   @Override
   public void end(boolean interrupted) {
+    outtake.stop();
+    intake.stop();
   }
 
   // Returns true when the command should end.
@@ -0,0 +1,116 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Outtake;
+
+import static frc.robot.Constants.IntakeConstants.HIGH_WRIST_POS;
+import static frc.robot.Constants.IntakeConstants.LOW_WRIST_POS;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.ShotMap;
+import frc.robot.Constants.LimelightConstants;
+import frc.robot.Constants.OuttakeConstants;
+import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.Outtake;
+import frc.robot.subsystems.SwerveDrive;
+import frc.robot.subsystems.Wrist;
+
+/**
+ * Shoot into the speaker from wherever the robot is. The distance from the pose estimate picks the
+ * flywheel speed and wrist position out of the shot map, and the note is fed once the flywheel is
+ * ready, the wrist is there and the robot is inside the map's range.
+ */
+public class ShootAtSpeaker extends Command {
+
+  private final SwerveDrive swerve;
+  private final Outtake outtake;
+  private final Intake intake;
+  private final Wrist wrist;
+  private final ShotMap shotMap;
+
+  private final Timer clearTimer = new Timer();
+
+  private boolean feeding;
+  private double speakerX;
+  private double speakerY;
+
+  /** Creates a new ShootAtSpeaker. */
+  public ShootAtSpeaker(SwerveDrive swerve, Outtake outtake, Intake intake, Wrist wrist, ShotMap shotMap) {
+    this.swerve = swerve;
+    this.outtake = outtake;
+    this.intake = intake;
+    this.wrist = wrist;
+    this.shotMap = shotMap;
+
+    // Doesn't require the drive, the driver keeps driving and aiming
+    addRequirements(outtake, intake, wrist);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    feeding = false;
+    clearTimer.stop();
+    clearTimer.reset();
+
+    speakerX = OuttakeConstants.BLUE_SPEAKER.getX();
+    speakerY = OuttakeConstants.BLUE_SPEAKER.getY();
+    if (swerve.shouldFlip()) {
+      speakerX = LimelightConstants.FIELD_LENGTH - speakerX;
+    }
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    Pose2d pose = swerve.getPose();
+    double distance = Math.hypot(speakerX - pose.getX(), speakerY - pose.getY());
+
+    double speed = shotMap.getFlywheelSpeed(distance);
+    // Wrist positions grow going down, keep the target between the hard stops
+    double wristTarget = MathUtil.clamp(shotMap.getWristPosition(distance), HIGH_WRIST_POS, LOW_WRIST_POS);
+    if (Double.isNaN(speed) || Double.isNaN(wristTarget)) {
+      // No shot map loaded, nothing sensible to aim at
+      outtake.stop();
+      return;
+    }
+
+    outtake.shootVelocity(speed);
+    // The wrist profiles toward the moving target and holds it against gravity
+    wrist.rotateWristToPosition(wristTarget);
+    double wristPosition = wrist.getPosition();
+
+    if (!feeding && outtake.isReady() && shotMap.isInRange(distance)
+      && Math.abs(wristPosition - wristTarget) <= OuttakeConstants.WRIST_SHOT_TOLERANCE) {
+      feeding = true;
+    }
+    if (feeding) {
+      intake.feedShooter();
+
+      // Sensor reads true when there's no note
+      if (intake.getIntakeSensor()) {
+        clearTimer.start();
+      } else {
+        clearTimer.stop();
+        clearTimer.reset();
+      }
+    }
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    outtake.stop();
+    intake.stop();
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return feeding && clearTimer.hasElapsed(OuttakeConstants.SHOT_CLEAR_TIME);
+  }
+}
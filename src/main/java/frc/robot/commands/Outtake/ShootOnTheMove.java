@@ -0,0 +1,172 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Outtake;
+
+import static frc.robot.Constants.DriveConstants.MAX_DRIVE_SPEED;
+import static frc.robot.Constants.DriveConstants.MAX_ROTATE_SPEED;
+import static frc.robot.Constants.DriveConstants.SLOWER_DRIVE_SPEED;
+import static frc.robot.Constants.IntakeConstants.HIGH_WRIST_POS;
+import static frc.robot.Constants.IntakeConstants.LOW_WRIST_POS;
+
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.ShotSolver;
+import frc.robot.Constants.LimelightConstants;
+import frc.robot.Constants.OuttakeConstants;
+import frc.robot.logging.BinaryLog;
+import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.Outtake;
+import frc.robot.subsystems.SwerveDrive;
+import frc.robot.subsystems.Wrist;
+
+/**
+ * Drive at a field relative velocity while turning to the solver's lead compensated heading, and
+ * shoot as soon as the flywheel, wrist and heading are all there. Ends once the note has left.
+ * Drives through SwerveDrive.drive(), so it moves the same way as the autos and the joystick.
+ */
+public class ShootOnTheMove extends Command {
+
+  private static final int aimHeadingChannel = BinaryLog.channel("ShootOnTheMove/AimHeading");
+  private static final int distanceChannel = BinaryLog.channel("ShootOnTheMove/Distance");
+  private static final int timeOfFlightChannel = BinaryLog.channel("ShootOnTheMove/TimeOfFlight");
+  private static final int feedingChannel = BinaryLog.channel("ShootOnTheMove/Feeding");
+
+  private final SwerveDrive swerve;
+  private final Outtake outtake;
+  private final Intake intake;
+  private final Wrist wrist;
+  private final ShotSolver solver;
+  private final DoubleSupplier fieldVx;
+  private final DoubleSupplier fieldVy;
+
+  private final PIDController headingController;
+  private final Timer clearTimer = new Timer();
+  // Reused every loop, robot relative in SwerveDrive.drive()'s frame
+  private final ChassisSpeeds speeds = new ChassisSpeeds();
+
+  private boolean feeding;
+  private double speakerX;
+  private double speakerY;
+
+  /**
+   * @param solver Shot solver to aim with
+   * @param fieldVx Velocity to drive at along the field's x axis, meters/second
+   * @param fieldVy Velocity to drive at along the field's y axis, meters/second
+   */
+  public ShootOnTheMove(SwerveDrive swerve, Outtake outtake, Intake intake, Wrist wrist, ShotSolver solver, DoubleSupplier fieldVx, DoubleSupplier fieldVy) {
+    this.swerve = swerve;
+    this.outtake = outtake;
+    this.intake = intake;
+    this.wrist = wrist;
+    this.solver = solver;
+    this.fieldVx = fieldVx;
+    this.fieldVy = fieldVy;
+
+    headingController = new PIDController(OuttakeConstants.AIM_P, 0, OuttakeConstants.AIM_D);
+    headingController.enableContinuousInput(-Math.PI, Math.PI);
+
+    addRequirements(swerve, outtake, intake, wrist);
+  }
+
+  /**
+   * Drive with the left stick at slow mode speed, pushed the same way as DriveWithJoystick's field
+   * oriented mode. The stick's up is negative and drive() forward is positive, hence the flip.
+   */
+  public static ShootOnTheMove withStick(SwerveDrive swerve, Outtake outtake, Intake intake, Wrist wrist, ShotSolver solver, XboxController driver) {
+    return new ShootOnTheMove(swerve, outtake, intake, wrist, solver,
+      () -> -MathUtil.applyDeadband(driver.getLeftY(), 0.15) * SLOWER_DRIVE_SPEED,
+      () -> -MathUtil.applyDeadband(driver.getLeftX(), 0.15) * SLOWER_DRIVE_SPEED);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    feeding = false;
+    clearTimer.stop();
+    clearTimer.reset();
+    headingController.reset();
+
+    speakerX = OuttakeConstants.BLUE_SPEAKER.getX();
+    speakerY = OuttakeConstants.BLUE_SPEAKER.getY();
+    if (swerve.shouldFlip()) {
+      speakerX = LimelightConstants.FIELD_LENGTH - speakerX;
+    }
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    // The odometry thread's snapshot, read once so x, y and heading are from the same sample
+    Pose2d pose = swerve.getPose();
+    Rotation2d rotation = pose.getRotation();
+    double heading = rotation.getRadians();
+    solver.solve(pose.getX(), pose.getY(), swerve.getFieldVelocityX(), swerve.getFieldVelocityY(), speakerX, speakerY);
+
+    // Field relative request to robot relative, by hand so nothing is allocated
+    double vx = fieldVx.getAsDouble();
+    double vy = fieldVy.getAsDouble();
+    double cos = rotation.getCos();
+    double sin = rotation.getSin();
+    speeds.vxMetersPerSecond = vx * cos + vy * sin;
+    speeds.vyMetersPerSecond = -vx * sin + vy * cos;
+    speeds.omegaRadiansPerSecond = MathUtil.clamp(headingController.calculate(heading, solver.getAimHeading()), -MAX_ROTATE_SPEED, MAX_ROTATE_SPEED);
+    swerve.drive(speeds, MAX_DRIVE_SPEED);
+
+    double speed = solver.getFlywheelSpeed();
+    double wristTarget = MathUtil.clamp(solver.getWristPosition(), HIGH_WRIST_POS, LOW_WRIST_POS);
+    if (Double.isNaN(speed) || Double.isNaN(wristTarget)) {
+      // No shot map loaded, keep driving but don't shoot
+      outtake.stop();
+      return;
+    }
+    outtake.shootVelocity(speed);
+    // The wrist profiles toward the moving target and holds it against gravity
+    wrist.rotateWristToPosition(wristTarget);
+    double wristPosition = wrist.getPosition();
+
+    if (!feeding && outtake.isReady() && solver.isInRange() && solver.isAimed(heading)
+      && Math.abs(wristPosition - wristTarget) <= OuttakeConstants.WRIST_SHOT_TOLERANCE) {
+      feeding = true;
+    }
+    if (feeding) {
+      intake.feedShooter();
+
+      // Sensor reads true when there's no note
+      if (intake.getIntakeSensor()) {
+        clearTimer.start();
+      } else {
+        clearTimer.stop();
+        clearTimer.reset();
+      }
+    }
+
+    BinaryLog.log(aimHeadingChannel, solver.getAimHeading());
+    BinaryLog.log(distanceChannel, solver.getDistance());
+    BinaryLog.log(timeOfFlightChannel, solver.getTimeOfFlight());
+    BinaryLog.log(feedingChannel, feeding);
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    swerve.stopModules();
+    outtake.stop();
+    intake.stop();
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return feeding && clearTimer.hasElapsed(OuttakeConstants.SHOT_CLEAR_TIME);
+  }
+}
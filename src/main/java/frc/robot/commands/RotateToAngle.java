@@ -62,7 +62,7 @@ public class RotateToAngle extends Command {
 
     rotateController.setSetpoint(end);
 
-    current = swerve.getGyro().getYaw();
+    current = swerve.getGyroYaw();
     
     double rotationSpeed = rotateController.calculate(current, end);
 
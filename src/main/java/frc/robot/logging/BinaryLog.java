@@ -0,0 +1,399 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.logging;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Compact binary log of named channels. The robot loop only copies values into a preallocated
+ * queue, a background thread drains the queue to disk so the loop never waits on the flash.
+ * Files are rotated once they reach a size cap and the oldest ones are deleted past a count cap.
+ * The roboRIO has no real time clock, so files are numbered in sequence instead of named by time.
+ *
+ * <p>File layout, all big endian: the {@link #MAGIC} string and {@link #VERSION}, then records
+ * starting with a type byte.
+ * <ul>
+ * <li>{@link #DEFINE}: short channel, UTF name. Written for every channel at the top of each file.</li>
+ * <li>{@link #VALUE}: short channel, long timestamp in microseconds, double value.</li>
+ * <li>{@link #EVENT}: short channel, long timestamp in microseconds, UTF text.</li>
+ * </ul>
+ */
+public final class BinaryLog {
+
+  public static final String MAGIC = "FRC342LOG";
+  public static final int VERSION = 1;
+  public static final String PREFIX = "log_";
+  public static final String EXTENSION = ".bin";
+
+  public static final byte DEFINE = 0;
+  public static final byte VALUE = 1;
+  public static final byte EVENT = 2;
+
+  // After a write fails the file is reopened after this long, doubling each failure in a row up to the max
+  private static final long RETRY_MIN_NANOS = 1_000_000_000L;
+  private static final long RETRY_MAX_NANOS = 60_000_000_000L;
+
+  private static final Object lock = new Object();
+  private static final List<String> channelNames = new ArrayList<>();
+
+  // Queue filled by the robot loop, guarded by the lock
+  private static byte[] types;
+  private static short[] channels;
+  private static long[] timestamps;
+  private static double[] values;
+  private static String[] texts;
+  private static int head;
+  private static int size;
+  private static long dropped;
+
+  private static volatile boolean running;
+  private static long timestamp;
+
+  private static File directory;
+  private static long maxFileBytes;
+  private static int maxFiles;
+
+  /**
+   * Start the writer thread. Does nothing if already started.
+   * @param logDirectory Where to put the log files
+   * @param queueCapacity How many records can wait for the writer before new ones get dropped
+   * @param fileBytes Size at which to start a new file
+   * @param files How many files to keep before deleting the oldest
+   */
+  public static void start(File logDirectory, int queueCapacity, long fileBytes, int files) {
+    synchronized (lock) {
+      if (running) {
+        return;
+      }
+      directory = logDirectory;
+      maxFileBytes = fileBytes;
+      maxFiles = files;
+
+      types = new byte[queueCapacity];
+      channels = new short[queueCapacity];
+      timestamps = new long[queueCapacity];
+      values = new double[queueCapacity];
+      texts = new String[queueCapacity];
+      running = true;
+    }
+
+    Thread writer = new Thread(BinaryLog::writeLoop, "BinaryLog");
+    writer.setDaemon(true);
+    writer.setPriority(Thread.MIN_PRIORITY);
+    writer.start();
+  }
+
+  /**
+   * @return True once {@link #start} has been called.
+   */
+  public static boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Register a channel. Call once at startup and keep the id, registering is the only call that allocates.
+   * @param name Channel name, e.g. Drive/FL/DrivePosition
+   * @return The id to log values under.
+   */
+  public static int channel(String name) {
+    synchronized (lock) {
+      int index = channelNames.indexOf(name);
+      if (index >= 0) {
+        return index;
+      }
+      channelNames.add(name);
+      return channelNames.size() - 1;
+    }
+  }
+
+  /**
+   * Set the timestamp used by every record until the next call. Call once at the start of each loop.
+   * @param microseconds FPGA time in microseconds
+   */
+  public static void setTimestamp(long microseconds) {
+    timestamp = microseconds;
+  }
+
+  /**
+   * @return The timestamp records are currently stamped with, in microseconds.
+   */
+  public static long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Queue a value. Never blocks on the disk, the value is dropped if the queue is full.
+   */
+  public static void log(int channel, double value) {
+    if (!running) {
+      return;
+    }
+    synchronized (lock) {
+      int index = reserve();
+      if (index >= 0) {
+        types[index] = VALUE;
+        channels[index] = (short) channel;
+        timestamps[index] = timestamp;
+        values[index] = value;
+      }
+    }
+  }
+
+  /**
+   * Queue a boolean as 1 or 0.
+   */
+  public static void log(int channel, boolean value) {
+    log(channel, value ? 1.0 : 0.0);
+  }
+
+  /**
+   * Queue a text event. The string is kept by reference, so pass one that already exists.
+   */
+  public static void event(int channel, String text) {
+    if (!running) {
+      return;
+    }
+    synchronized (lock) {
+      int index = reserve();
+      if (index >= 0) {
+        types[index] = EVENT;
+        channels[index] = (short) channel;
+        timestamps[index] = timestamp;
+        texts[index] = text;
+      }
+    }
+  }
+
+  /**
+   * @return How many records were dropped because the writer couldn't keep up or the disk failed.
+   */
+  public static long getDropped() {
+    synchronized (lock) {
+      return dropped;
+    }
+  }
+
+  /**
+   * Call while holding the lock.
+   * @return Slot for the next record, or -1 when the queue is full.
+   */
+  private static int reserve() {
+    if (size == types.length) {
+      dropped++;
+      return -1;
+    }
+    int index = (head + size) % types.length;
+    size++;
+    return index;
+  }
+
+  private static void writeLoop() {
+    int capacity = types.length;
+    byte[] batchTypes = new byte[capacity];
+    short[] batchChannels = new short[capacity];
+    long[] batchTimestamps = new long[capacity];
+    double[] batchValues = new double[capacity];
+    String[] batchTexts = new String[capacity];
+
+    LogFile file = null;
+    int definedChannels = 0;
+    // Failed writes in a row, and when to try the disk again after the last one
+    int failures = 0;
+    long retryDelay = RETRY_MIN_NANOS;
+    long retryTime = System.nanoTime();
+
+    while (running) {
+      int count;
+      int channelCount;
+      synchronized (lock) {
+        count = size;
+        for (int i = 0; i < count; i++) {
+          int index = (head + i) % capacity;
+          batchTypes[i] = types[index];
+          batchChannels[i] = channels[index];
+          batchTimestamps[i] = timestamps[index];
+          batchValues[i] = values[index];
+          batchTexts[i] = texts[index];
+          texts[index] = null;
+        }
+        head = (head + count) % capacity;
+        size = 0;
+        channelCount = channelNames.size();
+      }
+
+      if (file == null && System.nanoTime() - retryTime < 0) {
+        // Still backing off from a failed write, this batch is lost
+        Arrays.fill(batchTexts, 0, count, null);
+        synchronized (lock) {
+          dropped += count;
+        }
+      } else {
+        try {
+          if (file == null || file.bytes() >= maxFileBytes) {
+            if (file != null) {
+              file.close();
+            }
+            file = LogFile.open(directory);
+            deleteOldFiles();
+            definedChannels = 0;
+          }
+
+          // Every file defines every channel so each one can be read on its own
+          for (; definedChannels < channelCount; definedChannels++) {
+            String name;
+            synchronized (lock) {
+              name = channelNames.get(definedChannels);
+            }
+            file.out.writeByte(DEFINE);
+            file.out.writeShort(definedChannels);
+            file.out.writeUTF(name);
+          }
+
+          for (int i = 0; i < count; i++) {
+            file.out.writeByte(batchTypes[i]);
+            file.out.writeShort(batchChannels[i]);
+            file.out.writeLong(batchTimestamps[i]);
+            if (batchTypes[i] == EVENT) {
+              file.out.writeUTF(batchTexts[i]);
+              batchTexts[i] = null;
+            } else {
+              file.out.writeDouble(batchValues[i]);
+            }
+          }
+          file.out.flush();
+          if (failures > 0) {
+            DriverStation.reportWarning("Binary log writing again after " + failures + " failed attempts", false);
+            failures = 0;
+            retryDelay = RETRY_MIN_NANOS;
+          }
+        } catch (IOException e) {
+          // Only the first failure of a run is reported, a full or missing drive would flood the console otherwise
+          if (failures == 0) {
+            DriverStation.reportError("Binary log write failed, retrying in the background: " + e.getMessage(), false);
+          }
+          failures++;
+          if (file != null) {
+            file.closeQuietly();
+            file = null;
+          }
+          retryTime = System.nanoTime() + retryDelay;
+          retryDelay = Math.min(retryDelay * 2, RETRY_MAX_NANOS);
+          Arrays.fill(batchTexts, 0, count, null);
+          synchronized (lock) {
+            dropped += count;
+          }
+        }
+      }
+
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Keep only the newest log files.
+   */
+  private static void deleteOldFiles() {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+    if (files == null || files.length <= maxFiles) {
+      return;
+    }
+    // Modified times are no help without a clock, the sequence number is the order they were written
+    Arrays.sort(files, Comparator.comparingLong(BinaryLog::sequence));
+    for (int i = 0; i < files.length - maxFiles; i++) {
+      files[i].delete();
+    }
+  }
+
+  /**
+   * @return The sequence number in a log file's name, -1 if it isn't named like one.
+   */
+  static long sequence(File file) {
+    String name = file.getName();
+    if (!name.startsWith(PREFIX) || !name.endsWith(EXTENSION)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(name.substring(PREFIX.length(), name.length() - EXTENSION.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * One open log file and how much has been written to it.
+   */
+  private static final class LogFile {
+    private final DataOutputStream out;
+
+    private LogFile(DataOutputStream out) {
+      this.out = out;
+    }
+
+    /**
+     * Start the next file in the sequence. It's created new, an existing log is never written over.
+     */
+    static LogFile open(File directory) throws IOException {
+      directory.mkdirs();
+      long next = 0;
+      File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+      if (files != null) {
+        for (File existing : files) {
+          next = Math.max(next, sequence(existing) + 1);
+        }
+      }
+
+      DataOutputStream out = null;
+      while (out == null) {
+        File file = new File(directory, PREFIX + next + EXTENSION);
+        try {
+          out = new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), 64 * 1024));
+        } catch (FileAlreadyExistsException e) {
+          // Showed up since the listing, take the one after
+          next++;
+        }
+      }
+      out.writeUTF(MAGIC);
+      out.writeInt(VERSION);
+      return new LogFile(out);
+    }
+
+    long bytes() {
+      return out.size();
+    }
+
+    void close() throws IOException {
+      out.close();
+    }
+
+    void closeQuietly() {
+      try {
+        out.close();
+      } catch (IOException e) {
+        // Already failing, nothing more to report
+      }
+    }
+  }
+
+  private BinaryLog() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+}
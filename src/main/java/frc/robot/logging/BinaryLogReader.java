@@ -0,0 +1,270 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.logging;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads files written by {@link BinaryLog} back one robot loop at a time. Every record logged in
+ * the same loop shares a timestamp, so a cycle is every record up to the next timestamp. Values
+ * hold until they are logged again, like the robot would have seen them.
+ *
+ * <p>Several files from a rotated log can be read back to back. Channels are matched by name, so
+ * files from different runs still line up.
+ */
+public class BinaryLogReader implements Closeable {
+
+  private final List<File> files;
+  private int fileIndex = -1;
+  private DataInputStream in;
+
+  private final Map<String, Integer> channelsByName = new HashMap<>();
+  private final List<String> channelNames = new ArrayList<>();
+  private int[] fileChannelToIndex = new int[0];
+
+  private double[] values = new double[0];
+  private boolean[] present = new boolean[0];
+  private double[][] cycleValues = new double[0][];
+  private int[] cycleCounts = new int[0];
+  private final List<List<String>> cycleEvents = new ArrayList<>();
+
+  private long timestamp;
+
+  // One record read ahead to know where the current cycle ends
+  private boolean hasPending;
+  private byte pendingType;
+  private int pendingChannel;
+  private long pendingTimestamp;
+  private double pendingValue;
+  private String pendingText;
+
+  /**
+   * @param files Log files in the order they were written
+   */
+  public BinaryLogReader(List<File> files) {
+    this.files = files;
+  }
+
+  /**
+   * All log files in a directory, oldest first.
+   */
+  public static List<File> filesIn(File directory) {
+    File[] found = directory.listFiles((dir, name) -> name.endsWith(BinaryLog.EXTENSION));
+    if (found == null) {
+      return List.of();
+    }
+    Arrays.sort(found, Comparator.<File>comparingLong(BinaryLog::sequence).thenComparing(File::getName));
+    return Arrays.asList(found);
+  }
+
+  /**
+   * Advance to the next robot loop.
+   * @return False once every file has been read.
+   */
+  public boolean nextCycle() throws IOException {
+    Arrays.fill(cycleCounts, 0);
+    for (List<String> events : cycleEvents) {
+      events.clear();
+    }
+
+    if (!hasPending && !readRecord()) {
+      return false;
+    }
+    timestamp = pendingTimestamp;
+
+    while (hasPending && pendingTimestamp == timestamp) {
+      apply();
+      if (!readRecord()) {
+        break;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return Timestamp of the current cycle in seconds.
+   */
+  public double getTimestamp() {
+    return timestamp / 1e6;
+  }
+
+  /**
+   * @return The channel's index, or -1 if nothing has defined it yet.
+   */
+  public int channel(String name) {
+    Integer index = channelsByName.get(name);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * @return Whether the channel has had a value logged at any point so far.
+   */
+  public boolean has(String name) {
+    int index = channel(name);
+    return index >= 0 && present[index];
+  }
+
+  /**
+   * @return The channel's most recent value, or the default if it has never been logged.
+   */
+  public double get(String name, double defaultValue) {
+    int index = channel(name);
+    return index >= 0 && present[index] ? values[index] : defaultValue;
+  }
+
+  /**
+   * @return Whether the channel's most recent value is non-zero.
+   */
+  public boolean getBoolean(String name, boolean defaultValue) {
+    int index = channel(name);
+    return index >= 0 && present[index] ? values[index] != 0 : defaultValue;
+  }
+
+  /**
+   * @return How many times the channel was logged this cycle.
+   */
+  public int countThisCycle(String name) {
+    int index = channel(name);
+    return index >= 0 ? cycleCounts[index] : 0;
+  }
+
+  /**
+   * @return The i-th value logged to the channel this cycle.
+   */
+  public double getThisCycle(String name, int i) {
+    return cycleValues[channel(name)][i];
+  }
+
+  /**
+   * @return Every event logged to the channel this cycle.
+   */
+  public List<String> getEvents(String name) {
+    int index = channel(name);
+    return index >= 0 ? cycleEvents.get(index) : List.of();
+  }
+
+  private void apply() {
+    int index = pendingChannel;
+    if (pendingType == BinaryLog.EVENT) {
+      cycleEvents.get(index).add(pendingText);
+      return;
+    }
+    values[index] = pendingValue;
+    present[index] = true;
+
+    if (cycleCounts[index] == cycleValues[index].length) {
+      cycleValues[index] = Arrays.copyOf(cycleValues[index], Math.max(4, cycleCounts[index] * 2));
+    }
+    cycleValues[index][cycleCounts[index]++] = pendingValue;
+  }
+
+  /**
+   * Read the next value or event record into the pending slot, handling definitions and file changes on the way.
+   * @return False at the end of the last file.
+   */
+  private boolean readRecord() throws IOException {
+    hasPending = false;
+    while (true) {
+      if (in == null && !openNextFile()) {
+        return false;
+      }
+
+      byte type;
+      try {
+        type = in.readByte();
+      } catch (EOFException e) {
+        in.close();
+        in = null;
+        continue;
+      }
+
+      try {
+        int fileChannel = in.readShort();
+        if (type == BinaryLog.DEFINE) {
+          define(fileChannel, in.readUTF());
+          continue;
+        }
+
+        pendingType = type;
+        pendingChannel = fileChannel < fileChannelToIndex.length ? fileChannelToIndex[fileChannel] : -1;
+        pendingTimestamp = in.readLong();
+        if (type == BinaryLog.EVENT) {
+          pendingText = in.readUTF();
+        } else {
+          pendingValue = in.readDouble();
+        }
+
+        // A channel without a definition can't be named, so there's nothing to do with it
+        if (pendingChannel < 0) {
+          continue;
+        }
+        hasPending = true;
+        return true;
+      } catch (EOFException e) {
+        // The robot lost power mid record, skip the partial record
+        in.close();
+        in = null;
+      }
+    }
+  }
+
+  private boolean openNextFile() throws IOException {
+    fileIndex++;
+    if (fileIndex >= files.size()) {
+      return false;
+    }
+    in = new DataInputStream(new BufferedInputStream(new FileInputStream(files.get(fileIndex)), 64 * 1024));
+    String magic = in.readUTF();
+    int version = in.readInt();
+    if (!BinaryLog.MAGIC.equals(magic) || version != BinaryLog.VERSION) {
+      throw new IOException(files.get(fileIndex) + " is not a version " + BinaryLog.VERSION + " binary log");
+    }
+    Arrays.fill(fileChannelToIndex, -1);
+    return true;
+  }
+
+  private void define(int fileChannel, String name) {
+    Integer index = channelsByName.get(name);
+    if (index == null) {
+      index = channelNames.size();
+      channelNames.add(name);
+      channelsByName.put(name, index);
+
+      values = Arrays.copyOf(values, index + 1);
+      present = Arrays.copyOf(present, index + 1);
+      cycleCounts = Arrays.copyOf(cycleCounts, index + 1);
+      cycleValues = Arrays.copyOf(cycleValues, index + 1);
+      cycleValues[index] = new double[4];
+      cycleEvents.add(new ArrayList<>());
+    }
+
+    if (fileChannel >= fileChannelToIndex.length) {
+      int oldLength = fileChannelToIndex.length;
+      fileChannelToIndex = Arrays.copyOf(fileChannelToIndex, Math.max(fileChannel + 1, oldLength * 2));
+      Arrays.fill(fileChannelToIndex, oldLength, fileChannelToIndex.length, -1);
+    }
+    fileChannelToIndex[fileChannel] = index;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (in != null) {
+      in.close();
+      in = null;
+    }
+  }
+}
@@ -0,0 +1,215 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import edu.wpi.first.math.MathShared;
+import edu.wpi.first.math.MathSharedStore;
+import edu.wpi.first.math.MathUsageId;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import frc.robot.OdometryThread;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.commands.Drive.JoystickDriveController;
+import frc.robot.logging.BinaryLogReader;
+
+/**
+ * Re-runs the pose estimator and the joystick drive math against a recorded {@link frc.robot.logging.BinaryLog}
+ * on a desktop JVM, as fast as the file can be read. Time-dependent WPILib math (the sticks' slew rate limiters
+ * while the setpoint generator is off, the estimator) sees the logged timestamps instead of the wall clock, so
+ * the same log always gives the same output. Writes the logged and recomputed values side by side to a CSV and prints the RMS differences.
+ *
+ * <p>Usage: {@code ./gradlew replay --args="<log file or directory> [output.csv]"}
+ */
+public final class Replay {
+
+  private static final int[] MODULE_IDS = {
+    DriveConstants.FRONT_LEFT[0],
+    DriveConstants.FRONT_RIGHT[0],
+    DriveConstants.BACK_LEFT[0],
+    DriveConstants.BACK_RIGHT[0]
+  };
+
+  /**
+   * Feeds the log's timestamps to WPILib math instead of the system clock.
+   */
+  private static final class ReplayClock implements MathShared {
+    private double timestamp;
+
+    @Override
+    public void reportError(String error, StackTraceElement[] stackTrace) {
+      System.err.println(error);
+    }
+
+    @Override
+    public void reportUsage(MathUsageId id, int count) {}
+
+    @Override
+    public double getTimestamp() {
+      return timestamp;
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: replay <log file or directory> [output.csv]");
+      System.exit(1);
+    }
+
+    File input = new File(args[0]);
+    List<File> files = input.isDirectory() ? BinaryLogReader.filesIn(input) : List.of(input);
+    File output = new File(args.length > 1 ? args[1] : "replay.csv");
+
+    ReplayClock clock = new ReplayClock();
+    MathSharedStore.setMathShared(clock);
+
+    String[] drivePositionNames = new String[MODULE_IDS.length];
+    String[] rotatePositionNames = new String[MODULE_IDS.length];
+    SwerveModulePosition[] positions = new SwerveModulePosition[MODULE_IDS.length];
+    for (int i = 0; i < MODULE_IDS.length; i++) {
+      drivePositionNames[i] = "Drive/Module " + MODULE_IDS[i] + "/DrivePosition";
+      rotatePositionNames[i] = "Drive/Module " + MODULE_IDS[i] + "/RotatePosition";
+      positions[i] = new SwerveModulePosition();
+    }
+
+    // One controller per DriveWithJoystick mode, the same way the robot keeps one command per button
+    JoystickDriveController[] controllers = {
+      new JoystickDriveController(false, false),
+      new JoystickDriveController(true, false),
+      new JoystickDriveController(false, true)
+    };
+
+    SwerveDrivePoseEstimator estimator = null;
+    Stats poseStats = new Stats();
+    Stats speedStats = new Stats();
+    long cycles = 0;
+    double firstTimestamp = Double.NaN;
+    double lastTimestamp = Double.NaN;
+    long start = System.nanoTime();
+
+    try (BinaryLogReader reader = new BinaryLogReader(files);
+        PrintWriter csv = new PrintWriter(output)) {
+      csv.println("timestamp,logged_x,logged_y,logged_heading,replay_x,replay_y,replay_heading,"
+        + "logged_vx,logged_vy,logged_omega,replay_vx,replay_vy,replay_omega");
+
+      while (reader.nextCycle()) {
+        double timestamp = reader.getTimestamp();
+        clock.timestamp = timestamp;
+        cycles++;
+        if (Double.isNaN(firstTimestamp)) {
+          firstTimestamp = timestamp;
+        }
+        lastTimestamp = timestamp;
+
+        if (!reader.has(drivePositionNames[0]) || !reader.has("Drive/Gyro/Angle")) {
+          continue;
+        }
+
+        // Odometry, the logged gyro angle is clockwise positive like the NavX
+        double gyroAngle = reader.get("Drive/Gyro/Angle", 0);
+        Rotation2d heading = Rotation2d.fromDegrees(-Math.IEEEremainder(gyroAngle, 360));
+        for (int i = 0; i < MODULE_IDS.length; i++) {
+          positions[i].distanceMeters = reader.get(drivePositionNames[i], 0);
+          positions[i].angle = new Rotation2d(reader.get(rotatePositionNames[i], 0));
+        }
+
+        if (estimator == null) {
+          estimator = OdometryThread.createEstimator(DriveConstants.KINEMATICS, heading, positions, VecBuilder.fill(1, 1, 1));
+          estimator.resetPosition(heading, positions, new Pose2d(
+            reader.get("Drive/Pose/X", 0),
+            reader.get("Drive/Pose/Y", 0),
+            new Rotation2d(reader.get("Drive/Pose/Heading", 0))));
+        }
+        estimator.updateWithTime(timestamp, heading, positions);
+
+        for (int i = 0; i < reader.countThisCycle("Vision/Timestamp"); i++) {
+          double xyStdDev = reader.getThisCycle("Vision/XYStdDev", i);
+          estimator.addVisionMeasurement(
+            new Pose2d(reader.getThisCycle("Vision/X", i), reader.getThisCycle("Vision/Y", i), new Rotation2d(reader.getThisCycle("Vision/Heading", i))),
+            reader.getThisCycle("Vision/Timestamp", i),
+            VecBuilder.fill(xyStdDev, xyStdDev, reader.getThisCycle("Vision/ThetaStdDev", i)));
+        }
+        Pose2d pose = estimator.getEstimatedPosition();
+
+        double loggedX = reader.get("Drive/Pose/X", Double.NaN);
+        double loggedY = reader.get("Drive/Pose/Y", Double.NaN);
+        double loggedHeading = reader.get("Drive/Pose/Heading", Double.NaN);
+        poseStats.add(Math.hypot(pose.getX() - loggedX, pose.getY() - loggedY));
+
+        // Joystick drive, only on loops where DriveWithJoystick actually ran
+        double loggedVx = Double.NaN;
+        double loggedVy = Double.NaN;
+        double loggedOmega = Double.NaN;
+        ChassisSpeeds speeds = null;
+        if (reader.countThisCycle("Driver/LeftY") > 0) {
+          JoystickDriveController controller = controllers[(int) reader.get("Driver/Mode", 0)];
+          speeds = controller.calculate(
+            reader.get("Driver/LeftY", 0),
+            reader.get("Driver/LeftX", 0),
+            reader.get("Driver/RotateAxis", 0),
+            reader.getBoolean("Driver/SlowMode", false),
+            reader.getBoolean("Driver/FieldOriented", true),
+            reader.getBoolean("Driver/RedAlliance", false),
+            Math.IEEEremainder(gyroAngle, 360),
+            gyroAngle,
+            reader.getBoolean("Driver/SetpointGenerator", false));
+
+          loggedVx = reader.get("Drive/Commanded/Vx", Double.NaN);
+          loggedVy = reader.get("Drive/Commanded/Vy", Double.NaN);
+          loggedOmega = reader.get("Drive/Commanded/Omega", Double.NaN);
+          speedStats.add(Math.hypot(speeds.vxMetersPerSecond - loggedVx, speeds.vyMetersPerSecond - loggedVy));
+        }
+
+        csv.printf("%.6f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%s%n",
+          timestamp, loggedX, loggedY, loggedHeading,
+          pose.getX(), pose.getY(), pose.getRotation().getRadians(),
+          loggedVx, loggedVy, loggedOmega,
+          speeds == null ? ",," : String.format("%.4f,%.4f,%.4f", speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond));
+      }
+    }
+
+    double wallSeconds = (System.nanoTime() - start) / 1e9;
+    double logSeconds = cycles > 0 ? lastTimestamp - firstTimestamp : 0;
+    System.out.printf("Replayed %d loops (%.1f s of robot time) in %.2f s, %.0fx real time%n",
+      cycles, logSeconds, wallSeconds, logSeconds / Math.max(wallSeconds, 1e-9));
+    System.out.printf("Pose difference: RMS %.4f m, max %.4f m over %d loops%n", poseStats.rms(), poseStats.max, poseStats.count);
+    System.out.printf("Commanded speed difference: RMS %.4f m/s, max %.4f m/s over %d loops%n", speedStats.rms(), speedStats.max, speedStats.count);
+    System.out.println("Wrote " + output.getAbsolutePath());
+  }
+
+  /**
+   * Running RMS and max of a difference.
+   */
+  private static final class Stats {
+    private double sumSquares;
+    private double max;
+    private long count;
+
+    void add(double difference) {
+      if (Double.isNaN(difference)) {
+        return;
+      }
+      sumSquares += difference * difference;
+      max = Math.max(max, Math.abs(difference));
+      count++;
+    }
+
+    double rms() {
+      return count == 0 ? 0 : Math.sqrt(sumSquares / count);
+    }
+  }
+
+  private Replay() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+}
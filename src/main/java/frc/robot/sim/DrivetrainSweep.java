@@ -0,0 +1,290 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.sim;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SimConstants;
+import frc.robot.SwerveSetpointGenerator;
+import frc.robot.commands.Autos.TimedDrive;
+
+/**
+ * Runs a grid of steer PID gains and auto timing scales through many simulated autos at once,
+ * spread over every core with a fork-join pool. Each case runs several matches with the robot's
+ * mass, carpet grip and starting wheel angles shuffled, so a tune that only works on one
+ * perfect robot doesn't win.
+ *
+ * <p>The auto is the drive legs of the Middle Two Piece Speaker auto file, run through the same math as TimedDrive,
+ * SwerveDrive.drive() and SwerveModule.setDesiredState(). Drive requests go through the setpoint generator only when
+ * {@link DriveConstants#SETPOINT_GENERATOR} turns it on, same as the robot. Results go to a CSV, best first.
+ *
+ * <p>Only the default paths are modeled: steering with the PIDController on the roboRIO every 20 ms and
+ * driving open loop. The gains it finds don't carry over to {@link DriveConstants#ONBOARD_STEERING}, where
+ * the SPARK MAX runs its own loop at {@link frc.robot.Constants#ONBOARD_PID_PERIOD}, and it says nothing about
+ * {@link DriveConstants#CLOSED_LOOP_DRIVE}. Check those on the robot.
+ *
+ * <p>Usage: {@code ./gradlew simSweep --args="p=0.05:0.4:8 d=0:0.02:5 scale=0.8:1.2:5 matches=16"}.
+ * Ranges are {@code min:max:count}. Also {@code threads=N} and {@code out=file.csv}.
+ */
+public final class DrivetrainSweep {
+
+  // vx, vy, seconds. Zero speed is time spent shooting or moving the wrist.
+  private static final double[][] LEGS = {
+    {1, 0, 1.0},
+    {0, 0, 2.0},
+    {-1, 0, 0.7},
+    {0, 0, 0.5},
+    {1, 0, 0.9},
+    {-1, 0, 0.6},
+    {0, 0, 2.0},
+    {1, 0, 1.0}
+  };
+
+  /**
+   * One set of gains and timing and how it did, averaged over its matches.
+   */
+  private static final class Case {
+    final double p;
+    final double i;
+    final double d;
+    final double timeScale;
+
+    double steerError;
+    double poseError;
+    double headingError;
+    double maxSlip;
+
+    Case(double p, double i, double d, double timeScale) {
+      this.p = p;
+      this.i = i;
+      this.d = d;
+      this.timeScale = timeScale;
+    }
+  }
+
+  /**
+   * Splits the cases in half until there's one left, then runs it.
+   */
+  private static final class SweepTask extends RecursiveAction {
+    private final Case[] cases;
+    private final int from;
+    private final int to;
+    private final int matches;
+
+    SweepTask(Case[] cases, int from, int to, int matches) {
+      this.cases = cases;
+      this.from = from;
+      this.to = to;
+      this.matches = matches;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        runCase(cases[from], matches);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new SweepTask(cases, from, middle, matches), new SweepTask(cases, middle, to, matches));
+    }
+  }
+
+  public static void main(String[] args) throws FileNotFoundException {
+    double[] ps = range(arg(args, "p", "0.05:0.4:8"));
+    double[] ds = range(arg(args, "d", "0:0.02:5"));
+    double[] scales = range(arg(args, "scale", "0.8:1.2:5"));
+    int matches = Integer.parseInt(arg(args, "matches", "16"));
+    int threads = Integer.parseInt(arg(args, "threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+    String out = arg(args, "out", "sweep.csv");
+
+    List<Case> caseList = new ArrayList<>();
+    for (double p : ps) {
+      for (double d : ds) {
+        for (double scale : scales) {
+          caseList.add(new Case(p, DriveConstants.FL_PID_VALUES[1], d, scale));
+        }
+      }
+    }
+    Case[] cases = caseList.toArray(new Case[0]);
+
+    long start = System.nanoTime();
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    pool.invoke(new SweepTask(cases, 0, cases.length, matches));
+    pool.shutdown();
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    double matchSeconds = 0;
+    for (double[] leg : LEGS) {
+      matchSeconds += leg[2];
+    }
+    System.out.printf("Ran %d cases x %d matches on %d threads in %.2f s, %.0fx real time%n",
+      cases.length, matches, threads, seconds, cases.length * matches * matchSeconds / seconds);
+
+    Arrays.sort(cases, Comparator.comparingDouble(c -> c.steerError));
+    System.out.println("Best steer tracking:");
+    print(cases, 5);
+
+    Arrays.sort(cases, Comparator.comparingDouble(c -> c.poseError));
+    System.out.println("Best auto end position:");
+    print(cases, 5);
+
+    try (PrintWriter csv = new PrintWriter(out)) {
+      csv.println("p,i,d,time_scale,steer_rms_deg,end_error_m,heading_error_deg,max_slip_mps");
+      for (Case c : cases) {
+        csv.printf("%.5f,%.5f,%.5f,%.3f,%.3f,%.4f,%.3f,%.3f%n", c.p, c.i, c.d, c.timeScale, c.steerError, c.poseError, c.headingError, c.maxSlip);
+      }
+    }
+    System.out.println("Wrote " + out);
+  }
+
+  /**
+   * Run one case's matches back to back and average them. Every match is seeded from the case,
+   * so a sweep always gives the same numbers.
+   */
+  private static void runCase(Case c, int matches) {
+    double half = DriveConstants.TRACK_WIDTH / 2;
+    Translation2d[] locations = {
+      new Translation2d(half, half),
+      new Translation2d(half, -half),
+      new Translation2d(-half, half),
+      new Translation2d(-half, -half)
+    };
+    // Kinematics and the setpoint generator keep state between calls, so every thread needs its own
+    SwerveDriveKinematics kinematics = new SwerveDriveKinematics(locations);
+    SwerveSetpointGenerator generator = new SwerveSetpointGenerator(
+      locations, DriveConstants.MAX_MODULE_ACCELERATION, DriveConstants.MAX_STEER_VELOCITY, DriveConstants.STEER_LIMIT_MIN_SPEED);
+    SwerveModuleState[] measured = new SwerveModuleState[locations.length];
+    Random random = new Random(Double.doubleToLongBits(c.p) * 31 + Double.doubleToLongBits(c.d) * 17 + Double.doubleToLongBits(c.timeScale));
+
+    double steerSquares = 0;
+    long steerSamples = 0;
+    for (int match = 0; match < matches; match++) {
+      SwerveDriveSim sim = new SwerveDriveSim(locations);
+      sim.setProperties(
+        SimConstants.ROBOT_MASS * (0.95 + 0.1 * random.nextDouble()),
+        SimConstants.ROBOT_MOI * (0.9 + 0.2 * random.nextDouble()),
+        SimConstants.WHEEL_COF * (0.85 + 0.3 * random.nextDouble()));
+
+      PIDController headingController = new PIDController(TimedDrive.HEADING_P, 0, 0);
+      PIDController[] steerControllers = new PIDController[locations.length];
+      for (int m = 0; m < locations.length; m++) {
+        sim.setSteerAngle(m, (random.nextDouble() * 2 - 1) * Math.PI);
+        steerControllers[m] = new PIDController(c.p, c.i, c.d);
+        steerControllers[m].enableContinuousInput(-Math.PI, Math.PI);
+      }
+
+      double idealX = 0;
+      double idealY = 0;
+      for (double[] leg : LEGS) {
+        boolean driving = leg[0] != 0 || leg[1] != 0;
+        double duration = driving ? leg[2] * c.timeScale : leg[2];
+        // What the auto was written for, SwerveDrive.drive() flips x and y
+        idealX -= leg[0] * leg[2];
+        idealY -= leg[1] * leg[2];
+
+        if (driving && DriveConstants.SETPOINT_GENERATOR) {
+          // Every TimedDrive starts after a pause, so SwerveDrive resets the generator from the wheels
+          for (int m = 0; m < locations.length; m++) {
+            measured[m] = new SwerveModuleState(sim.getWheelSpeed(m), new Rotation2d(sim.getSteerAngle(m)));
+          }
+          generator.reset(kinematics.toChassisSpeeds(measured), measured);
+        }
+
+        for (double t = 0; t < duration; t += SimConstants.LOOP_PERIOD) {
+          // TimedDrive's heading hold, run on the clockwise angle GyroIOSim would report instead of the sim's heading
+          double gyroAngle = -Math.toDegrees(sim.getHeading());
+          double omega = driving ? headingController.calculate(gyroAngle, 0) : 0;
+          ChassisSpeeds speeds = ChassisSpeeds.discretize(new ChassisSpeeds(-leg[0], -leg[1], omega), SimConstants.LOOP_PERIOD);
+          SwerveModuleState[] states = driving && DriveConstants.SETPOINT_GENERATOR
+            ? generator.calculate(speeds, DriveConstants.MAX_DRIVE_SPEED, SimConstants.LOOP_PERIOD)
+            : kinematics.toSwerveModuleStates(speeds);
+          SwerveDriveKinematics.desaturateWheelSpeeds(states, DriveConstants.MAX_DRIVE_SPEED);
+
+          for (int m = 0; m < states.length; m++) {
+            if (!driving || Math.abs(states[m].speedMetersPerSecond) < 0.001) {
+              sim.setDriveVoltage(m, 0);
+              sim.setSteerVoltage(m, 0);
+              continue;
+            }
+            Rotation2d current = new Rotation2d(sim.getSteerAngle(m));
+            SwerveModuleState state = SwerveModuleState.optimize(states[m], current);
+            double drive = state.speedMetersPerSecond / DriveConstants.MAX_DRIVE_SPEED;
+            double steer = steerControllers[m].calculate(current.getRadians(), state.angle.getRadians());
+            sim.setDriveVoltage(m, MathUtil.clamp(drive, -1, 1) * SimConstants.NOMINAL_VOLTAGE);
+            sim.setSteerVoltage(m, MathUtil.clamp(steer, -1, 1) * SimConstants.NOMINAL_VOLTAGE);
+
+            double error = MathUtil.angleModulus(state.angle.getRadians() - current.getRadians());
+            steerSquares += error * error;
+            steerSamples++;
+          }
+
+          sim.update(SimConstants.LOOP_PERIOD);
+          for (int m = 0; m < locations.length; m++) {
+            c.maxSlip = Math.max(c.maxSlip, Math.abs(sim.getSlip(m)));
+          }
+        }
+      }
+
+      c.poseError += Math.hypot(sim.getX() - idealX, sim.getY() - idealY) / matches;
+      c.headingError += Math.abs(Math.toDegrees(MathUtil.angleModulus(sim.getHeading()))) / matches;
+    }
+    c.steerError = steerSamples == 0 ? 0 : Math.toDegrees(Math.sqrt(steerSquares / steerSamples));
+  }
+
+  private static void print(Case[] cases, int count) {
+    for (int i = 0; i < Math.min(count, cases.length); i++) {
+      Case c = cases[i];
+      System.out.printf("  P %.4f D %.4f scale %.2f: steer %.2f deg RMS, end %.3f m off, heading %.2f deg off, slip %.2f m/s%n",
+        c.p, c.d, c.timeScale, c.steerError, c.poseError, c.headingError, c.maxSlip);
+    }
+  }
+
+  private static String arg(String[] args, String key, String defaultValue) {
+    for (String arg : args) {
+      if (arg.startsWith(key + "=")) {
+        return arg.substring(key.length() + 1);
+      }
+    }
+    return defaultValue;
+  }
+
+  /**
+   * @param spec min:max:count, or a single value
+   */
+  private static double[] range(String spec) {
+    String[] parts = spec.split(":");
+    if (parts.length == 1) {
+      return new double[] {Double.parseDouble(parts[0])};
+    }
+    double min = Double.parseDouble(parts[0]);
+    double max = Double.parseDouble(parts[1]);
+    int count = Integer.parseInt(parts[2]);
+    double[] values = new double[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = count == 1 ? min : min + (max - min) * i / (count - 1);
+    }
+    return values;
+  }
+
+  private DrivetrainSweep() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+}
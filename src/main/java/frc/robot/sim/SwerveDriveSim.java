@@ -0,0 +1,443 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.sim;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.system.plant.DCMotor;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * Rigid body physics for the swerve drivetrain. Each module has a NEO driving the wheel and a NEO
+ * turning it through the gear ratios in {@link DriveConstants}, with a current limit and the
+ * wheel's and rotor's inertia. Wheels grip the carpet through a smooth friction curve, so they
+ * slip when pushed past what the tire can hold, sideways as well as along the wheel.
+ *
+ * <p>Doesn't touch the HAL, so it runs the same under the simulator GUI, in a headless sweep, or
+ * many copies at once on different threads.
+ */
+public class SwerveDriveSim {
+
+  private static final double GRAVITY = 9.81;
+
+  private final DCMotor driveMotor = DCMotor.getNEO(1);
+  private final DCMotor steerMotor = DCMotor.getNEO(1);
+  private final double driveGearing = 1 / DriveConstants.DRIVE_GEAR_RATIO;
+  private final double steerGearing = 1 / DriveConstants.ROTATE_GEAR_RATIO;
+  private final double wheelRadius = DriveConstants.WHEEL_DIAMETER / 2;
+
+  private final int moduleCount;
+  private final double[] moduleX;
+  private final double[] moduleY;
+
+  private double mass = SimConstants.ROBOT_MASS;
+  private double momentOfInertia = SimConstants.ROBOT_MOI;
+  private double frictionCoefficient = SimConstants.WHEEL_COF;
+
+  // Chassis state, field relative
+  private double x;
+  private double y;
+  private double heading;
+  private double vx;
+  private double vy;
+  private double omega;
+
+  // Module state
+  private final double[] wheelSpeed;
+  private final double[] wheelDistance;
+  private final double[] steerAngle;
+  private final double[] steerSpeed;
+  private final double[] driveVoltage;
+  private final double[] steerVoltage;
+  private final double[] driveCurrent;
+  private final double[] steerCurrent;
+  private final double[] driveCurrentLimit;
+  private final double[] steerCurrentLimit;
+  private final double[] slip;
+
+  // Steering position loop on the motor controller, gains in roboRIO PIDController units
+  private final boolean[] steerClosedLoop;
+  private final double[] steerTarget;
+  private final double[] steerIntegral;
+  private final double[] steerP;
+  private final double[] steerI;
+  private final double[] steerD;
+
+  // Drive speed loop on the motor controller, setpoint in wheel surface meters/second
+  private final boolean[] driveClosedLoop;
+  private final double[] driveTarget;
+  private final double[] driveFeedforward;
+  private final double[] driveIntegral;
+  private final double[] lastDriveError;
+  private final double[] driveP;
+  private final double[] driveI;
+  private final double[] driveD;
+
+  /**
+   * @param moduleLocations Module positions relative to the robot center, in the same order as the kinematics
+   */
+  public SwerveDriveSim(Translation2d... moduleLocations) {
+    moduleCount = moduleLocations.length;
+    moduleX = new double[moduleCount];
+    moduleY = new double[moduleCount];
+    for (int i = 0; i < moduleCount; i++) {
+      moduleX[i] = moduleLocations[i].getX();
+      moduleY[i] = moduleLocations[i].getY();
+    }
+
+    wheelSpeed = new double[moduleCount];
+    wheelDistance = new double[moduleCount];
+    steerAngle = new double[moduleCount];
+    steerSpeed = new double[moduleCount];
+    driveVoltage = new double[moduleCount];
+    steerVoltage = new double[moduleCount];
+    driveCurrent = new double[moduleCount];
+    steerCurrent = new double[moduleCount];
+    driveCurrentLimit = new double[moduleCount];
+    steerCurrentLimit = new double[moduleCount];
+    slip = new double[moduleCount];
+    for (int i = 0; i < moduleCount; i++) {
+      driveCurrentLimit[i] = SimConstants.DRIVE_CURRENT_LIMIT;
+      steerCurrentLimit[i] = SimConstants.STEER_CURRENT_LIMIT;
+    }
+
+    steerClosedLoop = new boolean[moduleCount];
+    steerTarget = new double[moduleCount];
+    steerIntegral = new double[moduleCount];
+    steerP = new double[moduleCount];
+    steerI = new double[moduleCount];
+    steerD = new double[moduleCount];
+
+    driveClosedLoop = new boolean[moduleCount];
+    driveTarget = new double[moduleCount];
+    driveFeedforward = new double[moduleCount];
+    driveIntegral = new double[moduleCount];
+    lastDriveError = new double[moduleCount];
+    driveP = new double[moduleCount];
+    driveI = new double[moduleCount];
+    driveD = new double[moduleCount];
+  }
+
+  /**
+   * A drivetrain laid out like the real one in {@link DriveConstants}.
+   */
+  public static SwerveDriveSim fromConstants() {
+    double half = DriveConstants.TRACK_WIDTH / 2;
+    return new SwerveDriveSim(
+      new Translation2d(half, half),
+      new Translation2d(half, -half),
+      new Translation2d(-half, half),
+      new Translation2d(-half, -half));
+  }
+
+  /**
+   * Advance the simulation, split into {@link SimConstants#DRIVETRAIN_SUBSTEPS} smaller steps.
+   * @param dt Seconds to advance
+   */
+  public void update(double dt) {
+    double step = dt / SimConstants.DRIVETRAIN_SUBSTEPS;
+    for (int i = 0; i < SimConstants.DRIVETRAIN_SUBSTEPS; i++) {
+      step(step);
+    }
+  }
+
+  private void step(double dt) {
+    double cos = Math.cos(heading);
+    double sin = Math.sin(heading);
+
+    // Chassis velocity in the robot's frame
+    double robotVx = vx * cos + vy * sin;
+    double robotVy = -vx * sin + vy * cos;
+
+    double maxForce = frictionCoefficient * mass * GRAVITY / moduleCount;
+    double forceX = 0;
+    double forceY = 0;
+    double torque = 0;
+
+    for (int i = 0; i < moduleCount; i++) {
+      if (steerClosedLoop[i]) {
+        // Runs every substep, close enough to the SPARK MAX's 1 ms loop. Derivative on the measurement.
+        double error = MathUtil.angleModulus(steerTarget[i] - steerAngle[i]);
+        steerIntegral[i] += error * dt;
+        double output = steerP[i] * error + steerI[i] * steerIntegral[i] - steerD[i] * steerSpeed[i];
+        steerVoltage[i] = MathUtil.clamp(output, -1, 1) * SimConstants.NOMINAL_VOLTAGE;
+      }
+
+      // Steering, nothing fights it but the motor itself
+      double steerMotorSpeed = steerSpeed[i] * steerGearing;
+      steerCurrent[i] = MathUtil.clamp(
+        (steerVoltage[i] - steerMotorSpeed / steerMotor.KvRadPerSecPerVolt) / steerMotor.rOhms,
+        -steerCurrentLimit[i], steerCurrentLimit[i]);
+      steerSpeed[i] += steerGearing * steerMotor.KtNMPerAmp * steerCurrent[i] / SimConstants.STEER_MOI * dt;
+      steerAngle[i] += steerSpeed[i] * dt;
+
+      // Ground speed under the wheel, along it and across it
+      double moduleVx = robotVx - omega * moduleY[i];
+      double moduleVy = robotVy + omega * moduleX[i];
+      double wheelCos = Math.cos(steerAngle[i]);
+      double wheelSin = Math.sin(steerAngle[i]);
+      double alongSpeed = moduleVx * wheelCos + moduleVy * wheelSin;
+      double acrossSpeed = -moduleVx * wheelSin + moduleVy * wheelCos;
+
+      // Tire forces on the robot, the grip saturates as the slip grows
+      slip[i] = wheelSpeed[i] * wheelRadius - alongSpeed;
+      double alongForce = maxForce * Math.tanh(slip[i] / SimConstants.WHEEL_SLIP_SPEED);
+      double acrossForce = -maxForce * Math.tanh(acrossSpeed / SimConstants.WHEEL_SLIP_SPEED);
+
+      if (driveClosedLoop[i]) {
+        double error = driveTarget[i] - wheelSpeed[i] * wheelRadius;
+        driveIntegral[i] += error * dt;
+        double output = driveP[i] * error + driveI[i] * driveIntegral[i] + driveD[i] * (error - lastDriveError[i]) / dt;
+        lastDriveError[i] = error;
+        driveVoltage[i] = MathUtil.clamp(output * SimConstants.NOMINAL_VOLTAGE + driveFeedforward[i],
+          -SimConstants.NOMINAL_VOLTAGE, SimConstants.NOMINAL_VOLTAGE);
+      }
+
+      // Drive motor turns the wheel, the carpet pushes back
+      double driveMotorSpeed = wheelSpeed[i] * driveGearing;
+      driveCurrent[i] = MathUtil.clamp(
+        (driveVoltage[i] - driveMotorSpeed / driveMotor.KvRadPerSecPerVolt) / driveMotor.rOhms,
+        -driveCurrentLimit[i], driveCurrentLimit[i]);
+      double wheelTorque = driveGearing * driveMotor.KtNMPerAmp * driveCurrent[i] - alongForce * wheelRadius;
+      wheelSpeed[i] += wheelTorque / SimConstants.WHEEL_MOI * dt;
+      wheelDistance[i] += wheelSpeed[i] * wheelRadius * dt;
+
+      double moduleForceX = alongForce * wheelCos - acrossForce * wheelSin;
+      double moduleForceY = alongForce * wheelSin + acrossForce * wheelCos;
+      forceX += moduleForceX;
+      forceY += moduleForceY;
+      torque += moduleX[i] * moduleForceY - moduleY[i] * moduleForceX;
+    }
+
+    // Back to the field frame
+    vx += (forceX * cos - forceY * sin) / mass * dt;
+    vy += (forceX * sin + forceY * cos) / mass * dt;
+    omega += torque / momentOfInertia * dt;
+
+    x += vx * dt;
+    y += vy * dt;
+    heading += omega * dt;
+  }
+
+  /**
+   * @param module Module index
+   * @param volts Drive motor voltage
+   */
+  public void setDriveVoltage(int module, double volts) {
+    driveClosedLoop[module] = false;
+    driveVoltage[module] = volts;
+  }
+
+  /**
+   * @param module Module index
+   * @param p Proportional gain, output fraction per meter/second
+   * @param i Integral gain, output fraction per meter
+   * @param d Derivative gain, output fraction per meter/second^2
+   */
+  public void setDrivePID(int module, double p, double i, double d) {
+    driveP[module] = p;
+    driveI[module] = i;
+    driveD[module] = d;
+  }
+
+  /**
+   * Hold a wheel speed with a velocity loop like the motor controller's, until the next {@link #setDriveVoltage}.
+   * @param module Module index
+   * @param metersPerSecond Wheel surface speed
+   * @param feedforwardVolts Voltage added on top of the loop's output
+   */
+  public void setDriveVelocity(int module, double metersPerSecond, double feedforwardVolts) {
+    if (!driveClosedLoop[module]) {
+      driveIntegral[module] = 0;
+      lastDriveError[module] = metersPerSecond - wheelSpeed[module] * wheelRadius;
+    }
+    driveClosedLoop[module] = true;
+    driveTarget[module] = metersPerSecond;
+    driveFeedforward[module] = feedforwardVolts;
+  }
+
+  /**
+   * @param module Module index
+   * @param volts Steer motor voltage
+   */
+  public void setSteerVoltage(int module, double volts) {
+    steerClosedLoop[module] = false;
+    steerVoltage[module] = volts;
+  }
+
+  /**
+   * @param module Module index
+   * @param p Proportional gain, output fraction per radian
+   * @param i Integral gain, output fraction per radian second
+   * @param d Derivative gain, output fraction per radian/second
+   */
+  public void setSteerPID(int module, double p, double i, double d) {
+    steerP[module] = p;
+    steerI[module] = i;
+    steerD[module] = d;
+  }
+
+  /**
+   * Hold the wheel at an angle with a position loop like the motor controller's, until the next
+   * {@link #setSteerVoltage}. Wrapped, so it turns the short way.
+   * @param module Module index
+   * @param angle Wheel angle in radians
+   */
+  public void setSteerPosition(int module, double angle) {
+    if (!steerClosedLoop[module]) {
+      steerIntegral[module] = 0;
+    }
+    steerClosedLoop[module] = true;
+    steerTarget[module] = angle;
+  }
+
+  /**
+   * Limit the drive motor's current like the motor controller's smart current limit.
+   * @param module Module index
+   * @param amps Current limit
+   */
+  public void setDriveCurrentLimit(int module, double amps) {
+    driveCurrentLimit[module] = amps;
+  }
+
+  /**
+   * Limit the steer motor's current like the motor controller's smart current limit.
+   * @param module Module index
+   * @param amps Current limit
+   */
+  public void setSteerCurrentLimit(int module, double amps) {
+    steerCurrentLimit[module] = amps;
+  }
+
+  /**
+   * Put the robot somewhere at rest. Wheel distances and angles are kept like the real encoders would.
+   */
+  public void resetPose(Pose2d pose) {
+    x = pose.getX();
+    y = pose.getY();
+    heading = pose.getRotation().getRadians();
+    vx = 0;
+    vy = 0;
+    omega = 0;
+    for (int i = 0; i < moduleCount; i++) {
+      wheelSpeed[i] = 0;
+      steerSpeed[i] = 0;
+    }
+  }
+
+  /**
+   * Point a wheel somewhere without going through the motor, e.g. where it was left when the robot was turned off.
+   * @param module Module index
+   * @param angle Wheel angle in radians
+   */
+  public void setSteerAngle(int module, double angle) {
+    steerAngle[module] = angle;
+    steerSpeed[module] = 0;
+  }
+
+  /**
+   * Change the robot's physical properties, e.g. to check how sensitive a tune is to them.
+   * @param mass Robot mass in kilograms
+   * @param momentOfInertia Moment of inertia about the center in kg*m^2
+   * @param frictionCoefficient Tire to carpet friction coefficient
+   */
+  public void setProperties(double mass, double momentOfInertia, double frictionCoefficient) {
+    this.mass = mass;
+    this.momentOfInertia = momentOfInertia;
+    this.frictionCoefficient = frictionCoefficient;
+  }
+
+  /**
+   * @return The true pose of the robot.
+   */
+  public Pose2d getPose() {
+    return new Pose2d(x, y, new Rotation2d(heading));
+  }
+
+  public double getX() {
+    return x;
+  }
+
+  public double getY() {
+    return y;
+  }
+
+  /**
+   * @return Continuous heading in radians, counter-clockwise positive.
+   */
+  public double getHeading() {
+    return heading;
+  }
+
+  /**
+   * @return Turn rate in radians/second, counter-clockwise positive.
+   */
+  public double getTurnRate() {
+    return omega;
+  }
+
+  /**
+   * @return Field relative speed in meters/second.
+   */
+  public double getSpeed() {
+    return Math.hypot(vx, vy);
+  }
+
+  /**
+   * @return Wheel surface speed in meters/second.
+   */
+  public double getWheelSpeed(int module) {
+    return wheelSpeed[module] * wheelRadius;
+  }
+
+  /**
+   * @return Distance the wheel has rolled in meters, including any slip.
+   */
+  public double getWheelDistance(int module) {
+    return wheelDistance[module];
+  }
+
+  /**
+   * @return Wheel angle in radians, continuous.
+   */
+  public double getSteerAngle(int module) {
+    return steerAngle[module];
+  }
+
+  /**
+   * @return Wheel turn rate in radians/second.
+   */
+  public double getSteerSpeed(int module) {
+    return steerSpeed[module];
+  }
+
+  /**
+   * @return How much faster the wheel surface moves than the carpet under it, in meters/second.
+   */
+  public double getSlip(int module) {
+    return slip[module];
+  }
+
+  /**
+   * @return Drive motor current in amps.
+   */
+  public double getDriveCurrent(int module) {
+    return Math.abs(driveCurrent[module]);
+  }
+
+  /**
+   * @return Steer motor current in amps.
+   */
+  public double getSteerCurrent(int module) {
+    return Math.abs(steerCurrent[module]);
+  }
+
+  public int getModuleCount() {
+    return moduleCount;
+  }
+}
@@ -4,50 +4,58 @@
 
 package frc.robot.subsystems;
 
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.SparkPIDController;
-import com.revrobotics.SparkRelativeEncoder;
-import com.revrobotics.CANSparkBase.ControlType;
-import com.revrobotics.CANSparkBase.IdleMode;
-import com.revrobotics.CANSparkLowLevel.MotorType;
+import static frc.robot.Constants.IntakeConstants.*;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.util.sendable.SendableBuilder;
-import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import static frc.robot.Constants.IntakeConstants.*;
+import frc.robot.HardwareInputs;
+import frc.robot.LoopProfiler;
+import frc.robot.logging.BinaryLog;
 
 public class Elevator extends SubsystemBase {
 
-  private final CANSparkMax elevator_left;
-  private final CANSparkMax elevator_right;
-  private final SparkPIDController pid_elevator;
-
-  private boolean climbMode = false;
-
-  private final RelativeEncoder encoder;
-  
-  /** Creates a new Elevator. */
-  public Elevator() {
+  /**
+   * Every sensor value the elevator uses, read once at the start of each cycle.
+   */
+  public static class Inputs {
+    public double position;
+    public double current;
+    /** True until the magnet reaches the bottom switch. */
+    public boolean limitSwitch = true;
+  }
 
-    elevator_left = new CANSparkMax(LEFT_ELEV_ID, MotorType.kBrushless);
-    elevator_right = new CANSparkMax(RIGHT_ElEV_ID, MotorType.kBrushless);
-    elevator_left.restoreFactoryDefaults();
-    pid_elevator = elevator_left.getPIDController();
+  private final Inputs inputs = new Inputs();
+  private final int positionChannel = BinaryLog.channel("Elevator/Position");
+  private final int currentChannel = BinaryLog.channel("Elevator/Current");
+  private final int limitSwitchChannel = BinaryLog.channel("Elevator/LimitSwitch");
+  private final int holdTargetChannel = BinaryLog.channel("Elevator/HoldTarget");
+  private final int loadedChannel = BinaryLog.channel("Elevator/Loaded");
+  private final LoopProfiler.Section periodicSection = LoopProfiler.section("Elevator.periodic()");
 
-    elevator_left.setIdleMode(IdleMode.kBrake);
-    elevator_right.setIdleMode(IdleMode.kBrake);
+  private final ElevatorIO io;
 
-    elevator_left.setSmartCurrentLimit(30);
-    elevator_right.setSmartCurrentLimit(30);
+  private boolean climbMode = false;
 
-    elevator_left.setInverted(true);
-    elevator_right.follow(elevator_left,true);
-    
-    encoder = elevator_left.getEncoder();
+  // Where the elevator is being held, NaN while it's moving
+  private double holdTarget = Double.NaN;
+  // Whether the robot is hanging off the elevator, set by pulling down and cleared by going up or reaching the bottom
+  private boolean loaded;
+  private boolean lastLimitSwitch = true;
+  // Whether the bottom switch has zeroed the encoder since boot. Until then positions are relative to
+  // wherever the elevator started, so the soft limits are a full travel either way of there and holds aren't clamped.
+  private boolean homed;
+  private boolean bootLimitsSet;
+  
+  /**
+   * Creates a new Elevator.
+   * @param io The climber motors and limit switch
+   */
+  public Elevator(ElevatorIO io) {
+    this.io = io;
   }
 
   public Boolean getClimbMode(){
@@ -58,29 +66,163 @@ public class Elevator extends SubsystemBase {
     return runEnd( () -> {}, ()-> {climbMode = !climbMode;});
   }
 
+  /**
+   * @param climbMode Whether the operator's stick drives the elevator
+   */
+  public void setClimbMode(boolean climbMode) {
+    this.climbMode = climbMode;
+  }
+
    public void raiseElevatorwithSpeed(double speed){
-    elevator_left.set(speed);
+    holdTarget = Double.NaN;
+    io.setPercent(speed);
+  }
+
+  /**
+   * Drive the elevator at a fraction of its top speed, ramped on the SPARK MAX. Pulling down is taken
+   * to mean the robot is hanging off it, going up means it isn't.
+   * @param speed Fraction of {@link frc.robot.Constants.IntakeConstants#ELEVATOR_MAX_VELOCITY} from -1 to 1, negative climbs up
+   */
+  public void driveElevator(double speed) {
+    if (speed > 0) {
+      loaded = true;
+    } else if (speed < 0) {
+      loaded = false;
+    }
+    holdTarget = Double.NaN;
+    double velocity = MathUtil.clamp(speed, -1, 1) * ELEVATOR_MAX_VELOCITY;
+    io.setVelocity(velocity, ELEVATOR_KS * Math.signum(velocity) + ELEVATOR_KV * velocity + getLoadVolts());
   }
 
+  /**
+   * Run a trapezoid profile to a position on the SPARK MAX.
+   * @param pos Target position in motor rotations, kept inside the soft limits
+   */
   public void raiseElevatorToPosition(double pos){
-    pid_elevator.setReference(pos, ControlType.kPosition);
+    holdTarget = Double.NaN;
+    io.setSmartMotion(MathUtil.clamp(pos, ELEVATOR_TOP, ELEVATOR_BOTTOM), getLoadVolts());
   }
 
+  /**
+   * Hold the elevator where it is. The setpoint is only sent when the hold starts, calling this
+   * every loop while it's already holding costs nothing.
+   */
   public void holdPosition (){
-    pid_elevator.setReference(elevator_left.getEncoder().getPosition(), ControlType.kPosition);
+    if (!Double.isNaN(holdTarget)) {
+      return;
+    }
+    holdTarget = homed ? MathUtil.clamp(getElevatorEncoder(), ELEVATOR_TOP, ELEVATOR_BOTTOM) : getElevatorEncoder();
+    io.setPosition(holdTarget, getLoadVolts());
+  }
+
+  /**
+   * @return Whether the elevator has been down on the bottom switch since boot, so its position and soft limits can be trusted.
+   */
+  public boolean isHomed() {
+    return homed;
+  }
+
+  /**
+   * @return Whether the robot is taken to be hanging off the elevator.
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * @return Volts to add so the loops don't have to hold the robot's weight themselves.
+   */
+  private double getLoadVolts() {
+    // Positive pulls down, which is what lifts the robot
+    return loaded ? ELEVATOR_CLIMB_KG : 0;
   }
 
 
   public double getElevatorEncoder(){
-    return elevator_left.getEncoder().getPosition();
+    HardwareInputs.countCachedRead();
+    return inputs.position;
+  }
+
+  /**
+   * @return Current of one climber motor in amps, the follower draws the same.
+   */
+  public double getCurrent() {
+    HardwareInputs.countCachedRead();
+    return inputs.current;
+  }
+
+  /**
+   * @param amps Smart current limit for both climber motors
+   */
+  public void setCurrentLimit(int amps) {
+    io.setCurrentLimit(amps);
+  }
+
+  /**
+   * @return True until the elevator is all the way down on the magnetic limit switch.
+   */
+  public boolean getLimitSwitch() {
+    HardwareInputs.countCachedRead();
+    return inputs.limitSwitch;
+  }
+
+  /**
+   * Read every sensor once for this cycle.
+   */
+  public void updateInputs() {
+    io.updateInputs(inputs);
+
+    BinaryLog.log(positionChannel, inputs.position);
+    BinaryLog.log(currentChannel, inputs.current);
+    BinaryLog.log(limitSwitchChannel, inputs.limitSwitch);
+  }
+
+  /**
+   * @return This cycle's sensor snapshot.
+   */
+  public Inputs getInputs() {
+    return inputs;
   }
 
 
   @Override
-  public void periodic() {}
+  public void periodic() {
+    periodicSection.start();
+    updateInputs();
+
+    // Re-zero on the bottom switch so the soft limits stay honest. Starting on the switch counts,
+    // the first cycle sees it as an edge.
+    if (lastLimitSwitch && !inputs.limitSwitch) {
+      io.resetPosition(ELEVATOR_BOTTOM);
+      if (!homed) {
+        homed = true;
+        io.setSoftLimits(ELEVATOR_TOP, ELEVATOR_BOTTOM);
+      }
+      loaded = false;
+      if (!Double.isNaN(holdTarget)) {
+        // This cycle's reading is from before the reset
+        holdTarget = ELEVATOR_BOTTOM;
+        io.setPosition(holdTarget, getLoadVolts());
+      }
+    } else if (!homed && !bootLimitsSet) {
+      // Booted off the switch. It can't be more than a full travel above where it started, so that's
+      // the top until it's homed. The bottom's as far the other way, the switch stops it well before.
+      io.setSoftLimits(inputs.position - MAX_DISTANCE, inputs.position + MAX_DISTANCE);
+      bootLimitsSet = true;
+    }
+    lastLimitSwitch = inputs.limitSwitch;
+
+    BinaryLog.log(holdTargetChannel, holdTarget);
+    BinaryLog.log(loadedChannel, loaded);
+    periodicSection.stop();
+  }
 
   @Override
   public void initSendable(SendableBuilder sendableBuilder) {
     sendableBuilder.addBooleanProperty("Climb Mode", () -> climbMode, null);
+    sendableBuilder.addDoubleProperty("Position", () -> inputs.position, null);
+    sendableBuilder.addDoubleProperty("Hold Target", () -> holdTarget, null);
+    sendableBuilder.addBooleanProperty("Loaded", () -> isLoaded(), null);
+    sendableBuilder.addBooleanProperty("Homed", () -> isHomed(), null);
   }
 }
@@ -0,0 +1,63 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+/**
+ * The two climber motors and the bottom limit switch behind {@link Elevator}. Once the soft limits
+ * are set the motor controller keeps the elevator between them on its own, whatever it's asked to do.
+ * They start off, and only become {@link frc.robot.Constants.IntakeConstants#ELEVATOR_TOP} and
+ * {@link frc.robot.Constants.IntakeConstants#ELEVATOR_BOTTOM} once the bottom switch has zeroed the encoder.
+ */
+public interface ElevatorIO {
+
+  /**
+   * Fill in this cycle's sensor values.
+   */
+  public void updateInputs(Elevator.Inputs inputs);
+
+  /**
+   * @param percent Duty cycle from -1 to 1, negative climbs up
+   */
+  public void setPercent(double percent);
+
+  /**
+   * Run the velocity loop, ramping to the speed at the elevator's acceleration limit.
+   * @param velocity Target velocity in motor RPM, negative climbs up
+   * @param feedforwardVolts Added to the loop's output
+   */
+  public void setVelocity(double velocity, double feedforwardVolts);
+
+  /**
+   * Run a trapezoid profile to a position on the motor controller.
+   * @param position Target position in motor rotations
+   * @param feedforwardVolts Added to the loop's output
+   */
+  public void setSmartMotion(double position, double feedforwardVolts);
+
+  /**
+   * Hold a position with the position loop. Only needs sending once.
+   * @param position Target position in motor rotations
+   * @param feedforwardVolts Added to the loop's output
+   */
+  public void setPosition(double position, double feedforwardVolts);
+
+  /**
+   * Tell the encoder where the elevator is, e.g. when it reaches the bottom switch.
+   * @param position Position in motor rotations
+   */
+  public void resetPosition(double position);
+
+  /**
+   * Turn the soft limits on at these positions, replacing any set before.
+   * @param top Highest position in motor rotations
+   * @param bottom Lowest position in motor rotations
+   */
+  public void setSoftLimits(double top, double bottom);
+
+  /**
+   * @param amps Smart current limit for every motor
+   */
+  public void setCurrentLimit(int amps);
+}
@@ -0,0 +1,50 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import frc.robot.logging.BinaryLogReader;
+
+/**
+ * Plays the climber's logged inputs back from a binary log.
+ */
+public class ElevatorIOReplay implements ElevatorIO {
+
+  private final BinaryLogReader log;
+
+  /**
+   * @param log Reader advanced once per loop by the robot
+   */
+  public ElevatorIOReplay(BinaryLogReader log) {
+    this.log = log;
+  }
+
+  @Override
+  public void updateInputs(Elevator.Inputs inputs) {
+    inputs.position = log.get("Elevator/Position", inputs.position);
+    inputs.current = log.get("Elevator/Current", inputs.current);
+    inputs.limitSwitch = log.getBoolean("Elevator/LimitSwitch", inputs.limitSwitch);
+  }
+
+  @Override
+  public void setPercent(double percent) {}
+
+  @Override
+  public void setVelocity(double velocity, double feedforwardVolts) {}
+
+  @Override
+  public void setSmartMotion(double position, double feedforwardVolts) {}
+
+  @Override
+  public void setPosition(double position, double feedforwardVolts) {}
+
+  @Override
+  public void resetPosition(double position) {}
+
+  @Override
+  public void setSoftLimits(double top, double bottom) {}
+
+  @Override
+  public void setCurrentLimit(int amps) {}
+}
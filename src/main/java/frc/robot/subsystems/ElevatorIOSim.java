@@ -0,0 +1,145 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static frc.robot.Constants.IntakeConstants.*;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * A simulated climber, two NEOs on a drum. Gravity isn't modeled. The bottom switch trips
+ * when the elevator is back at or below where it started. The SPARK MAX's smart velocity, smart
+ * motion, position loop and soft limits are stood in for with the same gains and limits.
+ */
+public class ElevatorIOSim implements ElevatorIO {
+
+  private enum Mode { PERCENT, VELOCITY, SMART_MOTION, POSITION }
+
+  private final DCMotorSim elevatorSim = new DCMotorSim(DCMotor.getNEO(2), SimConstants.ELEVATOR_GEARING, SimConstants.ELEVATOR_MOI);
+
+  // Motor rotations and RPM, like the SPARK MAX's smart motion
+  private final TrapezoidProfile smartMotionProfile = new TrapezoidProfile(
+    new TrapezoidProfile.Constraints(ELEVATOR_MAX_VELOCITY, ELEVATOR_MAX_ACCELERATION));
+  private TrapezoidProfile.State smartMotionSetpoint = new TrapezoidProfile.State();
+  private final TrapezoidProfile.State smartMotionGoal = new TrapezoidProfile.State();
+
+  private Mode mode = Mode.PERCENT;
+  private double percent;
+  private double target;
+  private double rampedVelocity;
+  private double feedforwardVolts;
+  private double offset;
+  private boolean softLimits;
+  private double softLimitTop;
+  private double softLimitBottom;
+
+  @Override
+  public void updateInputs(Elevator.Inputs inputs) {
+    double position = getPosition();
+    double velocity = getVelocity();
+    switch (mode) {
+      case VELOCITY:
+        rampedVelocity += MathUtil.clamp(target - rampedVelocity, -ELEVATOR_MAX_ACCELERATION * SimConstants.LOOP_PERIOD, ELEVATOR_MAX_ACCELERATION * SimConstants.LOOP_PERIOD);
+        percent = ELEVATOR_VELOCITY_P * (rampedVelocity - velocity) + feedforwardVolts / SimConstants.NOMINAL_VOLTAGE;
+        break;
+      case SMART_MOTION:
+        smartMotionSetpoint = smartMotionProfile.calculate(SimConstants.LOOP_PERIOD, smartMotionSetpoint, smartMotionGoal);
+        percent = ELEVATOR_POSITION_P * (smartMotionSetpoint.position - position)
+          + ELEVATOR_VELOCITY_P * (smartMotionSetpoint.velocity - velocity) + feedforwardVolts / SimConstants.NOMINAL_VOLTAGE;
+        break;
+      case POSITION:
+        percent = ELEVATOR_POSITION_P * (target - position) + feedforwardVolts / SimConstants.NOMINAL_VOLTAGE;
+        break;
+      default:
+        break;
+    }
+    percent = MathUtil.clamp(percent, -1, 1);
+
+    // Soft limits, positive is down
+    if (softLimits && ((position >= softLimitBottom && percent > 0) || (position <= softLimitTop && percent < 0))) {
+      percent = 0;
+    }
+    elevatorSim.setInputVoltage(percent * SimConstants.NOMINAL_VOLTAGE);
+    elevatorSim.update(SimConstants.LOOP_PERIOD);
+
+    // Positive is down and the robot starts with the elevator all the way down
+    if (getMotorRotations() > 0) {
+      elevatorSim.setState(0, 0);
+    }
+
+    inputs.position = getPosition();
+    inputs.current = elevatorSim.getCurrentDrawAmps() / 2;
+    inputs.limitSwitch = getMotorRotations() < 0;
+  }
+
+  @Override
+  public void setPercent(double percent) {
+    mode = Mode.PERCENT;
+    this.percent = MathUtil.clamp(percent, -1, 1);
+  }
+
+  @Override
+  public void setVelocity(double velocity, double feedforwardVolts) {
+    if (mode != Mode.VELOCITY) {
+      rampedVelocity = getVelocity();
+    }
+    mode = Mode.VELOCITY;
+    target = velocity;
+    this.feedforwardVolts = feedforwardVolts;
+  }
+
+  @Override
+  public void setSmartMotion(double position, double feedforwardVolts) {
+    if (mode != Mode.SMART_MOTION) {
+      smartMotionSetpoint = new TrapezoidProfile.State(getPosition(), getVelocity());
+    }
+    mode = Mode.SMART_MOTION;
+    smartMotionGoal.position = position;
+    this.feedforwardVolts = feedforwardVolts;
+  }
+
+  @Override
+  public void setPosition(double position, double feedforwardVolts) {
+    mode = Mode.POSITION;
+    target = position;
+    this.feedforwardVolts = feedforwardVolts;
+  }
+
+  @Override
+  public void resetPosition(double position) {
+    offset = position - getMotorRotations();
+  }
+
+  @Override
+  public void setSoftLimits(double top, double bottom) {
+    softLimits = true;
+    softLimitTop = top;
+    softLimitBottom = bottom;
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    // Only the drivetrain sim models current limits
+  }
+
+  /**
+   * @return What the SPARK MAX's encoder would read, in motor rotations.
+   */
+  private double getPosition() {
+    return getMotorRotations() + offset;
+  }
+
+  private double getVelocity() {
+    return elevatorSim.getAngularVelocityRPM() * SimConstants.ELEVATOR_GEARING;
+  }
+
+  private double getMotorRotations() {
+    return elevatorSim.getAngularPositionRotations() * SimConstants.ELEVATOR_GEARING;
+  }
+}
@@ -0,0 +1,140 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static frc.robot.Constants.IntakeConstants.*;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.CANSparkBase.ControlType;
+import com.revrobotics.CANSparkBase.IdleMode;
+import com.revrobotics.CANSparkBase.SoftLimitDirection;
+import com.revrobotics.CANSparkLowLevel.MotorType;
+import com.revrobotics.SparkPIDController.ArbFFUnits;
+
+import edu.wpi.first.wpilibj.DigitalInput;
+import frc.robot.CANStatusFrames;
+import frc.robot.HardwareInputs;
+import frc.robot.Constants.PowerConstants;
+
+/**
+ * The climber on the real robot, two NEOs on SPARK MAXes and a magnetic limit switch on DIO 7.
+ * The leader's soft limits keep the elevator inside its travel even if the roboRIO stops talking to it,
+ * measured from the boot position until the elevator's been homed.
+ */
+public class ElevatorIOSparkMax implements ElevatorIO {
+
+  private final CANSparkMax elevator_left;
+  private final CANSparkMax elevator_right;
+  private final SparkPIDController pid_elevator;
+  private final RelativeEncoder encoder;
+  private final DigitalInput magneticLimit;
+
+  // PID slots on the leader
+  private static final int VELOCITY_SLOT = 0;
+  private static final int POSITION_SLOT = 1;
+
+  // Last request, so an unchanged one isn't sent over CAN again
+  private ControlType lastType;
+  private double lastValue = Double.NaN;
+  private double lastFeedforwardVolts = Double.NaN;
+
+  public ElevatorIOSparkMax() {
+    elevator_left = new CANSparkMax(LEFT_ELEV_ID, MotorType.kBrushless);
+    elevator_right = new CANSparkMax(RIGHT_ElEV_ID, MotorType.kBrushless);
+    elevator_left.restoreFactoryDefaults();
+    pid_elevator = elevator_left.getPIDController();
+
+    elevator_left.setIdleMode(IdleMode.kBrake);
+    elevator_right.setIdleMode(IdleMode.kBrake);
+
+    elevator_left.setSmartCurrentLimit(PowerConstants.ELEVATOR_MAX_CURRENT);
+    elevator_right.setSmartCurrentLimit(PowerConstants.ELEVATOR_MAX_CURRENT);
+
+    elevator_left.setInverted(true);
+    elevator_right.follow(elevator_left,true);
+
+    CANStatusFrames.configure(elevator_left, CANStatusFrames.Profile.POSITION_LEADER);
+    CANStatusFrames.configure(elevator_right, CANStatusFrames.Profile.FOLLOWER);
+    
+    encoder = elevator_left.getEncoder();
+    magneticLimit = new DigitalInput(7);
+
+    // Smart velocity and smart motion share the velocity slot and its limits
+    pid_elevator.setP(ELEVATOR_VELOCITY_P, VELOCITY_SLOT);
+    pid_elevator.setFF(0, VELOCITY_SLOT);
+    pid_elevator.setSmartMotionMaxVelocity(ELEVATOR_MAX_VELOCITY, VELOCITY_SLOT);
+    pid_elevator.setSmartMotionMaxAccel(ELEVATOR_MAX_ACCELERATION, VELOCITY_SLOT);
+    pid_elevator.setSmartMotionAllowedClosedLoopError(0.5, VELOCITY_SLOT);
+    pid_elevator.setP(ELEVATOR_POSITION_P, POSITION_SLOT);
+    pid_elevator.setFF(0, POSITION_SLOT);
+
+    // The encoder counts from wherever the elevator was at boot, so the limits stay off until Elevator has seen a reading
+    elevator_left.enableSoftLimit(SoftLimitDirection.kForward, false);
+    elevator_left.enableSoftLimit(SoftLimitDirection.kReverse, false);
+  }
+
+  @Override
+  public void updateInputs(Elevator.Inputs inputs) {
+    inputs.position = encoder.getPosition();
+    inputs.current = elevator_left.getOutputCurrent();
+    inputs.limitSwitch = magneticLimit.get();
+    HardwareInputs.countRefresh(3);
+  }
+
+  @Override
+  public void setPercent(double percent) {
+    lastType = null;
+    elevator_left.set(percent);
+  }
+
+  @Override
+  public void setVelocity(double velocity, double feedforwardVolts) {
+    setReference(ControlType.kSmartVelocity, velocity, VELOCITY_SLOT, feedforwardVolts);
+  }
+
+  @Override
+  public void setSmartMotion(double position, double feedforwardVolts) {
+    setReference(ControlType.kSmartMotion, position, VELOCITY_SLOT, feedforwardVolts);
+  }
+
+  @Override
+  public void setPosition(double position, double feedforwardVolts) {
+    setReference(ControlType.kPosition, position, POSITION_SLOT, feedforwardVolts);
+  }
+
+  @Override
+  public void resetPosition(double position) {
+    encoder.setPosition(position);
+    // A position request means something different now
+    lastType = null;
+  }
+
+  @Override
+  public void setSoftLimits(double top, double bottom) {
+    // Positive is down
+    elevator_left.setSoftLimit(SoftLimitDirection.kForward, (float) bottom);
+    elevator_left.setSoftLimit(SoftLimitDirection.kReverse, (float) top);
+    elevator_left.enableSoftLimit(SoftLimitDirection.kForward, true);
+    elevator_left.enableSoftLimit(SoftLimitDirection.kReverse, true);
+  }
+
+  private void setReference(ControlType type, double value, int slot, double feedforwardVolts) {
+    if (type == lastType && value == lastValue && feedforwardVolts == lastFeedforwardVolts) {
+      return;
+    }
+    lastType = type;
+    lastValue = value;
+    lastFeedforwardVolts = feedforwardVolts;
+    pid_elevator.setReference(value, type, slot, feedforwardVolts, ArbFFUnits.kVoltage);
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    elevator_left.setSmartCurrentLimit(amps);
+    elevator_right.setSmartCurrentLimit(amps);
+  }
+}
@@ -0,0 +1,28 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+/**
+ * The gyro behind {@link SwerveDrive}. The real robot reads a NavX, simulation integrates the
+ * simulated modules and replay plays back a log.
+ */
+public interface GyroIO {
+
+  /**
+   * Fill in this cycle's gyro readings.
+   */
+  public void updateInputs(SwerveDrive.Inputs inputs);
+
+  /**
+   * Read the angle outside of the once per cycle refresh, for the odometry thread.
+   * @return Continuous angle in degrees.
+   */
+  public double sampleAngle();
+
+  /**
+   * Zero the angle and yaw.
+   */
+  public void reset();
+}
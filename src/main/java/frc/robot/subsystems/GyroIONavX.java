@@ -0,0 +1,39 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.kauailabs.navx.frc.AHRS;
+
+import edu.wpi.first.wpilibj.SerialPort;
+import frc.robot.HardwareInputs;
+
+/**
+ * The NavX plugged into the roboRIO's USB port.
+ */
+public class GyroIONavX implements GyroIO {
+
+  private final AHRS gyro;
+
+  public GyroIONavX() {
+    gyro = new AHRS(SerialPort.Port.kUSB);
+  }
+
+  @Override
+  public void updateInputs(SwerveDrive.Inputs inputs) {
+    inputs.angle = gyro.getAngle();
+    inputs.yaw = gyro.getYaw();
+    HardwareInputs.countRefresh(2);
+  }
+
+  @Override
+  public double sampleAngle() {
+    return gyro.getAngle();
+  }
+
+  @Override
+  public void reset() {
+    gyro.reset();
+  }
+}
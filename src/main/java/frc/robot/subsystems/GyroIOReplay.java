@@ -0,0 +1,40 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import frc.robot.logging.BinaryLogReader;
+
+/**
+ * Plays the logged gyro readings back from a binary log.
+ */
+public class GyroIOReplay implements GyroIO {
+
+  private final BinaryLogReader log;
+
+  // The reader isn't thread safe, so the odometry thread gets the last angle read here
+  private volatile double angle;
+
+  /**
+   * @param log Reader advanced once per loop by the robot
+   */
+  public GyroIOReplay(BinaryLogReader log) {
+    this.log = log;
+  }
+
+  @Override
+  public void updateInputs(SwerveDrive.Inputs inputs) {
+    inputs.angle = log.get("Drive/Gyro/Angle", inputs.angle);
+    inputs.yaw = log.get("Drive/Gyro/Yaw", inputs.yaw);
+    angle = inputs.angle;
+  }
+
+  @Override
+  public double sampleAngle() {
+    return angle;
+  }
+
+  @Override
+  public void reset() {}
+}
@@ -0,0 +1,48 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import frc.robot.sim.SwerveDriveSim;
+
+/**
+ * A simulated NavX reading the true heading of a {@link SwerveDriveSim}, so wheel slip shows up
+ * as a difference between the gyro and the wheel odometry just like on the robot. The angle is
+ * clockwise positive like the NavX's, so everything reading the gyro sees the same sign in
+ * simulation as on the robot.
+ */
+public class GyroIOSim implements GyroIO {
+
+  private final SwerveDriveSim drivetrain;
+  private double zero;
+
+  // Read from the odometry thread
+  private volatile double angle;
+
+  /**
+   * @param drivetrain The simulated drivetrain
+   */
+  public GyroIOSim(SwerveDriveSim drivetrain) {
+    this.drivetrain = drivetrain;
+  }
+
+  @Override
+  public void updateInputs(SwerveDrive.Inputs inputs) {
+    // The simulated heading is counter-clockwise positive
+    angle = zero - Math.toDegrees(drivetrain.getHeading());
+    inputs.angle = angle;
+    inputs.yaw = Math.IEEEremainder(angle, 360);
+  }
+
+  @Override
+  public double sampleAngle() {
+    return angle;
+  }
+
+  @Override
+  public void reset() {
+    zero = Math.toDegrees(drivetrain.getHeading());
+    angle = 0;
+  }
+}
@@ -7,115 +7,391 @@ package frc.robot.subsystems;
 
 import static frc.robot.Constants.IntakeConstants.*;
 
-import com.revrobotics.CANSparkLowLevel;
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.SparkPIDController;
-import com.revrobotics.CANSparkBase.ControlType;
-import com.revrobotics.CANSparkBase.IdleMode;
-import com.revrobotics.CANSparkLowLevel.MotorType;
-import com.revrobotics.SparkAnalogSensor.Mode;
+import java.util.function.IntSupplier;
 
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.FunctionalCommand;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.HardwareInputs;
+import frc.robot.LoopProfiler;
+import frc.robot.logging.BinaryLog;
 import frc.robot.Constants.IntakeConstants;
+import frc.robot.Constants.PowerConstants;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.util.sendable.SendableBuilder;
-import edu.wpi.first.wpilibj.AnalogInput;
-import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.DutyCycleEncoder;
 import edu.wpi.first.wpilibj.motorcontrol.Spark;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 public class Intake extends SubsystemBase {
 
-  private final CANSparkMax intake;
-  
-  private DigitalInput intakeSensor;
-  private DutyCycleEncoder throughBore;
-  private RelativeEncoder encoder;
-  private SparkPIDController controller;
+  /**
+   * What the rollers look like they're doing, going by the last {@link IntakeConstants#JAM_WINDOW} loops.
+   */
+  public enum JamState {
+    /** Spinning freely or stopped. */
+    FREE,
+    /** Pulling harder than spinning free while still turning, a note's being dragged in. */
+    PICKUP,
+    /** A note is in the beam break. */
+    SEATED,
+    /** Drawing stall current without turning, something's wedged. */
+    STALLED
+  }
+
+  /**
+   * Every sensor value the intake uses, read once at the start of each cycle.
+   */
+  public static class Inputs {
+    /** True while the beam is unbroken, i.e. no note. */
+    public boolean sensor = true;
+    public double current;
+    /** Roller motor RPM. */
+    public double velocity;
+    /** How many times a note has broken the beam, and the FPGA time of the last one in seconds. */
+    public int noteArrivals;
+    public double noteArrivedTime = Double.NaN;
+    /** How many times the beam has cleared again, and the FPGA time of the last one in seconds. */
+    public int noteDepartures;
+    public double noteLeftTime = Double.NaN;
+    /** Seconds from the last note breaking the beam to the rollers dropping to hold, NaN until one's been caught. */
+    public double stopLatency = Double.NaN;
+  }
+
+  private final Inputs inputs = new Inputs();
+  private final int sensorChannel = BinaryLog.channel("Intake/Sensor");
+  private final int currentChannel = BinaryLog.channel("Intake/Current");
+  private final int velocityChannel = BinaryLog.channel("Intake/Velocity");
+  private final int noteArrivalsChannel = BinaryLog.channel("Intake/NoteArrivals");
+  private final int noteArrivedTimeChannel = BinaryLog.channel("Intake/NoteArrivedTime");
+  private final int noteDeparturesChannel = BinaryLog.channel("Intake/NoteDepartures");
+  private final int noteLeftTimeChannel = BinaryLog.channel("Intake/NoteLeftTime");
+  private final int stopLatencyChannel = BinaryLog.channel("Intake/StopLatency");
+  private final int jamStateChannel = BinaryLog.channel("Intake/JamState");
+  private final int jamChannel = BinaryLog.channel("Intake/Jam");
+  private final LoopProfiler.Section periodicSection = LoopProfiler.section("Intake.periodic()");
+
+  private final IntakeIO io;
   private double velocity;
+  // What the roller motor is limited to right now, the jam and pickup currents scale with it
+  private int currentLimit = PowerConstants.INTAKE_MAX_CURRENT;
+
+  // Rolling window of roller current and speed, a ring so nothing's allocated
+  private final double[] currentWindow = new double[JAM_WINDOW];
+  private final double[] velocityWindow = new double[JAM_WINDOW];
+  private int windowIndex;
+  private int windowCount;
+  private JamState jamState = JamState.FREE;
+
+  private boolean jamRecovery;
+  private final Timer reverseTimer = new Timer();
+  private boolean reversing;
+  private int retries;
+  private int jams;
   
-  /** Creates a new Intake. */
-  public Intake(){
-    intake = new CANSparkMax(INTAKE_MOTOR, CANSparkLowLevel.MotorType.kBrushless);
-    //intake.setSmartCurrentLimit(60);
-    intake.setIdleMode(IdleMode.kBrake);
-
-    intakeSensor = new DigitalInput(5);
-    encoder = intake.getEncoder();
-
-    controller = intake.getPIDController();
-    controller.setP(0.01);
-    controller.setFF(0.02);
+  /**
+   * Creates a new Intake.
+   * @param io The roller motor and beam break
+   */
+  public Intake(IntakeIO io){
+    this.io = io;
     velocity = 0.50;
+    jamRecovery = JAM_RECOVERY;
   }
 
 
   //command version
+  // The IO drops the rollers to hold the moment the beam breaks, no waiting for the next loop
   public Command spinIntake(){
-    return runEnd( () -> {
-      if(intakeSensor.get()){
-        intake.set(-0.7);
+    return new FunctionalCommand(this::startPull, this::pull, interrupted -> {io.set(0);}, () -> false, this);
+  }
+
+  /**
+   * Pull a note in and finish once it's there, leaving the rollers at the hold output.
+   */
+  public Command intakeNote() {
+    return new FunctionalCommand(this::startPull, this::pull, interrupted -> {
+      io.set(hasNote() ? NOTE_HOLD_SPEED : 0);
+    }, this::hasNote, this);
+  }
+
+  /**
+   * Start pulling a note in fresh, with every jam retry available again.
+   */
+  public void startPull() {
+    reversing = false;
+    retries = 0;
+  }
+
+  /**
+   * Pull a note in. When the rollers stall they're backed out for a moment and then try again, and
+   * after {@link IntakeConstants#JAM_MAX_RETRIES} tries they stay stopped until the command restarts.
+   */
+  public void pull() {
+    if (jamState == JamState.SEATED) {
+      retries = 0;
+    }
+    if (reversing) {
+      if (!reverseTimer.hasElapsed(JAM_REVERSE_TIME)) {
+        io.set(JAM_REVERSE_SPEED);
+        return;
       }
-      else {
-        intake.set(0);
+      // The window is full of reversing now, so it takes a whole window of stalling to trip again
+      reversing = false;
+    }
+    if (retries > JAM_MAX_RETRIES) {
+      io.set(0);
+      return;
+    }
+    if (jamRecovery && jamState == JamState.STALLED) {
+      retries++;
+      jams++;
+      if (retries > JAM_MAX_RETRIES) {
+        BinaryLog.event(jamChannel, "Still jammed, stopping");
+        io.set(0);
+      } else {
+        BinaryLog.event(jamChannel, "Jammed, reversing");
+        reversing = true;
+        reverseTimer.restart();
+        io.set(JAM_REVERSE_SPEED);
       }
-    }, 
-    
-    () -> {intake.set(0);});
+      return;
+    }
+    io.intakeUntilNote(INTAKE_PULL_SPEED, NOTE_HOLD_SPEED);
   }
 
   public Command outtake() {
     return runEnd(() -> {
-      intake.set(velocity);
-    }, () -> {intake.set(0);});
+      io.set(velocity);
+    }, () -> {io.set(0);});
   }
 
   public Command softOuttake() {
     return runEnd(() -> {
-      intake.set(0.05);
-    }, () -> {intake.set(0);});
+      io.set(0.05);
+    }, () -> {io.set(0);});
   }
 
   public void feedShooter(){
-    intake.set(FEED_SHOOTER_SPEED);
+    io.set(FEED_SHOOTER_SPEED);
+  }
+
+  /**
+   * Hold a note that's already in, at {@link IntakeConstants#NOTE_HOLD_SPEED}.
+   */
+  public void holdNote() {
+    io.set(NOTE_HOLD_SPEED);
   }
 
   public void hold(){
-      intake.set(-0.4);   
+      io.set(-0.4);   
   }
 
 
   public void stop(){
-    intake.set(0);
+    io.set(0);
   }
 
   /*
    * Returns the value from the intake Sensor
    */
   public boolean getIntakeSensor(){
-    return intakeSensor.get();
+    HardwareInputs.countCachedRead();
+    return inputs.sensor;
   }
 
- 
+  /**
+   * @return Whether there's a note in the intake.
+   */
+  public boolean hasNote() {
+    return !getIntakeSensor();
+  }
+
+  /**
+   * True for one scheduler loop every time a note breaks the beam. Counted from the interrupt, so
+   * a note that passes the sensor between two loops still fires it.
+   */
+  public Trigger noteArrived() {
+    return edgeTrigger(() -> inputs.noteArrivals);
+  }
+
+  /**
+   * True for one scheduler loop every time the beam clears, e.g. when a shot has left.
+   */
+  public Trigger noteLeft() {
+    return edgeTrigger(() -> inputs.noteDepartures);
+  }
+
+  /**
+   * Each trigger keeps its own count of the edges it's already reported.
+   */
+  private static Trigger edgeTrigger(IntSupplier edges) {
+    int[] seen = {edges.getAsInt()};
+    return new Trigger(() -> {
+      int count = edges.getAsInt();
+      boolean fired = count != seen[0];
+      seen[0] = count;
+      return fired;
+    });
+  }
+
+  /**
+   * @return FPGA time in seconds the last note broke the beam, NaN if none has.
+   */
+  public double getNoteArrivedTime() {
+    HardwareInputs.countCachedRead();
+    return inputs.noteArrivedTime;
+  }
+
+  /**
+   * @return FPGA time in seconds the beam last cleared, NaN if it never has.
+   */
+  public double getNoteLeftTime() {
+    HardwareInputs.countCachedRead();
+    return inputs.noteLeftTime;
+  }
+
+  /**
+   * @return Seconds between the last note breaking the beam and the rollers stopping for it.
+   */
+  public double getStopLatency() {
+    HardwareInputs.countCachedRead();
+    return inputs.stopLatency;
+  }
+
+  /**
+   * @return Intake motor current in amps.
+   */
+  public double getCurrent() {
+    HardwareInputs.countCachedRead();
+    return inputs.current;
+  }
+
+  /**
+   * @param amps Smart current limit for the roller motor
+   */
+  public void setCurrentLimit(int amps) {
+    currentLimit = amps;
+    io.setCurrentLimit(amps);
+  }
+
+  /**
+   * @return The roller motor's current limit in amps, as last set.
+   */
+  public int getCurrentLimit() {
+    return currentLimit;
+  }
 
   public boolean isStuck() {
-    return intake.getOutputCurrent() > IntakeConstants.DEFAULT_CURRENT; 
+    return jamState == JamState.STALLED; 
+  }
+
+  /**
+   * @return What the rollers are doing as of this cycle.
+   */
+  public JamState getJamState() {
+    return jamState;
+  }
+
+  /**
+   * @return Whether the rollers are backing out of a jam right now.
+   */
+  public boolean isClearingJam() {
+    return reversing;
+  }
+
+  /**
+   * @return How many jams have been detected since boot.
+   */
+  public int getJamCount() {
+    return jams;
+  }
+
+  /**
+   * Turn automatic reverse and retry on or off. Off, a stalled intake keeps pulling.
+   */
+  public void setJamRecovery(boolean jamRecovery) {
+    this.jamRecovery = jamRecovery;
+  }
+
+  public boolean isJamRecovery() {
+    return jamRecovery;
+  }
+
+  /**
+   * Add this cycle to the window and classify it.
+   */
+  private void updateJamState() {
+    currentWindow[windowIndex] = inputs.current;
+    velocityWindow[windowIndex] = Math.abs(inputs.velocity);
+    windowIndex = (windowIndex + 1) % JAM_WINDOW;
+    windowCount = Math.min(windowCount + 1, JAM_WINDOW);
+
+    double currentSum = 0;
+    double maxVelocity = 0;
+    for (int i = 0; i < windowCount; i++) {
+      currentSum += currentWindow[i];
+      maxVelocity = Math.max(maxVelocity, velocityWindow[i]);
+    }
+    double averageCurrent = currentSum / windowCount;
+
+    if (!inputs.sensor) {
+      jamState = JamState.SEATED;
+    } else if (windowCount < JAM_WINDOW) {
+      jamState = JamState.FREE;
+    } else if (averageCurrent >= JAM_CURRENT * currentLimit && maxVelocity < JAM_VELOCITY) {
+      // A current spike alone is a note being grabbed, it's only a jam if the rollers never turned
+      jamState = JamState.STALLED;
+    } else if (averageCurrent >= PICKUP_CURRENT * currentLimit) {
+      jamState = JamState.PICKUP;
+    } else {
+      jamState = JamState.FREE;
+    }
+  }
+
+  /**
+   * Read every sensor once for this cycle.
+   */
+  public void updateInputs() {
+    io.updateInputs(inputs);
+    updateJamState();
+
+    BinaryLog.log(sensorChannel, inputs.sensor);
+    BinaryLog.log(currentChannel, inputs.current);
+    BinaryLog.log(velocityChannel, inputs.velocity);
+    BinaryLog.log(noteArrivalsChannel, inputs.noteArrivals);
+    BinaryLog.log(noteArrivedTimeChannel, inputs.noteArrivedTime);
+    BinaryLog.log(noteDeparturesChannel, inputs.noteDepartures);
+    BinaryLog.log(noteLeftTimeChannel, inputs.noteLeftTime);
+    BinaryLog.log(stopLatencyChannel, inputs.stopLatency);
+    BinaryLog.log(jamStateChannel, jamState.ordinal());
+  }
+
+  /**
+   * @return This cycle's sensor snapshot.
+   */
+  public Inputs getInputs() {
+    return inputs;
   }
 
   @Override
   public void periodic() {
-    
-
+    periodicSection.start();
+    updateInputs();
+    periodicSection.stop();
   }
 
   @Override
     public void initSendable(SendableBuilder sendableBuilder) {
      sendableBuilder.addBooleanProperty("Note Detected", () -> !getIntakeSensor(), null);
-     sendableBuilder.addDoubleProperty("Intake RPM", () -> intake.getOutputCurrent(), null);
+     sendableBuilder.addDoubleProperty("Intake RPM", () -> inputs.current, null);
+     sendableBuilder.addDoubleProperty("Notes Caught", () -> inputs.noteArrivals, null);
+     sendableBuilder.addDoubleProperty("Stop Latency ms", () -> inputs.stopLatency * 1000, null);
+     sendableBuilder.addStringProperty("Jam State", () -> jamState.name(), null);
+     sendableBuilder.addDoubleProperty("Jams", () -> jams, null);
+     sendableBuilder.addBooleanProperty("Jam Recovery", () -> isJamRecovery(), jamRecovery -> setJamRecovery(jamRecovery));
     }
 }
@@ -0,0 +1,35 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+/**
+ * The roller motor and beam break behind {@link Intake}.
+ */
+public interface IntakeIO {
+
+  /**
+   * Fill in this cycle's sensor values.
+   */
+  public void updateInputs(Intake.Inputs inputs);
+
+  /**
+   * @param percent Roller duty cycle from -1 to 1, negative pulls a note in
+   */
+  public void set(double percent);
+
+  /**
+   * Pull a note in, then drop the rollers to the hold output as soon as it breaks the beam. The
+   * real robot does the drop from the beam break's interrupt instead of waiting for the next loop.
+   * Meant to be called every loop, it only sends something when the output actually changes.
+   * @param percent Roller duty cycle to pull the note in with
+   * @param holdPercent Roller duty cycle once the note's in, 0 to stop
+   */
+  public void intakeUntilNote(double percent, double holdPercent);
+
+  /**
+   * @param amps Smart current limit for every motor
+   */
+  public void setCurrentLimit(int amps);
+}
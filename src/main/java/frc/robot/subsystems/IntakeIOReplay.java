@@ -0,0 +1,43 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import frc.robot.logging.BinaryLogReader;
+
+/**
+ * Plays the intake's logged inputs back from a binary log.
+ */
+public class IntakeIOReplay implements IntakeIO {
+
+  private final BinaryLogReader log;
+
+  /**
+   * @param log Reader advanced once per loop by the robot
+   */
+  public IntakeIOReplay(BinaryLogReader log) {
+    this.log = log;
+  }
+
+  @Override
+  public void updateInputs(Intake.Inputs inputs) {
+    inputs.sensor = log.getBoolean("Intake/Sensor", inputs.sensor);
+    inputs.current = log.get("Intake/Current", inputs.current);
+    inputs.velocity = log.get("Intake/Velocity", inputs.velocity);
+    inputs.noteArrivals = (int) log.get("Intake/NoteArrivals", inputs.noteArrivals);
+    inputs.noteArrivedTime = log.get("Intake/NoteArrivedTime", inputs.noteArrivedTime);
+    inputs.noteDepartures = (int) log.get("Intake/NoteDepartures", inputs.noteDepartures);
+    inputs.noteLeftTime = log.get("Intake/NoteLeftTime", inputs.noteLeftTime);
+    inputs.stopLatency = log.get("Intake/StopLatency", inputs.stopLatency);
+  }
+
+  @Override
+  public void set(double percent) {}
+
+  @Override
+  public void intakeUntilNote(double percent, double holdPercent) {}
+
+  @Override
+  public void setCurrentLimit(int amps) {}
+}
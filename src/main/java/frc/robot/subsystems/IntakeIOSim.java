@@ -0,0 +1,106 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * A simulated intake. The rollers are a NEO spinning a small flywheel, and a note shows up in
+ * the beam break once the rollers have pulled in long enough and leaves once they've pushed out
+ * long enough. Like the real interrupt, a note showing up while intaking drops the rollers to the
+ * hold output in the same step.
+ */
+public class IntakeIOSim implements IntakeIO {
+
+  private final FlywheelSim rollerSim = new FlywheelSim(DCMotor.getNEO(1), 1, SimConstants.INTAKE_MOI);
+
+  private double percent;
+  private boolean hasNote;
+  private double pullTime;
+  private double pushTime;
+  private boolean armed;
+  private double holdPercent;
+  private boolean hadNote;
+  private int noteArrivals;
+  private double noteArrivedTime = Double.NaN;
+  private int noteDepartures;
+  private double noteLeftTime = Double.NaN;
+  private double stopLatency = Double.NaN;
+
+  @Override
+  public void updateInputs(Intake.Inputs inputs) {
+    rollerSim.setInputVoltage(percent * SimConstants.NOMINAL_VOLTAGE);
+    rollerSim.update(SimConstants.LOOP_PERIOD);
+
+    // Negative pulls the note in, positive feeds it out to the shooter or the floor
+    pullTime = percent < 0 ? pullTime + SimConstants.LOOP_PERIOD : 0;
+    pushTime = percent > 0 ? pushTime + SimConstants.LOOP_PERIOD : 0;
+    if (!hasNote && pullTime >= SimConstants.NOTE_INTAKE_SECONDS) {
+      hasNote = true;
+    } else if (hasNote && pushTime >= SimConstants.NOTE_EJECT_SECONDS) {
+      hasNote = false;
+    }
+
+    // Edges, including ones from setNote()
+    if (hasNote && !hadNote) {
+      noteArrivals++;
+      noteArrivedTime = Timer.getFPGATimestamp();
+      if (armed) {
+        armed = false;
+        percent = holdPercent;
+        stopLatency = 0;
+      }
+    } else if (!hasNote && hadNote) {
+      noteDepartures++;
+      noteLeftTime = Timer.getFPGATimestamp();
+    }
+    hadNote = hasNote;
+
+    inputs.sensor = !hasNote;
+    inputs.current = rollerSim.getCurrentDrawAmps();
+    inputs.velocity = rollerSim.getAngularVelocityRPM();
+    inputs.noteArrivals = noteArrivals;
+    inputs.noteArrivedTime = noteArrivedTime;
+    inputs.noteDepartures = noteDepartures;
+    inputs.noteLeftTime = noteLeftTime;
+    inputs.stopLatency = stopLatency;
+  }
+
+  @Override
+  public void set(double percent) {
+    armed = false;
+    this.percent = MathUtil.clamp(percent, -1, 1);
+  }
+
+  @Override
+  public void intakeUntilNote(double percent, double holdPercent) {
+    this.holdPercent = MathUtil.clamp(holdPercent, -1, 1);
+    if (armed) {
+      return;
+    }
+    if (hasNote) {
+      this.percent = this.holdPercent;
+    } else {
+      armed = true;
+      this.percent = MathUtil.clamp(percent, -1, 1);
+    }
+  }
+
+  /**
+   * Put a note in or take it out, e.g. to start auto preloaded.
+   */
+  public void setNote(boolean hasNote) {
+    this.hasNote = hasNote;
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    // Only the drivetrain sim models current limits
+  }
+}
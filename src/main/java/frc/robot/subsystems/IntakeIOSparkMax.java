@@ -0,0 +1,145 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static frc.robot.Constants.IntakeConstants.*;
+
+import com.revrobotics.CANSparkLowLevel;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.CANSparkBase.IdleMode;
+
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
+import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.CANStatusFrames;
+import frc.robot.HardwareInputs;
+import frc.robot.Constants.PowerConstants;
+
+/**
+ * The intake on the real robot, a NEO on a SPARK MAX and a beam break on DIO 5.
+ *
+ * <p>Both edges of the beam break raise an interrupt, which timestamps them on the FPGA and, while
+ * intaking, drops the rollers to the hold output right there on the interrupt thread. The note
+ * stops within a CAN frame of breaking the beam instead of up to a whole loop later.
+ */
+public class IntakeIOSparkMax implements IntakeIO {
+
+  private final CANSparkMax intake;
+  private final DigitalInput intakeSensor;
+  private final AsynchronousInterrupt sensorInterrupt;
+  private final RelativeEncoder encoder;
+  private final SparkPIDController controller;
+
+  // Shared with the interrupt thread, only touched while holding this
+  private final Object lock = new Object();
+  private boolean armed;
+  private double holdPercent;
+  private double lastPercent = Double.NaN;
+  private int noteArrivals;
+  private double noteArrivedTime = Double.NaN;
+  private int noteDepartures;
+  private double noteLeftTime = Double.NaN;
+  private double stopLatency = Double.NaN;
+
+  public IntakeIOSparkMax() {
+    intake = new CANSparkMax(INTAKE_MOTOR, CANSparkLowLevel.MotorType.kBrushless);
+    intake.setSmartCurrentLimit(PowerConstants.INTAKE_MAX_CURRENT);
+    intake.setIdleMode(IdleMode.kBrake);
+    CANStatusFrames.configure(intake, CANStatusFrames.Profile.CURRENT_SENSING);
+
+    intakeSensor = new DigitalInput(INTAKE_SENSOR);
+    encoder = intake.getEncoder();
+
+    controller = intake.getPIDController();
+    controller.setP(0.01);
+    controller.setFF(0.02);
+
+    sensorInterrupt = new AsynchronousInterrupt(intakeSensor, this::onSensorEdge);
+    sensorInterrupt.setInterruptEdges(true, true);
+    sensorInterrupt.enable();
+  }
+
+  /**
+   * Runs on the interrupt thread every time the beam breaks or clears.
+   */
+  private void onSensorEdge(boolean rising, boolean falling) {
+    synchronized (lock) {
+      // The sensor reads true with no note, so a note arriving is the falling edge
+      if (falling) {
+        noteArrivals++;
+        noteArrivedTime = sensorInterrupt.getFallingTimestamp();
+        if (armed) {
+          armed = false;
+          output(holdPercent);
+          stopLatency = Timer.getFPGATimestamp() - noteArrivedTime;
+        }
+      }
+      if (rising) {
+        noteDepartures++;
+        noteLeftTime = sensorInterrupt.getRisingTimestamp();
+      }
+    }
+  }
+
+  @Override
+  public void updateInputs(Intake.Inputs inputs) {
+    inputs.sensor = intakeSensor.get();
+    inputs.current = intake.getOutputCurrent();
+    inputs.velocity = encoder.getVelocity();
+    HardwareInputs.countRefresh(3);
+
+    synchronized (lock) {
+      inputs.noteArrivals = noteArrivals;
+      inputs.noteArrivedTime = noteArrivedTime;
+      inputs.noteDepartures = noteDepartures;
+      inputs.noteLeftTime = noteLeftTime;
+      inputs.stopLatency = stopLatency;
+    }
+  }
+
+  @Override
+  public void set(double percent) {
+    synchronized (lock) {
+      armed = false;
+      output(percent);
+    }
+  }
+
+  @Override
+  public void intakeUntilNote(double percent, double holdPercent) {
+    synchronized (lock) {
+      this.holdPercent = holdPercent;
+      if (armed) {
+        return;
+      }
+      HardwareInputs.countRefresh(1);
+      if (intakeSensor.get()) {
+        // Anything from here on lands in the interrupt, which waits on the lock until this is armed
+        armed = true;
+        output(percent);
+      } else {
+        // Already holding a note
+        output(holdPercent);
+      }
+    }
+  }
+
+  /**
+   * Only send the duty cycle when it changed, the SPARK MAX keeps running the last one.
+   */
+  private void output(double percent) {
+    if (percent != lastPercent) {
+      intake.set(percent);
+      lastPercent = percent;
+    }
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    intake.setSmartCurrentLimit(amps);
+  }
+}
@@ -6,76 +6,237 @@ package frc.robot.subsystems;
 
 import javax.management.relation.Relation;
 
-import com.revrobotics.CANSparkBase;
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.SparkPIDController;
-import com.revrobotics.CANSparkBase.ControlType;
-import com.revrobotics.CANSparkBase.IdleMode;
-import com.revrobotics.CANSparkLowLevel.MotorType;
-
 import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.filter.LinearFilter;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import static frc.robot.Constants.OuttakeConstants;
+import frc.robot.HardwareInputs;
+import frc.robot.LoopProfiler;
+import frc.robot.Constants.OuttakeConstants;
+import frc.robot.logging.BinaryLog;
 
 
 public class Outtake extends SubsystemBase {
+
+  /**
+   * Every sensor value the shooter uses, read once at the start of each cycle.
+   */
+  public static class Inputs {
+    public double velocity;
+    public double current;
+  }
+
+  private final Inputs inputs = new Inputs();
+  private final int velocityChannel = BinaryLog.channel("Outtake/Velocity");
+  private final int currentChannel = BinaryLog.channel("Outtake/Current");
+  private final int targetChannel = BinaryLog.channel("Outtake/Target");
+  private final int filteredVelocityChannel = BinaryLog.channel("Outtake/FilteredVelocity");
+  private final int readyChannel = BinaryLog.channel("Outtake/Ready");
+  private final LoopProfiler.Section periodicSection = LoopProfiler.section("Outtake.periodic()");
   
-  private CANSparkMax leftMotor;
-  private CANSparkMax rightMotor;
+  private final OuttakeIO io;
+
+  private final SimpleMotorFeedforward feedforward;
+  private final LinearFilter velocityFilter;
+  private double filteredVelocity;
+
+  // NaN when the flywheel isn't on the velocity loop
+  private double targetVelocity = Double.NaN;
+  // When the filtered speed last came within tolerance of the target, NaN while it's outside
+  private double withinToleranceSince = Double.NaN;
+  private boolean ready;
+
+  /**
+   * Creates a new Shooter.
+   * @param io The flywheel motors
+   */
+  public Outtake(OuttakeIO io) {
+    this.io = io;
+
+    feedforward = new SimpleMotorFeedforward(OuttakeConstants.FLYWHEEL_KS, OuttakeConstants.FLYWHEEL_KV, OuttakeConstants.FLYWHEEL_KA);
+    velocityFilter = LinearFilter.singlePoleIIR(OuttakeConstants.VELOCITY_FILTER_SECONDS, TimedRobot.kDefaultPeriod);
+    io.configureVelocityPID(OuttakeConstants.P_VALUE, OuttakeConstants.I_VALUE, OuttakeConstants.D_VALUE);
+  }
+
+  public void shootPercent(double speed){
+    clearTarget();
+    io.setPercent(speed);
+    // System.out.println("Shooting at " + speed);
+  }
+
+  public void stop(){
+    clearTarget();
+    io.setPercent(0);
+  }
 
-  private RelativeEncoder encoder;
-  private SparkPIDController pidController;
+  /**
+   * Hold the flywheel at a speed with the onboard velocity loop plus feedforward.
+   * @param velocity Target velocity in RPM
+   */
+  public void shootVelocity(double velocity){
+    if (velocity != targetVelocity) {
+      targetVelocity = velocity;
+      withinToleranceSince = Double.NaN;
+      ready = false;
+    }
+    io.setVelocity(velocity, feedforward.calculate(velocity));
+  }
 
-  private double velocity;
+  /**
+   * Spin the flywheel up and hold it there, e.g. while driving to the shot. Stops the flywheel when it ends.
+   * @param velocity Target velocity in RPM
+   */
+  public Command spinUp(double velocity) {
+    return runEnd(() -> shootVelocity(velocity), () -> stop());
+  }
 
-  /** Creates a new Shooter. */
-  public Outtake() {
+  public boolean isUpToSpeed(double targetSpeed){
+    return getVelocity() >= targetSpeed;
+  }
 
+  /**
+   * @return True once the filtered speed has stayed within {@link OuttakeConstants#READY_TOLERANCE} of the target for {@link OuttakeConstants#READY_TIME}.
+   */
+  public boolean isReady() {
+    return ready;
+  }
 
-    leftMotor = new CANSparkMax(OuttakeConstants.MOTOR_ONE_ID, MotorType.kBrushless);
-    rightMotor = new CANSparkMax(OuttakeConstants.MOTOR_TWO_ID, MotorType.kBrushless);
+  /**
+   * Predicted time until {@link #isReady()}, assuming the loop runs the motors flat out at
+   * {@link OuttakeConstants#SPIN_UP_VOLTS} until the wheel gets there. Solves the feedforward's
+   * first order model for the time to go from the current filtered speed to the target.
+   * @return Seconds until the flywheel is ready, 0 when it already is, infinite when it's not being spun up or can't get there.
+   */
+  public double getTimeToReady() {
+    if (ready) {
+      return 0;
+    }
+    if (Double.isNaN(targetVelocity)) {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    double window = OuttakeConstants.READY_TIME;
+    if (!Double.isNaN(withinToleranceSince)) {
+      return Math.max(0, window - (Timer.getFPGATimestamp() - withinToleranceSince));
+    }
+
+    // Only the distance to the edge of the tolerance band needs covering
+    double error = targetVelocity - filteredVelocity;
+    double goal = targetVelocity - Math.copySign(OuttakeConstants.READY_TOLERANCE, error);
+    double volts = Math.copySign(OuttakeConstants.SPIN_UP_VOLTS, error);
+    double kS = Math.copySign(OuttakeConstants.FLYWHEEL_KS, error);
+    // Speed the wheel would settle at with the motors flat out
+    double terminal = (volts - kS) / OuttakeConstants.FLYWHEEL_KV;
+    double ratio = (terminal - filteredVelocity) / (terminal - goal);
+    if (ratio <= 0 || Double.isNaN(ratio) || (error > 0 && goal >= terminal)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double timeConstant = OuttakeConstants.FLYWHEEL_KA / OuttakeConstants.FLYWHEEL_KV;
+    return timeConstant * Math.log(ratio) + window;
+  }
 
-    leftMotor.setSmartCurrentLimit(OuttakeConstants.CURRENT_LIMIT);
-    rightMotor.setSmartCurrentLimit(OuttakeConstants.CURRENT_LIMIT);
+  /**
+   * @return Flywheel velocity in RPM, low pass filtered.
+   */
+  public double getFilteredVelocity() {
+    return filteredVelocity;
+  }
 
-    leftMotor.setInverted(true);
-    rightMotor.follow(leftMotor, true);
+  /**
+   * @return Velocity the flywheel is being held at in RPM, NaN when it's not on the velocity loop.
+   */
+  public double getTargetVelocity() {
+    return targetVelocity;
+  }
 
-    leftMotor.setIdleMode(IdleMode.kCoast);
-    rightMotor.setIdleMode(IdleMode.kCoast);
+  private void clearTarget() {
+    targetVelocity = Double.NaN;
+    withinToleranceSince = Double.NaN;
+    ready = false;
+  }
 
-    encoder = leftMotor.getEncoder();    
-    pidController = leftMotor.getPIDController();
+  /**
+   * Filter this cycle's speed and work out whether it's been steady at the target long enough.
+   */
+  private void updateReady() {
+    filteredVelocity = velocityFilter.calculate(inputs.velocity);
+
+    if (Double.isNaN(targetVelocity) || Math.abs(filteredVelocity - targetVelocity) > OuttakeConstants.READY_TOLERANCE) {
+      withinToleranceSince = Double.NaN;
+      ready = false;
+    } else {
+      double now = Timer.getFPGATimestamp();
+      if (Double.isNaN(withinToleranceSince)) {
+        withinToleranceSince = now;
+      }
+      ready = now - withinToleranceSince >= OuttakeConstants.READY_TIME;
+    }
+
+    BinaryLog.log(targetChannel, targetVelocity);
+    BinaryLog.log(filteredVelocityChannel, filteredVelocity);
+    BinaryLog.log(readyChannel, ready);
+  }
 
-    //This didn't help
-    pidController.setP(OuttakeConstants.P_VALUE);
-    pidController.setFF(OuttakeConstants.FF_VALUE);
-    pidController.setSmartMotionAllowedClosedLoopError(100, 0);
-    pidController.setOutputRange(0, 5000);
+  /**
+   * @return Flywheel velocity in RPM.
+   */
+  public double getVelocity() {
+    HardwareInputs.countCachedRead();
+    return inputs.velocity;
   }
 
-  public void shootPercent(double speed){
-    leftMotor.set(speed);
-    // System.out.println("Shooting at " + speed);
+  /**
+   * @return Current of one flywheel motor in amps, the follower draws the same.
+   */
+  public double getCurrent() {
+    HardwareInputs.countCachedRead();
+    return inputs.current;
   }
 
-  public void stop(){
-    leftMotor.set(0);
+  /**
+   * @param amps Smart current limit for both flywheel motors
+   */
+  public void setCurrentLimit(int amps) {
+    io.setCurrentLimit(amps);
   }
 
-  public void shootVelocity(double velocity){
-    pidController.setReference(velocity, ControlType.kVelocity);
+  /**
+   * Read every sensor once for this cycle.
+   */
+  public void updateInputs() {
+    io.updateInputs(inputs);
+
+    BinaryLog.log(velocityChannel, inputs.velocity);
+    BinaryLog.log(currentChannel, inputs.current);
   }
 
-  public boolean isUpToSpeed(double targetSpeed){
-    return encoder.getVelocity() >= targetSpeed;
+  /**
+   * @return This cycle's sensor snapshot.
+   */
+  public Inputs getInputs() {
+    return inputs;
   }
 
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
+    periodicSection.start();
+    updateInputs();
+    updateReady();
+    periodicSection.stop();
     // SmartDashboard.putNumber("Shooter RPM", encoder.getVelocity());
   }
+
+  @Override
+  public void initSendable(SendableBuilder sendableBuilder) {
+    sendableBuilder.addDoubleProperty("Shooter RPM", () -> filteredVelocity, null);
+    sendableBuilder.addDoubleProperty("Target RPM", () -> Double.isNaN(targetVelocity) ? 0 : targetVelocity, null);
+    sendableBuilder.addBooleanProperty("Ready", () -> isReady(), null);
+    sendableBuilder.addDoubleProperty("Time To Ready", () -> Math.min(getTimeToReady(), 10), null);
+  }
 }
@@ -0,0 +1,38 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+/**
+ * The two flywheel motors behind {@link Outtake}.
+ */
+public interface OuttakeIO {
+
+  /**
+   * Fill in this cycle's sensor values.
+   */
+  public void updateInputs(Outtake.Inputs inputs);
+
+  /**
+   * @param percent Flywheel duty cycle from -1 to 1
+   */
+  public void setPercent(double percent);
+
+  /**
+   * Set the gains for {@link #setVelocity}, in output fraction per RPM of error.
+   */
+  public void configureVelocityPID(double p, double i, double d);
+
+  /**
+   * Run the flywheel's velocity loop on the motor controller.
+   * @param rpm Target velocity in RPM
+   * @param feedforwardVolts Voltage added on top of the loop's output
+   */
+  public void setVelocity(double rpm, double feedforwardVolts);
+
+  /**
+   * @param amps Smart current limit for every motor
+   */
+  public void setCurrentLimit(int amps);
+}
@@ -0,0 +1,40 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import frc.robot.logging.BinaryLogReader;
+
+/**
+ * Plays the shooter's logged inputs back from a binary log.
+ */
+public class OuttakeIOReplay implements OuttakeIO {
+
+  private final BinaryLogReader log;
+
+  /**
+   * @param log Reader advanced once per loop by the robot
+   */
+  public OuttakeIOReplay(BinaryLogReader log) {
+    this.log = log;
+  }
+
+  @Override
+  public void updateInputs(Outtake.Inputs inputs) {
+    inputs.velocity = log.get("Outtake/Velocity", inputs.velocity);
+    inputs.current = log.get("Outtake/Current", inputs.current);
+  }
+
+  @Override
+  public void setPercent(double percent) {}
+
+  @Override
+  public void configureVelocityPID(double p, double i, double d) {}
+
+  @Override
+  public void setVelocity(double rpm, double feedforwardVolts) {}
+
+  @Override
+  public void setCurrentLimit(int amps) {}
+}
@@ -0,0 +1,75 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * A simulated shooter, two NEOs on one flywheel. The velocity loop runs the same PID plus
+ * feedforward volts as the SPARK MAX with the same 0 to 1 output range.
+ */
+public class OuttakeIOSim implements OuttakeIO {
+
+  private final FlywheelSim flywheelSim = new FlywheelSim(DCMotor.getNEO(2), 1, SimConstants.FLYWHEEL_MOI);
+
+  private boolean closedLoop;
+  private double percent;
+  private double targetRPM;
+  private double feedforwardVolts;
+  private double p;
+  private double i;
+  private double d;
+  private double integral;
+  private double lastError;
+
+  @Override
+  public void updateInputs(Outtake.Inputs inputs) {
+    double velocity = flywheelSim.getAngularVelocityRPM();
+    if (closedLoop) {
+      double error = targetRPM - velocity;
+      integral += error * SimConstants.LOOP_PERIOD;
+      double output = p * error + i * integral + d * (error - lastError) / SimConstants.LOOP_PERIOD;
+      lastError = error;
+      percent = MathUtil.clamp(output + feedforwardVolts / SimConstants.NOMINAL_VOLTAGE, 0, 1);
+    }
+    flywheelSim.setInputVoltage(percent * SimConstants.NOMINAL_VOLTAGE);
+    flywheelSim.update(SimConstants.LOOP_PERIOD);
+
+    inputs.velocity = flywheelSim.getAngularVelocityRPM();
+    inputs.current = flywheelSim.getCurrentDrawAmps() / 2;
+  }
+
+  @Override
+  public void setPercent(double percent) {
+    closedLoop = false;
+    this.percent = MathUtil.clamp(percent, -1, 1);
+  }
+
+  @Override
+  public void configureVelocityPID(double p, double i, double d) {
+    this.p = p;
+    this.i = i;
+    this.d = d;
+  }
+
+  @Override
+  public void setVelocity(double rpm, double feedforwardVolts) {
+    if (!closedLoop) {
+      integral = 0;
+      lastError = rpm - flywheelSim.getAngularVelocityRPM();
+    }
+    closedLoop = true;
+    targetRPM = rpm;
+    this.feedforwardVolts = feedforwardVolts;
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    // Only the drivetrain sim models current limits
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.SparkPIDController.ArbFFUnits;
+import com.revrobotics.CANSparkBase.ControlType;
+import com.revrobotics.CANSparkBase.IdleMode;
+import com.revrobotics.CANSparkLowLevel.MotorType;
+
+import frc.robot.CANStatusFrames;
+import frc.robot.Constants;
+import frc.robot.HardwareInputs;
+import frc.robot.Constants.OuttakeConstants;
+import frc.robot.Constants.PowerConstants;
+
+/**
+ * The shooter on the real robot, two NEOs on SPARK MAXes with the right one following the left.
+ */
+public class OuttakeIOSparkMax implements OuttakeIO {
+
+  private final CANSparkMax leftMotor;
+  private final CANSparkMax rightMotor;
+
+  private final RelativeEncoder encoder;
+  private final SparkPIDController pidController;
+
+  // Last setpoint sent, so holding a speed doesn't cost a CAN frame every loop
+  private double lastVelocitySetpoint = Double.NaN;
+  private double lastFeedforwardVolts = Double.NaN;
+
+  public OuttakeIOSparkMax() {
+    leftMotor = new CANSparkMax(OuttakeConstants.MOTOR_ONE_ID, MotorType.kBrushless);
+    rightMotor = new CANSparkMax(OuttakeConstants.MOTOR_TWO_ID, MotorType.kBrushless);
+
+    leftMotor.setSmartCurrentLimit(PowerConstants.OUTTAKE_MAX_CURRENT);
+    rightMotor.setSmartCurrentLimit(PowerConstants.OUTTAKE_MAX_CURRENT);
+
+    leftMotor.setInverted(true);
+    rightMotor.follow(leftMotor, true);
+
+    leftMotor.setIdleMode(IdleMode.kCoast);
+    rightMotor.setIdleMode(IdleMode.kCoast);
+
+    CANStatusFrames.configure(leftMotor, CANStatusFrames.Profile.VELOCITY_LEADER);
+    CANStatusFrames.configure(rightMotor, CANStatusFrames.Profile.FOLLOWER);
+
+    encoder = leftMotor.getEncoder();
+    // Shorter velocity filter than the default so the loop and the ready check see the wheel sooner
+    encoder.setMeasurementPeriod(16);
+    encoder.setAverageDepth(2);
+
+    // Onboard speed loop, the feedforward volts do most of the work. Never brakes the wheel backwards.
+    pidController = leftMotor.getPIDController();
+    pidController.setFeedbackDevice(encoder);
+    pidController.setFF(0);
+    pidController.setOutputRange(0, 1);
+  }
+
+  @Override
+  public void updateInputs(Outtake.Inputs inputs) {
+    inputs.velocity = encoder.getVelocity();
+    inputs.current = leftMotor.getOutputCurrent();
+    HardwareInputs.countRefresh(2);
+  }
+
+  @Override
+  public void setPercent(double percent) {
+    lastVelocitySetpoint = Double.NaN;
+    leftMotor.set(percent);
+  }
+
+  @Override
+  public void configureVelocityPID(double p, double i, double d) {
+    // The SPARK MAX doesn't scale by its 1 ms period
+    pidController.setP(p);
+    pidController.setI(i * Constants.ONBOARD_PID_PERIOD);
+    pidController.setD(d / Constants.ONBOARD_PID_PERIOD);
+  }
+
+  @Override
+  public void setVelocity(double rpm, double feedforwardVolts) {
+    if (rpm != lastVelocitySetpoint || feedforwardVolts != lastFeedforwardVolts) {
+      lastVelocitySetpoint = rpm;
+      lastFeedforwardVolts = feedforwardVolts;
+      pidController.setReference(rpm, ControlType.kVelocity, 0, feedforwardVolts, ArbFFUnits.kVoltage);
+    }
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    leftMotor.setSmartCurrentLimit(amps);
+    rightMotor.setSmartCurrentLimit(amps);
+  }
+}
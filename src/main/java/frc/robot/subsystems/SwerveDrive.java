@@ -6,7 +6,6 @@ package frc.robot.subsystems;
 
 import java.util.function.Supplier;
 
-import com.kauailabs.navx.frc.AHRS;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -16,47 +15,86 @@ import com.pathplanner.lib.util.PathPlannerLogging;
 import edu.wpi.first.math.filter.SlewRateLimiter;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotController;
-import edu.wpi.first.wpilibj.SerialPort;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.HardwareInputs;
+import frc.robot.LoopProfiler;
+import frc.robot.OdometryThread;
+import frc.robot.RotationTable;
 import frc.robot.SwerveModule;
+import frc.robot.SwerveModuleIO;
+import frc.robot.SwerveSetpointGenerator;
 import frc.robot.Constants.DriveConstants;
 import frc.robot.commands.RotateToAngle;
+import frc.robot.logging.BinaryLog;
 
 import static frc.robot.Constants.DriveConstants.*;
 
-public class SwerveDrive extends SubsystemBase {
+public class SwerveDrive extends SubsystemBase implements AutoCloseable {
+
+  /**
+   * Gyro readings, read once at the start of each cycle.
+   */
+  public static class Inputs {
+    public double angle;
+    public double yaw;
+  }
+
+  private final Inputs inputs = new Inputs();
+
+  private final int gyroAngleChannel = BinaryLog.channel("Drive/Gyro/Angle");
+  private final int gyroYawChannel = BinaryLog.channel("Drive/Gyro/Yaw");
+  private final int poseXChannel = BinaryLog.channel("Drive/Pose/X");
+  private final int poseYChannel = BinaryLog.channel("Drive/Pose/Y");
+  private final int poseHeadingChannel = BinaryLog.channel("Drive/Pose/Heading");
+  private final LoopProfiler.Section periodicSection = LoopProfiler.section("SwerveDrive.periodic()");
 
   private SwerveModule frontLeft;
   private SwerveModule frontRight;
   private SwerveModule backLeft;
   private SwerveModule backRight;
 
-  private AHRS gyro;
+  private GyroIO gyro;
+
+  private OdometryThread odometryThread;
+  private Thread gyroZeroThread;
 
-  private SwerveDriveOdometry swerveOdometry;
+  private SwerveSetpointGenerator setpointGenerator;
+  private boolean useSetpointGenerator;
+  private double lastSetpointTime = Double.NaN;
   
   private SwerveModulePosition[] positions;
   private SwerveModuleState[] states;
+  private SwerveModuleState[] desiredStates;
 
   private ChassisSpeeds chassisSpeeds;
+
+  // Measured from the wheels every loop, robot relative and field relative
+  private final double moduleRadiusSquared;
+  private double measuredVx;
+  private double measuredVy;
+  private double measuredOmega;
+  private double fieldVx;
+  private double fieldVy;
+
   private Supplier<Pose2d> poseSupplier;
   private Consumer<Pose2d> resetPoseConsumer;
   private Consumer<ChassisSpeeds> robotRelativeOutput;
   private Supplier<ChassisSpeeds> chassisSpeedSupplier;
   private BooleanSupplier shouldFlipSupplier;
   private Field2d field;
-  private double lastAngle;
 
   private SlewRateLimiter xLimiter = new SlewRateLimiter(3);
   private SlewRateLimiter yLimiter = new SlewRateLimiter(3);
@@ -67,53 +105,92 @@ public class SwerveDrive extends SubsystemBase {
   public boolean ninetyLock;
   public boolean zeroLock;
 
-  /** Creates a new SwerveDrive. */
-  public SwerveDrive() {
+  /**
+   * @param gyro The gyro
+   * @param frontLeftIO Front left module's motors and encoders
+   * @param frontRightIO Front right module's motors and encoders
+   * @param backLeftIO Back left module's motors and encoders
+   * @param backRightIO Back right module's motors and encoders
+   */
+  public SwerveDrive(GyroIO gyro, SwerveModuleIO frontLeftIO, SwerveModuleIO frontRightIO, SwerveModuleIO backLeftIO, SwerveModuleIO backRightIO) {
+    this(gyro, frontLeftIO, frontRightIO, backLeftIO, backRightIO, GYRO_ZERO_DELAY);
+  }
+
+  /**
+   * @param gyro The gyro
+   * @param frontLeftIO Front left module's motors and encoders
+   * @param frontRightIO Front right module's motors and encoders
+   * @param backLeftIO Back left module's motors and encoders
+   * @param backRightIO Back right module's motors and encoders
+   * @param gyroZeroDelay Seconds to wait before zeroing the gyro, 0 zeros it right away
+   */
+  public SwerveDrive(GyroIO gyro, SwerveModuleIO frontLeftIO, SwerveModuleIO frontRightIO, SwerveModuleIO backLeftIO, SwerveModuleIO backRightIO, double gyroZeroDelay) {
 
     frontLeft = new SwerveModule(
+      frontLeftIO,
       DriveConstants.FRONT_LEFT[0],
       DriveConstants.FRONT_LEFT[1],
-      DriveConstants.FL_ENCODER_PORT,
-      false, false,
       DriveConstants.FRONT_LEFT_OFFSET,
       DriveConstants.FL_PID_VALUES);
 
     frontRight = new SwerveModule(
+      frontRightIO,
       DriveConstants.FRONT_RIGHT[0], 
       DriveConstants.FRONT_RIGHT[1],
-      DriveConstants.FR_ENCODER_PORT,
-      false, true,
       DriveConstants.FRONT_RIGHT_OFFSET,
       DriveConstants.FR_PID_VALUES);
    
     backLeft = new SwerveModule(
+      backLeftIO,
       DriveConstants.BACK_LEFT[0],
       DriveConstants.BACK_LEFT[1],
-      DriveConstants.BL_ENCODER_PORT,
-      false, false,
       DriveConstants.BACK_LEFT_OFFSET,
       DriveConstants.BL_PID_VALUES);  
       
     backRight = new SwerveModule(
+      backRightIO,
       DriveConstants.BACK_RIGHT[0],
       DriveConstants.BACK_RIGHT[1],
-      DriveConstants.BR_ENCODER_PORT,
-      false, true,
       DriveConstants.BACK_RIGHT_OFFSET,
       DriveConstants.BR_PID_VALUES);
 
-    gyro = new AHRS(SerialPort.Port.kUSB);
+    this.gyro = gyro;
+
+    // Preallocated buffers that get refreshed in place every loop instead of rebuilt
+    positions = new SwerveModulePosition[] {
+      new SwerveModulePosition(),
+      new SwerveModulePosition(),
+      new SwerveModulePosition(),
+      new SwerveModulePosition()
+    };
 
     states = new SwerveModuleState[] {
-      frontLeft.getState(),
-      frontRight.getState(),
-      backLeft.getState(),
-      backRight.getState()
+      new SwerveModuleState(),
+      new SwerveModuleState(),
+      new SwerveModuleState(),
+      new SwerveModuleState()
+    };
+
+    desiredStates = new SwerveModuleState[] {
+      new SwerveModuleState(),
+      new SwerveModuleState(),
+      new SwerveModuleState(),
+      new SwerveModuleState()
     };
 
-    swerveOdometry = new SwerveDriveOdometry(KINEMATICS, new Rotation2d(gyro.getAngle()), getModulePositions());
+    odometryThread = new OdometryThread(KINEMATICS, gyro, ODOMETRY_FREQUENCY, POSE_HISTORY_SECONDS, frontLeft, frontRight, backLeft, backRight);
+    odometryThread.start();
     chassisSpeeds = new ChassisSpeeds();
 
+    double radiusSquared = 0;
+    for (Translation2d location : MODULE_LOCATIONS) {
+      radiusSquared += location.getX() * location.getX() + location.getY() * location.getY();
+    }
+    moduleRadiusSquared = radiusSquared;
+
+    setpointGenerator = new SwerveSetpointGenerator(MODULE_LOCATIONS, MAX_MODULE_ACCELERATION, MAX_STEER_VELOCITY, STEER_LIMIT_MIN_SPEED);
+    useSetpointGenerator = SETPOINT_GENERATOR;
+
     poseSupplier = () -> getPose();
     resetPoseConsumer = pose -> resetOdometry(pose);
     robotRelativeOutput = inputSpeed -> drive(inputSpeed, SLOWER_DRIVE_SPEED);
@@ -128,12 +205,18 @@ public class SwerveDrive extends SubsystemBase {
     field = new Field2d();
 
     // Magic that zeros the gyro upon startup.
-    new Thread(() -> {
-      try {
-        Thread.sleep(1000);
-        zeroHeading();
-      } catch (Exception e) {}
-    }).start();
+    if (gyroZeroDelay > 0) {
+      gyroZeroThread = new Thread(() -> {
+        try {
+          Thread.sleep((long) (gyroZeroDelay * 1000));
+          zeroHeading();
+        } catch (Exception e) {}
+      });
+      gyroZeroThread.setDaemon(true);
+      gyroZeroThread.start();
+    } else {
+      zeroHeading();
+    }
     
     configureAutoBuilder();
   } 
@@ -149,17 +232,70 @@ public class SwerveDrive extends SubsystemBase {
   }
 
   /**
-   * Returns an AHRS object representing the gyro.
+   * @return The gyro's IO layer.
    */
-  public AHRS getGyro() {
+  public GyroIO getGyro() {
     return gyro;
   }
 
+  /**
+   * Read the gyro once for this cycle.
+   */
+  public void updateInputs() {
+    gyro.updateInputs(inputs);
+
+    BinaryLog.log(gyroAngleChannel, inputs.angle);
+    BinaryLog.log(gyroYawChannel, inputs.yaw);
+  }
+
+  /**
+   * @return This cycle's gyro snapshot.
+   */
+  public Inputs getInputs() {
+    return inputs;
+  }
+
+  /**
+   * @return Continuous gyro angle in degrees, clockwise positive.
+   */
+  public double getGyroAngle() {
+    HardwareInputs.countCachedRead();
+    return inputs.angle;
+  }
+
+  /**
+   * @return Gyro yaw in degrees from -180 to 180, clockwise positive.
+   */
+  public double getGyroYaw() {
+    HardwareInputs.countCachedRead();
+    return inputs.yaw;
+  }
+
+  /**
+   * Same as AHRS.getRotation2d() but from the snapshot, counter-clockwise positive.
+   * @return A Rotation2d object representing the gyro angle.
+   */
+  public Rotation2d getGyroRotation2d() {
+    return Rotation2d.fromDegrees(-getGyroAngle());
+  }
+
   /**
    * @return heading of the robot based upon the gyro.
    */
   public double getHeading() {
-    return Math.IEEEremainder(gyro.getAngle(), 360);
+    return Math.IEEEremainder(getGyroAngle(), 360);
+  }
+
+  /**
+   * Stop the odometry thread and the pending gyro zero. Only needed when a drivetrain is thrown away
+   * before the robot program ends, like in the tests.
+   */
+  @Override
+  public void close() {
+    odometryThread.close();
+    if (gyroZeroThread != null) {
+      gyroZeroThread.interrupt();
+    }
   }
 
   /**
@@ -170,17 +306,37 @@ public class SwerveDrive extends SubsystemBase {
   }
 
   /**
-   * @return A Rotation2d object representing the robot's heading from radians.
+   * @return A Rotation2d object representing the robot's heading, counter-clockwise positive like the pose.
    */
   public Rotation2d getRotation2d() {
-    return Rotation2d.fromRadians(getHeading() * (Math.PI / 180));
+    // Looked up rather than built, so it never allocates
+    return RotationTable.fromDegrees(-getHeading());
   }
 
   /**
    * @return A Pose2d object representing the position of the robot on the field.
    */
   public Pose2d getPose() {
-    return swerveOdometry.getPoseMeters();
+    // The odometry thread swaps its latest pose in after every sample, so this never locks or allocates
+    return odometryThread.getPose();
+  }
+
+  /**
+   * Looks back through the pose history, used to line up delayed measurements with where the robot was.
+   * @param timestamp FPGA timestamp in seconds.
+   * @return A Pose2d object representing the interpolated position of the robot at that time.
+   */
+  public Pose2d getPoseAt(double timestamp) {
+    return odometryThread.getPoseAt(timestamp);
+  }
+
+  /**
+   * Fuse accepted vision frames into the pose estimate.
+   * @param frames Frames with their standard deviations filled in.
+   * @param count How many of the frames to use.
+   */
+  public void addVisionMeasurements(VisionIO.Frame[] frames, int count) {
+    odometryThread.addVisionMeasurements(frames, count);
   }
 
   /**
@@ -188,7 +344,7 @@ public class SwerveDrive extends SubsystemBase {
    * @param pose
    */
   public void resetOdometry(Pose2d pose) {
-    swerveOdometry.resetPosition(getRotation2d(), getModulePositions(), pose);
+    odometryThread.resetPosition(pose);
   }
 
   /**
@@ -204,26 +360,79 @@ public class SwerveDrive extends SubsystemBase {
   }
 
   /**
+   * Drive at robot relative speeds, through the setpoint generator when it's on so every wheel can follow.
+   * @param speeds Robot relative chassis speeds
+   * @param maxDriveSpeed the highest velocity any wheel is allowed to go.
+   */
+  public void setChassisSpeeds(ChassisSpeeds speeds, double maxDriveSpeed) {
+    if (!useSetpointGenerator) {
+      setModuleStates(toModuleStates(speeds), maxDriveSpeed);
+      return;
+    }
+
+    double now = Timer.getFPGATimestamp();
+    double dt = now - lastSetpointTime;
+    // Anything longer than a couple of loops means something else was driving the modules, start from what they're doing
+    if (Double.isNaN(lastSetpointTime) || dt > 2.5 * TimedRobot.kDefaultPeriod) {
+      SwerveModuleState[] measured = getModuleStates();
+      setpointGenerator.reset(KINEMATICS.toChassisSpeeds(measured), measured);
+      dt = TimedRobot.kDefaultPeriod;
+    }
+    lastSetpointTime = now;
+
+    setModuleStates(setpointGenerator.calculate(speeds, maxDriveSpeed, Math.max(dt, TimedRobot.kDefaultPeriod)), maxDriveSpeed);
+  }
+
+  /**
+   * Same as KINEMATICS.toSwerveModuleStates() but into the preallocated targets, so driving doesn't
+   * allocate. A wheel asked for no speed gets no steering either, see SwerveModule.setDesiredState().
+   */
+  private SwerveModuleState[] toModuleStates(ChassisSpeeds speeds) {
+    for (int i = 0; i < desiredStates.length; i++) {
+      double vx = speeds.vxMetersPerSecond - speeds.omegaRadiansPerSecond * MODULE_LOCATIONS[i].getY();
+      double vy = speeds.vyMetersPerSecond + speeds.omegaRadiansPerSecond * MODULE_LOCATIONS[i].getX();
+      desiredStates[i].speedMetersPerSecond = Math.hypot(vx, vy);
+      desiredStates[i].angle = RotationTable.fromRadians(Math.atan2(vy, vx));
+    }
+    return desiredStates;
+  }
+
+  /**
+   * Turn the setpoint generator on or off. When off, requests go straight to the wheels.
+   */
+  public void setSetpointGeneratorEnabled(boolean enabled) {
+    useSetpointGenerator = enabled;
+    lastSetpointTime = Double.NaN;
+  }
+
+  /**
+   * @return True when requests go through the setpoint generator.
+   */
+  public boolean isSetpointGeneratorEnabled() {
+    return useSetpointGenerator;
+  }
+
+  /**
+   * Refreshes the shared position buffer in place. The returned array is reused every call, so copy it if you need to keep it.
    * @return An array of SwerveModulePosition objects containing the current drive and rotate motor positions for their respective modules.
    */
   public SwerveModulePosition[] getModulePositions() {
-    SwerveModulePosition[] positions = {new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition()};
-    positions[0] = new SwerveModulePosition(frontLeft.getDrivePosition(), new Rotation2d(frontLeft.getRotatePosition()));
-    positions[1] = new SwerveModulePosition(frontRight.getDrivePosition(), new Rotation2d(frontRight.getRotatePosition()));
-    positions[2] = new SwerveModulePosition(backLeft.getDrivePosition(), new Rotation2d(backLeft.getRotatePosition()));
-    positions[3] = new SwerveModulePosition(backRight.getDrivePosition(), new Rotation2d(backRight.getRotatePosition()));
+    frontLeft.updatePosition(positions[0]);
+    frontRight.updatePosition(positions[1]);
+    backLeft.updatePosition(positions[2]);
+    backRight.updatePosition(positions[3]);
     return positions;
   }
 
   /**
+   * Refreshes the shared state buffer in place. The returned array is reused every call, so copy it if you need to keep it.
    * @return An array of SwerveModuleState objects containing the current drive and rotate motor velocities for their respective modules.
    */
   public SwerveModuleState[] getModuleStates() {
-    SwerveModuleState[] states = {new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState()};
-    states[0] = new SwerveModuleState(frontLeft.getDriveVelocity(), new Rotation2d(frontLeft.getRotatePosition()));
-    states[1] = new SwerveModuleState(frontRight.getDriveVelocity(), new Rotation2d(frontRight.getRotatePosition()));
-    states[2] = new SwerveModuleState(backLeft.getDriveVelocity(), new Rotation2d(backLeft.getRotatePosition()));
-    states[3] = new SwerveModuleState(backRight.getDriveVelocity(), new Rotation2d(backRight.getRotatePosition()));
+    frontLeft.updateState(states[0]);
+    frontRight.updateState(states[1]);
+    backLeft.updateState(states[2]);
+    backRight.updateState(states[3]);
     return states;
   }
 
@@ -319,16 +528,75 @@ public class SwerveDrive extends SubsystemBase {
   }
    
   /**
-   * Drive each motor at a set speed without going over the set maximum.
+   * @return How fast the robot is moving along the field's x axis in meters/second, measured from the wheels.
+   */
+  public double getFieldVelocityX() {
+    return fieldVx;
+  }
+
+  /**
+   * @return How fast the robot is moving along the field's y axis in meters/second, measured from the wheels.
+   */
+  public double getFieldVelocityY() {
+    return fieldVy;
+  }
+
+  /**
+   * @return How fast the robot is turning in radians/second, measured from the wheels.
+   */
+  public double getMeasuredOmega() {
+    return measuredOmega;
+  }
+
+  /**
+   * Work out how fast the robot is actually moving from this cycle's wheel speeds and angles. This is
+   * the kinematics' least squares fit done by hand so it doesn't allocate. With the modules centered
+   * on the robot it comes down to the average wheel velocity and the average spin about the center.
+   */
+  private void updateMeasuredSpeeds(Pose2d pose) {
+    SwerveModuleState[] measured = getModuleStates();
+    double vx = 0;
+    double vy = 0;
+    double spin = 0;
+    for (int i = 0; i < measured.length; i++) {
+      double speed = measured[i].speedMetersPerSecond;
+      double x = speed * measured[i].angle.getCos();
+      double y = speed * measured[i].angle.getSin();
+      vx += x;
+      vy += y;
+      spin += MODULE_LOCATIONS[i].getX() * y - MODULE_LOCATIONS[i].getY() * x;
+    }
+    measuredVx = vx / measured.length;
+    measuredVy = vy / measured.length;
+    measuredOmega = spin / moduleRadiusSquared;
+
+    Rotation2d heading = pose.getRotation();
+    fieldVx = measuredVx * heading.getCos() - measuredVy * heading.getSin();
+    fieldVy = measuredVx * heading.getSin() + measuredVy * heading.getCos();
+  }
+
+  /**
+   * Drive each motor at a set speed without going over the set maximum. Autos and shoot on the move
+   * drive through here, the joystick drives the modules' frame directly, which is this one flipped.
    * @param speeds to input into the motors.
    * @param maxDriveSpeed the highest velocity the robot is allowed to drive during function.
    */
   public void drive(ChassisSpeeds speeds, double maxDriveSpeed) {
-    chassisSpeeds = new ChassisSpeeds(-speeds.vxMetersPerSecond, -speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond);
-    chassisSpeeds = ChassisSpeeds.discretize(chassisSpeeds, 0.02);
-    
-    SwerveModuleState moduleStates[] = KINEMATICS.toSwerveModuleStates(chassisSpeeds);
-    setModuleStates(moduleStates, maxDriveSpeed);
+    // ChassisSpeeds.discretize by hand into the same object, so driving doesn't allocate every loop
+    double dt = 0.02;
+    double x = -speeds.vxMetersPerSecond * dt;
+    double y = -speeds.vyMetersPerSecond * dt;
+    double dtheta = speeds.omegaRadiansPerSecond * dt;
+    double halfDtheta = dtheta / 2;
+    double cosMinusOne = Math.cos(dtheta) - 1;
+    double halfThetaByTanOfHalfDtheta = Math.abs(cosMinusOne) < 1e-9
+      ? 1 - dtheta * dtheta / 12
+      : -halfDtheta * Math.sin(dtheta) / cosMinusOne;
+    chassisSpeeds.vxMetersPerSecond = (x * halfThetaByTanOfHalfDtheta + y * halfDtheta) / dt;
+    chassisSpeeds.vyMetersPerSecond = (y * halfThetaByTanOfHalfDtheta - x * halfDtheta) / dt;
+    chassisSpeeds.omegaRadiansPerSecond = speeds.omegaRadiansPerSecond;
+
+    setChassisSpeeds(chassisSpeeds, maxDriveSpeed);
   }
 
   /**
@@ -342,6 +610,110 @@ public class SwerveDrive extends SubsystemBase {
     return false;
   }
 
+  /**
+   * Pick where every module's steering loop runs.
+   */
+  public void setSteerMode(SwerveModule.SteerMode mode) {
+    frontLeft.setSteerMode(mode);
+    frontRight.setSteerMode(mode);
+    backLeft.setSteerMode(mode);
+    backRight.setSteerMode(mode);
+  }
+
+  /**
+   * @return Where the steering loops are running.
+   */
+  public SwerveModule.SteerMode getSteerMode() {
+    return frontLeft.getSteerMode();
+  }
+
+  /**
+   * Switch every module between the velocity loop and open loop percent for driving.
+   */
+  public void setDriveClosedLoop(boolean closedLoop) {
+    frontLeft.setDriveClosedLoop(closedLoop);
+    frontRight.setDriveClosedLoop(closedLoop);
+    backLeft.setDriveClosedLoop(closedLoop);
+    backRight.setDriveClosedLoop(closedLoop);
+  }
+
+  /**
+   * @return True when the drive motors hold speed with the velocity loop.
+   */
+  public boolean isDriveClosedLoop() {
+    return frontLeft.isDriveClosedLoop();
+  }
+
+  /**
+   * Give every module new drive feedforward gains until the robot restarts.
+   */
+  public void setDriveFeedforward(double kS, double kV, double kA) {
+    frontLeft.setDriveFeedforward(kS, kV, kA);
+    frontRight.setDriveFeedforward(kS, kV, kA);
+    backLeft.setDriveFeedforward(kS, kV, kA);
+    backRight.setDriveFeedforward(kS, kV, kA);
+  }
+
+  /**
+   * Point every wheel forward and put the same voltage on every drive motor.
+   */
+  public void runCharacterization(double volts) {
+    frontLeft.runCharacterization(volts);
+    frontRight.runCharacterization(volts);
+    backLeft.runCharacterization(volts);
+    backRight.runCharacterization(volts);
+  }
+
+  /**
+   * @return Average drive velocity of the four modules in meters/second, from this cycle's snapshot.
+   */
+  public double getAverageDriveVelocity() {
+    return (frontLeft.getDriveVelocity() + frontRight.getDriveVelocity() + backLeft.getDriveVelocity() + backRight.getDriveVelocity()) / 4;
+  }
+
+  /**
+   * @return Total current of the four drive motors in amps, from this cycle's snapshot.
+   */
+  public double getDriveCurrent() {
+    return frontLeft.getDriveCurrent() + frontRight.getDriveCurrent() + backLeft.getDriveCurrent() + backRight.getDriveCurrent();
+  }
+
+  /**
+   * @return Total current of the four rotate motors in amps, from this cycle's snapshot.
+   */
+  public double getRotateCurrent() {
+    return frontLeft.getRotateCurrent() + frontRight.getRotateCurrent() + backLeft.getRotateCurrent() + backRight.getRotateCurrent();
+  }
+
+  /**
+   * @param amps Smart current limit for every drive motor
+   */
+  public void setDriveCurrentLimit(int amps) {
+    frontLeft.setDriveCurrentLimit(amps);
+    frontRight.setDriveCurrentLimit(amps);
+    backLeft.setDriveCurrentLimit(amps);
+    backRight.setDriveCurrentLimit(amps);
+  }
+
+  /**
+   * @param amps Smart current limit for every rotate motor
+   */
+  public void setRotateCurrentLimit(int amps) {
+    frontLeft.setRotateCurrentLimit(amps);
+    frontRight.setRotateCurrentLimit(amps);
+    backLeft.setRotateCurrentLimit(amps);
+    backRight.setRotateCurrentLimit(amps);
+  }
+
+  /**
+   * @return Average time in milliseconds the wheels took to reach a new angle in that mode.
+   */
+  public double getAverageSettleTime(SwerveModule.SteerMode mode) {
+    double total = frontLeft.getAverageSettleTime(mode) + frontRight.getAverageSettleTime(mode)
+      + backLeft.getAverageSettleTime(mode) + backRight.getAverageSettleTime(mode);
+    return total / 4 * 1000;
+  }
+
   /**
    * Set all motors to brake mode.
    */
@@ -391,11 +763,36 @@ public class SwerveDrive extends SubsystemBase {
     sendableBuilder.addBooleanProperty("Field Oriented", () -> fieldOriented, null);
     sendableBuilder.addBooleanProperty("Slow mode", () -> getSlowMode(), null);
     sendableBuilder.addDoubleProperty("Heading", () -> getHeading(), null);
+    sendableBuilder.addDoubleProperty("Odometry Hz", () -> odometryThread.getFrequency(), null);
+    sendableBuilder.addDoubleProperty("Odometry Samples", () -> odometryThread.getSampleCount(), null);
+    sendableBuilder.addDoubleProperty("Odometry Missed Samples", () -> odometryThread.getMissedSamples(), null);
+    sendableBuilder.addBooleanProperty("Onboard Steering",
+      () -> getSteerMode() == SwerveModule.SteerMode.ONBOARD,
+      onboard -> setSteerMode(onboard ? SwerveModule.SteerMode.ONBOARD : SwerveModule.SteerMode.RIO));
+    sendableBuilder.addBooleanProperty("Closed Loop Drive", () -> isDriveClosedLoop(), closedLoop -> setDriveClosedLoop(closedLoop));
+    sendableBuilder.addBooleanProperty("Setpoint Generator", () -> isSetpointGeneratorEnabled(), enabled -> setSetpointGeneratorEnabled(enabled));
+    sendableBuilder.addDoubleProperty("Steer Settle RIO ms", () -> getAverageSettleTime(SwerveModule.SteerMode.RIO), null);
+    sendableBuilder.addDoubleProperty("Steer Settle Onboard ms", () -> getAverageSettleTime(SwerveModule.SteerMode.ONBOARD), null);
     putOffsets(sendableBuilder);
    }  
 
   @Override
   public void periodic() {
-    swerveOdometry.update(getRotation2d(), getModulePositions());
+    // Odometry is integrated on its own thread, see OdometryThread
+    periodicSection.start();
+    updateInputs();
+    // The drivetrain is registered before its modules, so their periodic hasn't run yet this cycle.
+    // Read them here so the measured speeds aren't a loop old, their own periodic then skips the read.
+    frontLeft.updateInputs();
+    frontRight.updateInputs();
+    backLeft.updateInputs();
+    backRight.updateInputs();
+
+    Pose2d pose = getPose();
+    updateMeasuredSpeeds(pose);
+    BinaryLog.log(poseXChannel, pose.getX());
+    BinaryLog.log(poseYChannel, pose.getY());
+    BinaryLog.log(poseHeadingChannel, pose.getRotation().getRadians());
+    periodicSection.stop();
   }
 }
\ No newline at end of file
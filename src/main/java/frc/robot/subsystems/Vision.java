@@ -0,0 +1,158 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static frc.robot.Constants.LimelightConstants.*;
+
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.LoopProfiler;
+import frc.robot.logging.BinaryLog;
+
+public class Vision extends SubsystemBase {
+
+  private final SwerveDrive swerve;
+  private final VisionIO[] cameras;
+
+  // Scratch space for one camera's frames and the batch of accepted frames across all cameras
+  private final VisionIO.Frame[] cameraFrames;
+  private final VisionIO.Frame[] accepted;
+  private int acceptedCount;
+
+  private final int timestampChannel = BinaryLog.channel("Vision/Timestamp");
+  private final int xChannel = BinaryLog.channel("Vision/X");
+  private final int yChannel = BinaryLog.channel("Vision/Y");
+  private final int headingChannel = BinaryLog.channel("Vision/Heading");
+  private final int xyStdDevChannel = BinaryLog.channel("Vision/XYStdDev");
+  private final int thetaStdDevChannel = BinaryLog.channel("Vision/ThetaStdDev");
+  private final LoopProfiler.Section periodicSection = LoopProfiler.section("Vision.periodic()");
+
+  private final long[] acceptedPerCamera;
+  private final long[] rejectedPerCamera;
+  private final double[] lastLatency;
+
+  /** Creates a new Vision. */
+  public Vision(SwerveDrive swerve, VisionIO... cameras) {
+    this.swerve = swerve;
+    this.cameras = cameras;
+
+    cameraFrames = new VisionIO.Frame[FRAMES_PER_LOOP];
+    accepted = new VisionIO.Frame[FRAMES_PER_LOOP * cameras.length];
+    for (int i = 0; i < cameraFrames.length; i++) {
+      cameraFrames[i] = new VisionIO.Frame();
+    }
+    for (int i = 0; i < accepted.length; i++) {
+      accepted[i] = new VisionIO.Frame();
+    }
+
+    acceptedPerCamera = new long[cameras.length];
+    rejectedPerCamera = new long[cameras.length];
+    lastLatency = new double[cameras.length];
+  }
+
+  /**
+   * Checks a frame against the tag count, ambiguity, distance and field bounds, and fills in
+   * how much to trust it when it passes.
+   * @return True when the frame should be fused.
+   */
+  private boolean accept(VisionIO.Frame frame) {
+    if (frame.tagCount < MIN_TAG_COUNT) {
+      return false;
+    }
+
+    boolean singleTag = frame.tagCount == 1;
+    if (singleTag && (frame.ambiguity > MAX_SINGLE_TAG_AMBIGUITY || frame.averageTagDistance > MAX_SINGLE_TAG_DISTANCE)) {
+      return false;
+    }
+    if (frame.averageTagDistance > MAX_MULTI_TAG_DISTANCE) {
+      return false;
+    }
+    if (frame.x < 0 || frame.x > FIELD_LENGTH || frame.y < 0 || frame.y > FIELD_WIDTH) {
+      return false;
+    }
+    if (frame.timestamp > Timer.getFPGATimestamp()) {
+      return false;
+    }
+
+    double distanceSquared = frame.averageTagDistance * frame.averageTagDistance;
+    frame.xyStdDev = XY_STD_DEV_PER_METER_SQUARED * distanceSquared / frame.tagCount;
+    frame.thetaStdDev = singleTag ? SINGLE_TAG_THETA_STD_DEV : THETA_STD_DEV_PER_METER_SQUARED * distanceSquared / frame.tagCount;
+    return true;
+  }
+
+  /**
+   * Insert in timestamp order so the estimator rewinds as little as possible. The batch is tiny.
+   */
+  private void addToBatch(VisionIO.Frame frame) {
+    int index = acceptedCount++;
+    while (index > 0 && accepted[index - 1].timestamp > frame.timestamp) {
+      accepted[index].copyFrom(accepted[index - 1]);
+      index--;
+    }
+    accepted[index].copyFrom(frame);
+  }
+
+  @Override
+  public void periodic() {
+    periodicSection.start();
+    acceptedCount = 0;
+
+    for (int camera = 0; camera < cameras.length; camera++) {
+      int count = cameras[camera].readFrames(cameraFrames);
+      for (int i = 0; i < count; i++) {
+        VisionIO.Frame frame = cameraFrames[i];
+        lastLatency[camera] = frame.latency;
+
+        if (accept(frame)) {
+          addToBatch(frame);
+          acceptedPerCamera[camera]++;
+        } else {
+          rejectedPerCamera[camera]++;
+        }
+      }
+    }
+
+    swerve.addVisionMeasurements(accepted, acceptedCount);
+
+    for (int i = 0; i < acceptedCount; i++) {
+      VisionIO.Frame frame = accepted[i];
+      BinaryLog.log(timestampChannel, frame.timestamp);
+      BinaryLog.log(xChannel, frame.x);
+      BinaryLog.log(yChannel, frame.y);
+      BinaryLog.log(headingChannel, frame.heading);
+      BinaryLog.log(xyStdDevChannel, frame.xyStdDev);
+      BinaryLog.log(thetaStdDevChannel, frame.thetaStdDev);
+    }
+    periodicSection.stop();
+  }
+
+  /**
+   * @param camera Index of the camera, in the order they were passed in
+   * @return How many of its frames have passed the checks and been fused.
+   */
+  public long getAcceptedCount(int camera) {
+    return acceptedPerCamera[camera];
+  }
+
+  /**
+   * @param camera Index of the camera, in the order they were passed in
+   * @return How many of its frames have been thrown out.
+   */
+  public long getRejectedCount(int camera) {
+    return rejectedPerCamera[camera];
+  }
+
+  @Override
+  public void initSendable(SendableBuilder sendableBuilder) {
+    for (int i = 0; i < cameras.length; i++) {
+      int camera = i;
+      String name = cameras[i].getName();
+      sendableBuilder.addDoubleProperty(name + " Accepted", () -> acceptedPerCamera[camera], null);
+      sendableBuilder.addDoubleProperty(name + " Rejected", () -> rejectedPerCamera[camera], null);
+      sendableBuilder.addDoubleProperty(name + " Latency", () -> lastLatency[camera], null);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+/**
+ * A source of robot pose estimates from one camera. The real robot reads a Limelight over
+ * NetworkTables, testing and simulation can replay a recorded feed instead.
+ */
+public interface VisionIO {
+
+  /**
+   * One botpose estimate from a camera. Instances are preallocated and refilled every loop.
+   */
+  public static class Frame {
+    /** FPGA timestamp in seconds of when the image was captured (latency already removed). */
+    public double timestamp;
+    /** Field relative pose on the blue origin, in meters and radians. */
+    public double x;
+    public double y;
+    public double heading;
+    /** Pipeline plus capture latency in milliseconds. */
+    public double latency;
+    public int tagCount;
+    /** Average distance from the camera to the tags in meters. */
+    public double averageTagDistance;
+    /** Pose ambiguity of the worst tag, from 0 to 1. Zero when the camera doesn't report it. */
+    public double ambiguity;
+
+    /** Standard deviations filled in once the frame is accepted. */
+    public double xyStdDev;
+    public double thetaStdDev;
+
+    public void copyFrom(Frame other) {
+      timestamp = other.timestamp;
+      x = other.x;
+      y = other.y;
+      heading = other.heading;
+      latency = other.latency;
+      tagCount = other.tagCount;
+      averageTagDistance = other.averageTagDistance;
+      ambiguity = other.ambiguity;
+      xyStdDev = other.xyStdDev;
+      thetaStdDev = other.thetaStdDev;
+    }
+  }
+
+  /**
+   * @return Name of the camera, used for dashboard keys.
+   */
+  public String getName();
+
+  /**
+   * Copy every frame received since the last call into the given buffers.
+   * @param frames Preallocated frames to overwrite
+   * @return How many frames were filled.
+   */
+  public int readFrames(Frame[] frames);
+}
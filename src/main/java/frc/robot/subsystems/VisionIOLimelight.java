@@ -0,0 +1,79 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+
+/**
+ * Reads botpose_wpiblue from a Limelight over NetworkTables.
+ */
+public class VisionIOLimelight implements VisionIO {
+
+  // Layout of the botpose array published by the Limelight
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int YAW = 5;
+  private static final int LATENCY = 6;
+  private static final int TAG_COUNT = 7;
+  private static final int AVERAGE_DISTANCE = 9;
+  private static final int HEADER_LENGTH = 11;
+  private static final int VALUES_PER_TAG = 7;
+  private static final int TAG_AMBIGUITY = 6;
+
+  private final String name;
+  private final DoubleArraySubscriber botpose;
+
+  /**
+   * @param name The Limelight's hostname, e.g. limelight-shooter
+   * @param queueDepth How many frames to keep between loops
+   */
+  public VisionIOLimelight(String name, int queueDepth) {
+    this.name = name;
+    botpose = NetworkTableInstance.getDefault()
+      .getTable(name)
+      .getDoubleArrayTopic("botpose_wpiblue")
+      .subscribe(new double[0], PubSubOption.pollStorage(queueDepth), PubSubOption.keepDuplicates(true));
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public int readFrames(Frame[] frames) {
+    TimestampedDoubleArray[] queue = botpose.readQueue();
+    int count = 0;
+
+    // Only keep the newest frames if more came in than there is room for
+    for (int i = Math.max(0, queue.length - frames.length); i < queue.length; i++) {
+      double[] values = queue[i].value;
+      if (values.length < HEADER_LENGTH || values[TAG_COUNT] < 1) {
+        continue;
+      }
+
+      Frame frame = frames[count++];
+      frame.latency = values[LATENCY];
+      frame.timestamp = queue[i].timestamp / 1e6 - frame.latency / 1000.0;
+      frame.x = values[X];
+      frame.y = values[Y];
+      frame.heading = Math.toRadians(values[YAW]);
+      frame.tagCount = (int) values[TAG_COUNT];
+      frame.averageTagDistance = values[AVERAGE_DISTANCE];
+
+      frame.ambiguity = 0;
+      for (int tag = 0; tag < frame.tagCount; tag++) {
+        int index = HEADER_LENGTH + tag * VALUES_PER_TAG + TAG_AMBIGUITY;
+        if (index < values.length) {
+          frame.ambiguity = Math.max(frame.ambiguity, values[index]);
+        }
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,106 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Stand-in camera that plays back a recorded feed from a CSV file so the vision pipeline can be
+ * tested without a Limelight. Each line is
+ * {@code time_seconds,x,y,yaw_degrees,latency_ms,tag_count,average_tag_distance,ambiguity},
+ * lines starting with # are skipped. Times are relative to when playback starts.
+ */
+public class VisionIOReplay implements VisionIO {
+
+  private final String name;
+  private final boolean loop;
+
+  private double[] times = new double[0];
+  private double[][] rows = new double[0][];
+
+  private double startTime = Double.NaN;
+  private int nextIndex;
+
+  /**
+   * @param name Camera name to report
+   * @param file CSV file to play back
+   * @param loop Whether to start over once the end of the file is reached
+   */
+  public VisionIOReplay(String name, File file, boolean loop) {
+    this.name = name;
+    this.loop = loop;
+
+    List<double[]> parsed = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] fields = line.split(",");
+        double[] row = new double[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+          row[i] = Double.parseDouble(fields[i].trim());
+        }
+        parsed.add(row);
+      }
+    } catch (IOException | NumberFormatException e) {
+      DriverStation.reportWarning("Could not load vision replay " + file + ": " + e.getMessage(), false);
+      return;
+    }
+
+    rows = parsed.toArray(new double[0][]);
+    times = new double[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      times[i] = rows[i][0];
+    }
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public int readFrames(Frame[] frames) {
+    if (rows.length == 0) {
+      return 0;
+    }
+
+    double now = Timer.getFPGATimestamp();
+    if (Double.isNaN(startTime)) {
+      startTime = now;
+    }
+
+    if (nextIndex >= rows.length && loop) {
+      startTime = now;
+      nextIndex = 0;
+    }
+
+    int count = 0;
+    while (nextIndex < rows.length && count < frames.length && startTime + times[nextIndex] <= now) {
+      double[] row = rows[nextIndex++];
+      Frame frame = frames[count++];
+      frame.latency = row[4];
+      frame.timestamp = startTime + row[0] - frame.latency / 1000.0;
+      frame.x = row[1];
+      frame.y = row[2];
+      frame.heading = Math.toRadians(row[3]);
+      frame.tagCount = (int) row[5];
+      frame.averageTagDistance = row[6];
+      frame.ambiguity = row.length > 7 ? row[7] : 0;
+    }
+    return count;
+  }
+}
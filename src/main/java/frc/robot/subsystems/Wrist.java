@@ -4,62 +4,235 @@
 
 package frc.robot.subsystems;
 
+import static frc.robot.Constants.IntakeConstants.*;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.ArmFeedforward;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.util.sendable.SendableBuilder;
-import edu.wpi.first.wpilibj.DutyCycleEncoder;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.HardwareInputs;
+import frc.robot.LoopProfiler;
+import frc.robot.logging.BinaryLog;
 
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.SparkPIDController;
-
-import static frc.robot.Constants.IntakeConstants.*;
-
-import com.revrobotics.CANSparkBase.ControlType;
-import com.revrobotics.CANSparkLowLevel;
-import com.revrobotics.CANSparkBase.IdleMode;
-import edu.wpi.first.wpilibj.DutyCycleEncoder;
 import edu.wpi.first.util.sendable.Sendable;
 
 public class Wrist extends SubsystemBase {
-  /** Creates a new Wrist. */
-  private final CANSparkMax wrist;
-  private final SparkPIDController wristController;
-  
-  private DutyCycleEncoder throughBore;
 
-  public Wrist() {
+  /**
+   * Every sensor value the wrist uses, read once at the start of each cycle.
+   */
+  public static class Inputs {
+    public double position;
+    public double current;
+  }
 
-    wrist = new CANSparkMax(WRIST_ID, CANSparkLowLevel.MotorType.kBrushless);
-    wrist.setSmartCurrentLimit(30);
+  private final Inputs inputs = new Inputs();
+  private final int positionChannel = BinaryLog.channel("Wrist/Position");
+  private final int currentChannel = BinaryLog.channel("Wrist/Current");
+  private final int goalChannel = BinaryLog.channel("Wrist/Goal");
+  private final int setpointChannel = BinaryLog.channel("Wrist/Setpoint");
+  private final int feedforwardChannel = BinaryLog.channel("Wrist/Feedforward");
+  private final LoopProfiler.Section periodicSection = LoopProfiler.section("Wrist.periodic()");
 
-    wristController = wrist.getPIDController();
-    wristController.setP(0.01);
-    wristController.setSmartMotionAllowedClosedLoopError(0.01, 0);
-    wrist.setIdleMode(IdleMode.kBrake);
+  private final WristIO io;
 
-    throughBore = new DutyCycleEncoder(2);
+  // Angles are radians up from level, positions are through bore rotations
+  private final TrapezoidProfile profile;
+  private final ArmFeedforward feedforward;
+  private final PIDController angleController;
+  private TrapezoidProfile.State setpoint = new TrapezoidProfile.State();
+  private final TrapezoidProfile.State goal = new TrapezoidProfile.State();
+
+  // Whether the profile is driving the wrist, false while it's run by percent
+  private boolean profiled;
+  private boolean smartMotion;
+  private double goalPosition = Double.NaN;
+
+  /**
+   * Creates a new Wrist.
+   * @param io The wrist motor and through bore encoder
+   */
+  public Wrist(WristIO io) {
+    this.io = io;
+
+    profile = new TrapezoidProfile(new TrapezoidProfile.Constraints(WRIST_MAX_VELOCITY, WRIST_MAX_ACCELERATION));
+    feedforward = new ArmFeedforward(WRIST_KS, WRIST_KG, WRIST_KV, WRIST_KA);
+    angleController = new PIDController(WRIST_P, 0, WRIST_D);
+    smartMotion = WRIST_SMART_MOTION;
   }
 
 
     public void rotateWrist(double speed){
-        wrist.set(speed);
+        profiled = false;
+        goalPosition = Double.NaN;
+        io.setPercent(speed);
       }
     
-    public void rotateWristToPosition(double position){
-    wristController.setReference(position, ControlType.kPosition);
+  /**
+   * Move the wrist along a motion profile with gravity compensation and hold it there. Can be
+   * called every loop with a moving goal, the profile carries on from where it is.
+   * @param position Goal through bore position in rotations, kept between the stow and floor positions
+   */
+  public void rotateWristToPosition(double position){
+    position = MathUtil.clamp(position, HIGH_WRIST_POS, LOW_WRIST_POS);
+    if (!profiled) {
+      // Start the profile from where the wrist actually is
+      setpoint = new TrapezoidProfile.State(getAngle(), 0);
+      angleController.reset();
+      io.seedAngle(getAngle());
+      profiled = true;
+    }
+    goalPosition = position;
+    goal.position = toAngle(position);
+    goal.velocity = 0;
+  }
+
+  /**
+   * Hold the wrist where it is.
+   */
+  public void holdPosition() {
+    rotateWristToPosition(getPosition());
+  }
+
+  /**
+   * @return Command that moves the wrist to a position and ends once it's there, still holding it afterwards.
+   */
+  public Command moveTo(double position) {
+    return runOnce(() -> rotateWristToPosition(position)).andThen(run(() -> {}).until(() -> atGoal()));
+  }
+
+  /**
+   * @return True once the profile has finished and the wrist is within {@link frc.robot.Constants.IntakeConstants#WRIST_GOAL_TOLERANCE} of the goal.
+   */
+  public boolean atGoal() {
+    return profiled
+      && Math.abs(setpoint.position - goal.position) < 1e-6 && Math.abs(setpoint.velocity) < 1e-6
+      && Math.abs(getPosition() - goalPosition) <= WRIST_GOAL_TOLERANCE;
+  }
+
+  /**
+   * @return Whether the profile is holding the wrist, false while it's run by percent.
+   */
+  public boolean isProfiled() {
+    return profiled;
+  }
+
+  /**
+   * @return Wrist angle in radians up from level, from this cycle's snapshot.
+   */
+  public double getAngle() {
+    return toAngle(getPosition());
+  }
+
+  /**
+   * Pick whether the profile runs here or as smart motion on the SPARK MAX.
+   */
+  public void setSmartMotion(boolean smartMotion) {
+    if (smartMotion != this.smartMotion && profiled) {
+      // Carry on from where the wrist is in the new mode
+      setpoint = new TrapezoidProfile.State(getAngle(), 0);
+      angleController.reset();
+      io.seedAngle(getAngle());
+    }
+    this.smartMotion = smartMotion;
+  }
+
+  public boolean isSmartMotion() {
+    return smartMotion;
+  }
+
+  /**
+   * Step the profile one loop and send the motor its output.
+   */
+  private void runProfile() {
+    double previousVelocity = setpoint.velocity;
+    setpoint = profile.calculate(TimedRobot.kDefaultPeriod, setpoint, goal);
+    double angle = getAngle();
+
+    double volts;
+    if (smartMotion) {
+      // The SPARK MAX runs its own profile, only gravity needs adding
+      volts = WRIST_KG * Math.cos(angle);
+      io.setSmartMotion(goal.position, volts);
+    } else {
+      double acceleration = (setpoint.velocity - previousVelocity) / TimedRobot.kDefaultPeriod;
+      volts = feedforward.calculate(setpoint.position, setpoint.velocity, acceleration);
+      io.setVoltage(volts + angleController.calculate(angle, setpoint.position));
+    }
+
+    BinaryLog.log(goalChannel, goalPosition);
+    BinaryLog.log(setpointChannel, setpoint.position);
+    BinaryLog.log(feedforwardChannel, volts);
+  }
+
+  /**
+   * @return The through bore position as radians up from level.
+   */
+  private static double toAngle(double position) {
+    return (WRIST_HORIZONTAL_POS - position) * 2 * Math.PI;
   }
 
-  public DutyCycleEncoder getthroughBore(){
-    return throughBore;
+  /**
+   * @return Through bore absolute position from this cycle's snapshot, in rotations.
+   */
+  public double getPosition(){
+    HardwareInputs.countCachedRead();
+    return inputs.position;
+  }
+
+  /**
+   * @return Wrist motor current in amps.
+   */
+  public double getCurrent() {
+    HardwareInputs.countCachedRead();
+    return inputs.current;
+  }
+
+  /**
+   * @param amps Smart current limit for the wrist motor
+   */
+  public void setCurrentLimit(int amps) {
+    io.setCurrentLimit(amps);
+  }
+
+  /**
+   * Read every sensor once for this cycle.
+   */
+  public void updateInputs() {
+    io.updateInputs(inputs);
+
+    BinaryLog.log(positionChannel, inputs.position);
+    BinaryLog.log(currentChannel, inputs.current);
+  }
+
+  /**
+   * @return This cycle's sensor snapshot.
+   */
+  public Inputs getInputs() {
+    return inputs;
   }
 
   @Override
   public void periodic() {
-    // This method will be called once per scheduler run
+    // This method will be called once per scheduler run, before any command reads the wrist
+    periodicSection.start();
+    updateInputs();
+    if (profiled) {
+      runProfile();
+    }
+    periodicSection.stop();
   }
 
    @Override
     public void initSendable(SendableBuilder sendableBuilder) {
-      sendableBuilder.addDoubleProperty("Wrist pos", ()-> throughBore.getAbsolutePosition(), null);
-      sendableBuilder.addDoubleProperty("Wrist Current", () -> wrist.getOutputCurrent(), null);
+      sendableBuilder.addDoubleProperty("Wrist pos", ()-> inputs.position, null);
+      sendableBuilder.addDoubleProperty("Wrist Current", () -> inputs.current, null);
+      sendableBuilder.addDoubleProperty("Wrist Goal", () -> goalPosition, null);
+      sendableBuilder.addBooleanProperty("At Goal", () -> atGoal(), null);
+      sendableBuilder.addBooleanProperty("Smart Motion", () -> isSmartMotion(), smartMotion -> setSmartMotion(smartMotion));
     }
 }
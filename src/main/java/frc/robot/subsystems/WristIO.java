@@ -0,0 +1,44 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+/**
+ * The wrist motor and through bore encoder behind {@link Wrist}.
+ */
+public interface WristIO {
+
+  /**
+   * Fill in this cycle's sensor values.
+   */
+  public void updateInputs(Wrist.Inputs inputs);
+
+  /**
+   * @param percent Duty cycle from -1 to 1, negative lowers the wrist
+   */
+  public void setPercent(double percent);
+
+  /**
+   * @param volts Motor voltage, positive raises the wrist
+   */
+  public void setVoltage(double volts);
+
+  /**
+   * Line the motor controller's own encoder up with the through bore so its loops agree with it.
+   * @param angle Wrist angle in radians up from level
+   */
+  public void seedAngle(double angle);
+
+  /**
+   * Run the motor controller's smart motion profile to an angle.
+   * @param angle Goal angle in radians up from level
+   * @param feedforwardVolts Added to the loop's output, e.g. to hold the wrist up against gravity
+   */
+  public void setSmartMotion(double angle, double feedforwardVolts);
+
+  /**
+   * @param amps Smart current limit for every motor
+   */
+  public void setCurrentLimit(int amps);
+}
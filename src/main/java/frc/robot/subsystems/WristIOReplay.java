@@ -0,0 +1,43 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import frc.robot.logging.BinaryLogReader;
+
+/**
+ * Plays the wrist's logged inputs back from a binary log.
+ */
+public class WristIOReplay implements WristIO {
+
+  private final BinaryLogReader log;
+
+  /**
+   * @param log Reader advanced once per loop by the robot
+   */
+  public WristIOReplay(BinaryLogReader log) {
+    this.log = log;
+  }
+
+  @Override
+  public void updateInputs(Wrist.Inputs inputs) {
+    inputs.position = log.get("Wrist/Position", inputs.position);
+    inputs.current = log.get("Wrist/Current", inputs.current);
+  }
+
+  @Override
+  public void setPercent(double percent) {}
+
+  @Override
+  public void setVoltage(double volts) {}
+
+  @Override
+  public void seedAngle(double angle) {}
+
+  @Override
+  public void setSmartMotion(double angle, double feedforwardVolts) {}
+
+  @Override
+  public void setCurrentLimit(int amps) {}
+}
@@ -0,0 +1,88 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
+import frc.robot.Constants.IntakeConstants;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * A simulated wrist, a NEO swinging the intake through a reduction against gravity. Starts stowed
+ * at {@link IntakeConstants#HIGH_WRIST_POS}, and the through bore reading goes up as the wrist
+ * lowers, same as on the robot.
+ */
+public class WristIOSim implements WristIO {
+
+  private final SingleJointedArmSim wristSim = new SingleJointedArmSim(
+    DCMotor.getNEO(1), IntakeConstants.WRIST_GEARING, SimConstants.WRIST_MOI, SimConstants.WRIST_LENGTH,
+    toAngle(IntakeConstants.LOW_WRIST_POS), toAngle(IntakeConstants.HIGH_WRIST_POS), true, toAngle(IntakeConstants.HIGH_WRIST_POS));
+
+  // Stand-in for smart motion, the same constraints the SPARK MAX is given
+  private final TrapezoidProfile smartMotionProfile = new TrapezoidProfile(
+    new TrapezoidProfile.Constraints(IntakeConstants.WRIST_MAX_VELOCITY, IntakeConstants.WRIST_MAX_ACCELERATION));
+  private TrapezoidProfile.State smartMotionSetpoint = new TrapezoidProfile.State();
+  private final TrapezoidProfile.State smartMotionGoal = new TrapezoidProfile.State();
+
+  private boolean smartMotion;
+  private double volts;
+  private double feedforwardVolts;
+
+  @Override
+  public void updateInputs(Wrist.Inputs inputs) {
+    if (smartMotion) {
+      smartMotionSetpoint = smartMotionProfile.calculate(SimConstants.LOOP_PERIOD, smartMotionSetpoint, smartMotionGoal);
+      double error = smartMotionSetpoint.position - wristSim.getAngleRads();
+      volts = MathUtil.clamp(IntakeConstants.WRIST_SMART_MOTION_P * error * SimConstants.NOMINAL_VOLTAGE + feedforwardVolts,
+        -SimConstants.NOMINAL_VOLTAGE, SimConstants.NOMINAL_VOLTAGE);
+    }
+    wristSim.setInputVoltage(volts);
+    wristSim.update(SimConstants.LOOP_PERIOD);
+
+    inputs.position = MathUtil.inputModulus(IntakeConstants.WRIST_HORIZONTAL_POS - wristSim.getAngleRads() / (2 * Math.PI), 0, 1);
+    inputs.current = wristSim.getCurrentDrawAmps();
+  }
+
+  @Override
+  public void setPercent(double percent) {
+    smartMotion = false;
+    volts = MathUtil.clamp(percent, -1, 1) * SimConstants.NOMINAL_VOLTAGE;
+  }
+
+  @Override
+  public void setVoltage(double volts) {
+    smartMotion = false;
+    this.volts = MathUtil.clamp(volts, -SimConstants.NOMINAL_VOLTAGE, SimConstants.NOMINAL_VOLTAGE);
+  }
+
+  @Override
+  public void seedAngle(double angle) {
+    // The simulated encoder is always lined up
+  }
+
+  @Override
+  public void setSmartMotion(double angle, double feedforwardVolts) {
+    if (!smartMotion) {
+      smartMotionSetpoint = new TrapezoidProfile.State(wristSim.getAngleRads(), wristSim.getVelocityRadPerSec());
+    }
+    smartMotion = true;
+    smartMotionGoal.position = angle;
+    this.feedforwardVolts = feedforwardVolts;
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    // Only the drivetrain sim models current limits
+  }
+
+  /**
+   * @return The through bore position as radians up from level.
+   */
+  private static double toAngle(double position) {
+    return (IntakeConstants.WRIST_HORIZONTAL_POS - position) * 2 * Math.PI;
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static frc.robot.Constants.IntakeConstants.*;
+
+import com.revrobotics.CANSparkLowLevel;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.CANSparkBase.ControlType;
+import com.revrobotics.CANSparkBase.IdleMode;
+import com.revrobotics.SparkPIDController.ArbFFUnits;
+
+import edu.wpi.first.wpilibj.DutyCycleEncoder;
+import frc.robot.CANStatusFrames;
+import frc.robot.HardwareInputs;
+import frc.robot.Constants.PowerConstants;
+
+/**
+ * The wrist on the real robot, a NEO on a SPARK MAX and a through bore encoder on DIO 2.
+ */
+public class WristIOSparkMax implements WristIO {
+
+  private final CANSparkMax wrist;
+  private final SparkPIDController wristController;
+  private final RelativeEncoder wristEncoder;
+  private final DutyCycleEncoder throughBore;
+
+  // Last smart motion request, so an unchanged one isn't sent again
+  private double lastAngle = Double.NaN;
+  private double lastFeedforwardVolts = Double.NaN;
+
+  public WristIOSparkMax() {
+    wrist = new CANSparkMax(WRIST_ID, CANSparkLowLevel.MotorType.kBrushless);
+    wrist.setSmartCurrentLimit(PowerConstants.WRIST_MAX_CURRENT);
+
+    // The motor's encoder reads the wrist angle in radians up from level once it's seeded
+    wristEncoder = wrist.getEncoder();
+    wristEncoder.setPositionConversionFactor(2 * Math.PI / WRIST_GEARING);
+    wristEncoder.setVelocityConversionFactor(2 * Math.PI / WRIST_GEARING / 60);
+
+    wristController = wrist.getPIDController();
+    wristController.setP(WRIST_SMART_MOTION_P);
+    wristController.setFF(0);
+    wristController.setSmartMotionMaxVelocity(WRIST_MAX_VELOCITY, 0);
+    wristController.setSmartMotionMaxAccel(WRIST_MAX_ACCELERATION, 0);
+    wristController.setSmartMotionAllowedClosedLoopError(WRIST_GOAL_TOLERANCE * 2 * Math.PI, 0);
+    wrist.setIdleMode(IdleMode.kBrake);
+    CANStatusFrames.configure(wrist, CANStatusFrames.Profile.OPEN_LOOP);
+
+    throughBore = new DutyCycleEncoder(2);
+  }
+
+  @Override
+  public void updateInputs(Wrist.Inputs inputs) {
+    inputs.position = throughBore.getAbsolutePosition();
+    inputs.current = wrist.getOutputCurrent();
+    HardwareInputs.countRefresh(2);
+  }
+
+  @Override
+  public void setPercent(double percent) {
+    lastAngle = Double.NaN;
+    wrist.set(percent);
+  }
+
+  @Override
+  public void setVoltage(double volts) {
+    lastAngle = Double.NaN;
+    wrist.setVoltage(volts);
+  }
+
+  @Override
+  public void seedAngle(double angle) {
+    wristEncoder.setPosition(angle);
+  }
+
+  @Override
+  public void setSmartMotion(double angle, double feedforwardVolts) {
+    if (angle == lastAngle && feedforwardVolts == lastFeedforwardVolts) {
+      return;
+    }
+    lastAngle = angle;
+    lastFeedforwardVolts = feedforwardVolts;
+    wristController.setReference(angle, ControlType.kSmartMotion, 0, feedforwardVolts, ArbFFUnits.kVoltage);
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    wrist.setSmartCurrentLimit(amps);
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.sim.SwerveDriveSim;
+import frc.robot.subsystems.GyroIOSim;
+
+/**
+ * Runs the odometry thread for real against a drivetrain that isn't moving, so every sample should
+ * land exactly where the last reset put it.
+ */
+class OdometryThreadTest {
+
+  private OdometryThread odometry;
+
+  @BeforeAll
+  static void startHAL() {
+    StubHardware.startHAL();
+  }
+
+  @BeforeEach
+  void setUp() {
+    SwerveDriveSim sim = SwerveDriveSim.fromConstants();
+    double[] offsets = {DriveConstants.FRONT_LEFT_OFFSET, DriveConstants.FRONT_RIGHT_OFFSET, DriveConstants.BACK_LEFT_OFFSET, DriveConstants.BACK_RIGHT_OFFSET};
+    int[][] ids = {DriveConstants.FRONT_LEFT, DriveConstants.FRONT_RIGHT, DriveConstants.BACK_LEFT, DriveConstants.BACK_RIGHT};
+    SwerveModule[] modules = new SwerveModule[4];
+    for (int i = 0; i < modules.length; i++) {
+      modules[i] = new SwerveModule(new SwerveModuleIOSim(sim, i, offsets[i]), ids[i][0], ids[i][1], offsets[i], DriveConstants.FL_PID_VALUES);
+    }
+    odometry = new OdometryThread(DriveConstants.KINEMATICS, new GyroIOSim(sim), DriveConstants.ODOMETRY_FREQUENCY,
+      DriveConstants.POSE_HISTORY_SECONDS, modules);
+    odometry.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    odometry.close();
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+  }
+
+  private static void assertPose(Pose2d expected, Pose2d actual) {
+    assertEquals(expected.getX(), actual.getX(), 1e-6);
+    assertEquals(expected.getY(), actual.getY(), 1e-6);
+    assertEquals(expected.getRotation().getRadians(), actual.getRotation().getRadians(), 1e-6);
+  }
+
+  @Test
+  void resetsStickWhileTheThreadRuns() throws InterruptedException {
+    long samples = odometry.getSampleCount();
+    Pose2d pose = new Pose2d();
+    for (int i = 0; i < 200; i++) {
+      pose = new Pose2d(i * 0.01, 8 - i * 0.02, Rotation2d.fromDegrees(i));
+      odometry.resetPosition(pose);
+      // A sample taken before the reset must never be what's published after it
+      assertPose(pose, odometry.getPose());
+      Thread.sleep(1);
+    }
+
+    Thread.sleep(50);
+    assertTrue(odometry.getSampleCount() > samples, "the thread should have been sampling");
+    assertPose(pose, odometry.getPose());
+  }
+}
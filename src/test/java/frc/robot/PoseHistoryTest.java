@@ -0,0 +1,128 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+
+class PoseHistoryTest {
+
+  private static final double EPSILON = 1e-9;
+
+  private static SwerveModulePosition[] modules(double distance, double radians) {
+    return new SwerveModulePosition[] {new SwerveModulePosition(distance, new Rotation2d(radians))};
+  }
+
+  private static void add(PoseHistory history, double timestamp, double x, double y, double heading) {
+    history.add(timestamp, new Pose2d(x, y, new Rotation2d(heading)), modules(x, heading));
+  }
+
+  @Test
+  void emptyHistoryHasNothingToLookUp() {
+    PoseHistory history = new PoseHistory(10, 1);
+    assertNull(history.getPoseAt(1));
+    assertNull(history.getLatestPose());
+    assertFalse(history.getPoseAt(1, new double[3]));
+    assertTrue(Double.isNaN(history.getLatestTimestamp()));
+  }
+
+  @Test
+  void interpolatesBetweenTheTwoClosestSamples() {
+    PoseHistory history = new PoseHistory(10, 1);
+    add(history, 1, 0, 0, 0);
+    add(history, 2, 2, 4, Math.PI / 2);
+    add(history, 3, 10, 10, Math.PI / 2);
+
+    Pose2d pose = history.getPoseAt(1.5);
+    assertEquals(1, pose.getX(), EPSILON);
+    assertEquals(2, pose.getY(), EPSILON);
+    assertEquals(Math.PI / 4, pose.getRotation().getRadians(), EPSILON);
+
+    // The allocation free lookup agrees
+    double[] out = new double[3];
+    assertTrue(history.getPoseAt(1.25, out));
+    assertEquals(0.5, out[0], EPSILON);
+    assertEquals(1, out[1], EPSILON);
+    assertEquals(Math.PI / 8, out[2], EPSILON);
+
+    // Landing exactly on a sample gives that sample
+    assertEquals(2, history.getPoseAt(2).getX(), EPSILON);
+  }
+
+  @Test
+  void clampsToTheOldestAndNewestSamples() {
+    PoseHistory history = new PoseHistory(10, 1);
+    add(history, 1, 1, 1, 0);
+    add(history, 2, 3, 3, 0);
+
+    assertEquals(1, history.getPoseAt(0).getX(), EPSILON);
+    assertEquals(3, history.getPoseAt(5).getX(), EPSILON);
+  }
+
+  @Test
+  void headingTakesTheShortWayAroundTheCircle() {
+    PoseHistory history = new PoseHistory(10, 1);
+    add(history, 1, 0, 0, Math.toRadians(170));
+    add(history, 2, 0, 0, Math.toRadians(-170));
+
+    double heading = history.getPoseAt(1.5).getRotation().getDegrees();
+    assertEquals(180, Math.abs(heading), 1e-6);
+  }
+
+  @Test
+  void interpolatesModulePositions() {
+    PoseHistory history = new PoseHistory(10, 1);
+    add(history, 1, 0, 0, 0);
+    add(history, 2, 1, 0, 1);
+
+    SwerveModulePosition[] out = modules(0, 0);
+    assertTrue(history.getModulePositionsAt(1.5, out));
+    assertEquals(0.5, out[0].distanceMeters, EPSILON);
+    assertEquals(0.5, out[0].angle.getRadians(), EPSILON);
+  }
+
+  @Test
+  void overwritesTheOldestSampleOnceFull() {
+    PoseHistory history = new PoseHistory(3, 1);
+    for (int i = 1; i <= 5; i++) {
+      add(history, i, i, 0, 0);
+    }
+
+    assertEquals(3, history.size());
+    assertEquals(3, history.getOldestTimestamp(), EPSILON);
+    assertEquals(5, history.getLatestTimestamp(), EPSILON);
+    assertEquals(3.5, history.getPoseAt(3.5).getX(), EPSILON);
+    assertEquals(5, history.getLatestPose().getX(), EPSILON);
+  }
+
+  @Test
+  void dropsSamplesOlderThanTheNewest() {
+    PoseHistory history = new PoseHistory(10, 1);
+    add(history, 2, 2, 0, 0);
+    add(history, 1, 1, 0, 0);
+    add(history, 2, 5, 0, 0);
+
+    assertEquals(1, history.size());
+    assertEquals(2, history.getLatestPose().getX(), EPSILON);
+  }
+
+  @Test
+  void clearForgetsEverything() {
+    PoseHistory history = new PoseHistory(10, 1);
+    add(history, 1, 1, 0, 0);
+    history.clear();
+
+    assertEquals(0, history.size());
+    assertNull(history.getPoseAt(1));
+  }
+}
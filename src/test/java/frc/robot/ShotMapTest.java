@@ -0,0 +1,134 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants.OuttakeConstants;
+
+class ShotMapTest {
+
+  private static final double EPSILON = 1e-9;
+
+  @TempDir
+  Path directory;
+
+  private File file;
+
+  @BeforeAll
+  static void startHAL() {
+    // Bad files are reported through the driver station
+    StubHardware.startHAL();
+  }
+
+  @BeforeEach
+  void setUp() {
+    SimHooks.pauseTiming();
+    file = directory.resolve("shotmap.csv").toFile();
+  }
+
+  @AfterEach
+  void tearDown() {
+    SimHooks.resumeTiming();
+  }
+
+  private void write(String text) throws IOException {
+    Files.writeString(file.toPath(), text);
+  }
+
+  @Test
+  void interpolatesBetweenPoints() throws IOException {
+    write("# distance,rpm,wrist\n1,2000,0.30\n\n3,4000,0.40\n5,5000,0.50\n");
+    ShotMap map = new ShotMap(file);
+
+    assertEquals(3000, map.getFlywheelSpeed(2), EPSILON);
+    assertEquals(0.35, map.getWristPosition(2), EPSILON);
+    assertEquals(4500, map.getFlywheelSpeed(4), EPSILON);
+    assertEquals(4000, map.getFlywheelSpeed(3), EPSILON);
+    assertEquals(1, map.getMinDistance(), EPSILON);
+    assertEquals(5, map.getMaxDistance(), EPSILON);
+  }
+
+  @Test
+  void holdsTheClosestPointOutsideTheMap() throws IOException {
+    write("1,2000,0.30\n3,4000,0.40\n");
+    ShotMap map = new ShotMap(file);
+
+    assertEquals(2000, map.getFlywheelSpeed(0.2), EPSILON);
+    assertEquals(4000, map.getFlywheelSpeed(10), EPSILON);
+    assertFalse(map.isInRange(0.2));
+    assertTrue(map.isInRange(1));
+    assertTrue(map.isInRange(3));
+    assertFalse(map.isInRange(10));
+  }
+
+  @Test
+  void nothingLoadedGivesNaN() {
+    ShotMap map = new ShotMap(file);
+
+    assertTrue(Double.isNaN(map.getFlywheelSpeed(2)));
+    assertTrue(Double.isNaN(map.getMinDistance()));
+    assertFalse(map.isInRange(2));
+  }
+
+  @Test
+  void reloadSwapsInTheNewPoints() throws IOException {
+    write("1,2000,0.30\n3,4000,0.40\n");
+    ShotMap map = new ShotMap(file);
+
+    write("1,2500,0.30\n3,4500,0.40\n");
+    assertTrue(map.reload());
+    assertEquals(3500, map.getFlywheelSpeed(2), EPSILON);
+  }
+
+  @Test
+  void badFilesKeepTheOldPoints() throws IOException {
+    write("1,2000,0.30\n3,4000,0.40\n");
+    ShotMap map = new ShotMap(file);
+
+    write("3,4000,0.40\n1,2000,0.30\n");
+    assertFalse(map.reload());
+    write("1,2000\n");
+    assertFalse(map.reload());
+    write("1,fast,0.30\n");
+    assertFalse(map.reload());
+    write("# nothing\n");
+    assertFalse(map.reload());
+
+    assertEquals(3000, map.getFlywheelSpeed(2), EPSILON);
+  }
+
+  @Test
+  void picksUpChangesOnceTheCheckIntervalHasPassed() throws IOException {
+    write("1,2000,0.30\n3,4000,0.40\n");
+    ShotMap map = new ShotMap(file);
+    // First call only starts the interval
+    map.reloadIfChanged();
+
+    write("1,2500,0.30\n3,4500,0.40\n");
+    assertTrue(file.setLastModified(file.lastModified() + 2000));
+
+    map.reloadIfChanged();
+    assertEquals(3000, map.getFlywheelSpeed(2), EPSILON);
+
+    SimHooks.stepTiming(OuttakeConstants.SHOT_MAP_CHECK_INTERVAL);
+    map.reloadIfChanged();
+    assertEquals(3500, map.getFlywheelSpeed(2), EPSILON);
+  }
+}
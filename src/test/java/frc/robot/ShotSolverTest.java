@@ -0,0 +1,101 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.math.MathUtil;
+import frc.robot.Constants.OuttakeConstants;
+
+class ShotSolverTest {
+
+  private static final double TARGET_X = 0;
+  private static final double TARGET_Y = 5.5;
+
+  @TempDir
+  Path directory;
+
+  private ShotSolver solver;
+
+  @BeforeAll
+  static void startHAL() {
+    StubHardware.startHAL();
+  }
+
+  @BeforeEach
+  void setUp() throws IOException {
+    File file = directory.resolve("shotmap.csv").toFile();
+    Files.writeString(file.toPath(), "1,2000,0.30\n5,5000,0.50\n");
+    solver = new ShotSolver(new ShotMap(file));
+  }
+
+  @Test
+  void standingStillAimsStraightAtTheSpeaker() {
+    solver.solve(3, 5.5, 0, 0, TARGET_X, TARGET_Y);
+
+    assertEquals(3, solver.getDistance(), 1e-9);
+    assertEquals(3 / OuttakeConstants.NOTE_EXIT_SPEED, solver.getTimeOfFlight(), 1e-9);
+    // The speaker's straight down the field's -x axis, and the shooter's on the back
+    double expected = MathUtil.angleModulus(Math.PI + OuttakeConstants.SHOOTER_HEADING_OFFSET);
+    assertEquals(0, MathUtil.angleModulus(solver.getAimHeading() - expected), 1e-9);
+    assertEquals(3500, solver.getFlywheelSpeed(), 1e-6);
+    assertEquals(0.40, solver.getWristPosition(), 1e-9);
+    assertTrue(solver.isInRange());
+  }
+
+  @Test
+  void movingShotLandsOnTheSpeaker() {
+    double vx = -1;
+    double vy = 2;
+    solver.solve(4, 3, vx, vy, TARGET_X, TARGET_Y);
+
+    // The note leaves the release point at exit speed along the aim, plus the robot's velocity
+    double aim = solver.getAimHeading() - OuttakeConstants.SHOOTER_HEADING_OFFSET;
+    double time = solver.getTimeOfFlight();
+    double landingX = solver.getReleaseX() + (OuttakeConstants.NOTE_EXIT_SPEED * Math.cos(aim) + vx) * time;
+    double landingY = solver.getReleaseY() + (OuttakeConstants.NOTE_EXIT_SPEED * Math.sin(aim) + vy) * time;
+    assertEquals(TARGET_X, landingX, 0.01);
+    assertEquals(TARGET_Y, landingY, 0.01);
+  }
+
+  @Test
+  void releasePointLeadsByTheFeedDelay() {
+    solver.solve(4, 3, 1, -2, TARGET_X, TARGET_Y);
+
+    assertEquals(4 + OuttakeConstants.RELEASE_DELAY, solver.getReleaseX(), 1e-9);
+    assertEquals(3 - 2 * OuttakeConstants.RELEASE_DELAY, solver.getReleaseY(), 1e-9);
+    assertEquals(OuttakeConstants.RELEASE_DELAY + solver.getTimeOfFlight(), solver.getTimeToImpact(), 1e-9);
+  }
+
+  @Test
+  void aimToleranceTightensWithDistance() {
+    solver.solve(2, 5.5, 0, 0, TARGET_X, TARGET_Y);
+    double aim = solver.getAimHeading();
+    double offset = Math.atan2(OuttakeConstants.AIM_TOLERANCE_WIDTH, 2) * 0.9;
+    assertTrue(solver.isAimed(aim + offset));
+    assertTrue(solver.isAimed(aim - offset));
+
+    solver.solve(4.5, 5.5, 0, 0, TARGET_X, TARGET_Y);
+    assertFalse(solver.isAimed(solver.getAimHeading() + offset));
+  }
+
+  @Test
+  void outOfRangeShotsAreFlagged() {
+    solver.solve(8, 5.5, 0, 0, TARGET_X, TARGET_Y);
+    assertFalse(solver.isInRange());
+  }
+}
@@ -0,0 +1,179 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static frc.robot.Constants.IntakeConstants.AMP_POS;
+import static frc.robot.Constants.IntakeConstants.HIGH_WRIST_POS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.OuttakeConstants;
+import frc.robot.Constants.SimConstants;
+import frc.robot.Superstructure.State;
+import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.ElevatorIOSim;
+import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.IntakeIOSim;
+import frc.robot.subsystems.Outtake;
+import frc.robot.subsystems.OuttakeIOSim;
+import frc.robot.subsystems.Wrist;
+import frc.robot.subsystems.WristIOSim;
+
+/**
+ * Runs every superstructure request against the simulated mechanisms and checks each one ends
+ * where it says it does. Time is stepped by hand so the timers in the guards are deterministic.
+ */
+class SuperstructureTest {
+
+  // Ten seconds, far longer than any request should take
+  private static final int MAX_LOOPS = 500;
+
+  private IntakeIOSim intakeIO;
+  private Intake intake;
+  private Wrist wrist;
+  private Outtake outtake;
+  private Elevator elevator;
+  private Superstructure superstructure;
+
+  @BeforeAll
+  static void startHAL() {
+    HAL.initialize(500, 0);
+  }
+
+  @BeforeEach
+  void setUp() {
+    SimHooks.pauseTiming();
+    intakeIO = new IntakeIOSim();
+    intake = new Intake(intakeIO);
+    wrist = new Wrist(new WristIOSim());
+    outtake = new Outtake(new OuttakeIOSim());
+    elevator = new Elevator(new ElevatorIOSim());
+    superstructure = new Superstructure(intake, wrist, outtake, elevator);
+    step();
+  }
+
+  @AfterEach
+  void tearDown() {
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+    SimHooks.resumeTiming();
+  }
+
+  /**
+   * One robot loop's worth of subsystem updates, in the order the scheduler runs them.
+   */
+  private void step() {
+    SimHooks.stepTiming(SimConstants.LOOP_PERIOD);
+    intake.periodic();
+    wrist.periodic();
+    outtake.periodic();
+    elevator.periodic();
+  }
+
+  /**
+   * Run a command loop by loop until it finishes.
+   * @return Whether it finished within the loop limit.
+   */
+  private boolean run(Command command, int loops) {
+    command.initialize();
+    for (int i = 0; i < loops; i++) {
+      step();
+      command.execute();
+      if (command.isFinished()) {
+        command.end(false);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  void intakeEndsStowedWithTheNote() {
+    assertTrue(run(superstructure.request(State.INTAKE), MAX_LOOPS));
+    assertEquals(State.STOW, superstructure.getState());
+    assertTrue(intake.hasNote());
+    assertEquals(HIGH_WRIST_POS, wrist.getPosition(), OuttakeConstants.WRIST_SHOT_TOLERANCE);
+  }
+
+  @Test
+  void intakeWithANoteAlreadyInJustStows() {
+    intakeIO.setNote(true);
+    step();
+
+    assertTrue(run(superstructure.request(State.INTAKE), MAX_LOOPS));
+    assertEquals(State.STOW, superstructure.getState());
+    assertTrue(intake.hasNote());
+  }
+
+  @Test
+  void shootEndsOnceTheNoteIsGone() {
+    intakeIO.setNote(true);
+    step();
+
+    assertTrue(run(superstructure.request(State.SHOOT), MAX_LOOPS));
+    assertEquals(State.STOW, superstructure.getState());
+    assertFalse(intake.hasNote());
+  }
+
+  @Test
+  void shootWithoutANoteEndsRightAway() {
+    assertTrue(run(superstructure.request(State.SHOOT), 1));
+    assertEquals(State.STOW, superstructure.getState());
+  }
+
+  @Test
+  void spinUpHoldsUntilCancelled() {
+    intakeIO.setNote(true);
+    step();
+
+    Command spinUp = superstructure.request(State.SPIN_UP);
+    assertFalse(run(spinUp, MAX_LOOPS));
+    assertEquals(State.SPIN_UP, superstructure.getState());
+    assertTrue(outtake.isReady());
+
+    spinUp.end(true);
+    assertEquals(State.STOW, superstructure.getState());
+    assertTrue(intake.hasNote());
+  }
+
+  @Test
+  void ampEndsAtTheAmpPosition() {
+    intakeIO.setNote(true);
+    step();
+
+    assertTrue(run(superstructure.request(State.AMP), MAX_LOOPS));
+    assertEquals(State.AMP, superstructure.getState());
+    assertTrue(wrist.atGoal());
+    assertEquals(AMP_POS, wrist.getPosition(), OuttakeConstants.WRIST_SHOT_TOLERANCE);
+  }
+
+  @Test
+  void stowEndsOnceTheWristIsUp() {
+    assertTrue(run(superstructure.request(State.STOW), MAX_LOOPS));
+    assertEquals(State.STOW, superstructure.getState());
+    assertTrue(wrist.atGoal());
+  }
+
+  @Test
+  void climbTogglesInAndOut() {
+    assertTrue(run(superstructure.toggleClimb(), MAX_LOOPS));
+    assertEquals(State.CLIMB, superstructure.getState());
+    assertTrue(elevator.getClimbMode());
+
+    // The elevator never left the bottom switch, so getting out doesn't wait
+    assertTrue(run(superstructure.toggleClimb(), MAX_LOOPS));
+    assertEquals(State.STOW, superstructure.getState());
+    assertFalse(elevator.getClimbMode());
+  }
+}
@@ -0,0 +1,127 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SimConstants;
+import frc.robot.sim.SwerveDriveSim;
+
+/**
+ * Drives the four modules of a simulated drivetrain together and checks they end up doing what
+ * they were asked to.
+ */
+class SwerveModuleTest {
+
+  // A second and a half of loops
+  private static final int LOOPS = 75;
+
+  private SwerveDriveSim sim;
+  private SwerveModule[] modules;
+
+  @BeforeAll
+  static void startHAL() {
+    StubHardware.startHAL();
+  }
+
+  @BeforeEach
+  void setUp() {
+    sim = SwerveDriveSim.fromConstants();
+    double[] offsets = {DriveConstants.FRONT_LEFT_OFFSET, DriveConstants.FRONT_RIGHT_OFFSET, DriveConstants.BACK_LEFT_OFFSET, DriveConstants.BACK_RIGHT_OFFSET};
+    int[][] ids = {DriveConstants.FRONT_LEFT, DriveConstants.FRONT_RIGHT, DriveConstants.BACK_LEFT, DriveConstants.BACK_RIGHT};
+    double[][] pid = {DriveConstants.FL_PID_VALUES, DriveConstants.FR_PID_VALUES, DriveConstants.BL_PID_VALUES, DriveConstants.BR_PID_VALUES};
+    modules = new SwerveModule[4];
+    for (int i = 0; i < modules.length; i++) {
+      modules[i] = new SwerveModule(new SwerveModuleIOSim(sim, i, offsets[i]), ids[i][0], ids[i][1], offsets[i], pid[i]);
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+  }
+
+  /**
+   * Ask every module for the same state for a number of loops.
+   */
+  private void run(SwerveModuleState state, int loops) {
+    for (int i = 0; i < loops; i++) {
+      for (SwerveModule module : modules) {
+        module.periodic();
+        module.setDesiredState(state);
+      }
+      sim.update(SimConstants.LOOP_PERIOD);
+    }
+    for (SwerveModule module : modules) {
+      module.periodic();
+    }
+  }
+
+  @Test
+  void steersAndDrivesWhereItsAsked() {
+    SwerveModuleState desired = new SwerveModuleState(1, Rotation2d.fromDegrees(90));
+    run(desired, LOOPS);
+
+    for (SwerveModule module : modules) {
+      // Flipping the wheel and driving backwards is just as good, so compare the velocity vectors
+      SwerveModuleState state = module.getState();
+      double vx = state.speedMetersPerSecond * state.angle.getCos();
+      double vy = state.speedMetersPerSecond * state.angle.getSin();
+      assertEquals(0, vx, 0.1);
+      assertTrue(vy > 0.5, "module should be driving along +y, was " + vy);
+    }
+    assertTrue(sim.getY() > 0.3);
+    // The request is left alone
+    assertEquals(1, desired.speedMetersPerSecond);
+    assertEquals(90, desired.angle.getDegrees(), 1e-9);
+  }
+
+  @Test
+  void drivesBackwardsRatherThanTurningAround() {
+    run(new SwerveModuleState(1, Rotation2d.fromDegrees(180)), LOOPS);
+
+    for (SwerveModule module : modules) {
+      assertEquals(0, MathUtil.angleModulus(module.getRotatePosition()), Math.toRadians(10));
+      assertTrue(module.getDriveVelocity() < -0.5);
+    }
+    assertTrue(sim.getX() < -0.3);
+  }
+
+  @Test
+  void positionsFollowTheSimulatedWheel() {
+    run(new SwerveModuleState(1, new Rotation2d()), LOOPS);
+
+    SwerveModulePosition position = new SwerveModulePosition();
+    for (int i = 0; i < modules.length; i++) {
+      modules[i].updatePosition(position);
+      assertEquals(sim.getWheelDistance(i), position.distanceMeters, 1e-9);
+      assertEquals(0, position.angle.getDegrees(), 5);
+    }
+  }
+
+  @Test
+  void noSpeedStopsTheModule() {
+    run(new SwerveModuleState(1, new Rotation2d()), LOOPS);
+    run(new SwerveModuleState(0, Rotation2d.fromDegrees(45)), LOOPS);
+
+    for (int i = 0; i < modules.length; i++) {
+      assertEquals(0, modules[i].getDriveVelocity(), 0.05);
+      // Nothing asked it to turn
+      assertEquals(0, MathUtil.angleModulus(sim.getSteerAngle(i)), Math.toRadians(5));
+    }
+  }
+}
@@ -0,0 +1,140 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * Steps the setpoint generator toward a range of requests and checks no wheel is ever asked to
+ * change speed or turn faster than the limits allow.
+ */
+class SwerveSetpointGeneratorTest {
+
+  private static final double DT = SimConstants.LOOP_PERIOD;
+  private static final double MAX_SPEED_CHANGE = DriveConstants.MAX_MODULE_ACCELERATION * DT;
+  private static final double MAX_ANGLE_CHANGE = DriveConstants.MAX_STEER_VELOCITY * DT;
+  // The angles handed out are rounded to the rotation table, allow for that on both ends
+  private static final double ANGLE_TOLERANCE = 4 * Math.PI / 4096;
+
+  private SwerveSetpointGenerator generator;
+  private double[] lastSpeeds;
+  private double[] lastAngles;
+
+  @BeforeEach
+  void setUp() {
+    generator = new SwerveSetpointGenerator(
+      DriveConstants.MODULE_LOCATIONS,
+      DriveConstants.MAX_MODULE_ACCELERATION,
+      DriveConstants.MAX_STEER_VELOCITY,
+      DriveConstants.STEER_LIMIT_MIN_SPEED);
+    SwerveModuleState[] stopped = new SwerveModuleState[DriveConstants.MODULE_LOCATIONS.length];
+    for (int i = 0; i < stopped.length; i++) {
+      stopped[i] = new SwerveModuleState();
+    }
+    generator.reset(new ChassisSpeeds(), stopped);
+    lastSpeeds = new double[stopped.length];
+    lastAngles = new double[stopped.length];
+  }
+
+  /**
+   * Step toward a request, checking every wheel against the limits on the way.
+   * @return The states from the last step.
+   */
+  private SwerveModuleState[] step(ChassisSpeeds desired, int loops) {
+    SwerveModuleState[] states = null;
+    for (int loop = 0; loop < loops; loop++) {
+      states = generator.calculate(desired, DriveConstants.MAX_DRIVE_SPEED, DT);
+      for (int i = 0; i < states.length; i++) {
+        double speed = states[i].speedMetersPerSecond;
+        double angle = states[i].angle.getRadians();
+        assertTrue(Math.abs(speed - lastSpeeds[i]) <= MAX_SPEED_CHANGE + 1e-9,
+          "wheel " + i + " went from " + lastSpeeds[i] + " to " + speed + " m/s in one loop");
+        if (Math.abs(lastSpeeds[i]) > DriveConstants.STEER_LIMIT_MIN_SPEED) {
+          double turned = Math.abs(MathUtil.angleModulus(angle - lastAngles[i]));
+          assertTrue(turned <= MAX_ANGLE_CHANGE + ANGLE_TOLERANCE,
+            "moving wheel " + i + " turned " + Math.toDegrees(turned) + " degrees in one loop");
+        }
+        lastSpeeds[i] = speed;
+        lastAngles[i] = angle;
+      }
+    }
+    return states;
+  }
+
+  @Test
+  void reachesTheRequestAtTheAccelerationLimit() {
+    // Straight ahead, every wheel has to go from 0 to 2 m/s
+    int loops = (int) Math.ceil(2 / MAX_SPEED_CHANGE);
+    step(new ChassisSpeeds(2, 0, 0), loops - 1);
+    assertTrue(generator.getVx() < 2);
+
+    step(new ChassisSpeeds(2, 0, 0), 1);
+    assertEquals(2, generator.getVx(), 1e-9);
+    assertEquals(0, generator.getVy(), 1e-9);
+    assertEquals(0, generator.getOmega(), 1e-9);
+  }
+
+  @Test
+  void stoppedWheelsTurnStraightAway() {
+    SwerveModuleState[] states = step(new ChassisSpeeds(0, 1, 0), 1);
+    for (SwerveModuleState state : states) {
+      // Either way round is fine, it's the line the wheel's on that matters
+      assertEquals(0, Math.cos(state.angle.getRadians()), 1e-3);
+    }
+  }
+
+  @Test
+  void movingWheelsTurnNoFasterThanTheSteerLimit() {
+    step(new ChassisSpeeds(2, 0, 0), 50);
+    // A right angle turn at speed has to be eased into
+    step(new ChassisSpeeds(0, 2, 0), 1);
+    assertTrue(generator.getVx() > 0.5);
+
+    step(new ChassisSpeeds(0, 2, 0), 100);
+    assertEquals(0, generator.getVx(), 1e-6);
+    assertEquals(2, generator.getVy(), 1e-6);
+  }
+
+  @Test
+  void reversingSlowsThroughZeroInsteadOfSpinningTheWheels() {
+    step(new ChassisSpeeds(2, 0, 0), 50);
+    SwerveModuleState[] states = step(new ChassisSpeeds(-2, 0, 0), 100);
+    for (SwerveModuleState state : states) {
+      assertEquals(-2, state.speedMetersPerSecond * state.angle.getCos(), 1e-3);
+    }
+  }
+
+  @Test
+  void tooFastRequestsKeepTheirDirection() {
+    step(new ChassisSpeeds(30, 15, 0), 200);
+
+    assertEquals(DriveConstants.MAX_DRIVE_SPEED, Math.hypot(generator.getVx(), generator.getVy()), 1e-6);
+    assertEquals(0.5, generator.getVy() / generator.getVx(), 1e-6);
+  }
+
+  @Test
+  void randomRequestsStayInsideTheLimits() {
+    Random random = new Random(2024);
+    for (int i = 0; i < 100; i++) {
+      ChassisSpeeds desired = new ChassisSpeeds(
+        (random.nextDouble() * 2 - 1) * DriveConstants.MAX_DRIVE_SPEED,
+        (random.nextDouble() * 2 - 1) * DriveConstants.MAX_DRIVE_SPEED,
+        (random.nextDouble() * 2 - 1) * DriveConstants.MAX_ROTATE_SPEED);
+      step(desired, 1 + random.nextInt(25));
+    }
+  }
+}
@@ -0,0 +1,192 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Autos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.ShotMap;
+import frc.robot.ShotSolver;
+import frc.robot.StubHardware;
+import frc.robot.SwerveModuleIOSim;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.IntakeConstants;
+import frc.robot.Constants.SimConstants;
+import frc.robot.sim.SwerveDriveSim;
+import frc.robot.subsystems.GyroIOSim;
+import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.IntakeIOSim;
+import frc.robot.subsystems.Outtake;
+import frc.robot.subsystems.OuttakeIOSim;
+import frc.robot.subsystems.SwerveDrive;
+import frc.robot.subsystems.Wrist;
+import frc.robot.subsystems.WristIOSim;
+
+/**
+ * Compiles the autos that get deployed, and a few broken ones to check a bad file only loses itself.
+ */
+class AutoLibraryTest {
+
+  // Tests run from the project root
+  private static final File DEPLOYED = new File("src/main/deploy", AutoConstants.AUTO_DIRECTORY);
+
+  @TempDir
+  Path directory;
+
+  private SwerveDrive swerve;
+  private Outtake outtake;
+  private Intake intake;
+  private Wrist wrist;
+  private ShotSolver solver;
+
+  @BeforeAll
+  static void startHAL() {
+    StubHardware.startHAL();
+  }
+
+  @BeforeEach
+  void setUp() {
+    // Time only moves when a test steps it
+    SimHooks.pauseTiming();
+    swerve = new SwerveDrive(
+      new StubHardware.Gyro(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      0);
+    outtake = new Outtake(new OuttakeIOSim());
+    intake = new Intake(new IntakeIOSim());
+    wrist = new Wrist(new WristIOSim());
+    // No shot map needed to build the commands
+    solver = new ShotSolver(new ShotMap(directory.resolve("shotmap.csv").toFile()));
+  }
+
+  @AfterEach
+  void tearDown() {
+    swerve.close();
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+    SimHooks.resumeTiming();
+  }
+
+  private AutoLibrary load(File autos) {
+    return new AutoLibrary(autos, swerve, outtake, intake, wrist, solver);
+  }
+
+  private void write(String name, String text) throws IOException {
+    Files.writeString(directory.resolve(name + AutoConstants.AUTO_FILE_EXTENSION), text);
+  }
+
+  /**
+   * Run an auto by hand the way the scheduler would, for at most a number of loops.
+   */
+  private static void run(Command auto, SwerveDriveSim sim, int loops) {
+    auto.initialize();
+    for (int i = 0; i < loops && !auto.isFinished(); i++) {
+      CommandScheduler.getInstance().run();
+      auto.execute();
+      if (sim != null) {
+        sim.update(SimConstants.LOOP_PERIOD);
+      }
+      SimHooks.stepTiming(SimConstants.LOOP_PERIOD);
+    }
+  }
+
+  @Test
+  void everyDeployedAutoCompiles() {
+    File[] files = DEPLOYED.listFiles((dir, name) -> name.endsWith(AutoConstants.AUTO_FILE_EXTENSION));
+    assertTrue(files != null && files.length > 0, "no autos found in " + DEPLOYED.getAbsolutePath());
+
+    Set<String> expected = new TreeSet<>();
+    for (File file : files) {
+      String name = file.getName();
+      expected.add(name.substring(0, name.length() - AutoConstants.AUTO_FILE_EXTENSION.length()));
+    }
+    AutoLibrary library = load(DEPLOYED);
+    assertEquals(expected, new TreeSet<>(library.getNames()));
+    for (String name : expected) {
+      assertEquals(name + " (blue)", library.get(name, false).getName());
+      assertEquals(name + " (red)", library.get(name, true).getName());
+    }
+  }
+
+  @Test
+  void movingTwoPieceDrivesBackToWhereItStarted() {
+    SwerveDriveSim sim = SwerveDriveSim.fromConstants();
+    try (SwerveDrive simSwerve = new SwerveDrive(
+      new GyroIOSim(sim),
+      new SwerveModuleIOSim(sim, 0, DriveConstants.FRONT_LEFT_OFFSET),
+      new SwerveModuleIOSim(sim, 1, DriveConstants.FRONT_RIGHT_OFFSET),
+      new SwerveModuleIOSim(sim, 2, DriveConstants.BACK_LEFT_OFFSET),
+      new SwerveModuleIOSim(sim, 3, DriveConstants.BACK_RIGHT_OFFSET),
+      0)) {
+      Command auto = new AutoLibrary(DEPLOYED, simSwerve, outtake, intake, wrist, solver).get("Middle Two Piece Moving", false);
+      // Fifteen seconds, all of auto
+      run(auto, sim, 750);
+      assertTrue(auto.isFinished(), "auto should be done by now");
+      auto.end(false);
+
+      // Out to the note and back in, with no shot map to end the moving shot early
+      assertEquals(0, sim.getX(), 0.5);
+      assertEquals(0, sim.getY(), 0.5);
+    }
+  }
+
+  @Test
+  void spinupLeavesTheFlywheelSpinningUntilTheAutoEnds() throws IOException {
+    write("Spin", "spinup wait 0.1\nwait 1\n");
+    Command auto = load(directory.toFile()).get("Spin", false);
+
+    run(auto, null, 20);
+    assertFalse(auto.isFinished(), "should still be waiting");
+    assertEquals(IntakeConstants.DESIRED_SPEED, outtake.getTargetVelocity());
+    auto.end(true);
+    assertTrue(Double.isNaN(outtake.getTargetVelocity()), "auto ending should stop the flywheel");
+  }
+
+  @Test
+  void driveCantTurn() throws IOException {
+    write("Turn", "drive 1 0 0 1\n");
+    assertEquals(Set.of(), load(directory.toFile()).getNames());
+  }
+
+  @Test
+  void badFilesAreLeftOutAndTheRestLoad() throws IOException {
+    write("Good", "pose 1.35 5.55 0\nspinup drive 0.3 0 0\nshoot 2\n");
+    write("Unknown Step", "jump 3\n");
+    write("Not A Number", "wait soon\n");
+    write("Open Parallel", "parallel\nwait 1\n");
+    // Both steps need the outtake, which only shows up when the commands are put together
+    write("Same Subsystem Twice", "spinup shoot\n");
+
+    AutoLibrary library = load(directory.toFile());
+    assertEquals(Set.of("Good"), library.getNames());
+  }
+
+  @Test
+  void unknownAutosDoNothing() {
+    AutoLibrary library = load(directory.toFile());
+    assertTrue(library.get("Missing", false).isFinished());
+    assertTrue(library.get(null, true).isFinished());
+  }
+}
@@ -0,0 +1,45 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Log files have to come back in the order they were written, which is their sequence number and
+ * not their name or modified time.
+ */
+class BinaryLogReaderTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void filesAreInSequenceOrder() throws IOException {
+    // Modified times backwards, like after the roboRIO's clock was set partway through
+    String[] names = {"log_10.bin", "log_9.bin", "log_100.bin", "log_0.bin"};
+    long modified = 1_000_000;
+    for (String name : names) {
+      File file = Files.createFile(directory.resolve(name)).toFile();
+      file.setLastModified(modified);
+      modified -= 1000;
+    }
+
+    List<String> found = new ArrayList<>();
+    for (File file : BinaryLogReader.filesIn(directory.toFile())) {
+      found.add(file.getName());
+    }
+    assertEquals(List.of("log_0.bin", "log_9.bin", "log_10.bin", "log_100.bin"), found);
+  }
+}
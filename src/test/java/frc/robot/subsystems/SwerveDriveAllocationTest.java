@@ -0,0 +1,83 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.StubHardware;
+
+/**
+ * The drivetrain's periodic runs every 20 ms on the roboRIO's small heap, so once it's warmed up
+ * it shouldn't allocate at all. The stub encoders and gyro move on every read, so every cached
+ * "nothing changed" shortcut is skipped.
+ */
+class SwerveDriveAllocationTest {
+
+  // Enough for the JIT to settle the periodic path down
+  private static final int WARMUP_LOOPS = 20000;
+  private static final int MEASURED_LOOPS = 1000;
+
+  private static final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  @BeforeAll
+  static void startHAL() {
+    StubHardware.startHAL();
+  }
+
+  /**
+   * @return Bytes this thread has allocated so far.
+   */
+  private static long allocatedBytes() {
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  @Test
+  void periodicDoesNotAllocate() {
+    assertTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    // Keeps the odometry thread from reading the same stubs in the background
+    SimHooks.pauseTiming();
+    SwerveDrive swerve = new SwerveDrive(
+      new StubHardware.Gyro(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      0);
+
+    for (int i = 0; i < WARMUP_LOOPS; i++) {
+      swerve.periodic();
+      swerve.getRotation2d();
+    }
+
+    // Whatever reading the counter itself costs
+    long start = allocatedBytes();
+    long overhead = allocatedBytes() - start;
+
+    long before = allocatedBytes();
+    for (int i = 0; i < MEASURED_LOOPS; i++) {
+      swerve.periodic();
+      swerve.getRotation2d();
+    }
+    long allocated = allocatedBytes() - before - overhead;
+
+    swerve.close();
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+    SimHooks.resumeTiming();
+
+    assertEquals(0, allocated, "bytes allocated over " + MEASURED_LOOPS + " periodic() calls");
+  }
+}
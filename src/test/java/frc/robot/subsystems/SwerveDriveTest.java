@@ -0,0 +1,192 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj.simulation.XboxControllerSim;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.ShotMap;
+import frc.robot.ShotSolver;
+import frc.robot.StubHardware;
+import frc.robot.SwerveModuleIOSim;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SimConstants;
+import frc.robot.commands.Drive.DriveWithJoystick;
+import frc.robot.commands.Outtake.ShootOnTheMove;
+import frc.robot.sim.SwerveDriveSim;
+
+/**
+ * Drives the whole drivetrain against the simulated one and checks the odometry, gyro and measured
+ * speeds agree with where the simulation says the robot really is.
+ */
+class SwerveDriveTest {
+
+  // A second and a half of loops
+  private static final int LOOPS = 75;
+
+  private SwerveDriveSim sim;
+  private SwerveDrive swerve;
+
+  @BeforeAll
+  static void startHAL() {
+    StubHardware.startHAL();
+  }
+
+  @BeforeEach
+  void setUp() {
+    // The odometry thread only runs when the test steps time
+    SimHooks.pauseTiming();
+    sim = SwerveDriveSim.fromConstants();
+    swerve = new SwerveDrive(
+      new GyroIOSim(sim),
+      new SwerveModuleIOSim(sim, 0, DriveConstants.FRONT_LEFT_OFFSET),
+      new SwerveModuleIOSim(sim, 1, DriveConstants.FRONT_RIGHT_OFFSET),
+      new SwerveModuleIOSim(sim, 2, DriveConstants.BACK_LEFT_OFFSET),
+      new SwerveModuleIOSim(sim, 3, DriveConstants.BACK_RIGHT_OFFSET),
+      0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    swerve.close();
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+    SimHooks.resumeTiming();
+  }
+
+  /**
+   * Drive at robot relative speeds for a number of loops, in the same order as the robot runs them.
+   */
+  private void run(ChassisSpeeds speeds, int loops) {
+    for (int i = 0; i < loops; i++) {
+      CommandScheduler.getInstance().run();
+      swerve.setChassisSpeeds(speeds, DriveConstants.MAX_DRIVE_SPEED);
+      sim.update(SimConstants.LOOP_PERIOD);
+      SimHooks.stepTiming(SimConstants.LOOP_PERIOD);
+    }
+    CommandScheduler.getInstance().run();
+  }
+
+  /**
+   * Run a command by hand for a number of loops, then let the robot come to a stop.
+   * @return How far the simulated robot moved on the field.
+   */
+  private Translation2d run(Command command, int loops) {
+    double startX = sim.getX();
+    double startY = sim.getY();
+    command.initialize();
+    for (int i = 0; i < loops; i++) {
+      CommandScheduler.getInstance().run();
+      command.execute();
+      sim.update(SimConstants.LOOP_PERIOD);
+      SimHooks.stepTiming(SimConstants.LOOP_PERIOD);
+    }
+    command.end(true);
+    run(new ChassisSpeeds(), LOOPS / 3);
+    return new Translation2d(sim.getX() - startX, sim.getY() - startY);
+  }
+
+  @Test
+  void odometryFollowsTheRobotDrivingForward() {
+    run(new ChassisSpeeds(1, 0, 0), LOOPS);
+    run(new ChassisSpeeds(), LOOPS / 3);
+
+    assertTrue(sim.getX() > 0.5, "robot should have driven forward, was at " + sim.getX());
+    Pose2d pose = swerve.getPose();
+    assertEquals(sim.getX(), pose.getX(), 0.1);
+    assertEquals(sim.getY(), pose.getY(), 0.1);
+  }
+
+  @Test
+  void headingTurnsTheSameWayAsTheRobot() {
+    run(new ChassisSpeeds(0, 0, 1.5), LOOPS);
+
+    double heading = MathUtil.angleModulus(sim.getHeading());
+    assertTrue(heading > 0.5, "robot should have turned counter-clockwise, was at " + heading);
+    // The pose is counter-clockwise positive, the gyro clockwise like the NavX
+    assertEquals(0, MathUtil.angleModulus(swerve.getPose().getRotation().getRadians() - heading), Math.toRadians(3));
+    assertEquals(-Math.toDegrees(sim.getHeading()), swerve.getGyroAngle(), 1);
+    assertEquals(heading, swerve.getRotation2d().getRadians(), Math.toRadians(1));
+  }
+
+  @Test
+  void stubHeadingIsCounterClockwise() {
+    StubHardware.Gyro gyro = new StubHardware.Gyro();
+    try (SwerveDrive stub = new SwerveDrive(
+      gyro,
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      0)) {
+      stub.updateInputs();
+      // The gyro's clockwise, the rotation's counter-clockwise
+      assertEquals(-stub.getHeading(), stub.getRotation2d().getDegrees(), 0.1);
+    }
+  }
+
+  @Test
+  void shootOnTheMoveDrivesTheSameWayAsTheJoystick(@TempDir Path directory) {
+    XboxController driver = new XboxController(0);
+    XboxControllerSim stick = new XboxControllerSim(driver);
+    // Up and a little right on the left stick
+    stick.setLeftY(-0.8);
+    stick.setLeftX(0.4);
+    stick.notifyNewData();
+
+    Translation2d joystick = run(new DriveWithJoystick(swerve, driver, false, false), LOOPS / 2);
+    // No shot map, so it drives and aims without ever shooting
+    ShotSolver solver = new ShotSolver(new ShotMap(directory.resolve("shotmap.csv").toFile()));
+    Translation2d shooting = run(ShootOnTheMove.withStick(swerve, new Outtake(new OuttakeIOSim()), new Intake(new IntakeIOSim()),
+      new Wrist(new WristIOSim()), solver, driver), LOOPS / 2);
+
+    assertTrue(joystick.getNorm() > 0.2, "joystick should have moved the robot, moved " + joystick.getNorm());
+    assertTrue(shooting.getNorm() > 0.2, "shoot on the move should have moved the robot, moved " + shooting.getNorm());
+    // Shoot on the move turns to aim on the way, but the field relative direction should hold
+    assertEquals(0, joystick.getAngle().minus(shooting.getAngle()).getDegrees(), 15);
+  }
+
+  @Test
+  void measuredSpeedsMatchTheRobot() {
+    run(new ChassisSpeeds(0.8, 0.6, 0), LOOPS);
+
+    // Moving steadily by now, so a loop's lag in the measurement doesn't matter much
+    double vx = swerve.getFieldVelocityX();
+    double vy = swerve.getFieldVelocityY();
+    assertEquals(sim.getSpeed(), Math.hypot(vx, vy), 0.1);
+    assertEquals(Math.atan2(0.6, 0.8), Math.atan2(vy, vx), Math.toRadians(5));
+  }
+
+  @Test
+  void measuredSpeedsAreFromThisLoop() {
+    // Still speeding up, so last loop's wheel speeds would be well off
+    run(new ChassisSpeeds(2, 0, 0), 5);
+
+    double wheelSpeed = 0;
+    for (int i = 0; i < sim.getModuleCount(); i++) {
+      // All four point straight ahead, though any of them may be flipped round and spinning backwards
+      wheelSpeed += Math.abs(sim.getWheelSpeed(i));
+    }
+    wheelSpeed /= sim.getModuleCount();
+    assertTrue(wheelSpeed > 0.1, "wheels should be moving, were at " + wheelSpeed);
+    assertEquals(wheelSpeed, Math.hypot(swerve.getFieldVelocityX(), swerve.getFieldVelocityY()), 0.01);
+  }
+}
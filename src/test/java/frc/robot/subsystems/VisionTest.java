@@ -0,0 +1,183 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static frc.robot.Constants.LimelightConstants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.StubHardware;
+
+/**
+ * Feeds hand made frames through each of the vision rejection rules.
+ */
+class VisionTest {
+
+  /**
+   * A camera that hands over whatever frames the test queued up.
+   */
+  private static class Camera implements VisionIO {
+    final List<VisionIO.Frame> queued = new ArrayList<>();
+
+    @Override
+    public String getName() {
+      return "Test";
+    }
+
+    @Override
+    public int readFrames(VisionIO.Frame[] frames) {
+      int count = Math.min(queued.size(), frames.length);
+      for (int i = 0; i < count; i++) {
+        frames[i].copyFrom(queued.get(i));
+      }
+      queued.clear();
+      return count;
+    }
+  }
+
+  private SwerveDrive swerve;
+  private Camera camera;
+  private Vision vision;
+
+  @BeforeAll
+  static void startHAL() {
+    StubHardware.startHAL();
+  }
+
+  @BeforeEach
+  void setUp() {
+    swerve = new SwerveDrive(
+      new StubHardware.Gyro(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      new StubHardware.ModuleIO(),
+      0);
+    camera = new Camera();
+    vision = new Vision(swerve, camera);
+  }
+
+  @AfterEach
+  void tearDown() {
+    swerve.close();
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+  }
+
+  /**
+   * A frame that passes every check: two close tags, in the field, captured a moment ago.
+   */
+  private static VisionIO.Frame goodFrame() {
+    VisionIO.Frame frame = new VisionIO.Frame();
+    frame.timestamp = Timer.getFPGATimestamp() - 0.05;
+    frame.x = FIELD_LENGTH / 2;
+    frame.y = FIELD_WIDTH / 2;
+    frame.latency = 30;
+    frame.tagCount = 2;
+    frame.averageTagDistance = 2;
+    frame.ambiguity = 0;
+    return frame;
+  }
+
+  /**
+   * Run one frame through the checks.
+   * @return Whether it was accepted.
+   */
+  private boolean check(VisionIO.Frame frame) {
+    long accepted = vision.getAcceptedCount(0);
+    long rejected = vision.getRejectedCount(0);
+    camera.queued.add(frame);
+    vision.periodic();
+    assertEquals(1, vision.getAcceptedCount(0) - accepted + vision.getRejectedCount(0) - rejected);
+    return vision.getAcceptedCount(0) > accepted;
+  }
+
+  @Test
+  void acceptsAGoodFrame() {
+    assertTrue(check(goodFrame()));
+  }
+
+  @Test
+  void rejectsTooFewTags() {
+    VisionIO.Frame frame = goodFrame();
+    frame.tagCount = MIN_TAG_COUNT - 1;
+    assertFalse(check(frame));
+  }
+
+  @Test
+  void rejectsAmbiguousSingleTags() {
+    VisionIO.Frame frame = goodFrame();
+    frame.tagCount = 1;
+    frame.ambiguity = MAX_SINGLE_TAG_AMBIGUITY + 0.05;
+    assertFalse(check(frame));
+
+    // The same ambiguity is fine with more than one tag in view
+    frame.tagCount = 2;
+    assertTrue(check(frame));
+  }
+
+  @Test
+  void rejectsFarTags() {
+    VisionIO.Frame frame = goodFrame();
+    frame.tagCount = 1;
+    frame.averageTagDistance = MAX_SINGLE_TAG_DISTANCE + 0.5;
+    assertFalse(check(frame));
+
+    // More tags can be trusted from farther out, but not forever
+    frame.tagCount = 2;
+    assertTrue(check(frame));
+    frame.averageTagDistance = MAX_MULTI_TAG_DISTANCE + 0.5;
+    assertFalse(check(frame));
+  }
+
+  @Test
+  void rejectsPosesOffTheField() {
+    VisionIO.Frame frame = goodFrame();
+    frame.x = -0.5;
+    assertFalse(check(frame));
+
+    frame = goodFrame();
+    frame.x = FIELD_LENGTH + 0.5;
+    assertFalse(check(frame));
+
+    frame = goodFrame();
+    frame.y = -0.5;
+    assertFalse(check(frame));
+
+    frame = goodFrame();
+    frame.y = FIELD_WIDTH + 0.5;
+    assertFalse(check(frame));
+  }
+
+  @Test
+  void rejectsFramesFromTheFuture() {
+    VisionIO.Frame frame = goodFrame();
+    frame.timestamp = Timer.getFPGATimestamp() + 10;
+    assertFalse(check(frame));
+  }
+
+  @Test
+  void countsEveryFrameInALoop() {
+    VisionIO.Frame bad = goodFrame();
+    bad.tagCount = 0;
+    camera.queued.add(goodFrame());
+    camera.queued.add(bad);
+    camera.queued.add(goodFrame());
+    vision.periodic();
+
+    assertEquals(2, vision.getAcceptedCount(0));
+    assertEquals(1, vision.getRejectedCount(0));
+  }
+}
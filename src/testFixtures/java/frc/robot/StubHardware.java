@@ -0,0 +1,126 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.subsystems.GyroIO;
+import frc.robot.subsystems.SwerveDrive;
+
+/**
+ * Stand-in hardware shared by the tests and the benchmarks. The encoders and gyro creep forward on
+ * every read, so the code under test never gets to take the "nothing changed" shortcuts it would
+ * skip on a moving robot.
+ */
+public final class StubHardware {
+
+  private static boolean halStarted;
+
+  /**
+   * Start the simulated HAL once per JVM. Subsystems, NetworkTables and the driver station need it.
+   */
+  public static synchronized void startHAL() {
+    if (!halStarted) {
+      HAL.initialize(500, 0);
+      halStarted = true;
+    }
+  }
+
+  /**
+   * A swerve module whose wheel is always rolling and turning a little.
+   */
+  public static class ModuleIO implements SwerveModuleIO {
+    private double drivePosition;
+    private double rotatePosition;
+
+    @Override
+    public void updateInputs(SwerveModule.Inputs inputs) {
+      inputs.drivePosition = sampleDrivePosition();
+      inputs.driveVelocity = 3;
+      inputs.rotatePosition = sampleRotatePosition();
+      inputs.rotateVelocity = 0.5;
+    }
+
+    @Override
+    public double sampleDrivePosition() {
+      drivePosition += 0.012;
+      return drivePosition;
+    }
+
+    @Override
+    public double sampleRotatePosition() {
+      rotatePosition += 0.002;
+      return rotatePosition;
+    }
+
+    @Override
+    public double getAbsoluteAngle() {
+      return 0;
+    }
+
+    @Override
+    public void setEncoders(double drivePosition, double rotatePosition) {
+      this.drivePosition = drivePosition;
+      this.rotatePosition = rotatePosition;
+    }
+
+    @Override
+    public void setDriveOutput(double percent) {}
+
+    @Override
+    public void setDriveVoltage(double volts) {}
+
+    @Override
+    public void configureDrivePID(double p, double i, double d) {}
+
+    @Override
+    public void setDriveVelocity(double metersPerSecond, double feedforwardVolts) {}
+
+    @Override
+    public void setRotateOutput(double percent) {}
+
+    @Override
+    public void configureRotatePID(double p, double i, double d) {}
+
+    @Override
+    public void setRotatePosition(double radians) {}
+
+    @Override
+    public void setDriveCurrentLimit(int amps) {}
+
+    @Override
+    public void setRotateCurrentLimit(int amps) {}
+
+    @Override
+    public void setBrakeMode(boolean brake) {}
+  }
+
+  /**
+   * A gyro on a robot that is always turning a little.
+   */
+  public static class Gyro implements GyroIO {
+    private double angle;
+
+    @Override
+    public void updateInputs(SwerveDrive.Inputs inputs) {
+      inputs.angle = sampleAngle();
+      inputs.yaw = Math.IEEEremainder(inputs.angle, 360);
+    }
+
+    @Override
+    public double sampleAngle() {
+      angle += 0.05;
+      return angle;
+    }
+
+    @Override
+    public void reset() {
+      angle = 0;
+    }
+  }
+
+  private StubHardware() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+}